@@ -162,6 +162,7 @@ public class CqlSlowLogPlugin extends AbstractPlugin {
    public synchronized void onPreDeactivate() {
       RpcRegistry.unregister(PerformanceObjectsController.getPerfBeanName(this.bean.getClass()));
       this.disableRefresh();
+      this.writer.deactivate();
       super.onPreDeactivate();
    }
 
@@ -187,11 +188,13 @@ public class CqlSlowLogPlugin extends AbstractPlugin {
          }).collect(Collectors.toSet());
          String tablesString = keyspaceAndTableNames.isEmpty()?"":keyspaceAndTableNames.toString();
          String cqlStrings = cql.isEmpty()?"":cql.toString();
-         ((Queue)this.bean.slowestQueries.get()).add(new CqlSlowLogMXBean.SlowCqlQuery(tablesString, sourceIp.toString(), username, startTime.toString(), duration, cqlStrings, null == tracingSessionId?"":tracingSessionId.toString()));
+         CqlSlowLogMXBean.SlowCqlQuery query = new CqlSlowLogMXBean.SlowCqlQuery(tablesString, sourceIp.toString(), username, startTime.toString(), duration, cqlStrings, null == tracingSessionId?"":tracingSessionId.toString());
+         ((Queue)this.bean.slowestQueries.get()).add(query);
+         this.bean.addRecentQuery(query);
          if(this.bean.isSkipWritingToDB()) {
             logger.debug("Not writing slow query to DB");
-         } else {
-            this.writer.recordSlowOperation(keyspaceTablePairs, sourceIp, username, startTime, duration, cql, tracingSessionId);
+         } else if(!this.writer.recordSlowOperation(keyspaceTablePairs, sourceIp, username, startTime, duration, cql, tracingSessionId)) {
+            this.bean.markDroppedQuery();
          }
       } catch (Exception var13) {
          logger.debug("Caught exception when writing to cql slow log", var13);
@@ -14,10 +14,23 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.cassandra.cql3.Attributes;
 import org.apache.cassandra.cql3.CQLStatement;
+import org.apache.cassandra.cql3.statements.BatchStatement;
+import org.apache.cassandra.cql3.statements.ModificationStatement;
+import org.apache.cassandra.cql3.statements.BatchStatement.Type;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.db.marshal.ListType;
 import org.apache.cassandra.db.marshal.SetType;
@@ -38,17 +51,25 @@ public class CqlSlowLogWriter {
    private static final Logger logger = LoggerFactory.getLogger(CqlSlowLogWriter.class);
    public static final String CQL_NODE_SLOW_LOG_INSERT = String.format("INSERT INTO %s.%s (node_ip,date,table_names,source_ip,username,start_time,duration,commands,parameters,tracing_session_id)VALUES (?,?,?,?,?,?,?,?,?,?) USING TTL ?", new Object[]{"dse_perf", "node_slow_log"});
    private static final boolean SLOW_QUERIES_FOREGROUND = Boolean.getBoolean("log_slow_queries_foreground");
+   private static final int BUFFER_SIZE = Integer.getInteger("dse.cql_slow_log.buffer_size", 4096).intValue();
+   private static final int MAX_BATCH_SIZE = Integer.getInteger("dse.cql_slow_log.max_batch_size", 64).intValue();
+   private static final long FLUSH_INTERVAL_MS = Long.getLong("dse.cql_slow_log.flush_interval_ms", 1000L).longValue();
    private final ByteBuffer nodeIp;
    private final ByteBuffer slowLogTTL;
    private final ByteBuffer emptyParamMap;
    private final ThreadPoolPlugin threadPool;
+   private final BlockingQueue<CqlSlowLogWriter.SlowOperation> pending;
+   private final AtomicBoolean flushScheduled = new AtomicBoolean();
+   private final Object flushLock = new Object();
    private volatile CQLStatement insertStatement;
+   private ScheduledFuture<?> flusher;
 
    public CqlSlowLogWriter(ThreadPoolPlugin threadPool) {
       this.threadPool = threadPool;
       this.nodeIp = ByteBufferUtil.bytes(Addresses.Internode.getBroadcastAddress());
       this.slowLogTTL = ByteBufferUtil.bytes(DseConfig.getCqlSlowLogTTL());
       this.emptyParamMap = MapSerializer.getInstance(UTF8Serializer.instance, UTF8Serializer.instance, UTF8Type.instance).serialize(Collections.emptyMap());
+      this.pending = new ArrayBlockingQueue(Math.max(1, BUFFER_SIZE));
    }
 
    public synchronized void activate() {
@@ -56,17 +77,98 @@ public class CqlSlowLogWriter {
          this.insertStatement = prepareStatement(CQL_NODE_SLOW_LOG_INSERT, QueryState.forInternalCalls());
       }
 
+      if(this.flusher == null && !SLOW_QUERIES_FOREGROUND) {
+         this.flusher = this.threadPool.scheduleAtFixedRate(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      }
+
    }
 
-   public void recordSlowOperation(Set<Pair<String, String>> keyspaceTablePairs, InetAddress sourceIp, String username, UUID startTimeUUID, long duration, List<String> cqlStrings, UUID tracingSessionId) {
-      Runnable task = () -> {
-         logger.debug("Recording statements with duration of {} in slow log", Long.valueOf(duration));
-         doInsert(this.insertStatement, this.getVariables(keyspaceTablePairs, sourceIp, username, startTimeUUID, duration, cqlStrings, tracingSessionId));
-      };
+   public synchronized void deactivate() {
+      if(this.flusher != null) {
+         this.flusher.cancel(false);
+         this.flusher = null;
+      }
+
+      this.flush();
+   }
+
+   public boolean recordSlowOperation(Set<Pair<String, String>> keyspaceTablePairs, InetAddress sourceIp, String username, UUID startTimeUUID, long duration, List<String> cqlStrings, UUID tracingSessionId) {
+      CqlSlowLogWriter.SlowOperation operation = new CqlSlowLogWriter.SlowOperation(keyspaceTablePairs, sourceIp, username, startTimeUUID, duration, cqlStrings, tracingSessionId);
       if(SLOW_QUERIES_FOREGROUND) {
-         task.run();
+         logger.debug("Recording statements with duration of {} in slow log", Long.valueOf(duration));
+         doInsert(this.insertStatement, this.getVariables(operation));
+         return true;
+      } else if(!this.pending.offer(operation)) {
+         logger.trace("Slow log buffer is full, dropping statements with duration of {}", Long.valueOf(duration));
+         return false;
       } else {
-         this.threadPool.submit(task);
+         if(this.pending.size() >= MAX_BATCH_SIZE && this.flushScheduled.compareAndSet(false, true)) {
+            this.threadPool.submit(this::scheduledFlush);
+         }
+
+         return true;
+      }
+   }
+
+   private void scheduledFlush() {
+      this.flushScheduled.set(false);
+      this.flush();
+   }
+
+   void flush() {
+      if(this.insertStatement != null) {
+         Object var1 = this.flushLock;
+         synchronized(this.flushLock) {
+            List<CqlSlowLogWriter.SlowOperation> operations = new ArrayList(Math.min(this.pending.size(), BUFFER_SIZE));
+            this.pending.drainTo(operations);
+            if(!operations.isEmpty()) {
+               logger.debug("Recording {} slow statements in slow log", Integer.valueOf(operations.size()));
+               Map<Date, List<List<ByteBuffer>>> partitions = new LinkedHashMap();
+               Iterator var4 = operations.iterator();
+
+               while(var4.hasNext()) {
+                  CqlSlowLogWriter.SlowOperation operation = (CqlSlowLogWriter.SlowOperation)var4.next();
+                  Date date = getUTCMidnight(UUIDGen.unixTimestamp(operation.startTime));
+                  List<List<ByteBuffer>> rows = (List)partitions.get(date);
+                  if(rows == null) {
+                     rows = new ArrayList();
+                     partitions.put(date, rows);
+                  }
+
+                  rows.add(this.getVariables(operation));
+               }
+
+               Iterator var10 = partitions.entrySet().iterator();
+
+               while(var10.hasNext()) {
+                  Entry<Date, List<List<ByteBuffer>>> entry = (Entry)var10.next();
+                  List<List<ByteBuffer>> rows = (List)entry.getValue();
+
+                  for(int i = 0; i < rows.size(); i += MAX_BATCH_SIZE) {
+                     this.doBatchInsert(rows.subList(i, Math.min(rows.size(), i + MAX_BATCH_SIZE)));
+                  }
+               }
+            }
+         }
+      }
+
+   }
+
+   private void doBatchInsert(List<List<ByteBuffer>> rows) {
+      if(rows.size() == 1) {
+         doInsert(this.insertStatement, (List)rows.get(0));
+      } else {
+         try {
+            List<ModificationStatement> statements = new ArrayList(rows.size());
+
+            for(int i = 0; i < rows.size(); ++i) {
+               statements.add((ModificationStatement)this.insertStatement);
+            }
+
+            QueryProcessorUtil.processBatchBlocking(new BatchStatement(-1, Type.UNLOGGED, statements, Attributes.none()), ConsistencyLevel.ONE, rows);
+         } catch (Exception var4) {
+            CqlWriter.handleWriteException("node_slow_log", var4);
+         }
       }
 
    }
@@ -75,18 +177,18 @@ public class CqlSlowLogWriter {
       return StatementUtils.prepareStatementBlocking(cql, queryState, "Error preparing cql slow log writer");
    }
 
-   private List<ByteBuffer> getVariables(Set<Pair<String, String>> tables, InetAddress sourceIp, String username, UUID startTime, long duration, List<String> cqlStrings, UUID tracingSessionId) {
+   private List<ByteBuffer> getVariables(CqlSlowLogWriter.SlowOperation operation) {
       List<ByteBuffer> vars = new ArrayList();
       vars.add(this.nodeIp);
-      vars.add(TimestampType.instance.decompose(getUTCMidnight(UUIDGen.unixTimestamp(startTime))));
-      vars.add(getTableSet(tables));
-      vars.add(ByteBufferUtil.bytes(sourceIp));
-      vars.add(ByteBufferUtil.bytes(username));
-      vars.add(ByteBufferUtil.bytes(startTime));
-      vars.add(ByteBufferUtil.bytes(duration));
-      vars.add(getCommandList(cqlStrings));
+      vars.add(TimestampType.instance.decompose(getUTCMidnight(UUIDGen.unixTimestamp(operation.startTime))));
+      vars.add(getTableSet(operation.tables));
+      vars.add(ByteBufferUtil.bytes(operation.sourceIp));
+      vars.add(ByteBufferUtil.bytes(operation.username));
+      vars.add(ByteBufferUtil.bytes(operation.startTime));
+      vars.add(ByteBufferUtil.bytes(operation.duration));
+      vars.add(getCommandList(operation.cqlStrings));
       vars.add(this.emptyParamMap);
-      vars.add(null == tracingSessionId?null:ByteBufferUtil.bytes(tracingSessionId));
+      vars.add(null == operation.tracingSessionId?null:ByteBufferUtil.bytes(operation.tracingSessionId));
       vars.add(this.slowLogTTL);
       return vars;
    }
@@ -115,4 +217,24 @@ public class CqlSlowLogWriter {
       }
 
    }
+
+   private static class SlowOperation {
+      private final Set<Pair<String, String>> tables;
+      private final InetAddress sourceIp;
+      private final String username;
+      private final UUID startTime;
+      private final long duration;
+      private final List<String> cqlStrings;
+      private final UUID tracingSessionId;
+
+      SlowOperation(Set<Pair<String, String>> tables, InetAddress sourceIp, String username, UUID startTime, long duration, List<String> cqlStrings, UUID tracingSessionId) {
+         this.tables = tables;
+         this.sourceIp = sourceIp;
+         this.username = username;
+         this.startTime = startTime;
+         this.duration = duration;
+         this.cqlStrings = cqlStrings;
+         this.tracingSessionId = tracingSessionId;
+      }
+   }
 }
@@ -18,6 +18,7 @@ import org.apache.cassandra.db.rows.Unfiltered;
 import org.apache.cassandra.db.rows.Row.Deletion;
 import org.apache.cassandra.db.rows.Unfiltered.Kind;
 import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +57,32 @@ public abstract class AbstractTimeWindowStorageStrategy extends TieredStorageStr
       return this.resolution.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS);
    }
 
+   private int getTierForAge(long age) {
+      Iterator var3 = this.tiers.iterator();
+
+      TieredStorageStrategy.Tier tier;
+      do {
+         if(!var3.hasNext()) {
+            return this.defaultTier.getLevel();
+         }
+
+         tier = (TieredStorageStrategy.Tier)var3.next();
+      } while(age > ((AbstractTimeWindowStorageStrategy.Tier)tier).maxAge);
+
+      return tier.getLevel();
+   }
+
+   public TieredStorageStrategy.Tier getTierForSSTable(SSTableReader sstable) {
+      if(sstable.getMinTimestamp() > sstable.getMaxTimestamp()) {
+         return null;
+      } else {
+         long now = this.now();
+         int newest = this.getTierForAge(now - sstable.getMaxTimestamp());
+         int oldest = this.getTierForAge(now - sstable.getMinTimestamp());
+         return newest == oldest?this.getTier(newest):null;
+      }
+   }
+
    @VisibleForTesting
    static long getMinTimestamp(Unfiltered unfiltered) {
       if(unfiltered.kind() != Kind.ROW) {
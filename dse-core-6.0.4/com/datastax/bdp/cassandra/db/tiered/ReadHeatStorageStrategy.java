@@ -0,0 +1,269 @@
+package com.datastax.bdp.cassandra.db.tiered;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DeletionTime;
+import org.apache.cassandra.db.compaction.AbstractCompactionStrategy;
+import org.apache.cassandra.db.compaction.SizeTieredCompactionStrategy;
+import org.apache.cassandra.db.compaction.SizeTieredCompactionStrategyOptions;
+import org.apache.cassandra.db.rows.Unfiltered;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ReadHeatStorageStrategy extends TieredStorageStrategy {
+   private static final Logger logger = LoggerFactory.getLogger(ReadHeatStorageStrategy.class);
+   static final String MIN_TIER_READ_RATES = "min_tier_read_rates";
+   static final String HYSTERESIS = "hysteresis";
+   static final double DEFAULT_HYSTERESIS = 0.2D;
+   static final String RELOCATION_THROUGHPUT = "relocation_throughput_mb_per_sec";
+   static final double DEFAULT_RELOCATION_THROUGHPUT = 16.0D;
+   static final String MIN_RELOCATION_AGE = "min_relocation_age_seconds";
+   static final long DEFAULT_MIN_RELOCATION_AGE = 21600L;
+   static final long MIN_RELOCATION_AGE_FLOOR = 3L * TimeUnit.HOURS.toSeconds(2L);
+   private final double hysteresis;
+   private final long minRelocationAgeMillis;
+   private final RateLimiter relocationLimiter;
+   private final Map<Descriptor, Integer> pendingRelocations = new ConcurrentHashMap();
+
+   public ReadHeatStorageStrategy(ColumnFamilyStore cfs, String name, TieredStorageConfig config, Map<String, String> options) {
+      super(cfs, name, config, options);
+      this.hysteresis = options.containsKey("hysteresis")?Double.parseDouble((String)options.get("hysteresis")):0.2D;
+      this.minRelocationAgeMillis = TimeUnit.SECONDS.toMillis(options.containsKey("min_relocation_age_seconds")?Long.parseLong((String)options.get("min_relocation_age_seconds")):21600L);
+      double throughput = options.containsKey("relocation_throughput_mb_per_sec")?Double.parseDouble((String)options.get("relocation_throughput_mb_per_sec")):16.0D;
+      this.relocationLimiter = RateLimiter.create(throughput > 0.0D?throughput * 1024.0D:1.7976931348623157E308D);
+   }
+
+   protected static double[] getMinReadRates(Map<String, String> options) {
+      String[] stringRates = ((String)options.get("min_tier_read_rates")).split(",");
+      double[] rates = new double[stringRates.length];
+
+      for(int i = 0; i < stringRates.length; ++i) {
+         rates[i] = Double.parseDouble(stringRates[i].trim());
+      }
+
+      return rates;
+   }
+
+   protected List<TieredStorageStrategy.Tier> createTiers(TieredStorageConfig config, Map<String, String> options) {
+      List<TieredStorageStrategy.Tier> tiers = new ArrayList(config.tiers.size());
+      double[] minReadRates = getMinReadRates(options);
+      int numTiers = Math.min(minReadRates.length + 1, config.tiers.size());
+
+      for(int level = 0; level < numTiers; ++level) {
+         double minReadRate = level < minReadRates.length?minReadRates[level]:0.0D;
+         tiers.add(new ReadHeatStorageStrategy.Tier(level, (TieredStorageConfig.Tier)config.tiers.get(level), options, minReadRate));
+      }
+
+      return tiers;
+   }
+
+   protected TieredStorageStrategy.Context newContext() {
+      return new ReadHeatStorageStrategy.HeatContext(0);
+   }
+
+   protected TieredStorageStrategy.Context newContext(Collection<SSTableReader> sstables) {
+      if(sstables.isEmpty()) {
+         return this.newContext();
+      } else {
+         int level = this.defaultTier.getLevel();
+         Integer target = null;
+         Iterator var4 = sstables.iterator();
+
+         while(var4.hasNext()) {
+            SSTableReader sstable = (SSTableReader)var4.next();
+            Integer pending = (Integer)this.pendingRelocations.remove(sstable.descriptor);
+            if(pending != null) {
+               target = Integer.valueOf(target == null?pending.intValue():Math.min(target.intValue(), pending.intValue()));
+            }
+
+            level = Math.min(level, this.currentLevel(sstable));
+         }
+
+         return new ReadHeatStorageStrategy.HeatContext(target != null?target.intValue():level);
+      }
+   }
+
+   public TieredStorageStrategy.Tier getTierForSSTable(SSTableReader sstable) {
+      Integer pending = (Integer)this.pendingRelocations.remove(sstable.descriptor);
+      return pending == null?null:this.getTier(pending.intValue());
+   }
+
+   private int currentLevel(SSTableReader sstable) {
+      TieredStorageStrategy.Tier tier = this.manages(sstable.getFilename());
+      return tier == null?this.defaultTier.getLevel():tier.getLevel();
+   }
+
+   private static double readRate(SSTableReader sstable) {
+      return sstable.getReadMeter() == null?0.0D:sstable.getReadMeter().twoHourRate();
+   }
+
+   private double minReadRate(int level) {
+      return ((ReadHeatStorageStrategy.Tier)this.getTier(level)).minReadRate;
+   }
+
+   private int targetLevel(double readRate, int currentLevel) {
+      int level;
+      for(level = currentLevel; level > 0 && readRate >= this.minReadRate(level - 1) * (1.0D + this.hysteresis); --level) {
+         ;
+      }
+
+      if(level == currentLevel) {
+         while(level < this.tiers.size() - 1 && readRate < this.minReadRate(level) * (1.0D - this.hysteresis)) {
+            ++level;
+         }
+      }
+
+      return level;
+   }
+
+   public SSTableReader nextRelocationCandidate(Iterable<SSTableReader> sstables) {
+      long now = System.currentTimeMillis();
+      SSTableReader promotion = null;
+      SSTableReader demotion = null;
+      Iterator var8 = sstables.iterator();
+
+      while(var8.hasNext()) {
+         SSTableReader sstable = (SSTableReader)var8.next();
+         if(sstable.getReadMeter() != null && now - sstable.getCreationTimeFor(Component.DATA) >= this.minRelocationAgeMillis) {
+            int current = this.currentLevel(sstable);
+            int target = this.targetLevel(readRate(sstable), current);
+            if(target < current && (promotion == null || readRate(sstable) > readRate(promotion))) {
+               promotion = sstable;
+            } else if(target > current && (demotion == null || readRate(sstable) < readRate(demotion))) {
+               demotion = sstable;
+            }
+         }
+      }
+
+      return promotion != null?promotion:demotion;
+   }
+
+   public boolean scheduleRelocation(SSTableReader sstable) {
+      int current = this.currentLevel(sstable);
+      int level = this.targetLevel(readRate(sstable), current);
+      if(level == current) {
+         return false;
+      } else if(!this.relocationLimiter.tryAcquire((int)Math.max(1L, Math.min(2147483647L, sstable.onDiskLength() / 1024L)))) {
+         logger.trace("Relocation budget exhausted, deferring move of {} to tier {}", sstable, Integer.valueOf(level));
+         return false;
+      } else {
+         logger.debug("Relocating {} from tier {} to tier {} (read rate {}/s)", new Object[]{sstable, Integer.valueOf(current), Integer.valueOf(level), String.format("%.2f", new Object[]{Double.valueOf(readRate(sstable))})});
+         this.pendingRelocations.put(sstable.descriptor, Integer.valueOf(level));
+         return true;
+      }
+   }
+
+   private static double parseDouble(Map<String, String> options, String key, double defaultValue) throws ConfigurationException {
+      String optionValue = (String)options.get(key);
+
+      try {
+         return optionValue == null?defaultValue:Double.parseDouble(optionValue);
+      } catch (NumberFormatException var6) {
+         throw new ConfigurationException(String.format("%s is not a parsable float for %s", new Object[]{optionValue, key}), var6);
+      }
+   }
+
+   public static Map<String, String> validateOptions(Map<String, String> options) throws ConfigurationException {
+      if(!options.containsKey("min_tier_read_rates")) {
+         throw new ConfigurationException(String.format("%s not specified", new Object[]{"min_tier_read_rates"}));
+      } else {
+         double[] minReadRates;
+         try {
+            minReadRates = getMinReadRates(options);
+         } catch (NumberFormatException var10) {
+            throw new ConfigurationException(String.format("Invalid read rates value %s (%s)", new Object[]{options.get("min_tier_read_rates"), var10.getMessage()}));
+         }
+
+         double lastRate = 1.7976931348623157E308D;
+         double[] var4 = minReadRates;
+         int var5 = minReadRates.length;
+
+         for(int var6 = 0; var6 < var5; ++var6) {
+            double rate = var4[var6];
+            if(rate <= 0.0D) {
+               throw new ConfigurationException(String.format("all read rates specified for %s must be greater than 0", new Object[]{"min_tier_read_rates"}));
+            }
+
+            if(rate >= lastRate) {
+               throw new ConfigurationException(String.format("Each tier read rate must be lower than the last (%s >= %s)", new Object[]{Double.valueOf(rate), Double.valueOf(lastRate)}));
+            }
+
+            lastRate = rate;
+         }
+
+         double hysteresis = parseDouble(options, "hysteresis", 0.2D);
+         if(hysteresis >= 0.0D && hysteresis < 1.0D) {
+            if(parseDouble(options, "relocation_throughput_mb_per_sec", 16.0D) < 0.0D) {
+               throw new ConfigurationException(String.format("%s must be non negative", new Object[]{"relocation_throughput_mb_per_sec"}));
+            } else {
+               try {
+                  if(options.containsKey("min_relocation_age_seconds") && Long.parseLong((String)options.get("min_relocation_age_seconds")) < MIN_RELOCATION_AGE_FLOOR) {
+                     throw new ConfigurationException(String.format("%s must be at least %d so that read rates span several meter windows", new Object[]{"min_relocation_age_seconds", Long.valueOf(MIN_RELOCATION_AGE_FLOOR)}));
+                  }
+               } catch (NumberFormatException var11) {
+                  throw new ConfigurationException(String.format("%s is not a parsable int (base10) for %s", new Object[]{options.get("min_relocation_age_seconds"), "min_relocation_age_seconds"}), var11);
+               }
+
+               Map<String, String> unchecked = new HashMap(options);
+               unchecked.remove("min_tier_read_rates");
+               unchecked.remove("hysteresis");
+               unchecked.remove("relocation_throughput_mb_per_sec");
+               unchecked.remove("min_relocation_age_seconds");
+               return SizeTieredCompactionStrategyOptions.validateOptions(options, unchecked);
+            }
+         } else {
+            throw new ConfigurationException(String.format("%s must be between 0 and 1 (got %s)", new Object[]{"hysteresis", Double.valueOf(hysteresis)}));
+         }
+      }
+   }
+
+   class Tier extends TieredStorageStrategy.Tier {
+      private final double minReadRate;
+
+      public Tier(int level, TieredStorageConfig.Tier config, Map<String, String> options, double minReadRate) {
+         super(level, config, options);
+         this.minReadRate = minReadRate;
+      }
+
+      public boolean applies(Unfiltered row, TieredStorageStrategy.Context ctx) {
+         return ((ReadHeatStorageStrategy.HeatContext)ctx).level == this.level;
+      }
+
+      public boolean applies(DeletionTime deletion, TieredStorageStrategy.Context ctx) {
+         return ((ReadHeatStorageStrategy.HeatContext)ctx).level == this.level;
+      }
+
+      protected Class<? extends AbstractCompactionStrategy> getDefaultCompactionClass() {
+         return SizeTieredCompactionStrategy.class;
+      }
+
+      protected Map<String, String> cleanCompactionOptions(Map<String, String> options) {
+         Map<String, String> copy = new HashMap(super.cleanCompactionOptions(options));
+         copy.remove("min_tier_read_rates");
+         copy.remove("hysteresis");
+         copy.remove("relocation_throughput_mb_per_sec");
+         copy.remove("min_relocation_age_seconds");
+         return copy;
+      }
+   }
+
+   static class HeatContext implements TieredStorageStrategy.Context {
+      private final int level;
+
+      public HeatContext(int level) {
+         this.level = level;
+      }
+   }
+}
@@ -2,6 +2,7 @@ package com.datastax.bdp.cassandra.db.tiered;
 
 import com.google.common.hash.Hasher;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -82,12 +83,16 @@ public abstract class TieredRowWriter extends AbstractTransactional implements T
    protected final TieredStorageStrategy.Context context;
 
    public TieredRowWriter(TieredStorageStrategy strategy) {
+      this(strategy, Collections.emptySet());
+   }
+
+   public TieredRowWriter(TieredStorageStrategy strategy, Collection<SSTableReader> sstables) {
       this.strategy = strategy;
       this.numTiers = strategy.getTiers().size();
       ThreadFactory threadFactory = (new Builder()).namingPattern("TieredRowWriter-%d").build();
       this.executor = Executors.newFixedThreadPool(this.numTiers, threadFactory);
       this.rangeWriters = new RangeAwareWriter[this.numTiers];
-      this.context = strategy.newContext();
+      this.context = strategy.newContext(sstables);
    }
 
    protected abstract RangeAwareWriter createRangeAwareWriterForTier(TieredStorageStrategy.Tier var1);
@@ -21,6 +21,7 @@ import org.apache.cassandra.db.Directories.DataDirectory;
 import org.apache.cassandra.db.compaction.AbstractCompactionStrategy;
 import org.apache.cassandra.db.rows.Unfiltered;
 import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.CompactionParams;
 import org.apache.cassandra.utils.FBUtilities;
 import org.slf4j.Logger;
@@ -52,6 +53,22 @@ public abstract class TieredStorageStrategy {
 
    protected abstract TieredStorageStrategy.Context newContext();
 
+   protected TieredStorageStrategy.Context newContext(Collection<SSTableReader> sstables) {
+      return this.newContext();
+   }
+
+   public SSTableReader nextRelocationCandidate(Iterable<SSTableReader> sstables) {
+      return null;
+   }
+
+   public boolean scheduleRelocation(SSTableReader sstable) {
+      return true;
+   }
+
+   public TieredStorageStrategy.Tier getTierForSSTable(SSTableReader sstable) {
+      return null;
+   }
+
    public int getTierForRow(Unfiltered row, TieredStorageStrategy.Context ctx) {
       int idx = 0;
 
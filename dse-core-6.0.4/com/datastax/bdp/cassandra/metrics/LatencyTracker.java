@@ -1,68 +1,292 @@
 package com.datastax.bdp.cassandra.metrics;
 
+import com.datastax.bdp.cassandra.tracing.ClientConnectionMetadata;
 import com.datastax.bdp.config.DseConfig;
-import com.google.common.collect.AbstractIterator;
+import com.datastax.bdp.util.QuantileEstimator;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.concurrent.TPC;
+import org.apache.cassandra.concurrent.TPCTaskType;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.service.ClientState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LatencyTracker implements Iterable<RawObjectLatency> {
+public class LatencyTracker {
    private static final Logger logger = LoggerFactory.getLogger(LatencyTracker.class);
-   private Map<String, Map<String, LatencyValues>> interactions = new HashMap();
+   private final LatencyTracker.Interval[] perCore = new LatencyTracker.Interval[TPC.getNumCores() + 1];
+   private final Object sharedLock = new Object();
 
    public LatencyTracker() {
+      for(int i = 0; i < this.perCore.length; ++i) {
+         this.perCore[i] = new LatencyTracker.Interval();
+      }
+
    }
 
    public void reset() {
-      this.interactions.clear();
+      this.swapIntervals();
+   }
+
+   public void recordLatencyEvent(ClientState state, TableMetadata table, LatencyValues.EventType type, long latencyValue, TimeUnit unit) {
+      int core = TPC.getCoreId();
+      if(TPC.isValidCoreId(core)) {
+         this.perCore[core].record(state, table, type, unit.toNanos(latencyValue));
+      } else {
+         Object var8 = this.sharedLock;
+         synchronized(this.sharedLock) {
+            this.perCore[core].record(state, table, type, unit.toNanos(latencyValue));
+         }
+      }
+
+   }
+
+   public List<RawUserObjectLatency> drain() {
+      Map<LatencyTracker.ConnectionKey, Map<TableId, LatencyTracker.MergedLatencies>> merged = new HashMap();
+      Map<LatencyTracker.ConnectionKey, LatencyTracker.ConnectionLatencies> connectionInfos = new HashMap();
+      Iterator var3 = this.swapIntervals().iterator();
+
+      while(var3.hasNext()) {
+         LatencyTracker.Interval interval = (LatencyTracker.Interval)var3.next();
+         Iterator var5 = interval.connections.entrySet().iterator();
+
+         while(var5.hasNext()) {
+            Entry<LatencyTracker.ConnectionKey, LatencyTracker.ConnectionLatencies> entry = (Entry)var5.next();
+            LatencyTracker.ConnectionLatencies connection = (LatencyTracker.ConnectionLatencies)entry.getValue();
+            Map<TableId, LatencyTracker.MergedLatencies> tables = (Map)merged.get(entry.getKey());
+            if(tables == null) {
+               tables = new HashMap();
+               merged.put(entry.getKey(), tables);
+               connectionInfos.put(entry.getKey(), connection);
+            }
+
+            connection.drainTo((Map)tables);
+         }
+      }
+
+      List<RawUserObjectLatency> latencies = new ArrayList();
+      Iterator var10 = merged.entrySet().iterator();
+
+      while(var10.hasNext()) {
+         Entry<LatencyTracker.ConnectionKey, Map<TableId, LatencyTracker.MergedLatencies>> entry = (Entry)var10.next();
+         LatencyTracker.ConnectionLatencies connection = (LatencyTracker.ConnectionLatencies)connectionInfos.get(entry.getKey());
+         ClientConnectionMetadata ccm = new ClientConnectionMetadata(connection.address.getAddress(), connection.address.getPort(), connection.userName);
+         Iterator var13 = ((Map)entry.getValue()).values().iterator();
+
+         while(var13.hasNext()) {
+            LatencyTracker.MergedLatencies table = (LatencyTracker.MergedLatencies)var13.next();
+            latencies.add(new RawUserObjectLatency(ccm, table.toRawObjectLatency()));
+         }
+      }
+
+      logger.trace("Drained {} user/object latency records", Integer.valueOf(latencies.size()));
+      return latencies;
+   }
+
+   private List<LatencyTracker.Interval> swapIntervals() {
+      int cores = TPC.getNumCores();
+      List<CompletableFuture<LatencyTracker.Interval>> futures = new ArrayList(cores);
+
+      for(int i = 0; i < cores; ++i) {
+         int core = i;
+         futures.add(TPC.isOnCore(core)?CompletableFuture.completedFuture(this.swapInterval(core)):CompletableFuture.supplyAsync(() -> {
+            return this.swapInterval(core);
+         }, (r) -> {
+            TPC.getForCore(core).execute(r, TPCTaskType.UNKNOWN);
+         }));
+      }
+
+      List<LatencyTracker.Interval> intervals = new ArrayList(cores + 1);
+      Object var4 = this.sharedLock;
+      synchronized(this.sharedLock) {
+         intervals.add(this.swapInterval(cores));
+      }
+
+      Iterator var9 = futures.iterator();
+
+      while(var9.hasNext()) {
+         CompletableFuture<LatencyTracker.Interval> future = (CompletableFuture)var9.next();
+         intervals.add(future.join());
+      }
+
+      return intervals;
+   }
+
+   private LatencyTracker.Interval swapInterval(int core) {
+      LatencyTracker.Interval interval = this.perCore[core];
+      this.perCore[core] = new LatencyTracker.Interval();
+      return interval;
    }
 
-   public void recordLatencyEvent(String ks, String cf, LatencyValues.EventType type, long latencyValue, TimeUnit unit) {
-      Map<String, LatencyValues> keyspaceInteractions = (Map)this.interactions.get(ks);
-      if(keyspaceInteractions == null) {
-         keyspaceInteractions = new HashMap();
-         this.interactions.put(ks, keyspaceInteractions);
+   private static class MergedLatencies {
+      private final String keyspace;
+      private final String table;
+      private final long[] values = new long[4];
+      private final long[] quantileCounts = new long[2];
+      private final SortedMap<Double, Double>[] quantiles = new SortedMap[2];
+
+      MergedLatencies(String keyspace, String table) {
+         this.keyspace = keyspace;
+         this.table = table;
       }
 
-      LatencyValues cfMetrics = (LatencyValues)((Map)keyspaceInteractions).get(cf);
-      if(cfMetrics == null) {
-         cfMetrics = new LatencyValues(DseConfig.resourceLatencyTrackingQuantiles());
-         ((Map)keyspaceInteractions).put(cf, cfMetrics);
+      RawObjectLatency toRawObjectLatency() {
+         return new RawObjectLatency(this.keyspace, this.table, this.values[LatencyValues.EventType.READ.offset], this.values[LatencyValues.EventType.READ.offset + 1], this.values[LatencyValues.EventType.WRITE.offset], this.values[LatencyValues.EventType.WRITE.offset + 1], this.quantiles(LatencyValues.EventType.READ), this.quantiles(LatencyValues.EventType.WRITE));
       }
 
-      cfMetrics.increment(TimeUnit.NANOSECONDS.convert(latencyValue, unit), type);
+      private SortedMap<Double, Double> quantiles(LatencyValues.EventType type) {
+         SortedMap<Double, Double> result = this.quantiles[type.offset / 2];
+         return (SortedMap)(result == null?new TreeMap():result);
+      }
    }
 
-   public Iterator<RawObjectLatency> iterator() {
-      final Iterator<Entry<String, Map<String, LatencyValues>>> ksIter = this.interactions.entrySet().iterator();
-      return new AbstractIterator<RawObjectLatency>() {
-         String ks;
-         Iterator<Entry<String, LatencyValues>> cfIter;
-
-         protected RawObjectLatency computeNext() {
-            if(this.cfIter != null && this.cfIter.hasNext()) {
-               Entry<String, LatencyValues> entry = (Entry)this.cfIter.next();
-               LatencyValues values = (LatencyValues)entry.getValue();
-               return new RawObjectLatency(this.ks, (String)entry.getKey(), values.getValue(LatencyValues.EventType.READ), values.getCount(LatencyValues.EventType.READ), values.getValue(LatencyValues.EventType.WRITE), values.getCount(LatencyValues.EventType.WRITE), values.getQuantiles(LatencyValues.EventType.READ), values.getQuantiles(LatencyValues.EventType.WRITE));
-            } else {
-               return this.moveToNextKeyspaceOrEnd();
+   private static class TableLatencies {
+      private final String keyspace;
+      private final String table;
+      private final long[] values = new long[4];
+      private final QuantileEstimator[] estimators;
+
+      TableLatencies(String keyspace, String table, boolean quantiles) {
+         this.keyspace = keyspace;
+         this.table = table;
+         if(quantiles) {
+            this.estimators = new QuantileEstimator[2];
+
+            for(int i = 0; i < this.estimators.length; ++i) {
+               this.estimators[i] = new QuantileEstimator();
+            }
+         } else {
+            this.estimators = null;
+         }
+
+      }
+
+      void record(LatencyValues.EventType type, long nanos) {
+         this.values[type.offset] += nanos;
+         ++this.values[type.offset + 1];
+         if(this.estimators != null) {
+            this.estimators[type.offset / 2].update((float)nanos);
+         }
+
+      }
+
+      void drainTo(LatencyTracker.MergedLatencies merged) {
+         LatencyValues.EventType[] var2 = LatencyValues.EventType.values();
+         int var3 = var2.length;
+
+         for(int var4 = 0; var4 < var3; ++var4) {
+            LatencyValues.EventType type = var2[var4];
+            long count = this.values[type.offset + 1];
+            if(count > 0L) {
+               merged.values[type.offset] += this.values[type.offset];
+               merged.values[type.offset + 1] += count;
+               if(this.estimators != null && count > merged.quantileCounts[type.offset / 2]) {
+                  merged.quantileCounts[type.offset / 2] = count;
+                  merged.quantiles[type.offset / 2] = this.estimators[type.offset / 2].getQuantiles();
+               }
             }
          }
 
-         private RawObjectLatency moveToNextKeyspaceOrEnd() {
-            if(!ksIter.hasNext()) {
-               return (RawObjectLatency)this.endOfData();
-            } else {
-               Entry<String, Map<String, LatencyValues>> entry = (Entry)ksIter.next();
-               this.ks = (String)entry.getKey();
-               this.cfIter = ((Map)entry.getValue()).entrySet().iterator();
-               return this.computeNext();
+      }
+   }
+
+   private static final class ConnectionKey {
+      private InetSocketAddress address;
+      private String userName;
+      private int hash;
+
+      private ConnectionKey() {
+      }
+
+      LatencyTracker.ConnectionKey set(InetSocketAddress address, String userName) {
+         this.address = address;
+         this.userName = userName;
+         this.hash = 31 * Objects.hashCode(address) + Objects.hashCode(userName);
+         return this;
+      }
+
+      public int hashCode() {
+         return this.hash;
+      }
+
+      public boolean equals(Object other) {
+         if(other == this) {
+            return true;
+         } else if(!(other instanceof LatencyTracker.ConnectionKey)) {
+            return false;
+         } else {
+            LatencyTracker.ConnectionKey that = (LatencyTracker.ConnectionKey)other;
+            return this.hash == that.hash && Objects.equals(this.address, that.address) && Objects.equals(this.userName, that.userName);
+         }
+      }
+   }
+
+   private static final class Interval {
+      private final LatencyTracker.ConnectionKey probe = new LatencyTracker.ConnectionKey();
+      private final Map<LatencyTracker.ConnectionKey, LatencyTracker.ConnectionLatencies> connections = new HashMap();
+
+      private Interval() {
+      }
+
+      void record(ClientState state, TableMetadata table, LatencyValues.EventType type, long nanos) {
+         InetSocketAddress address = state.getRemoteAddress();
+         String userName = state.getUser().getName();
+         LatencyTracker.ConnectionLatencies connection = (LatencyTracker.ConnectionLatencies)this.connections.get(this.probe.set(address, userName));
+         if(connection == null) {
+            connection = new LatencyTracker.ConnectionLatencies(address, userName);
+            this.connections.put((new LatencyTracker.ConnectionKey()).set(address, userName), connection);
+         }
+
+         connection.record(table, type, nanos);
+      }
+   }
+
+   private static class ConnectionLatencies {
+      private final InetSocketAddress address;
+      private final String userName;
+      private final Map<TableId, LatencyTracker.TableLatencies> tables = new HashMap();
+
+      ConnectionLatencies(InetSocketAddress address, String userName) {
+         this.address = address;
+         this.userName = userName;
+      }
+
+      void record(TableMetadata table, LatencyValues.EventType type, long nanos) {
+         LatencyTracker.TableLatencies latencies = (LatencyTracker.TableLatencies)this.tables.get(table.id);
+         if(latencies == null) {
+            latencies = new LatencyTracker.TableLatencies(table.keyspace, table.name, DseConfig.resourceLatencyTrackingQuantiles());
+            this.tables.put(table.id, latencies);
+         }
+
+         latencies.record(type, nanos);
+      }
+
+      void drainTo(Map<TableId, LatencyTracker.MergedLatencies> merged) {
+         Iterator var2 = this.tables.entrySet().iterator();
+
+         while(var2.hasNext()) {
+            Entry<TableId, LatencyTracker.TableLatencies> entry = (Entry)var2.next();
+            LatencyTracker.TableLatencies latencies = (LatencyTracker.TableLatencies)entry.getValue();
+            LatencyTracker.MergedLatencies table = (LatencyTracker.MergedLatencies)merged.get(entry.getKey());
+            if(table == null) {
+               table = new LatencyTracker.MergedLatencies(latencies.keyspace, latencies.table);
+               merged.put(entry.getKey(), table);
             }
+
+            latencies.drainTo(table);
          }
-      };
+
+      }
    }
 }
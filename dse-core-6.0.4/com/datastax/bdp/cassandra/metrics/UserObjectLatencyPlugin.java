@@ -13,13 +13,14 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.net.InetSocketAddress;
 import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 import org.apache.cassandra.cql3.CQLStatement;
 import org.apache.cassandra.cql3.CQLStatementUtils;
 import org.apache.cassandra.cql3.statements.BatchStatement;
 import org.apache.cassandra.cql3.statements.ModificationStatement;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.ClientState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,7 +85,7 @@ public class UserObjectLatencyPlugin extends AbstractScheduledPlugin<UserLatency
 
    public void maybeRecordOperationMetrics(ClientState state, LatencyValues.EventType interactionType, String columnFamily, long durationNanos) {
       if(this.isEnabled() && state.getRemoteAddress() != null) {
-         this.recordEvent(interactionType, columnFamily, durationNanos, state.getRemoteAddress(), state.getUser().getName(), state.getRawKeyspace(), TimeUnit.NANOSECONDS);
+         this.recordEvent(state, interactionType, state.getRawKeyspace(), columnFamily, durationNanos, TimeUnit.NANOSECONDS);
       }
 
    }
@@ -95,7 +96,7 @@ public class UserObjectLatencyPlugin extends AbstractScheduledPlugin<UserLatency
 
          while(var5.hasNext()) {
             ModificationStatement stmt = (ModificationStatement)var5.next();
-            this.recordEvent(LatencyValues.EventType.WRITE, CQLStatementUtils.getTable(stmt), duration, state.getRemoteAddress(), state.getUser().getName(), CQLStatementUtils.getKeyspace(stmt), TimeUnit.MILLISECONDS);
+            this.recordEvent(state, LatencyValues.EventType.WRITE, stmt.metadata(), duration, TimeUnit.MILLISECONDS);
          }
       }
 
@@ -107,18 +108,25 @@ public class UserObjectLatencyPlugin extends AbstractScheduledPlugin<UserLatency
             this.maybeRecordOperationMetrics(operation.getQueryState().getClientState(), (BatchStatement)operation.getStatement(), duration);
          } else {
             ClientState state = operation.getQueryState().getClientState();
-            InetSocketAddress clientAddress = state.getRemoteAddress();
-            if(clientAddress != null) {
+            if(state.getRemoteAddress() != null) {
                LatencyValues.EventType interactionType = StatementUtils.getInteractionType(operation.getStatement());
                if(interactionType != null) {
-                  this.recordEvent(interactionType, CQLStatementUtils.getTable(operation.getStatement()), duration, clientAddress, state.getUser().getName(), CQLStatementUtils.getKeyspace(operation.getStatement()), TimeUnit.MILLISECONDS);
+                  this.recordEvent(state, interactionType, CQLStatementUtils.getKeyspace(operation.getStatement()), CQLStatementUtils.getTable(operation.getStatement()), duration, TimeUnit.MILLISECONDS);
                }
             }
          }
       }
    }
 
-   private void recordEvent(LatencyValues.EventType interactionType, String columnFamily, long durationNanos, InetSocketAddress remoteAddress, String name, String rawKeyspace, TimeUnit timeUnit) {
-      this.writer.getUserMetrics().recordLatencyEvent(remoteAddress, name, rawKeyspace, columnFamily, interactionType, durationNanos, timeUnit);
+   private void recordEvent(ClientState state, LatencyValues.EventType interactionType, String keyspace, String columnFamily, long duration, TimeUnit timeUnit) {
+      TableMetadata table = keyspace != null && columnFamily != null?Schema.instance.getTableMetadata(keyspace, columnFamily):null;
+      if(table != null) {
+         this.recordEvent(state, interactionType, table, duration, timeUnit);
+      }
+
+   }
+
+   private void recordEvent(ClientState state, LatencyValues.EventType interactionType, TableMetadata table, long duration, TimeUnit timeUnit) {
+      this.writer.getUserMetrics().recordLatencyEvent(state, table, interactionType, duration, timeUnit);
    }
 }
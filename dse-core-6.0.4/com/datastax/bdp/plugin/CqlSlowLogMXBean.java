@@ -32,6 +32,10 @@ public interface CqlSlowLogMXBean extends SettableTTLMXBean, ConfigExportableMXB
 
    List<CqlSlowLogMXBean.SlowCqlQuery> retrieveRecentSlowestCqlQueries();
 
+   List<CqlSlowLogMXBean.SlowCqlQuery> retrieveLatestCqlQueries();
+
+   long getDroppedQueries();
+
    public static class SlowCqlQuery implements Comparable<CqlSlowLogMXBean.SlowCqlQuery> {
       public final String tables;
       public final String sourceIp;
@@ -16,6 +16,7 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyVetoException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -266,6 +267,8 @@ public class PerformanceObjectsController implements LifecycleAware {
       private final AtomicBoolean skipWritingToDB = new AtomicBoolean();
       private final AtomicInteger numSlowestQueries = new AtomicInteger();
       public final AtomicReference<Queue<CqlSlowLogMXBean.SlowCqlQuery>> slowestQueries = new AtomicReference();
+      private final ArrayDeque<CqlSlowLogMXBean.SlowCqlQuery> latestQueries = new ArrayDeque();
+      private final AtomicLong droppedQueries = new AtomicLong();
 
       public CqlSlowLogBean() {
          super(DseConfig.getCqlSlowLogEnabled(), DseConfig.getCqlSlowLogTTL());
@@ -354,6 +357,7 @@ public class PerformanceObjectsController implements LifecycleAware {
 
             this.numSlowestQueries.set(numSlowestQueries);
             this.resizeMinMaxHeap();
+            this.trimLatestQueries();
             PerformanceObjectsController.logger.info("{} num_slowest_queries set to {} (was {}).", new Object[]{PerformanceObjectsController.getPerfBeanName(this.getClass()), Integer.valueOf(numSlowestQueries), Integer.valueOf(oldValue)});
          }
 
@@ -379,6 +383,41 @@ public class PerformanceObjectsController implements LifecycleAware {
          return queries;
       }
 
+      public void addRecentQuery(CqlSlowLogMXBean.SlowCqlQuery query) {
+         synchronized(this.latestQueries) {
+            this.latestQueries.addFirst(query);
+            this.trimLatestQueries();
+         }
+      }
+
+      private void trimLatestQueries() {
+         synchronized(this.latestQueries) {
+            while(this.latestQueries.size() > Math.max(0, this.numSlowestQueries.get())) {
+               this.latestQueries.pollLast();
+            }
+
+         }
+      }
+
+      @Rpc(
+         name = "retrieveLatestCqlQueries",
+         permission = CorePermission.SELECT,
+         multiRow = true
+      )
+      public List<CqlSlowLogMXBean.SlowCqlQuery> retrieveLatestCqlQueries() {
+         synchronized(this.latestQueries) {
+            return new ArrayList(this.latestQueries);
+         }
+      }
+
+      public void markDroppedQuery() {
+         this.droppedQueries.incrementAndGet();
+      }
+
+      public long getDroppedQueries() {
+         return this.droppedQueries.get();
+      }
+
       public String getConfigSetting() {
          return (new Yaml()).dump(ImmutableMap.builder().put("cql_slow_log_options", ImmutableMap.builder().put("enabled", "" + this.isEnabled()).put("threshold", "" + this.threshold.toString()).put("minimum_samples", "" + this.minimumSamples.toString()).put("ttl_seconds", "" + this.ttl.toString()).put("skip_writing_to_db", "" + this.skipWritingToDB.get()).put("num_slowest_queries", "" + this.numSlowestQueries.get()).build()).build());
       }
@@ -1,17 +1,24 @@
 package com.datastax.bdp.reporting.snapshots.db;
 
 import com.datastax.bdp.reporting.CqlWriter;
+import com.datastax.bdp.reporting.snapshots.histograms.MergeableHistogram;
+import com.datastax.bdp.system.PerformanceObjectsKeyspace;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.List;
 
 public class PerNodeTableInfoWriter extends CqlWriter<TableInfo> {
-   public static final String INSERT_CQL = String.format("INSERT INTO %s.%s (node_ip,keyspace_name,table_name,total_reads,total_writes,mean_read_latency,mean_write_latency,live_sstable_count,bf_false_positives,bf_false_positive_ratio,key_cache_hit_rate,compression_ratio,droppable_tombstone_ratio,memtable_size,memtable_columns_count,memtable_switch_count,unleveled_sstables,min_row_size,max_row_size,mean_row_size,total_data_size)VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) USING TTL ?", new Object[]{"dse_perf", "node_table_snapshot"});
+   public static final String INSERT_CQL = String.format("INSERT INTO %s.%s (node_ip,keyspace_name,table_name,total_reads,total_writes,mean_read_latency,mean_write_latency,live_sstable_count,bf_false_positives,bf_false_positive_ratio,key_cache_hit_rate,compression_ratio,droppable_tombstone_ratio,memtable_size,memtable_columns_count,memtable_switch_count,unleveled_sstables,min_row_size,max_row_size,mean_row_size,total_data_size,read_latency_histogram,write_latency_histogram)VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) USING TTL ?", new Object[]{"dse_perf", "node_table_snapshot"});
+   private final MergeableHistogram.Intervals histograms = new MergeableHistogram.Intervals();
 
    public PerNodeTableInfoWriter(InetAddress nodeAddress, int ttl) {
       super(nodeAddress, ttl);
    }
 
+   public MergeableHistogram.Intervals histograms() {
+      return this.histograms;
+   }
+
    public String getTableName() {
       return "node_table_snapshot";
    }
@@ -23,7 +30,13 @@ public class PerNodeTableInfoWriter extends CqlWriter<TableInfo> {
    public List<ByteBuffer> getVariables(TableInfo tableInfo) {
       List<ByteBuffer> vars = tableInfo.toByteBufferList();
       vars.add(0, this.nodeAddressBytes);
+      vars.add(tableInfo.readLatencyHistogram.toByteBuffer());
+      vars.add(tableInfo.writeLatencyHistogram.toByteBuffer());
       vars.add(this.getTtlBytes());
       return vars;
    }
+
+   public void maybeAlterSchema() {
+      PerformanceObjectsKeyspace.maybeAddColumns("node_table_snapshot", PerformanceObjectsKeyspace.LATENCY_HISTOGRAM_COLUMNS, "blob");
+   }
 }
@@ -1,12 +1,14 @@
 package com.datastax.bdp.reporting.snapshots.db;
 
 import com.datastax.bdp.reporting.CqlWriter;
+import com.datastax.bdp.system.PerformanceObjectsKeyspace;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.List;
+import org.apache.cassandra.utils.ByteBufferUtil;
 
 public class RollupTableInfoWriter extends CqlWriter<TableInfo> {
-   public static final String TABLE_SNAPSHOT_INSERT = String.format("INSERT INTO %s.%s (keyspace_name,table_name,total_reads,total_writes,mean_read_latency,mean_write_latency,live_sstable_count,bf_false_positives,bf_false_positive_ratio,key_cache_hit_rate,compression_ratio,droppable_tombstone_ratio,memtable_size,memtable_columns_count,memtable_switch_count,unleveled_sstables,min_row_size,max_row_size,mean_row_size,total_data_size)VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) USING TTL ?", new Object[]{"dse_perf", "table_snapshot"});
+   public static final String TABLE_SNAPSHOT_INSERT = String.format("INSERT INTO %s.%s (keyspace_name,table_name,total_reads,total_writes,mean_read_latency,mean_write_latency,live_sstable_count,bf_false_positives,bf_false_positive_ratio,key_cache_hit_rate,compression_ratio,droppable_tombstone_ratio,memtable_size,memtable_columns_count,memtable_switch_count,unleveled_sstables,min_row_size,max_row_size,mean_row_size,total_data_size,read_latency_p99,read_latency_p999,write_latency_p99,write_latency_p999)VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) USING TTL ?", new Object[]{"dse_perf", "table_snapshot"});
 
    public RollupTableInfoWriter(InetAddress nodeAddress, int ttl) {
       super(nodeAddress, ttl);
@@ -22,7 +24,15 @@ public class RollupTableInfoWriter extends CqlWriter<TableInfo> {
 
    public List<ByteBuffer> getVariables(TableInfo tableInfo) {
       List<ByteBuffer> vars = tableInfo.toByteBufferList();
+      vars.add(ByteBufferUtil.bytes((double)tableInfo.readLatencyHistogram.percentile(0.99D)));
+      vars.add(ByteBufferUtil.bytes((double)tableInfo.readLatencyHistogram.percentile(0.999D)));
+      vars.add(ByteBufferUtil.bytes((double)tableInfo.writeLatencyHistogram.percentile(0.99D)));
+      vars.add(ByteBufferUtil.bytes((double)tableInfo.writeLatencyHistogram.percentile(0.999D)));
       vars.add(this.getTtlBytes());
       return vars;
    }
+
+   public void maybeAlterSchema() {
+      PerformanceObjectsKeyspace.maybeAddColumns("table_snapshot", PerformanceObjectsKeyspace.LATENCY_PERCENTILE_COLUMNS, "double");
+   }
 }
@@ -1,6 +1,7 @@
 package com.datastax.bdp.reporting.snapshots.db;
 
 import com.datastax.bdp.reporting.CqlWritable;
+import com.datastax.bdp.reporting.snapshots.histograms.MergeableHistogram;
 import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,8 +30,10 @@ public class TableInfo implements CqlWritable {
    public final double keyCacheHitRate;
    public final double compressionRatio;
    public final double droppableTombstoneRatio;
+   public final MergeableHistogram readLatencyHistogram;
+   public final MergeableHistogram writeLatencyHistogram;
 
-   private TableInfo(String ksName, String name, long totalReads, long totalWrites, long liveSSTableCount, long bfFalsePositives, long memtableSize, long memtableColumnsCount, long memtableSwitchCount, long unleveledSSTables, long minRowSize, long maxRowSize, long meanRowSize, long totalDataSize, double meanReadLatency, double meanWriteLatency, double bfFalsePositiveRatio, double keyCacheHitRate, double compressionRatio, double droppableTombstoneRatio) {
+   private TableInfo(String ksName, String name, long totalReads, long totalWrites, long liveSSTableCount, long bfFalsePositives, long memtableSize, long memtableColumnsCount, long memtableSwitchCount, long unleveledSSTables, long minRowSize, long maxRowSize, long meanRowSize, long totalDataSize, double meanReadLatency, double meanWriteLatency, double bfFalsePositiveRatio, double keyCacheHitRate, double compressionRatio, double droppableTombstoneRatio, MergeableHistogram readLatencyHistogram, MergeableHistogram writeLatencyHistogram) {
       this.ksName = ksName;
       this.name = name;
       this.totalReads = totalReads;
@@ -51,6 +54,8 @@ public class TableInfo implements CqlWritable {
       this.keyCacheHitRate = keyCacheHitRate;
       this.compressionRatio = compressionRatio;
       this.droppableTombstoneRatio = droppableTombstoneRatio;
+      this.readLatencyHistogram = readLatencyHistogram;
+      this.writeLatencyHistogram = writeLatencyHistogram;
    }
 
    public List<ByteBuffer> toByteBufferList() {
@@ -79,11 +84,15 @@ public class TableInfo implements CqlWritable {
    }
 
    public static TableInfo fromRow(Row row) {
-      return new TableInfo(row.getString("keyspace_name"), row.getString("table_name"), row.getLong("total_reads"), row.getLong("total_writes"), row.getLong("live_sstable_count"), row.getLong("bf_false_positives"), row.getLong("memtable_size"), row.getLong("memtable_columns_count"), row.getLong("memtable_switch_count"), row.getLong("unleveled_sstables"), row.getLong("min_row_size"), row.getLong("max_row_size"), row.getLong("mean_row_size"), row.getLong("total_data_size"), row.getDouble("mean_read_latency"), row.getDouble("mean_write_latency"), row.getDouble("bf_false_positive_ratio"), row.getDouble("key_cache_hit_rate"), row.getDouble("compression_ratio"), row.getDouble("droppable_tombstone_ratio"));
+      return new TableInfo(row.getString("keyspace_name"), row.getString("table_name"), row.getLong("total_reads"), row.getLong("total_writes"), row.getLong("live_sstable_count"), row.getLong("bf_false_positives"), row.getLong("memtable_size"), row.getLong("memtable_columns_count"), row.getLong("memtable_switch_count"), row.getLong("unleveled_sstables"), row.getLong("min_row_size"), row.getLong("max_row_size"), row.getLong("mean_row_size"), row.getLong("total_data_size"), row.getDouble("mean_read_latency"), row.getDouble("mean_write_latency"), row.getDouble("bf_false_positive_ratio"), row.getDouble("key_cache_hit_rate"), row.getDouble("compression_ratio"), row.getDouble("droppable_tombstone_ratio"), getHistogram(row, "read_latency_histogram"), getHistogram(row, "write_latency_histogram"));
    }
 
-   public static TableInfo fromColumnFamilyStore(ColumnFamilyStore cfs) {
-      return new TableInfo(cfs.keyspace.getName(), cfs.getColumnFamilyName(), cfs.metric.readLatency.latency.getCount(), cfs.metric.writeLatency.latency.getCount(), (long)((Integer)cfs.metric.liveSSTableCount.getValue()).intValue(), ((Long)cfs.metric.bloomFilterFalsePositives.getValue()).longValue(), ((Long)cfs.metric.allMemtablesLiveDataSize.getValue()).longValue(), ((Long)cfs.metric.memtableColumnsCount.getValue()).longValue(), cfs.metric.memtableSwitchCount.getCount(), (long)cfs.getUnleveledSSTables(), ((Long)cfs.metric.minPartitionSize.getValue()).longValue(), ((Long)cfs.metric.maxPartitionSize.getValue()).longValue(), ((Long)cfs.metric.meanPartitionSize.getValue()).longValue(), cfs.metric.totalDiskSpaceUsed.getCount(), cfs.metric.readLatency.latency.getMeanRate(), cfs.metric.writeLatency.latency.getMeanRate(), ((Double)cfs.metric.bloomFilterFalseRatio.getValue()).doubleValue(), ((Double)cfs.metric.keyCacheHitRate.getValue()).doubleValue(), ((Double)cfs.metric.compressionRatio.getValue()).doubleValue(), cfs.getDroppableTombstoneRatio());
+   private static MergeableHistogram getHistogram(Row row, String column) {
+      return row.has(column)?MergeableHistogram.fromByteBuffer(row.getBytes(column)):MergeableHistogram.EMPTY;
+   }
+
+   public static TableInfo fromColumnFamilyStore(ColumnFamilyStore cfs, MergeableHistogram.Intervals histograms) {
+      return new TableInfo(cfs.keyspace.getName(), cfs.getColumnFamilyName(), cfs.metric.readLatency.latency.getCount(), cfs.metric.writeLatency.latency.getCount(), (long)((Integer)cfs.metric.liveSSTableCount.getValue()).intValue(), ((Long)cfs.metric.bloomFilterFalsePositives.getValue()).longValue(), ((Long)cfs.metric.allMemtablesLiveDataSize.getValue()).longValue(), ((Long)cfs.metric.memtableColumnsCount.getValue()).longValue(), cfs.metric.memtableSwitchCount.getCount(), (long)cfs.getUnleveledSSTables(), ((Long)cfs.metric.minPartitionSize.getValue()).longValue(), ((Long)cfs.metric.maxPartitionSize.getValue()).longValue(), ((Long)cfs.metric.meanPartitionSize.getValue()).longValue(), cfs.metric.totalDiskSpaceUsed.getCount(), cfs.metric.readLatency.latency.getMeanRate(), cfs.metric.writeLatency.latency.getMeanRate(), ((Double)cfs.metric.bloomFilterFalseRatio.getValue()).doubleValue(), ((Double)cfs.metric.keyCacheHitRate.getValue()).doubleValue(), ((Double)cfs.metric.compressionRatio.getValue()).doubleValue(), cfs.getDroppableTombstoneRatio(), histograms.of(cfs.metric.readLatency.latency), histograms.of(cfs.metric.writeLatency.latency));
    }
 
    public static TableInfo aggregate(TableInfo t1, TableInfo t2) {
@@ -91,7 +100,7 @@ public class TableInfo implements CqlWritable {
 
       assert t1.name.equals(t2.name);
 
-      return new TableInfo(t1.ksName, t1.name, t1.totalReads + t2.totalReads, t1.totalWrites + t2.totalWrites, t1.liveSSTableCount + t2.liveSSTableCount, t1.bfFalsePositives + t2.bfFalsePositives, t1.memtableSize + t2.memtableSize, t1.memtableColumnsCount + t2.memtableColumnsCount, t1.memtableSwitchCount + t2.memtableSwitchCount, t1.unleveledSSTables + t2.unleveledSSTables, Math.min(t1.minRowSize, t2.minRowSize), Math.max(t1.maxRowSize, t2.maxRowSize), (t1.meanRowSize + t2.meanRowSize) / 2L, t1.totalDataSize + t2.totalDataSize, addMeans(t1.meanReadLatency, t1.totalReads, t2.meanReadLatency, t2.totalReads), addMeans(t1.meanWriteLatency, t1.totalWrites, t2.meanWriteLatency, t2.totalWrites), (t1.bfFalsePositiveRatio + t2.bfFalsePositiveRatio) / 2.0D, (t1.keyCacheHitRate + t2.keyCacheHitRate) / 2.0D, (t1.compressionRatio + t2.compressionRatio) / 2.0D, (t1.droppableTombstoneRatio + t2.droppableTombstoneRatio) / 2.0D);
+      return new TableInfo(t1.ksName, t1.name, t1.totalReads + t2.totalReads, t1.totalWrites + t2.totalWrites, t1.liveSSTableCount + t2.liveSSTableCount, t1.bfFalsePositives + t2.bfFalsePositives, t1.memtableSize + t2.memtableSize, t1.memtableColumnsCount + t2.memtableColumnsCount, t1.memtableSwitchCount + t2.memtableSwitchCount, t1.unleveledSSTables + t2.unleveledSSTables, Math.min(t1.minRowSize, t2.minRowSize), Math.max(t1.maxRowSize, t2.maxRowSize), (t1.meanRowSize + t2.meanRowSize) / 2L, t1.totalDataSize + t2.totalDataSize, addMeans(t1.meanReadLatency, t1.totalReads, t2.meanReadLatency, t2.totalReads), addMeans(t1.meanWriteLatency, t1.totalWrites, t2.meanWriteLatency, t2.totalWrites), (t1.bfFalsePositiveRatio + t2.bfFalsePositiveRatio) / 2.0D, (t1.keyCacheHitRate + t2.keyCacheHitRate) / 2.0D, (t1.compressionRatio + t2.compressionRatio) / 2.0D, (t1.droppableTombstoneRatio + t2.droppableTombstoneRatio) / 2.0D, t1.readLatencyHistogram.merge(t2.readLatencyHistogram), t1.writeLatencyHistogram.merge(t2.writeLatencyHistogram));
    }
 
    public static double addMeans(double mean1, long total1, double mean2, long total2) {
@@ -64,7 +64,7 @@ public class TableSnapshotPlugin extends AbstractScheduledPlugin<SnapshotInfoBea
                this.getThreadPool().submit(() -> {
                   logger.debug("Processing table {}.{}", cfm.keyspace, cfm.name);
                   ColumnFamilyStore cfs = Keyspace.open(cfm.keyspace).getColumnFamilyStore(cfm.name);
-                  this.writer.write(TableInfo.fromColumnFamilyStore(cfs));
+                  this.writer.write(TableInfo.fromColumnFamilyStore(cfs, this.writer.histograms()));
                });
             }
          }
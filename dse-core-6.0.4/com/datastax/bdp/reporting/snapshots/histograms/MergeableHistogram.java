@@ -0,0 +1,213 @@
+package com.datastax.bdp.reporting.snapshots.histograms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.metrics.Histogram;
+import org.apache.cassandra.metrics.Timer;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+public class MergeableHistogram {
+   public static final MergeableHistogram EMPTY = new MergeableHistogram(new long[0], new long[0]);
+   private static final int VERSION = 1;
+   private final long[] offsets;
+   private final long[] counts;
+
+   private MergeableHistogram(long[] offsets, long[] counts) {
+      assert offsets.length == counts.length;
+
+      this.offsets = offsets;
+      this.counts = counts;
+   }
+
+   public static MergeableHistogram of(long[] bucketOffsets, long[] bucketCounts) {
+      int size = Math.min(bucketOffsets.length, bucketCounts.length);
+      int nonEmpty = 0;
+
+      for(int i = 0; i < size; ++i) {
+         if(bucketCounts[i] > 0L) {
+            ++nonEmpty;
+         }
+      }
+
+      if(nonEmpty == 0) {
+         return EMPTY;
+      } else {
+         long[] offsets = new long[nonEmpty];
+         long[] counts = new long[nonEmpty];
+         int j = 0;
+
+         for(int i = 0; i < size; ++i) {
+            if(bucketCounts[i] > 0L) {
+               offsets[j] = bucketOffsets[i];
+               counts[j++] = bucketCounts[i];
+            }
+         }
+
+         return new MergeableHistogram(offsets, counts);
+      }
+   }
+
+   public MergeableHistogram merge(MergeableHistogram other) {
+      if(other.isEmpty()) {
+         return this;
+      } else if(this.isEmpty()) {
+         return other;
+      } else {
+         long[] offsets = new long[this.offsets.length + other.offsets.length];
+         long[] counts = new long[offsets.length];
+         int i = 0;
+         int j = 0;
+
+         int k;
+         for(k = 0; i < this.offsets.length || j < other.offsets.length; ++k) {
+            if(j == other.offsets.length || i < this.offsets.length && this.offsets[i] < other.offsets[j]) {
+               offsets[k] = this.offsets[i];
+               counts[k] = this.counts[i++];
+            } else if(i == this.offsets.length || other.offsets[j] < this.offsets[i]) {
+               offsets[k] = other.offsets[j];
+               counts[k] = other.counts[j++];
+            } else {
+               offsets[k] = this.offsets[i];
+               counts[k] = this.counts[i++] + other.counts[j++];
+            }
+         }
+
+         return new MergeableHistogram(Arrays.copyOf(offsets, k), Arrays.copyOf(counts, k));
+      }
+   }
+
+   public boolean isEmpty() {
+      return this.offsets.length == 0;
+   }
+
+   public long count() {
+      long count = 0L;
+
+      for(int i = 0; i < this.counts.length; ++i) {
+         count += this.counts[i];
+      }
+
+      return count;
+   }
+
+   public long percentile(double percentile) {
+      assert percentile >= 0.0D && percentile <= 1.0D;
+
+      long target = (long)Math.ceil((double)this.count() * percentile);
+      if(target == 0L) {
+         return 0L;
+      } else {
+         long elements = 0L;
+
+         for(int i = 0; i < this.counts.length; ++i) {
+            elements += this.counts[i];
+            if(elements >= target) {
+               return this.offsets[i];
+            }
+         }
+
+         return this.offsets[this.offsets.length - 1];
+      }
+   }
+
+   public long max() {
+      return this.isEmpty()?0L:this.offsets[this.offsets.length - 1];
+   }
+
+   public ByteBuffer toByteBuffer() {
+      try {
+         DataOutputBuffer out = new DataOutputBuffer(2 + this.offsets.length * 4);
+         Throwable var2 = null;
+
+         ByteBuffer var16;
+         try {
+            out.writeByte(VERSION);
+            out.writeUnsignedVInt((long)this.offsets.length);
+            long previous = 0L;
+
+            for(int i = 0; i < this.offsets.length; ++i) {
+               out.writeUnsignedVInt(this.offsets[i] - previous);
+               out.writeUnsignedVInt(this.counts[i]);
+               previous = this.offsets[i];
+            }
+
+            var16 = out.asNewBuffer();
+         } catch (Throwable var14) {
+            var2 = var14;
+            throw var14;
+         } finally {
+            if(var2 != null) {
+               try {
+                  out.close();
+               } catch (Throwable var13) {
+                  var2.addSuppressed(var13);
+               }
+            } else {
+               out.close();
+            }
+
+         }
+
+         return var16;
+      } catch (IOException var16) {
+         throw new AssertionError(var16);
+      }
+   }
+
+   public static MergeableHistogram fromByteBuffer(ByteBuffer bytes) {
+      if(bytes != null && bytes.hasRemaining()) {
+         try {
+            DataInputBuffer in = new DataInputBuffer(bytes, true);
+            int version = in.readByte();
+            if(version != VERSION) {
+               throw new IOException(String.format("Unsupported histogram serialization version %d", new Object[]{Integer.valueOf(version)}));
+            } else {
+               int size = (int)in.readUnsignedVInt();
+               long[] offsets = new long[size];
+               long[] counts = new long[size];
+               long previous = 0L;
+
+               for(int i = 0; i < size; ++i) {
+                  offsets[i] = previous + in.readUnsignedVInt();
+                  counts[i] = in.readUnsignedVInt();
+                  previous = offsets[i];
+               }
+
+               return size == 0?EMPTY:new MergeableHistogram(offsets, counts);
+            }
+         } catch (IOException var10) {
+            throw new IllegalArgumentException("Invalid serialized histogram " + ByteBufferUtil.bytesToHex(bytes), var10);
+         }
+      } else {
+         return EMPTY;
+      }
+   }
+
+   public static class Intervals {
+      private final Map<Histogram, long[]> last = new WeakHashMap();
+
+      public Intervals() {
+      }
+
+      public MergeableHistogram of(Timer timer) {
+         return this.of(timer.getHistogram());
+      }
+
+      public synchronized MergeableHistogram of(Histogram histogram) {
+         long[] now = histogram.getSnapshot().getValues();
+         long[] last = (long[])this.last.put(histogram, now);
+         long[] delta = new long[now.length];
+
+         for(int i = 0; i < now.length; ++i) {
+            delta[i] = now[i] - (last != null && i < last.length?last[i]:0L);
+         }
+
+         return MergeableHistogram.of(histogram.getOffsets(), delta);
+      }
+   }
+}
@@ -1,6 +1,7 @@
 package com.datastax.bdp.reporting.snapshots.node;
 
 import com.datastax.bdp.gms.DseVersionNotifier;
+import com.datastax.bdp.reporting.snapshots.histograms.MergeableHistogram;
 import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
@@ -46,8 +47,12 @@ public class AggregateNodeInfo {
    long droppedMutations = 0L;
    double droppedMutationRatio = -1.0D;
    long backgroundIoPending = 0L;
+   MergeableHistogram readLatencyHistogram;
+   MergeableHistogram writeLatencyHistogram;
 
    public AggregateNodeInfo() {
+      this.readLatencyHistogram = MergeableHistogram.EMPTY;
+      this.writeLatencyHistogram = MergeableHistogram.EMPTY;
    }
 
    public void add(AggregateNodeInfo other) {
@@ -89,6 +94,8 @@ public class AggregateNodeInfo {
       this.droppedMutations += other.droppedMutations;
       this.droppedMutationRatio = -1.0D;
       this.backgroundIoPending += other.backgroundIoPending;
+      this.readLatencyHistogram = this.readLatencyHistogram.merge(other.readLatencyHistogram);
+      this.writeLatencyHistogram = this.writeLatencyHistogram.merge(other.writeLatencyHistogram);
    }
 
    public List<ByteBuffer> toByteBufferList(CassandraVersion cassandraVersion) {
@@ -132,6 +139,10 @@ public class AggregateNodeInfo {
       vars.add(ByteBufferUtil.bytes(this.rowCacheCapacity));
       if(cassandraVersion.compareTo(DseVersionNotifier.VERSION_60) >= 0) {
          vars.add(ByteBufferUtil.bytes(this.backgroundIoPending));
+         vars.add(ByteBufferUtil.bytes((double)this.readLatencyHistogram.percentile(0.99D)));
+         vars.add(ByteBufferUtil.bytes((double)this.readLatencyHistogram.percentile(0.999D)));
+         vars.add(ByteBufferUtil.bytes((double)this.writeLatencyHistogram.percentile(0.99D)));
+         vars.add(ByteBufferUtil.bytes((double)this.writeLatencyHistogram.percentile(0.999D)));
       }
 
       return vars;
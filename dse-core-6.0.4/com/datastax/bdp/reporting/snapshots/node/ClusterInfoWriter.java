@@ -65,10 +65,12 @@ public class ClusterInfoWriter extends CqlWriter<ClusterInfo> {
 
    public void maybeAlterSchema() {
       SchemaTool.maybeAddNewColumn("dse_perf", "cluster_snapshot", "background_io_pending", PerformanceObjectsKeyspace.CLUSTER_SNAPSHOT_ADD_BACKGROUND_IO_PENDING);
+      PerformanceObjectsKeyspace.maybeAddColumns("cluster_snapshot", PerformanceObjectsKeyspace.LATENCY_PERCENTILE_COLUMNS, "double");
    }
 
    static {
       columns_6_0 = new ArrayList(columns_5_1);
       columns_6_0.addAll(Arrays.asList(new String[]{"background_io_pending"}));
+      columns_6_0.addAll(PerformanceObjectsKeyspace.LATENCY_PERCENTILE_COLUMNS);
    }
 }
@@ -82,6 +82,8 @@ public class DatacenterInfo implements Iterable<NodeInfo>, CqlWritable {
          summary.completedMutations = -1L;
          summary.droppedMutations += node.droppedMutations;
          summary.droppedMutationRatio = -1.0D;
+         summary.readLatencyHistogram = summary.readLatencyHistogram.merge(node.readLatencyHistogram);
+         summary.writeLatencyHistogram = summary.writeLatencyHistogram.merge(node.writeLatencyHistogram);
       }
 
       return summary;
@@ -61,10 +61,12 @@ public class DatacenterInfoWriter extends CqlWriter<DatacenterInfo> {
 
    public void maybeAlterSchema() {
       SchemaTool.maybeAddNewColumn("dse_perf", "dc_snapshot", "background_io_pending", PerformanceObjectsKeyspace.DC_SNAPSHOT_ADD_BACKGROUND_IO_PENDING);
+      PerformanceObjectsKeyspace.maybeAddColumns("dc_snapshot", PerformanceObjectsKeyspace.LATENCY_PERCENTILE_COLUMNS, "double");
    }
 
    static {
       columns_6_0 = new ArrayList(columns_5_1);
       columns_6_0.addAll(Arrays.asList(new String[]{"background_io_pending"}));
+      columns_6_0.addAll(PerformanceObjectsKeyspace.LATENCY_PERCENTILE_COLUMNS);
    }
 }
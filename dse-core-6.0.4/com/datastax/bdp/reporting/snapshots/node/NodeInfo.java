@@ -2,6 +2,7 @@ package com.datastax.bdp.reporting.snapshots.node;
 
 import com.datastax.bdp.gms.DseVersionNotifier;
 import com.datastax.bdp.reporting.CqlWritable;
+import com.datastax.bdp.reporting.snapshots.histograms.MergeableHistogram;
 import com.datastax.bdp.server.system.BatchlogInfoProvider;
 import com.datastax.bdp.server.system.CacheInfoProvider;
 import com.datastax.bdp.server.system.ClientRequestMetricsProvider;
@@ -26,6 +27,7 @@ import org.apache.cassandra.cql3.UntypedResultSet.Row;
 import org.apache.cassandra.db.marshal.SetType;
 import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.locator.IEndpointSnitch;
+import org.apache.cassandra.metrics.TableMetrics;
 import org.apache.cassandra.net.DroppedMessages.Group;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.CassandraVersion;
@@ -92,8 +94,10 @@ public class NodeInfo implements CqlWritable {
    public final long droppedMutations;
    public final double droppedMutationRatio;
    public final long backgroundIoPending;
+   public final MergeableHistogram readLatencyHistogram;
+   public final MergeableHistogram writeLatencyHistogram;
 
-   private NodeInfo(InetAddress address, String state, long uptime, Set<String> tokens, float ownership, String datacenter, String rack, long totalReads, long totalRangeSlices, long totalWrites, double meanReadLatency, double meanRangeSliceLatency, double meanWriteLatency, long readTimeouts, long rangeSliceTimeouts, long writeTimeouts, long heapMax, long heapUsed, long cmsCollectionCount, long cmsCollectionTime, long parnewCollectionCount, long parnewCollectionTime, long completedMutations, long droppedMutations, long compactionsCompleted, int compactionsPending, long readsPending, long mutationsPending, long readRepairPending, long repairPending, long gossipPending, long hintedHandoffPending, long internalResponsesPending, long migrationsPending, long miscTasksPending, long requestResponsesPending, long flushwritersPending, long memtablePostFlushPending, long replicateOnWritePending, int currentStreams, long totalDiskSpace, long freeDiskSpace, long totalTableDataSize, long totalIndexDataSize, long totalPhysicalMemory, double processCpuLoad, long totalBatchesReplayed, long keyCacheCapacity, long keyCacheEntries, long keyCacheSize, long rowCacheCapacity, long rowCacheEntries, long rowCacheSize, long commitLogSize, long commitLogPendingTasks, long backgroundIoPending) {
+   private NodeInfo(InetAddress address, String state, long uptime, Set<String> tokens, float ownership, String datacenter, String rack, long totalReads, long totalRangeSlices, long totalWrites, double meanReadLatency, double meanRangeSliceLatency, double meanWriteLatency, long readTimeouts, long rangeSliceTimeouts, long writeTimeouts, long heapMax, long heapUsed, long cmsCollectionCount, long cmsCollectionTime, long parnewCollectionCount, long parnewCollectionTime, long completedMutations, long droppedMutations, long compactionsCompleted, int compactionsPending, long readsPending, long mutationsPending, long readRepairPending, long repairPending, long gossipPending, long hintedHandoffPending, long internalResponsesPending, long migrationsPending, long miscTasksPending, long requestResponsesPending, long flushwritersPending, long memtablePostFlushPending, long replicateOnWritePending, int currentStreams, long totalDiskSpace, long freeDiskSpace, long totalTableDataSize, long totalIndexDataSize, long totalPhysicalMemory, double processCpuLoad, long totalBatchesReplayed, long keyCacheCapacity, long keyCacheEntries, long keyCacheSize, long rowCacheCapacity, long rowCacheEntries, long rowCacheSize, long commitLogSize, long commitLogPendingTasks, long backgroundIoPending, MergeableHistogram readLatencyHistogram, MergeableHistogram writeLatencyHistogram) {
       this.address = address;
       this.state = state;
       this.uptime = uptime;
@@ -151,6 +155,8 @@ public class NodeInfo implements CqlWritable {
       this.commitLogPendingTasks = commitLogPendingTasks;
       this.droppedMutationRatio = -1.0D;
       this.backgroundIoPending = backgroundIoPending;
+      this.readLatencyHistogram = readLatencyHistogram;
+      this.writeLatencyHistogram = writeLatencyHistogram;
    }
 
    public List<ByteBuffer> toByteBufferList(CassandraVersion cassandraVersion) {
@@ -213,13 +219,19 @@ public class NodeInfo implements CqlWritable {
       vars.add(ByteBufferUtil.bytes(this.commitLogPendingTasks));
       if(cassandraVersion.compareTo(DseVersionNotifier.VERSION_60) >= 0) {
          vars.add(ByteBufferUtil.bytes(this.backgroundIoPending));
+         vars.add(this.readLatencyHistogram.toByteBuffer());
+         vars.add(this.writeLatencyHistogram.toByteBuffer());
       }
 
       return vars;
    }
 
    public static NodeInfo fromRow(Row row) {
-      return new NodeInfo(row.getInetAddress("node_ip"), row.getString("state"), row.getLong("uptime"), row.getSet("tokens", UTF8Type.instance), ByteBufferUtil.toFloat(row.getBytes("data_owned")), row.getString("datacenter"), row.getString("rack"), row.getLong("total_reads"), row.getLong("total_range_slices"), row.getLong("total_writes"), row.getDouble("mean_read_latency"), row.getDouble("mean_range_slice_latency"), row.getDouble("mean_write_latency"), row.getLong("read_timeouts"), row.getLong("range_slice_timeouts"), row.getLong("write_timeouts"), row.getLong("heap_total"), row.getLong("heap_used"), row.getLong("cms_collection_count"), row.getLong("cms_collection_time"), row.getLong("parnew_collection_count"), row.getLong("parnew_collection_time"), row.getLong("completed_mutations"), row.getLong("dropped_mutations"), row.getLong("compactions_completed"), row.getInt("compactions_pending"), row.getLong("read_requests_pending"), row.getLong("write_requests_pending"), row.getLong("read_repair_tasks_pending"), row.getLong("manual_repair_tasks_pending"), row.getLong("gossip_tasks_pending"), row.getLong("hinted_handoff_pending"), row.getLong("internal_responses_pending"), row.getLong("migrations_pending"), row.getLong("misc_tasks_pending"), row.getLong("request_responses_pending"), row.getLong("flush_sorter_tasks_pending"), row.getLong("memtable_post_flushers_pending"), row.getLong("replicate_on_write_tasks_pending"), row.getInt("streams_pending"), row.getLong("storage_capacity"), row.getLong("free_space"), row.getLong("table_data_size"), row.getLong("index_data_size"), row.getLong("total_node_memory"), row.getDouble("process_cpu_load"), row.getLong("total_batches_replayed"), row.getLong("key_cache_capacity"), row.getLong("key_cache_entries"), row.getLong("key_cache_size"), row.getLong("row_cache_capacity"), row.getLong("row_cache_entries"), row.getLong("row_cache_size"), row.getLong("commitlog_size"), row.getLong("commitlog_pending_tasks"), row.has("background_io_pending")?row.getLong("background_io_pending"):0L);
+      return new NodeInfo(row.getInetAddress("node_ip"), row.getString("state"), row.getLong("uptime"), row.getSet("tokens", UTF8Type.instance), ByteBufferUtil.toFloat(row.getBytes("data_owned")), row.getString("datacenter"), row.getString("rack"), row.getLong("total_reads"), row.getLong("total_range_slices"), row.getLong("total_writes"), row.getDouble("mean_read_latency"), row.getDouble("mean_range_slice_latency"), row.getDouble("mean_write_latency"), row.getLong("read_timeouts"), row.getLong("range_slice_timeouts"), row.getLong("write_timeouts"), row.getLong("heap_total"), row.getLong("heap_used"), row.getLong("cms_collection_count"), row.getLong("cms_collection_time"), row.getLong("parnew_collection_count"), row.getLong("parnew_collection_time"), row.getLong("completed_mutations"), row.getLong("dropped_mutations"), row.getLong("compactions_completed"), row.getInt("compactions_pending"), row.getLong("read_requests_pending"), row.getLong("write_requests_pending"), row.getLong("read_repair_tasks_pending"), row.getLong("manual_repair_tasks_pending"), row.getLong("gossip_tasks_pending"), row.getLong("hinted_handoff_pending"), row.getLong("internal_responses_pending"), row.getLong("migrations_pending"), row.getLong("misc_tasks_pending"), row.getLong("request_responses_pending"), row.getLong("flush_sorter_tasks_pending"), row.getLong("memtable_post_flushers_pending"), row.getLong("replicate_on_write_tasks_pending"), row.getInt("streams_pending"), row.getLong("storage_capacity"), row.getLong("free_space"), row.getLong("table_data_size"), row.getLong("index_data_size"), row.getLong("total_node_memory"), row.getDouble("process_cpu_load"), row.getLong("total_batches_replayed"), row.getLong("key_cache_capacity"), row.getLong("key_cache_entries"), row.getLong("key_cache_size"), row.getLong("row_cache_capacity"), row.getLong("row_cache_entries"), row.getLong("row_cache_size"), row.getLong("commitlog_size"), row.getLong("commitlog_pending_tasks"), row.has("background_io_pending")?row.getLong("background_io_pending"):0L, getHistogram(row, "read_latency_histogram"), getHistogram(row, "write_latency_histogram"));
+   }
+
+   private static MergeableHistogram getHistogram(Row row, String column) {
+      return row.has(column)?MergeableHistogram.fromByteBuffer(row.getBytes(column)):MergeableHistogram.EMPTY;
    }
 
    public static class Builder {
@@ -239,15 +251,16 @@ public class NodeInfo implements CqlWritable {
       private GCInfoProvider gc;
       private RuntimeMXBean runtime;
       private MemoryMXBean memory;
+      private MergeableHistogram.Intervals histograms;
 
       public Builder() {
       }
 
       public NodeInfo build() {
-         if(this.localAddress != null && this.storage != null && this.batchLog != null && this.streams != null && this.messaging != null && this.snitch != null && this.keyCache != null && this.rowCache != null && this.threadPoolStats != null && this.clientRequests != null && this.commitLog != null && this.compaction != null && this.systemResources != null && this.gc != null && this.runtime != null && this.memory != null) {
+         if(this.localAddress != null && this.storage != null && this.batchLog != null && this.streams != null && this.messaging != null && this.snitch != null && this.keyCache != null && this.histograms != null && this.rowCache != null && this.threadPoolStats != null && this.clientRequests != null && this.commitLog != null && this.compaction != null && this.systemResources != null && this.gc != null && this.runtime != null && this.memory != null) {
             Map<ThreadPoolStats.Pool, ThreadPoolStats> threadPools = this.threadPoolStats.getThreadPools();
             Map<String, Integer> droppedMessages = this.messaging.getDroppedMessages();
-            return new NodeInfo(this.localAddress, this.storage.getState(), this.runtime.getUptime() / 1000L, this.storage.getTokens(), this.storage.getOwnership(), this.snitch.getDatacenter(this.localAddress), this.snitch.getRack(this.localAddress), this.clientRequests.totalReads(), this.clientRequests.totalRangeSlices(), this.clientRequests.totalWrites(), this.clientRequests.meanReadLatency(), this.clientRequests.meanRangeSliceLatency(), this.clientRequests.meanWriteLatency(), this.clientRequests.readTimeouts(), this.clientRequests.rangeSliceTimeouts(), this.clientRequests.writeTimeouts(), this.memory.getHeapMemoryUsage().getMax(), this.memory.getHeapMemoryUsage().getUsed(), this.gc.getCmsCollectionCount(), this.gc.getCmsCollectionTime(), this.gc.getParNewCollectionCount(), this.gc.getParNewCollectionTime(), -1L, ((Integer)droppedMessages.get(Group.MUTATION.toString())).longValue(), this.compaction.totalCompleted(), this.compaction.pendingTasks(), -1L, -1L, ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.READ_REPAIR)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.ANTI_ENTROPY)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.GOSSIP)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.HINTED_HANDOFF)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.INTERNAL_RESPONSE)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MIGRATION)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MISC)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.REQUEST_RESPONSE)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MEMTABLE_FLUSH_WRITER)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MEMTABLE_POST_FLUSH)).getPendingTasks(), -1L, this.streams.getCurrentStreamsCount(), this.systemResources.getTotalPhysicalDiskSpace(), this.systemResources.getFreeDiskSpaceRemaining(), this.systemResources.getTotalTableDataSize(), this.systemResources.getTotalIndexDataSize(), this.systemResources.getTotalPhysicalMemory(), this.systemResources.getProcessCpuLoad(), this.batchLog.getTotalBatchesReplayed(), this.keyCache.getCapacity(), this.keyCache.getEntries(), this.keyCache.getSize(), this.rowCache.getCapacity(), this.rowCache.getEntries(), this.rowCache.getSize(), this.commitLog.getCommitLogTotalSize(), this.commitLog.getCommitLogPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.BACKGROUND_IO)).getPendingTasks());
+            return new NodeInfo(this.localAddress, this.storage.getState(), this.runtime.getUptime() / 1000L, this.storage.getTokens(), this.storage.getOwnership(), this.snitch.getDatacenter(this.localAddress), this.snitch.getRack(this.localAddress), this.clientRequests.totalReads(), this.clientRequests.totalRangeSlices(), this.clientRequests.totalWrites(), this.clientRequests.meanReadLatency(), this.clientRequests.meanRangeSliceLatency(), this.clientRequests.meanWriteLatency(), this.clientRequests.readTimeouts(), this.clientRequests.rangeSliceTimeouts(), this.clientRequests.writeTimeouts(), this.memory.getHeapMemoryUsage().getMax(), this.memory.getHeapMemoryUsage().getUsed(), this.gc.getCmsCollectionCount(), this.gc.getCmsCollectionTime(), this.gc.getParNewCollectionCount(), this.gc.getParNewCollectionTime(), -1L, ((Integer)droppedMessages.get(Group.MUTATION.toString())).longValue(), this.compaction.totalCompleted(), this.compaction.pendingTasks(), -1L, -1L, ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.READ_REPAIR)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.ANTI_ENTROPY)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.GOSSIP)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.HINTED_HANDOFF)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.INTERNAL_RESPONSE)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MIGRATION)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MISC)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.REQUEST_RESPONSE)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MEMTABLE_FLUSH_WRITER)).getPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.MEMTABLE_POST_FLUSH)).getPendingTasks(), -1L, this.streams.getCurrentStreamsCount(), this.systemResources.getTotalPhysicalDiskSpace(), this.systemResources.getFreeDiskSpaceRemaining(), this.systemResources.getTotalTableDataSize(), this.systemResources.getTotalIndexDataSize(), this.systemResources.getTotalPhysicalMemory(), this.systemResources.getProcessCpuLoad(), this.batchLog.getTotalBatchesReplayed(), this.keyCache.getCapacity(), this.keyCache.getEntries(), this.keyCache.getSize(), this.rowCache.getCapacity(), this.rowCache.getEntries(), this.rowCache.getSize(), this.commitLog.getCommitLogTotalSize(), this.commitLog.getCommitLogPendingTasks(), ((ThreadPoolStats)threadPools.get(ThreadPoolStats.Pool.BACKGROUND_IO)).getPendingTasks(), this.histograms.of(TableMetrics.globalReadLatency.latency), this.histograms.of(TableMetrics.globalWriteLatency.latency));
          } else {
             throw new RuntimeException("NodeInfo.Builder not properly configured");
          }
@@ -332,5 +345,10 @@ public class NodeInfo implements CqlWritable {
          this.memory = memory;
          return this;
       }
+
+      public NodeInfo.Builder withHistograms(MergeableHistogram.Intervals histograms) {
+         this.histograms = histograms;
+         return this;
+      }
    }
 }
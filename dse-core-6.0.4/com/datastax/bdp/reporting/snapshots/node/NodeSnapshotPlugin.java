@@ -86,7 +86,7 @@ public class NodeSnapshotPlugin extends AbstractScheduledPlugin<PerformanceObjec
 
       public void run() {
          try {
-            NodeInfo.Builder builder = (new NodeInfo.Builder()).withLocalAddress(NodeSnapshotPlugin.this.nodeAddress).withSnitch(DatabaseDescriptor.getEndpointSnitch()).withBatchlogInfo(this.batchLog).withStorageService(this.storage).withStreams(this.streams).withMessaging(this.messaging).withKeyCache(this.keyCache).withRowCache(this.rowCache).withCompaction(this.compaction).withThreadPools(this.threadPoolStats).withCommitLog(this.commitLog).withClientRequests(this.clientRequests).withGcInfo(this.gcInfo).withSystemResources(this.systemResources).withRuntime(this.runtime).withMemory(this.memory);
+            NodeInfo.Builder builder = (new NodeInfo.Builder()).withLocalAddress(NodeSnapshotPlugin.this.nodeAddress).withSnitch(DatabaseDescriptor.getEndpointSnitch()).withBatchlogInfo(this.batchLog).withStorageService(this.storage).withStreams(this.streams).withMessaging(this.messaging).withKeyCache(this.keyCache).withRowCache(this.rowCache).withCompaction(this.compaction).withThreadPools(this.threadPoolStats).withCommitLog(this.commitLog).withClientRequests(this.clientRequests).withGcInfo(this.gcInfo).withSystemResources(this.systemResources).withRuntime(this.runtime).withMemory(this.memory).withHistograms(NodeSnapshotPlugin.this.writer.histograms());
             NodeSnapshotPlugin.this.writer.write(builder.build());
          } catch (RuntimeException var2) {
             NodeSnapshotPlugin.logger.debug("Error performing periodic update of node summary info", var2);
@@ -64,6 +64,8 @@ public class PerformanceObjectsKeyspace {
    public static final String  NODE_SNAPSHOT_ADD_BACKGROUND_IO_PENDING = String.format("ALTER TABLE %s.%s ADD %s bigint;", new Object[]{"dse_perf", "node_snapshot", "background_io_pending"});
    public static final String  CLUSTER_SNAPSHOT_ADD_BACKGROUND_IO_PENDING = String.format("ALTER TABLE %s.%s ADD %s bigint;", new Object[]{"dse_perf", "cluster_snapshot", "background_io_pending"});
    public static final String  DC_SNAPSHOT_ADD_BACKGROUND_IO_PENDING = String.format("ALTER TABLE %s.%s ADD %s bigint;", new Object[]{"dse_perf", "dc_snapshot", "background_io_pending"});
+   public static final List<String> LATENCY_HISTOGRAM_COLUMNS = ImmutableList.of("read_latency_histogram", "write_latency_histogram");
+   public static final List<String> LATENCY_PERCENTILE_COLUMNS = ImmutableList.of("read_latency_p99", "read_latency_p999", "write_latency_p99", "write_latency_p999");
    public static final Map<String,TableMetadata>tables = new ConcurrentHashMap();
    public static final CountDownLatch initialized = new CountDownLatch(1);
    public static final Logger logger = LoggerFactory.getLogger(PerformanceObjectsKeyspace.class);
@@ -74,6 +76,16 @@ public class PerformanceObjectsKeyspace {
    private PerformanceObjectsKeyspace() {
    }
 
+   public static void maybeAddColumns(String tableName, List<String> columns, String type) {
+      Iterator var3 = columns.iterator();
+
+      while(var3.hasNext()) {
+         String column = (String)var3.next();
+         SchemaTool.maybeAddNewColumn("dse_perf", tableName, column, String.format("ALTER TABLE %s.%s ADD %s %s;", new Object[]{"dse_perf", tableName, column, type}));
+      }
+
+   }
+
    public static synchronized void init() {
       if(initialized.getCount() != 0L) {
          String histogramsTemplate = "CREATE TABLE %s.%s (node_ip inet, keyspace_name text, table_name text, histogram_id timestamp, bucket_offset bigint, bucket_count bigint, PRIMARY KEY ((node_ip, keyspace_name, table_name), histogram_id, bucket_offset)) WITH CLUSTERING ORDER BY (histogram_id DESC, bucket_offset ASC) AND " + PerformanceObjectsPlugin.getAdditionalTableOptions();
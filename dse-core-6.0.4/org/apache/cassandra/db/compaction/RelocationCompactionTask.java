@@ -3,16 +3,30 @@ package org.apache.cassandra.db.compaction;
 import com.datastax.bdp.cassandra.db.tiered.RangeAwareWriter;
 import com.datastax.bdp.cassandra.db.tiered.TieredRangeAwareSSTableWriter;
 import com.datastax.bdp.cassandra.db.tiered.TieredStorageStrategy;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.RateLimiter;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.Directories.DataDirectory;
 import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.db.compaction.writers.AbstractTieredCompactionAwareWriter;
 import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SSTableZeroCopyWriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Throwables;
+import org.apache.cassandra.utils.UUIDGen;
 
 public class RelocationCompactionTask extends CompactionTask {
    private final TieredStorageStrategy strategy;
@@ -26,10 +40,96 @@ public class RelocationCompactionTask extends CompactionTask {
       return "RelocationCompactionTask{strategy=" + this.strategy + '}';
    }
 
+   protected void runMayThrow() throws Exception {
+      SSTableReader sstable = this.transaction.originals().size() == 1?(SSTableReader)Iterables.getOnlyElement(this.transaction.originals()):null;
+      TieredStorageStrategy.Tier tier = sstable == null?null:this.strategy.getTierForSSTable(sstable);
+      if(tier == null) {
+         super.runMayThrow();
+      } else {
+         this.relocate(sstable, tier);
+      }
+
+   }
+
+   private void relocate(SSTableReader sstable, TieredStorageStrategy.Tier tier) throws IOException {
+      long start = System.nanoTime();
+      DataDirectory dataDirectory = tier.getDirectories().getWriteableLocation(sstable.onDiskLength());
+      if(dataDirectory == null) {
+         throw new RuntimeException(String.format("Not enough space to relocate %s (%s) to tier %d", new Object[]{sstable, FBUtilities.prettyPrintMemory(sstable.onDiskLength()), Integer.valueOf(tier.getLevel())}));
+      } else {
+         Descriptor descriptor = this.cfs.newSSTableDescriptor(tier.getDirectories().getLocationForDisk(dataDirectory), sstable.descriptor.version, sstable.descriptor.formatType);
+         Set<Component> components = new HashSet();
+         long totalBytes = 0L;
+         Iterator var9 = sstable.getComponents().iterator();
+
+         while(var9.hasNext()) {
+            Component component = (Component)var9.next();
+            File file = new File(sstable.descriptor.filenameFor(component));
+            if(file.exists()) {
+               components.add(component);
+               totalBytes += file.length();
+            }
+         }
+
+         SSTableZeroCopyWriter writer = new SSTableZeroCopyWriter(descriptor, components, this.cfs.metadata, sstable.getSSTableLevel(), this.transaction);
+         RelocationCompactionTask.RelocationInfo info = new RelocationCompactionTask.RelocationInfo(sstable, writer, totalBytes);
+         RateLimiter limiter = CompactionManager.instance.getRateLimiter();
+         CompactionManager.instance.getMetrics().beginCompaction(info);
+
+         try {
+            Iterator var14 = components.iterator();
+
+            while(var14.hasNext()) {
+               Component component = (Component)var14.next();
+               if(info.isStopRequested()) {
+                  throw new CompactionInterruptedException(info.getCompactionInfo());
+               }
+
+               writer.linkComponent(component, new File(sstable.descriptor.filenameFor(component)), limiter);
+            }
+
+            SSTableReader relocated = (SSTableReader)Iterables.getOnlyElement(writer.finish(true));
+            if(sstable.getReadMeter() != null) {
+               relocated.inheritReadMeter(sstable.getReadMeter());
+            }
+
+            this.transaction.update(relocated, false);
+            this.transaction.checkpoint();
+            this.transaction.obsoleteOriginals();
+            this.transaction.prepareToCommit();
+            this.transaction.commit();
+            logger.debug("Relocated {} to {} on tier {} without rewriting it in {}ms", new Object[]{sstable, relocated, Integer.valueOf(tier.getLevel()), Long.valueOf(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))});
+         } catch (Throwable var17) {
+            Throwables.maybeFail(writer.abort(var17));
+         } finally {
+            CompactionManager.instance.getMetrics().finishCompaction(info);
+         }
+
+      }
+   }
+
    public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs, Directories directories, LifecycleTransaction transaction, Set<SSTableReader> nonExpiredSSTables) {
       return new RelocationCompactionTask.Writer(this.strategy, cfs, directories, transaction, nonExpiredSSTables, this.keepOriginals);
    }
 
+   private static class RelocationInfo extends CompactionInfo.Holder {
+      private final SSTableReader sstable;
+      private final SSTableZeroCopyWriter writer;
+      private final long totalBytes;
+      private final UUID relocationId;
+
+      RelocationInfo(SSTableReader sstable, SSTableZeroCopyWriter writer, long totalBytes) {
+         this.sstable = sstable;
+         this.writer = writer;
+         this.totalBytes = totalBytes;
+         this.relocationId = UUIDGen.getTimeUUID();
+      }
+
+      public CompactionInfo getCompactionInfo() {
+         return new CompactionInfo(this.sstable.metadata(), OperationType.RELOCATE, this.writer.getFilePointer(), this.totalBytes, this.relocationId);
+      }
+   }
+
    private static class Writer extends AbstractTieredCompactionAwareWriter {
       private final LifecycleTransaction transaction;
 
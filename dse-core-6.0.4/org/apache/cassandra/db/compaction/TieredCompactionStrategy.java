@@ -190,6 +190,24 @@ public class TieredCompactionStrategy extends AbstractCompactionStrategy {
       }
    }
 
+   private AbstractCompactionTask maybeGetTierRelocationTask(int gcBefore) {
+      Set<SSTableReader> sstables = this.getSSTables();
+      SSTableReader sstable = this.strategy.nextRelocationCandidate(Iterables.filter(this.cfs.getUncompactingSSTables(), sstables::contains));
+      if(sstable == null) {
+         return null;
+      } else {
+         LifecycleTransaction modifier = this.cfs.getTracker().tryModify(Collections.singleton(sstable), OperationType.COMPACTION);
+         if(modifier == null) {
+            return null;
+         } else if(!this.strategy.scheduleRelocation(sstable)) {
+            modifier.abort();
+            return null;
+         } else {
+            return new RelocationCompactionTask(this.cfs, modifier, gcBefore, this.strategy);
+         }
+      }
+   }
+
    public AbstractCompactionTask getNextBackgroundTask(int gcBefore) {
       Iterator var2 = this.strategy.getTiers().iterator();
 
@@ -197,7 +215,8 @@ public class TieredCompactionStrategy extends AbstractCompactionStrategy {
       AbstractCompactionTask task;
       do {
          if(!var2.hasNext()) {
-            return this.maybeGetRelocationTask(gcBefore);
+            task = this.maybeGetRelocationTask(gcBefore);
+            return task != null?task:this.maybeGetTierRelocationTask(gcBefore);
          }
 
          tier = (TieredStorageStrategy.Tier)var2.next();
@@ -64,7 +64,7 @@ public abstract class AbstractTieredCompactionAwareWriter extends CompactionAwar
       protected final Set<SSTableReader> readers = new HashSet();
 
       public CompactionRowWriter(TieredStorageStrategy strategy, LifecycleTransaction transaction) {
-         super(strategy);
+         super(strategy, transaction.originals());
          this.transaction = transaction;
       }
 
@@ -103,7 +103,7 @@ class ContinuousValidationProposer extends ValidationProposer {
          TableState.Ref.Status status = this.segmentRef.checkStatus();
          if(status.isUpToDate()) {
             NodeSyncTracing.SegmentTracing tracing = ContinuousValidationProposer.this.service().tracing().startContinuous(this.segment(), this.stateAtProposal().toTraceString());
-            ValidationLifecycle lifecycle = ValidationLifecycle.createAndStart(this.segmentRef, tracing);
+            ValidationLifecycle lifecycle = ValidationLifecycle.createAndStart(this.segmentRef, tracing, DataWatermark.INCREMENTAL_VALIDATION);
             ContinuousValidationProposer.this.generateNextProposal();
             return Validator.create(lifecycle);
          } else {
@@ -0,0 +1,170 @@
+package com.datastax.bdp.db.nodesync;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Memtable;
+import org.apache.cassandra.db.lifecycle.SSTableSet;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.gms.FailureDetector;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.net.MessagingVersion;
+import org.apache.cassandra.net.Verbs;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Serializer;
+import org.apache.cassandra.utils.units.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class DataWatermark {
+   private static final Logger logger = LoggerFactory.getLogger(DataWatermark.class);
+   static final boolean INCREMENTAL_VALIDATION = Boolean.parseBoolean(System.getProperty("dse.nodesync.incremental_validation", "false"));
+   private static final long MAX_SKIP_AGE_MS = Long.getLong("dse.nodesync.incremental_max_skip_age_ms", TimeUnit.DAYS.toMillis(7L)).longValue();
+   static final long UNKNOWN = 9223372036854775807L;
+   static final Serializer<Long> timestampSerializer = new Serializer<Long>() {
+      public void serialize(Long timestamp, DataOutputPlus out) throws IOException {
+         out.writeLong(timestamp.longValue());
+      }
+
+      public Long deserialize(DataInputPlus in) throws IOException {
+         return Long.valueOf(in.readLong());
+      }
+
+      public long serializedSize(Long timestamp) {
+         return 8L;
+      }
+   };
+   final long maxTimestamp;
+   final long validatedAt;
+
+   DataWatermark(long maxTimestamp, long validatedAt) {
+      this.maxTimestamp = maxTimestamp;
+      this.validatedAt = validatedAt;
+   }
+
+   boolean allowsSkipping(long currentMaxTimestamp, long now) {
+      return currentMaxTimestamp != 9223372036854775807L && currentMaxTimestamp <= this.maxTimestamp && now - this.validatedAt < MAX_SKIP_AGE_MS;
+   }
+
+   boolean isMoreRecentThan(DataWatermark other) {
+      return other == null || this.validatedAt > other.validatedAt;
+   }
+
+   @Nullable
+   static DataWatermark consolidate(Collection<DataWatermark> watermarks) {
+      if(watermarks.isEmpty()) {
+         return null;
+      } else {
+         long maxTimestamp = 9223372036854775807L;
+         long validatedAt = 9223372036854775807L;
+         Iterator var5 = watermarks.iterator();
+
+         while(var5.hasNext()) {
+            DataWatermark watermark = (DataWatermark)var5.next();
+            if(watermark == null) {
+               return null;
+            }
+
+            maxTimestamp = Math.min(maxTimestamp, watermark.maxTimestamp);
+            validatedAt = Math.min(validatedAt, watermark.validatedAt);
+         }
+
+         return new DataWatermark(maxTimestamp, validatedAt);
+      }
+   }
+
+   static long localMaxTimestamp(Segment segment) {
+      ColumnFamilyStore cfs = ColumnFamilyStore.getIfExists(segment.table.id);
+      if(cfs == null) {
+         return 9223372036854775807L;
+      } else {
+         Iterator var2 = cfs.getTracker().getView().getAllMemtables().iterator();
+
+         while(var2.hasNext()) {
+            Memtable memtable = (Memtable)var2.next();
+            if(memtable.hasDataIn(segment.range)) {
+               return 9223372036854775807L;
+            }
+         }
+
+         long max = -9223372036854775808L;
+         Collection<Range<Token>> ranges = Collections.singleton(segment.range);
+         Iterator var5 = cfs.getSSTables(SSTableSet.LIVE).iterator();
+
+         while(var5.hasNext()) {
+            SSTableReader sstable = (SSTableReader)var5.next();
+            if(sstable.intersects(ranges)) {
+               max = Math.max(max, sstable.getMaxTimestamp());
+            }
+         }
+
+         return max;
+      }
+   }
+
+   static long replicasMaxTimestamp(Segment segment, Collection<InetAddress> replicas) {
+      InetAddress local = FBUtilities.getBroadcastAddress();
+      List<CompletableFuture<Long>> responses = new ArrayList(replicas.size());
+      Iterator var4 = replicas.iterator();
+
+      while(var4.hasNext()) {
+         InetAddress replica = (InetAddress)var4.next();
+         if(!replica.equals(local)) {
+            if(!FailureDetector.instance.isAlive(replica) || !MessagingService.instance().versionAtLeast(replica, MessagingVersion.DSE_604)) {
+               return 9223372036854775807L;
+            }
+
+            responses.add(MessagingService.instance().sendSingleTarget(Verbs.NODESYNC.DATA_WATERMARK.newRequest(replica, segment)));
+         }
+      }
+
+      long max = localMaxTimestamp(segment);
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DatabaseDescriptor.getRpcTimeout());
+      var4 = responses.iterator();
+
+      while(var4.hasNext()) {
+         CompletableFuture<Long> response = (CompletableFuture)var4.next();
+
+         try {
+            max = Math.max(max, ((Long)response.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)).longValue());
+         } catch (Exception var10) {
+            logger.trace("Could not get data watermark for {}: {}", segment, var10.getMessage());
+            return 9223372036854775807L;
+         }
+      }
+
+      return max;
+   }
+
+   public final int hashCode() {
+      return Objects.hash(new Object[]{Long.valueOf(this.maxTimestamp), Long.valueOf(this.validatedAt)});
+   }
+
+   public boolean equals(Object o) {
+      if(!(o instanceof DataWatermark)) {
+         return false;
+      } else {
+         DataWatermark that = (DataWatermark)o;
+         return this.maxTimestamp == that.maxTimestamp && this.validatedAt == that.validatedAt;
+      }
+   }
+
+   public String toString() {
+      long now = NodeSyncHelpers.time().currentTimeMillis();
+      return String.format("max timestamp %d (validated %s ago)", new Object[]{Long.valueOf(this.maxTimestamp), TimeValue.of(now - this.validatedAt, TimeUnit.MILLISECONDS)});
+   }
+}
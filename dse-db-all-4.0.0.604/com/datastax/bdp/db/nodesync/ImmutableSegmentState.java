@@ -7,14 +7,20 @@ class ImmutableSegmentState extends SegmentState {
    private final long deadlineTargetMs;
    private final boolean isLocallyLocked;
    private final boolean isRemotelyLocked;
+   private final DataWatermark dataWatermark;
 
    ImmutableSegmentState(Segment segment, long lastValidationTimeMs, long lastSuccessfulValidationTimeMs, long deadlineTargetMs, boolean isLocallyLocked, boolean isRemotelyLocked) {
+      this(segment, lastValidationTimeMs, lastSuccessfulValidationTimeMs, deadlineTargetMs, isLocallyLocked, isRemotelyLocked, (DataWatermark)null);
+   }
+
+   ImmutableSegmentState(Segment segment, long lastValidationTimeMs, long lastSuccessfulValidationTimeMs, long deadlineTargetMs, boolean isLocallyLocked, boolean isRemotelyLocked, DataWatermark dataWatermark) {
       this.segment = segment;
       this.lastValidationTimeMs = lastValidationTimeMs;
       this.lastSuccessfulValidationTimeMs = lastSuccessfulValidationTimeMs;
       this.deadlineTargetMs = deadlineTargetMs;
       this.isLocallyLocked = isLocallyLocked;
       this.isRemotelyLocked = isRemotelyLocked;
+      this.dataWatermark = dataWatermark;
    }
 
    Segment segment() {
@@ -40,4 +46,8 @@ class ImmutableSegmentState extends SegmentState {
    boolean isRemotelyLocked() {
       return this.isRemotelyLocked;
    }
+
+   DataWatermark dataWatermark() {
+      return this.dataWatermark;
+   }
 }
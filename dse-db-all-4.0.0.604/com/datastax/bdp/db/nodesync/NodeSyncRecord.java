@@ -6,6 +6,7 @@ import com.google.common.collect.Iterables;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -29,8 +30,14 @@ public class NodeSyncRecord {
    final ValidationInfo lastSuccessfulValidation;
    @Nullable
    final InetAddress lockedBy;
+   @Nullable
+   final DataWatermark dataWatermark;
 
    public NodeSyncRecord(Segment segment, ValidationInfo lastValidation, ValidationInfo lastSuccessfulValidation, InetAddress lockedBy) {
+      this(segment, lastValidation, lastSuccessfulValidation, lockedBy, (DataWatermark)null);
+   }
+
+   NodeSyncRecord(Segment segment, ValidationInfo lastValidation, ValidationInfo lastSuccessfulValidation, InetAddress lockedBy, DataWatermark dataWatermark) {
       assert segment != null;
 
       assert lastSuccessfulValidation == null || lastValidation != null && lastSuccessfulValidation.outcome.wasSuccessful() && lastSuccessfulValidation.startedAt <= lastValidation.startedAt;
@@ -39,12 +46,17 @@ public class NodeSyncRecord {
       this.lastValidation = lastValidation;
       this.lastSuccessfulValidation = lastSuccessfulValidation;
       this.lockedBy = lockedBy;
+      this.dataWatermark = dataWatermark;
    }
 
    private NodeSyncRecord(Segment segment, ValidationInfo lastValidation) {
       this(segment, lastValidation, lastValidation.wasSuccessful()?lastValidation:null, (InetAddress)null);
    }
 
+   public static NodeSyncRecord withDataWatermark(Segment segment, ValidationInfo lastValidation, ValidationInfo lastSuccessfulValidation, InetAddress lockedBy, Long dataWatermark, Long dataWatermarkValidatedAt) {
+      return new NodeSyncRecord(segment, lastValidation, lastSuccessfulValidation, lockedBy, dataWatermark != null && dataWatermarkValidatedAt != null?new DataWatermark(dataWatermark.longValue(), dataWatermarkValidatedAt.longValue()):null);
+   }
+
    @VisibleForTesting
    static NodeSyncRecord empty(Segment segment) {
       return new NodeSyncRecord(segment, (ValidationInfo)null, (ValidationInfo)null, (InetAddress)null);
@@ -72,7 +84,7 @@ public class NodeSyncRecord {
 
             assert record.segment.table.equals(segment.table);
 
-            return record.segment.equals(segment)?record:(record.segment.range.contains((AbstractBounds)range)?new NodeSyncRecord(segment, record.lastValidation, record.lastSuccessfulValidation, record.lockedBy):empty(segment));
+            return record.segment.equals(segment)?record:(record.segment.range.contains((AbstractBounds)range)?new NodeSyncRecord(segment, record.lastValidation, record.lastSuccessfulValidation, record.lockedBy, record.dataWatermark):empty(segment));
          } else {
             ValidationInfo lastSuccessfulValidation = consolidateValidations(range, Iterables.filter(coveringRecords, (r) -> {
                return r != null && r.lastSuccessfulValidation != null;
@@ -85,7 +97,8 @@ public class NodeSyncRecord {
                return r.lastValidation;
             });
             InetAddress lockedBy = consolidateLockedBy(range, coveringRecords);
-            return new NodeSyncRecord(segment, lastValidation, lastSuccessfulValidation, lockedBy);
+            DataWatermark dataWatermark = lastSuccessfulValidation == null?null:consolidateDataWatermark(range, coveringRecords);
+            return new NodeSyncRecord(segment, lastValidation, lastSuccessfulValidation, lockedBy, dataWatermark);
          }
       }
    }
@@ -165,6 +178,21 @@ public class NodeSyncRecord {
       }
    }
 
+   @VisibleForTesting
+   static DataWatermark consolidateDataWatermark(Range<Token> range, List<NodeSyncRecord> coveringRecords) {
+      List<DataWatermark> watermarks = new ArrayList(coveringRecords.size());
+      Iterator var3 = coveringRecords.iterator();
+
+      while(var3.hasNext()) {
+         NodeSyncRecord record = (NodeSyncRecord)var3.next();
+         if(record.segment.range.intersects(range)) {
+            watermarks.add(record.dataWatermark);
+         }
+      }
+
+      return DataWatermark.consolidate(watermarks);
+   }
+
    @VisibleForTesting
    static InetAddress consolidateLockedBy(Range<Token> range, List<NodeSyncRecord> coveringRecords) {
       int i = 0;
@@ -214,7 +242,7 @@ public class NodeSyncRecord {
    }
 
    public final int hashCode() {
-      return Objects.hash(new Object[]{this.segment, this.lastValidation, this.lastSuccessfulValidation, this.lockedBy});
+      return Objects.hash(new Object[]{this.segment, this.lastValidation, this.lastSuccessfulValidation, this.lockedBy, this.dataWatermark});
    }
 
    public boolean equals(Object o) {
@@ -222,13 +250,14 @@ public class NodeSyncRecord {
          return false;
       } else {
          NodeSyncRecord that = (NodeSyncRecord)o;
-         return this.segment.equals(that.segment) && Objects.equals(this.lastValidation, that.lastValidation) && Objects.equals(this.lastSuccessfulValidation, that.lastSuccessfulValidation) && Objects.equals(this.lockedBy, that.lockedBy);
+         return this.segment.equals(that.segment) && Objects.equals(this.lastValidation, that.lastValidation) && Objects.equals(this.lastSuccessfulValidation, that.lastSuccessfulValidation) && Objects.equals(this.lockedBy, that.lockedBy) && Objects.equals(this.dataWatermark, that.dataWatermark);
       }
    }
 
    public String toString() {
       String lastSuccString = this.lastSuccessfulValidation != null && (this.lastValidation == null || !this.lastValidation.outcome.wasSuccessful())?", last success=" + this.lastSuccessfulValidation:"";
       String lockStr = this.lockedBy == null?"":", locked by " + this.lockedBy;
-      return String.format("%s (last validation=%s%s%s)", new Object[]{this.segment, this.lastValidation == null?"<none>":this.lastValidation.toString(), lastSuccString, lockStr});
+      String watermarkStr = this.dataWatermark == null?"":", data watermark=" + this.dataWatermark;
+      return String.format("%s (last validation=%s%s%s%s)", new Object[]{this.segment, this.lastValidation == null?"<none>":this.lastValidation.toString(), lastSuccString, lockStr, watermarkStr});
    }
 }
@@ -39,6 +39,7 @@ import org.apache.cassandra.metrics.MetricNameFactory;
 import org.apache.cassandra.metrics.NodeSyncMetrics;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.net.MessagingVersion;
+import org.apache.cassandra.repair.SystemDistributedKeyspace;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.StorageService;
@@ -135,6 +136,10 @@ public class NodeSyncService implements NodeSyncServiceMBean {
             }
          }
 
+         if(DataWatermark.INCREMENTAL_VALIDATION) {
+            SystemDistributedKeyspace.setupNodeSyncDataWatermarks();
+         }
+
          try {
             this.instance = new NodeSyncService.Instance();
             return this.instance.start();
@@ -223,6 +228,15 @@ public class NodeSyncService implements NodeSyncServiceMBean {
 
    }
 
+   void onSkippedValidation(TableMetadata table) {
+      this.metrics.skippedSegments.inc();
+      ColumnFamilyStore cfs = ColumnFamilyStore.getIfExists(table.id);
+      if(cfs != null) {
+         cfs.metric.nodeSyncMetrics.skippedSegments.inc();
+      }
+
+   }
+
    public void setRate(int kbPerSecond) {
       NodeSyncService.Instance current = this.instance;
       if(current != null) {
@@ -24,6 +24,15 @@ public interface NodeSyncStatusTableProxy {
       public void recordNodeSyncValidation(Segment segment, ValidationInfo info, boolean wasPreviousSuccessful) {
          SystemDistributedKeyspace.recordNodeSyncValidation(segment, info, wasPreviousSuccessful);
       }
+
+      public void recordNodeSyncValidation(Segment segment, ValidationInfo info, boolean wasPreviousSuccessful, DataWatermark dataWatermark) {
+         if(dataWatermark == null) {
+            SystemDistributedKeyspace.recordNodeSyncValidation(segment, info, wasPreviousSuccessful);
+         } else {
+            SystemDistributedKeyspace.recordNodeSyncValidation(segment, info, wasPreviousSuccessful, Long.valueOf(dataWatermark.maxTimestamp), Long.valueOf(dataWatermark.validatedAt));
+         }
+
+      }
    };
 
    List<NodeSyncRecord> nodeSyncRecords(TableMetadata var1, Range<Token> var2);
@@ -37,4 +46,8 @@ public interface NodeSyncStatusTableProxy {
    void forceReleaseNodeSyncSegmentLock(Segment var1);
 
    void recordNodeSyncValidation(Segment var1, ValidationInfo var2, boolean var3);
+
+   default void recordNodeSyncValidation(Segment segment, ValidationInfo info, boolean wasPreviousSuccessful, DataWatermark dataWatermark) {
+      this.recordNodeSyncValidation(segment, info, wasPreviousSuccessful);
+   }
 }
@@ -26,6 +26,7 @@ public class NodeSyncVerbs extends VerbGroup<NodeSyncVerbs.NodeSyncVersion> {
    final Verb.AckedRequest<TracingOptions> ENABLE_TRACING;
    final Verb.AckedRequest<EmptyPayload> DISABLE_TRACING;
    final Verb.RequestResponse<EmptyPayload, Optional<UUID>> TRACING_SESSION;
+   final Verb.RequestResponse<Segment, Long> DATA_WATERMARK;
    @VisibleForTesting
    static final Serializer<Optional<UUID>> tracingSessionResultSerializer;
 
@@ -39,6 +40,7 @@ public class NodeSyncVerbs extends VerbGroup<NodeSyncVerbs.NodeSyncVersion> {
       this.DISABLE_TRACING = ((VerbGroup.RegistrationHelper.AckedRequestBuilder)((Object)helper.ackedRequest("DISABLE_TRACING", EmptyPayload.class).timeout(DatabaseDescriptor::getRpcTimeout))).syncHandler((from, options) -> service.disableTracing());
       Class<?> optIdClass = Optional.empty().getClass();
       this.TRACING_SESSION = ((VerbGroup.RegistrationHelper.RequestResponseBuilder)((Object)((VerbGroup.RegistrationHelper.RequestResponseBuilder)((Object)helper.requestResponse("TRACING_SESSION", EmptyPayload.class, optIdClass).withResponseSerializer(tracingSessionResultSerializer))).timeout(DatabaseDescriptor::getRpcTimeout))).syncHandler((from, p) -> service.currentTracingSessionIfEnabled());
+      this.DATA_WATERMARK = ((VerbGroup.RegistrationHelper.RequestResponseBuilder)((Object)((VerbGroup.RegistrationHelper.RequestResponseBuilder)((Object)helper.requestResponse("DATA_WATERMARK", Segment.class, Long.class).withResponseSerializer(DataWatermark.timestampSerializer))).timeout(DatabaseDescriptor::getRpcTimeout))).syncHandler((from, segment) -> Long.valueOf(DataWatermark.localMaxTimestamp((Segment)segment)));
    }
 
    static {
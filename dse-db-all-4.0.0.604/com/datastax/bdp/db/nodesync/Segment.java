@@ -1,11 +1,21 @@
 package com.datastax.bdp.db.nodesync;
 
+import java.io.IOException;
 import java.util.Objects;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.exceptions.UnknownTableException;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.Serializer;
+import org.apache.cassandra.utils.versioning.VersionDependent;
+import org.apache.cassandra.utils.versioning.Versioned;
 
 public class Segment implements Comparable<Segment> {
+   public static final Versioned<NodeSyncVerbs.NodeSyncVersion, Serializer<Segment>> serializers = NodeSyncVerbs.NodeSyncVersion.versioned(Segment.SegmentSerializer::new);
    public final TableMetadata table;
    public final Range<Token> range;
 
@@ -44,4 +54,29 @@ public class Segment implements Comparable<Segment> {
    public String toString() {
       return String.format("%s-%s", new Object[]{this.table, this.range});
    }
+
+   public static class SegmentSerializer extends VersionDependent<NodeSyncVerbs.NodeSyncVersion> implements Serializer<Segment> {
+      public SegmentSerializer(NodeSyncVerbs.NodeSyncVersion version) {
+         super(version);
+      }
+
+      public void serialize(Segment segment, DataOutputPlus out) throws IOException {
+         segment.table.id.serialize(out);
+         Range.tokenSerializer.serialize(segment.range, out, ((NodeSyncVerbs.NodeSyncVersion)this.version).boundsVersion);
+      }
+
+      public Segment deserialize(DataInputPlus in) throws IOException {
+         TableId id = TableId.deserialize(in);
+         TableMetadata table = Schema.instance.getTableMetadata(id);
+         if(table == null) {
+            throw new UnknownTableException(id);
+         } else {
+            return new Segment(table, (Range)Range.tokenSerializer.deserialize(in, table.partitioner, ((NodeSyncVerbs.NodeSyncVersion)this.version).boundsVersion));
+         }
+      }
+
+      public long serializedSize(Segment segment) {
+         return (long)(segment.table.id.serializedSize() + Range.tokenSerializer.serializedSize(segment.range, ((NodeSyncVerbs.NodeSyncVersion)this.version).boundsVersion));
+      }
+   }
 }
@@ -22,6 +22,8 @@ abstract class SegmentState {
 
    abstract boolean isRemotelyLocked();
 
+   abstract DataWatermark dataWatermark();
+
    boolean lastValidationWasSuccessful() {
       return this.lastValidationTimeMs() == this.lastSuccessfulValidationTimeMs();
    }
@@ -329,9 +329,13 @@ public class TableState {
       }
 
       void onCompletedValidation(long validationTime, boolean wasSuccessful) {
+         this.onCompletedValidation(validationTime, wasSuccessful, (DataWatermark)null);
+      }
+
+      void onCompletedValidation(long validationTime, boolean wasSuccessful, DataWatermark dataWatermark) {
          long lastSuccess = wasSuccessful?validationTime:-9223372036854775808L;
          this.doUpdate((s, i) -> {
-            s.updateCompletedValidation(i, validationTime, lastSuccess);
+            s.updateCompletedValidation(i, validationTime, lastSuccess, dataWatermark);
          });
       }
 
@@ -461,6 +465,7 @@ public class TableState {
       private final long[] lastSuccessfulValidations;
       private final int[] localLocks;
       private final BitSet remoteLocks;
+      private final DataWatermark[] dataWatermarks;
       private int nextIdx;
 
       private StateHolder(long deadlineTargetMs, Segments segments, long[] lastValidations, long[] lastSuccessfulValidations, int[] localLocks, BitSet remoteLocks) {
@@ -471,6 +476,7 @@ public class TableState {
          this.lastSuccessfulValidations = lastSuccessfulValidations;
          this.localLocks = localLocks;
          this.remoteLocks = remoteLocks;
+         this.dataWatermarks = new DataWatermark[this.size];
 
          assert segments.size() == this.size;
 
@@ -579,7 +585,7 @@ public class TableState {
       }
 
       private SegmentState immutableSegmentState(int i) {
-         return new ImmutableSegmentState(this.segments.get(i), this.lastValidations[i], this.lastSuccessfulValidations[i], this.deadlineTargetMs, this.localLocks[i] != -2147483648, this.remoteLocks.get(i));
+         return new ImmutableSegmentState(this.segments.get(i), this.lastValidations[i], this.lastSuccessfulValidations[i], this.deadlineTargetMs, this.localLocks[i] != -2147483648, this.remoteLocks.get(i), this.dataWatermarks[i]);
       }
 
       private TableState.Ref nextSegmentToValidate() {
@@ -614,6 +620,7 @@ public class TableState {
 
             for(int j = r[0]; j < r[1]; ++j) {
                this.updateInternal(j, o.lastValidations[i], o.lastSuccessfulValidations[i], o.localLocks[i], o.remoteLocks.get(i));
+               this.updateDataWatermark(j, o.dataWatermarks[i]);
             }
          }
 
@@ -645,6 +652,14 @@ public class TableState {
 
       private void update(int i, NodeSyncRecord record) {
          this.updateInternal(i, record.lastValidationTimeMs(), record.lastSuccessfulValidationTimeMs(), this.localLocks[i], TableState.isRemotelyLocked(record));
+         this.updateDataWatermark(i, record.dataWatermark);
+      }
+
+      private void updateDataWatermark(int i, DataWatermark dataWatermark) {
+         if(dataWatermark != null && dataWatermark.isMoreRecentThan(this.dataWatermarks[i])) {
+            this.dataWatermarks[i] = dataWatermark;
+         }
+
       }
 
       private void lockLocally(int i) {
@@ -662,8 +677,9 @@ public class TableState {
 
       }
 
-      private void updateCompletedValidation(int i, long last, long lastSuccess) {
+      private void updateCompletedValidation(int i, long last, long lastSuccess, DataWatermark dataWatermark) {
          this.updateInternal(i, last, lastSuccess, -2147483648, false);
+         this.updateDataWatermark(i, dataWatermark);
       }
 
       private void forceLocalUnlock(int i) {
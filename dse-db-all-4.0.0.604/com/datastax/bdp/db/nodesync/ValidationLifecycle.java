@@ -10,17 +10,23 @@ class ValidationLifecycle {
    private final TableState.Ref segmentRef;
    private final NodeSyncTracing.SegmentTracing tracing;
    private final long startTime;
+   private final boolean incremental;
    private volatile int nextLockRefreshTimeSec;
 
-   private ValidationLifecycle(TableState.Ref segmentRef, NodeSyncTracing.SegmentTracing tracing, long startTime) {
+   private ValidationLifecycle(TableState.Ref segmentRef, NodeSyncTracing.SegmentTracing tracing, long startTime, boolean incremental) {
       this.segmentRef = segmentRef;
       this.tracing = tracing;
       this.startTime = startTime;
+      this.incremental = incremental;
       this.nextLockRefreshTimeSec = computeNextLockRefresh((int)(startTime / 1000L));
    }
 
    static ValidationLifecycle createAndStart(TableState.Ref segmentRef, NodeSyncTracing.SegmentTracing tracing) {
-      ValidationLifecycle lifecycle = new ValidationLifecycle(segmentRef, tracing, NodeSyncHelpers.time().currentTimeMillis());
+      return createAndStart(segmentRef, tracing, false);
+   }
+
+   static ValidationLifecycle createAndStart(TableState.Ref segmentRef, NodeSyncTracing.SegmentTracing tracing, boolean incremental) {
+      ValidationLifecycle lifecycle = new ValidationLifecycle(segmentRef, tracing, NodeSyncHelpers.time().currentTimeMillis(), incremental);
       lifecycle.onStart();
       return lifecycle;
    }
@@ -41,6 +47,15 @@ class ValidationLifecycle {
       return this.startTime;
    }
 
+   boolean isIncremental() {
+      return this.incremental;
+   }
+
+   DataWatermark previousDataWatermark() {
+      SegmentState state = this.segmentRef.currentState();
+      return state == null?null:state.dataWatermark();
+   }
+
    private NodeSyncStatusTableProxy statusTable() {
       return this.service().statusTableProxy;
    }
@@ -81,9 +96,13 @@ class ValidationLifecycle {
    }
 
    void onCompletion(ValidationInfo info, ValidationMetrics metrics) {
+      this.onCompletion(info, metrics, (DataWatermark)null);
+   }
+
+   void onCompletion(ValidationInfo info, ValidationMetrics metrics, DataWatermark dataWatermark) {
       this.tracing.onSegmentCompletion(info.outcome, metrics);
-      this.statusTable().recordNodeSyncValidation(this.segment(), info, this.segmentRef.segmentStateAtCreation().lastValidationWasSuccessful());
-      this.segmentRef.onCompletedValidation(info.startedAt, info.wasSuccessful());
+      this.statusTable().recordNodeSyncValidation(this.segment(), info, this.segmentRef.segmentStateAtCreation().lastValidationWasSuccessful(), dataWatermark);
+      this.segmentRef.onCompletedValidation(info.startedAt, info.wasSuccessful(), dataWatermark);
    }
 
    void cancel(String reason) {
@@ -46,6 +46,7 @@ import org.apache.cassandra.exceptions.UnknownColumnException;
 import org.apache.cassandra.exceptions.UnknownKeyspaceException;
 import org.apache.cassandra.exceptions.UnknownTableException;
 import org.apache.cassandra.locator.AbstractReplicationStrategy;
+import org.apache.cassandra.repair.SystemDistributedKeyspace;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.ReadRepairDecision;
 import org.apache.cassandra.service.pager.PagingState;
@@ -73,6 +74,8 @@ class Validator {
    private volatile ValidationOutcome validationOutcome;
    @Nullable
    private volatile Set<InetAddress> missingNodes;
+   private volatile long dataWatermarkAtStart = 9223372036854775807L;
+   private volatile boolean skipped;
 
    protected Validator(ValidationLifecycle lifecycle) {
       this.state = new AtomicReference(Validator.State.CREATED);
@@ -128,6 +131,12 @@ class Validator {
             throw new IllegalStateException("Cannot call executeOn multiple times");
          }
       } else {
+         if(DataWatermark.INCREMENTAL_VALIDATION && this.maySkip()) {
+            this.skipped = true;
+            this.markFinished();
+            return this.completionFuture;
+         }
+
          ReadCommand command = new NodeSyncReadCommand(this.segment(), NodeSyncHelpers.time().currentTimeSeconds(), executor.asScheduler());
          QueryPager pager = this.createPager(command);
          ReadContext context = ReadContext.builder(command, ConsistencyLevel.TWO).useDigests().blockForAllTargets().observer(this.observer).readRepairDecision(ReadRepairDecision.GLOBAL).readRepairTimeoutInMs(2L * DatabaseDescriptor.getWriteRpcTimeout()).build(System.nanoTime());
@@ -151,6 +160,38 @@ class Validator {
       }
    }
 
+   private boolean maySkip() {
+      if(!this.lifecycle.isIncremental()) {
+         return false;
+      } else {
+         SystemDistributedKeyspace.setupNodeSyncDataWatermarks();
+         if(!SystemDistributedKeyspace.hasNodeSyncDataWatermarks()) {
+            return false;
+         } else {
+            try {
+               this.dataWatermarkAtStart = DataWatermark.replicasMaxTimestamp(this.segment(), this.segmentReplicas);
+            } catch (Exception var2) {
+               logger.debug("Error collecting data watermarks for {}, validating it fully", this.segment(), var2);
+               return false;
+            }
+
+            DataWatermark previous = this.lifecycle.previousDataWatermark();
+            if(previous != null && previous.allowsSkipping(this.dataWatermarkAtStart, this.lifecycle.startTime())) {
+               this.tracing().trace("No replica has new data since the last full validation ({}), skipping read", (Object)previous);
+               this.lifecycle.service().onSkippedValidation(this.table());
+               return true;
+            } else {
+               return false;
+            }
+         }
+      }
+   }
+
+   @Nullable
+   private DataWatermark newDataWatermark(ValidationInfo info) {
+      return !this.skipped && this.dataWatermarkAtStart != 9223372036854775807L && info.wasSuccessful() && !info.outcome.wasPartial()?new DataWatermark(this.dataWatermarkAtStart, info.startedAt):null;
+   }
+
    @VisibleForTesting
    protected QueryPager createPager(ReadCommand command) {
       return command.getPager((PagingState)null, ProtocolVersion.CURRENT);
@@ -256,7 +297,7 @@ class Validator {
          try {
             this.lifecycle.service().updateMetrics(this.table(), this.metrics);
             ValidationInfo info = new ValidationInfo(this.lifecycle.startTime(), this.validationOutcome, this.missingNodes);
-            this.lifecycle.onCompletion(info, this.metrics);
+            this.lifecycle.onCompletion(info, this.metrics, this.newDataWatermark(info));
             this.completionFuture.complete(info);
          } catch (Throwable var2) {
             this.doCancel("Failed to mark validation finished due to " + var2.getMessage());
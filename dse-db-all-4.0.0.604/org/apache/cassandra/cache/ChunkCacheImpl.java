@@ -12,6 +12,7 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
 import java.nio.ByteBuffer;
+import java.util.EnumMap;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
@@ -45,12 +46,22 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
    private final long cacheSize;
    private final BufferPool bufferPool;
    private static final AtomicIntegerFieldUpdater<ChunkCacheImpl.Buffer> referencesUpdater = AtomicIntegerFieldUpdater.newUpdater(ChunkCacheImpl.Buffer.class, "references");
+   private static final double LOW_PRIORITY_FRACTION = Double.parseDouble(System.getProperty("dse.chunk_cache.low_priority_fraction", "0.1"));
+   private static final EnumMap<FileAccessType, ChunkCacheImpl.Admission> admissionPolicies = ChunkCacheImpl.Admission.fromProperties();
+   private final AsyncLoadingCache<ChunkCacheImpl.Key, ChunkCacheImpl.Buffer> coldCache;
 
    public ChunkCacheImpl(CacheMissMetrics metrics, long cacheSize) {
       this.cacheSize = cacheSize;
       this.metrics = metrics;
       Executor cleanupExecutor = Executors.newSingleThreadExecutor();
-      this.cache = Caffeine.newBuilder().maximumWeight(cacheSize).executor((r) -> {
+      long coldSize = admissionPolicies.containsValue(ChunkCacheImpl.Admission.LOW_PRIORITY)?(long)((double)cacheSize * Math.max(0.0D, Math.min(0.5D, LOW_PRIORITY_FRACTION))):0L;
+      this.cache = this.buildCache(cacheSize - coldSize, cleanupExecutor);
+      this.coldCache = coldSize > 0L?this.buildCache(coldSize, cleanupExecutor):null;
+      this.bufferPool = new BufferPool();
+   }
+
+   private AsyncLoadingCache<ChunkCacheImpl.Key, ChunkCacheImpl.Buffer> buildCache(long size, Executor cleanupExecutor) {
+      return Caffeine.newBuilder().maximumWeight(size).executor((r) -> {
          if(r.getClass().getSimpleName().equalsIgnoreCase("PerformCleanupTask")) {
             cleanupExecutor.execute(r);
          } else {
@@ -60,12 +71,12 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
       }).weigher((key, buffer) -> {
          return ((ChunkCacheImpl.Buffer)buffer).buffer.capacity();
       }).removalListener(this).buildAsync(this);
-      this.bufferPool = new BufferPool();
    }
 
    public CompletableFuture<ChunkCacheImpl.Buffer> asyncLoad(ChunkCacheImpl.Key key, Executor executor) {
       ChunkReader rebufferer = key.file;
       this.metrics.misses.mark();
+      this.metrics.forAccessType(key.accessType).misses.mark();
       Timer.Context ctx = this.metrics.missLatency.timer();
 
       try {
@@ -89,16 +100,30 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
    }
 
    public void onRemoval(ChunkCacheImpl.Key key, ChunkCacheImpl.Buffer buffer, RemovalCause cause) {
-      buffer.release();
+      if(buffer != null) {
+         buffer.release();
+      }
+   }
+
+   private AsyncLoadingCache<ChunkCacheImpl.Key, ChunkCacheImpl.Buffer> cacheFor(ChunkCacheImpl.Admission admission, ChunkCacheImpl.Key key) {
+      return admission == ChunkCacheImpl.Admission.LOW_PRIORITY && this.cache.getIfPresent(key) == null?this.coldCache:this.cache;
    }
 
    public void reset() {
       this.cache.synchronous().invalidateAll();
+      if(this.coldCache != null) {
+         this.coldCache.synchronous().invalidateAll();
+      }
+
       this.metrics.reset();
    }
 
    public void close() {
       this.cache.synchronous().invalidateAll();
+      if(this.coldCache != null) {
+         this.coldCache.synchronous().invalidateAll();
+      }
+
    }
 
    public RebuffererFactory wrap(ChunkReader file) {
@@ -110,6 +135,12 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
       this.cache.synchronous().invalidateAll(Iterables.filter(this.cache.synchronous().asMap().keySet(), (x) -> {
          return x.path().equals(fileName);
       }));
+      if(this.coldCache != null) {
+         this.coldCache.synchronous().invalidateAll(Iterables.filter(this.coldCache.synchronous().asMap().keySet(), (x) -> {
+            return x.path().equals(fileName);
+         }));
+      }
+
    }
 
    public long capacity() {
@@ -121,18 +152,65 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
    }
 
    public int size() {
-      return this.cache.synchronous().asMap().size();
+      return this.cache.synchronous().asMap().size() + (this.coldCache == null?0:this.coldCache.synchronous().asMap().size());
+   }
+
+   public long weightedSize() {
+      return weightedSize(this.cache) + (this.coldCache == null?0L:weightedSize(this.coldCache));
+   }
+
+   private static long weightedSize(AsyncLoadingCache<ChunkCacheImpl.Key, ChunkCacheImpl.Buffer> cache) {
+      return ((Long)cache.synchronous().policy().eviction().map((policy) -> {
+         return Long.valueOf(policy.weightedSize().orElseGet(cache.synchronous()::estimatedSize));
+      }).orElseGet(() -> {
+         return Long.valueOf(cache.synchronous().estimatedSize());
+      })).longValue();
+   }
+
+   public static enum Admission {
+      ADMIT,
+      LOW_PRIORITY,
+      BYPASS;
+
+      private Admission() {
+      }
+
+      static EnumMap<FileAccessType, ChunkCacheImpl.Admission> fromProperties() {
+         EnumMap<FileAccessType, ChunkCacheImpl.Admission> policies = new EnumMap(FileAccessType.class);
+         FileAccessType[] var1 = FileAccessType.values();
+         int var2 = var1.length;
+
+         for(int var3 = 0; var3 < var2; ++var3) {
+            FileAccessType accessType = var1[var3];
+            String def = accessType == FileAccessType.FULL_FILE?BYPASS.name():(accessType == FileAccessType.SEQUENTIAL?LOW_PRIORITY.name():ADMIT.name());
+            String value = System.getProperty("dse.chunk_cache.admission." + accessType.name().toLowerCase(), def);
+
+            try {
+               policies.put(accessType, valueOf(value.toUpperCase()));
+            } catch (IllegalArgumentException var8) {
+               ChunkCacheImpl.logger.warn("Invalid chunk cache admission policy {} for {} access, using {}", new Object[]{value, accessType, def});
+               policies.put(accessType, valueOf(def));
+            }
+         }
+
+         return policies;
+      }
    }
-    public long weightedSize() {
-        return this.cache.synchronous().policy().eviction().map(policy -> policy.weightedSize().orElseGet(this.cache.synchronous()::estimatedSize)).orElseGet(this.cache.synchronous()::estimatedSize);
-    }
 
    class CachingRebufferer implements Rebufferer, RebuffererFactory {
       private final ChunkReader source;
+      private final FileAccessType accessType;
+      private final ChunkCacheImpl.Admission admission;
       final long alignmentMask;
 
       public CachingRebufferer(ChunkReader file) {
+         this(file, FileAccessType.RANDOM);
+      }
+
+      CachingRebufferer(ChunkReader file, FileAccessType accessType) {
          this.source = file;
+         this.accessType = accessType;
+         this.admission = (ChunkCacheImpl.Admission)ChunkCacheImpl.admissionPolicies.get(accessType);
          int chunkSize = file.chunkSize();
 
          assert Integer.bitCount(chunkSize) == 1 : String.format("%d must be a power of two", new Object[]{Integer.valueOf(chunkSize)});
@@ -142,15 +220,20 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
 
       public ChunkCacheImpl.Buffer rebuffer(long position) {
          try {
-            ChunkCacheImpl.this.metrics.requests.mark();
+            this.markRequest();
             long pageAlignedPos = position & this.alignmentMask;
             ChunkCacheImpl.Buffer buf = null;
-            ChunkCacheImpl.Key pageKey = new ChunkCacheImpl.Key(this.source, pageAlignedPos);
+            ChunkCacheImpl.Key pageKey = new ChunkCacheImpl.Key(this.source, pageAlignedPos, this.accessType);
+            if(this.admission == ChunkCacheImpl.Admission.BYPASS) {
+               return (ChunkCacheImpl.Buffer)this.getUncached(pageKey).join();
+            }
+
+            AsyncLoadingCache<ChunkCacheImpl.Key, ChunkCacheImpl.Buffer> target = ChunkCacheImpl.this.cacheFor(this.admission, pageKey);
             ChunkCacheImpl.Buffer page = null;
             int spin = 0;
 
             while(page == null || (buf = page.reference()) == null) {
-               page = (ChunkCacheImpl.Buffer)ChunkCacheImpl.this.cache.get(pageKey).join();
+               page = (ChunkCacheImpl.Buffer)target.get(pageKey).join();
                if(page != null && buf == null) {
                   ++spin;
                   if(spin == 1024) {
@@ -170,17 +253,18 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
          if(rc != Rebufferer.ReaderConstraint.ASYNC) {
             return this.rebuffer(position);
          } else {
-            ChunkCacheImpl.this.metrics.requests.mark();
+            this.markRequest();
             long pageAlignedPos = position & this.alignmentMask;
-            ChunkCacheImpl.Key key = new ChunkCacheImpl.Key(this.source, pageAlignedPos);
-            CompletableFuture<ChunkCacheImpl.Buffer> asyncBuffer = ChunkCacheImpl.this.cache.get(key);
+            ChunkCacheImpl.Key key = new ChunkCacheImpl.Key(this.source, pageAlignedPos, this.accessType);
+            AsyncLoadingCache<ChunkCacheImpl.Key, ChunkCacheImpl.Buffer> target = ChunkCacheImpl.this.cacheFor(this.admission, key);
+            CompletableFuture<ChunkCacheImpl.Buffer> asyncBuffer = target.get(key);
             if(asyncBuffer.isDone()) {
                ChunkCacheImpl.Buffer buf = (ChunkCacheImpl.Buffer)asyncBuffer.join();
                if(buf != null && (buf = buf.reference()) != null) {
                   return buf;
                }
 
-               asyncBuffer = ChunkCacheImpl.this.cache.get(key);
+               asyncBuffer = target.get(key);
             }
 
             ChunkCacheImpl.this.metrics.notInCacheExceptions.mark();
@@ -190,15 +274,55 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
       }
 
       public CompletableFuture<Rebufferer.BufferHolder> rebufferAsync(long position) {
-         ChunkCacheImpl.this.metrics.requests.mark();
+         this.markRequest();
          CompletableFuture<Rebufferer.BufferHolder> ret = new CompletableFuture();
-         this.getPage(position, ret, 0);
+         ChunkCacheImpl.Key key = new ChunkCacheImpl.Key(this.source, position & this.alignmentMask, this.accessType);
+         if(this.admission == ChunkCacheImpl.Admission.BYPASS) {
+            this.getUncached(key).whenComplete((buffer, error) -> {
+               if(error != null) {
+                  ret.completeExceptionally(error);
+               } else {
+                  ret.complete(buffer);
+               }
+
+            });
+         } else {
+            this.getPage(ChunkCacheImpl.this.cacheFor(this.admission, key), key, ret, 0);
+         }
+
          return ret;
       }
 
-      private void getPage(long position, CompletableFuture<Rebufferer.BufferHolder> ret, int numAttempts) {
-         long pageAlignedPos = position & this.alignmentMask;
-         ChunkCacheImpl.this.cache.get(new ChunkCacheImpl.Key(this.source, pageAlignedPos)).whenComplete((page, error) -> {
+      private void markRequest() {
+         ChunkCacheImpl.this.metrics.requests.mark();
+         ChunkCacheImpl.this.metrics.forAccessType(this.accessType).requests.mark();
+      }
+
+      private CompletableFuture<ChunkCacheImpl.Buffer> getUncached(ChunkCacheImpl.Key key) {
+         CompletableFuture<ChunkCacheImpl.Buffer> cached = ChunkCacheImpl.this.cache.getIfPresent(key);
+         if(cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            ChunkCacheImpl.Buffer buf = (ChunkCacheImpl.Buffer)cached.join();
+            if(buf != null && (buf = buf.reference()) != null) {
+               return CompletableFuture.completedFuture(buf);
+            }
+         }
+
+         ChunkCacheImpl.this.metrics.misses.mark();
+         ChunkCacheImpl.this.metrics.forAccessType(this.accessType).misses.mark();
+         ChunkCacheImpl.this.metrics.bypassed.mark();
+         ByteBuffer buffer = ChunkCacheImpl.this.bufferPool.get(this.source.chunkSize());
+         return this.source.readChunk(key.position, buffer).thenApply((b) -> {
+            return ChunkCacheImpl.this.new Buffer(key, b);
+         }).whenComplete((b, t) -> {
+            if(t != null) {
+               ChunkCacheImpl.this.bufferPool.put(buffer);
+            }
+
+         });
+      }
+
+      private void getPage(AsyncLoadingCache<ChunkCacheImpl.Key, ChunkCacheImpl.Buffer> target, ChunkCacheImpl.Key key, CompletableFuture<Rebufferer.BufferHolder> ret, int numAttempts) {
+         target.get(key).whenComplete((page, error) -> {
             if(error != null) {
                ret.completeExceptionally(error);
             } else {
@@ -207,7 +331,7 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
                   ret.complete(buffer);
                } else if(numAttempts < 1024) {
                   TPC.bestTPCScheduler().scheduleDirect(() -> {
-                     this.getPage(position, ret, numAttempts + 1);
+                     this.getPage(target, key, ret, numAttempts + 1);
                   });
                } else {
                   ret.completeExceptionally(new IllegalStateException("Failed to acquire buffer from cache after 1024 attempts"));
@@ -223,15 +347,20 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
 
       public void invalidate(long position) {
          long pageAlignedPos = position & this.alignmentMask;
-         ChunkCacheImpl.this.cache.synchronous().invalidate(new ChunkCacheImpl.Key(this.source, pageAlignedPos));
+         ChunkCacheImpl.Key key = new ChunkCacheImpl.Key(this.source, pageAlignedPos);
+         ChunkCacheImpl.this.cache.synchronous().invalidate(key);
+         if(ChunkCacheImpl.this.coldCache != null) {
+            ChunkCacheImpl.this.coldCache.synchronous().invalidate(key);
+         }
+
       }
 
       public Rebufferer instantiateRebufferer(FileAccessType accessType) {
          if(accessType != FileAccessType.RANDOM && !this.source.isMmap() && PrefetchingRebufferer.READ_AHEAD_SIZE_KB > 0) {
             AsynchronousChannelProxy channel = this.source.channel().maybeBatched(PrefetchingRebufferer.READ_AHEAD_VECTORED);
-            return new PrefetchingRebufferer(ChunkCacheImpl.this.new CachingRebufferer(this.source.withChannel(channel)), channel);
+            return new PrefetchingRebufferer(ChunkCacheImpl.this.new CachingRebufferer(this.source.withChannel(channel), accessType), channel);
          } else {
-            return this;
+            return (Rebufferer)(accessType == this.accessType?this:ChunkCacheImpl.this.new CachingRebufferer(this.source, accessType));
          }
       }
 
@@ -306,10 +435,16 @@ public class ChunkCacheImpl implements AsyncCacheLoader<ChunkCacheImpl.Key, Chun
    static class Key {
       final ChunkReader file;
       final long position;
+      final FileAccessType accessType;
 
       public Key(ChunkReader file, long position) {
+         this(file, position, FileAccessType.RANDOM);
+      }
+
+      Key(ChunkReader file, long position, FileAccessType accessType) {
          this.file = file;
          this.position = position;
+         this.accessType = accessType;
       }
 
       public int hashCode() {
@@ -135,6 +135,14 @@ public class TPC {
       return (TPCEventLoop)getForCore(aioCoordinator.getIOCore(bestTPCCore())).eventLoop;
    }
 
+   public static int bestIOCore() {
+      return aioCoordinator.selectIOCore(bestTPCCore());
+   }
+
+   public static TPCEventLoop ioEventLoop(int ioCore) {
+      return (TPCEventLoop)getForCore(ioCore).eventLoop;
+   }
+
    public static IOScheduler ioScheduler() {
       return ioScheduler;
    }
@@ -40,6 +40,48 @@ public class TPCBoundaries {
       }
    }
 
+   public TPCBoundaries rebalance(double[] coreLoads, double adjustment) {
+      int cores = this.supportedCores();
+
+      assert coreLoads.length == cores;
+
+      double totalLoad = 0.0D;
+
+      for(int i = 0; i < cores; ++i) {
+         totalLoad += coreLoads[i];
+      }
+
+      if(cores == 1 || totalLoad <= 0.0D) {
+         return this;
+      } else {
+         IPartitioner partitioner = DatabaseDescriptor.getPartitioner();
+         List<Range<Token>> ranges = this.asRanges();
+         Token[] rebalanced = new Token[cores - 1];
+         int next = 0;
+         double start = 0.0D;
+
+         for(int i = 0; i < cores && next < rebalanced.length; ++i) {
+            Range<Token> range = (Range)ranges.get(i);
+            double weight = (1.0D - adjustment) / (double)cores + adjustment * coreLoads[i] / totalLoad;
+            if(weight > 0.0D) {
+               while(next < rebalanced.length && (double)(next + 1) / (double)cores <= start + weight) {
+                  double ratio = Math.min(1.0D, ((double)(next + 1) / (double)cores - start) / weight);
+                  Token boundary = partitioner.split((Token)range.left, (Token)range.right, ratio);
+                  if(next > 0 && boundary.compareTo(rebalanced[next - 1]) <= 0) {
+                     return this;
+                  }
+
+                  rebalanced[next++] = boundary;
+               }
+
+               start += weight;
+            }
+         }
+
+         return next == rebalanced.length?new TPCBoundaries(rebalanced):this;
+      }
+   }
+
    int getCoreFor(Token tk) {
       for(int i = 0; i < this.boundaries.length; ++i) {
          if(tk.compareTo(this.boundaries[i]) < 0) {
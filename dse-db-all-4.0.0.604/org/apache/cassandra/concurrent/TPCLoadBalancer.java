@@ -0,0 +1,94 @@
+package org.apache.cassandra.concurrent;
+
+import com.codahale.metrics.Gauge;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.metrics.CassandraMetricsRegistry;
+import org.apache.cassandra.metrics.DefaultNameFactory;
+import org.apache.cassandra.metrics.MetricNameFactory;
+import org.apache.cassandra.schema.SchemaConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TPCLoadBalancer implements Runnable {
+   private static final Logger logger = LoggerFactory.getLogger(TPCLoadBalancer.class);
+   private static final MetricNameFactory factory = new DefaultNameFactory("TPC");
+   public static final boolean LOAD_AWARE_BOUNDARIES = Boolean.parseBoolean(System.getProperty("dse.tpc.load_aware_boundaries", "false"));
+   private static final long SAMPLE_INTERVAL_SECONDS = Long.getLong("dse.tpc.load_sample_interval_seconds", 60L).longValue();
+   private static final double IMBALANCE_THRESHOLD = Double.parseDouble(System.getProperty("dse.tpc.load_imbalance_threshold", "1.5"));
+   private static final double BOUNDARY_ADJUSTMENT = Double.parseDouble(System.getProperty("dse.tpc.load_boundary_adjustment", "0.5"));
+   public static final TPCLoadBalancer instance = new TPCLoadBalancer();
+   private final long[] lastCompleted = new long[TPC.getNumCores()];
+   private volatile double imbalance = 1.0D;
+   public final Gauge<Double> coreLoadImbalance;
+
+   private TPCLoadBalancer() {
+      this.coreLoadImbalance = (Gauge)CassandraMetricsRegistry.Metrics.register(factory.createMetricName("CoreLoadImbalance"), new Gauge<Double>() {
+         public Double getValue() {
+            return Double.valueOf(TPCLoadBalancer.this.imbalance);
+         }
+      });
+   }
+
+   public void start() {
+      if(SAMPLE_INTERVAL_SECONDS > 0L && TPC.getNumCores() > 1) {
+         this.sampleCompleted(this.lastCompleted);
+         ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(this, SAMPLE_INTERVAL_SECONDS, SAMPLE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+         logger.info("Sampling TPC core load every {} seconds (load aware boundaries: {})", Long.valueOf(SAMPLE_INTERVAL_SECONDS), Boolean.valueOf(LOAD_AWARE_BOUNDARIES));
+      }
+   }
+
+   public double getImbalance() {
+      return this.imbalance;
+   }
+
+   public void run() {
+      int cores = this.lastCompleted.length;
+      long[] completed = new long[cores];
+      this.sampleCompleted(completed);
+      double[] loads = new double[cores];
+      double total = 0.0D;
+      double max = 0.0D;
+
+      for(int i = 0; i < cores; ++i) {
+         loads[i] = (double)Math.max(0L, completed[i] - this.lastCompleted[i]);
+         total += loads[i];
+         max = Math.max(max, loads[i]);
+         this.lastCompleted[i] = completed[i];
+      }
+
+      if(total > 0.0D) {
+         this.imbalance = max / (total / (double)cores);
+         if(LOAD_AWARE_BOUNDARIES && this.imbalance >= IMBALANCE_THRESHOLD) {
+            logger.debug("TPC core load imbalance is {}, rebalancing core boundaries", Double.valueOf(this.imbalance));
+            Iterator var9 = Keyspace.all().iterator();
+
+            while(var9.hasNext()) {
+               Keyspace keyspace = (Keyspace)var9.next();
+               if(!SchemaConstants.isLocalSystemKeyspace(keyspace.getName())) {
+                  keyspace.rebalanceTPCBoundaries(loads, BOUNDARY_ADJUSTMENT);
+               }
+            }
+         }
+
+      }
+   }
+
+   private void sampleCompleted(long[] completed) {
+      TPCTaskType[] types = TPCTaskType.values();
+
+      for(int i = 0; i < completed.length; ++i) {
+         long count = 0L;
+
+         for(int j = 0; j < types.length; ++j) {
+            if(types[j].includedInTotals()) {
+               count += TPC.perCoreMetrics[i].completedTaskCount(types[j]);
+            }
+         }
+
+         completed[i] = count;
+      }
+
+   }
+}
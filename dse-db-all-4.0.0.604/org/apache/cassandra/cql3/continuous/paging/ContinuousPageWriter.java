@@ -22,11 +22,15 @@ class ContinuousPageWriter {
    private final ContinuousPageWriter.Writer writer;
 
    ContinuousPageWriter(Supplier<Channel> channel, int maxPagesPerSecond, int queueSizeInPages) {
+      this(channel, maxPagesPerSecond, queueSizeInPages, (ContinuousPagingScheduler.Session)null);
+   }
+
+   ContinuousPageWriter(Supplier<Channel> channel, int maxPagesPerSecond, int queueSizeInPages, @Nullable ContinuousPagingScheduler.Session session) {
       assert queueSizeInPages >= 1 : "queue size must be at least one";
 
       this.queueSizeInPages = queueSizeInPages;
       this.pages = new ArrayBlockingQueue(queueSizeInPages);
-      this.writer = new ContinuousPageWriter.Writer((Channel)channel.get(), this.pages, maxPagesPerSecond);
+      this.writer = new ContinuousPageWriter.Writer((Channel)channel.get(), this.pages, maxPagesPerSecond, session);
    }
 
    CompletableFuture<Void> completionFuture() {
@@ -41,8 +45,16 @@ class ContinuousPageWriter {
          assert !this.writer.completed() : "Received unexpected page when writer was already completed";
 
          try {
+            if(this.writer.session != null) {
+               this.writer.session.onPageQueued(frame);
+            }
+
             this.pages.add(frame);
          } catch (Throwable var4) {
+            if(this.writer.session != null) {
+               this.writer.session.onPageDequeued(frame, false);
+            }
+
             logger.warn("Failed to add continuous paging result to queue: {}", var4.getMessage());
             frame.release();
             throw var4;
@@ -88,10 +100,13 @@ class ContinuousPageWriter {
       private final AtomicReference<Frame> error;
       private final RateLimiter limiter;
       private final CompletableFuture<Void> completionFuture;
+      @Nullable
+      private final ContinuousPagingScheduler.Session session;
       private volatile boolean canceled;
 
-      public Writer(Channel channel, ArrayBlockingQueue<Frame> queue, int maxPagesPerSecond) {
+      public Writer(Channel channel, ArrayBlockingQueue<Frame> queue, int maxPagesPerSecond, @Nullable ContinuousPagingScheduler.Session session) {
          this.channel = channel;
+         this.session = session;
          this.queue = queue;
          this.completed = new AtomicBoolean(false);
          this.error = new AtomicReference((Object)null);
@@ -204,7 +219,12 @@ class ContinuousPageWriter {
       }
 
       private void processPage(Frame frame) {
-         if(this.aborted()) {
+         boolean aborted = this.aborted();
+         if(this.session != null) {
+            this.session.onPageDequeued(frame, !aborted);
+         }
+
+         if(aborted) {
             frame.release();
          } else {
             this.channel.write(frame);
@@ -0,0 +1,201 @@
+package org.apache.cassandra.cql3.continuous.paging;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.cassandra.concurrent.TPC;
+import org.apache.cassandra.concurrent.TPCMetrics;
+import org.apache.cassandra.concurrent.TPCTaskType;
+import org.apache.cassandra.transport.Frame;
+import org.apache.cassandra.transport.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+final class ContinuousPagingScheduler {
+   private static final Logger logger = LoggerFactory.getLogger(ContinuousPagingScheduler.class);
+   static final boolean FAIR_SCHEDULING = Boolean.parseBoolean(System.getProperty("dse.continuous_paging.fair_scheduling", "false"));
+   static final long MAX_PENDING_BYTES = Long.getLong("dse.continuous_paging.max_pending_mb", 512L).longValue() * 1024L * 1024L;
+   private static final int INTERACTIVE_LOAD_THRESHOLD = Integer.getInteger("dse.continuous_paging.interactive_load_threshold", 32).intValue();
+   private static final long MAX_YIELD_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("dse.continuous_paging.max_yield_ms", 100L).longValue());
+   private static final Map<String, Integer> userWeights = parseWeights(System.getProperty("dse.continuous_paging.user_weights", ""));
+   private static final TPCTaskType[] INTERACTIVE_TASKS;
+   static final ContinuousPagingScheduler instance;
+   private final AtomicLong pendingBytes = new AtomicLong();
+   private final ConcurrentHashMap<String, AtomicInteger> sessionsPerUser = new ConcurrentHashMap();
+
+   private ContinuousPagingScheduler() {
+   }
+
+   private static Map<String, Integer> parseWeights(String value) {
+      Map<String, Integer> weights = new HashMap();
+      if(value.isEmpty()) {
+         return weights;
+      } else {
+         String[] var2 = value.split(",");
+         int var3 = var2.length;
+
+         for(int var4 = 0; var4 < var3; ++var4) {
+            String entry = var2[var4];
+            String[] parts = entry.trim().split(":");
+
+            try {
+               if(parts.length != 2) {
+                  throw new IllegalArgumentException(entry);
+               }
+
+               weights.put(parts[0].trim(), Integer.valueOf(Math.max(1, Integer.parseInt(parts[1].trim()))));
+            } catch (IllegalArgumentException var8) {
+               logger.warn("Ignoring invalid continuous paging user weight '{}', expected <user>:<weight>", entry);
+            }
+         }
+
+         return weights;
+      }
+   }
+
+   long pendingBytes() {
+      return this.pendingBytes.get();
+   }
+
+   ContinuousPagingScheduler.Session register(String user) {
+      ((AtomicInteger)this.sessionsPerUser.computeIfAbsent(user, (u) -> {
+         return new AtomicInteger();
+      })).incrementAndGet();
+      return new ContinuousPagingScheduler.Session(user, Server.TIME_SOURCE.nanoTime());
+   }
+
+   void unregister(ContinuousPagingScheduler.Session session) {
+      if(!session.unregistered) {
+         session.unregistered = true;
+         this.sessionsPerUser.computeIfPresent(session.user, (u, count) -> {
+            return count.decrementAndGet() <= 0?null:count;
+         });
+         long elapsed = Server.TIME_SOURCE.nanoTime() - session.startedNanos;
+         if(elapsed > 0L && session.rows > 0L) {
+            double seconds = (double)elapsed / 1.0E9D;
+            ContinuousPagingService.metrics.sessionRowsPerSecond.update((long)((double)session.rows / seconds));
+            ContinuousPagingService.metrics.sessionBytesPerSecond.update((long)((double)session.bytes.get() / seconds));
+         }
+
+      }
+   }
+
+   boolean mayProduce(ContinuousPagingScheduler.Session session) {
+      if(!FAIR_SCHEDULING) {
+         return true;
+      } else {
+         long total = this.pendingBytes.get();
+         if(total >= MAX_PENDING_BYTES) {
+            return false;
+         } else {
+            return total < MAX_PENDING_BYTES / 2L || session.pendingBytes.get() < this.fairShare(session);
+         }
+      }
+   }
+
+   private long fairShare(ContinuousPagingScheduler.Session session) {
+      long totalWeight = 0L;
+      int userSessions = 1;
+
+      Entry entry;
+      for(Iterator var5 = this.sessionsPerUser.entrySet().iterator(); var5.hasNext(); totalWeight += (long)weight((String)entry.getKey())) {
+         entry = (Entry)var5.next();
+         if(((String)entry.getKey()).equals(session.user)) {
+            userSessions = Math.max(1, ((AtomicInteger)entry.getValue()).get());
+         }
+      }
+
+      long userShare = MAX_PENDING_BYTES * (long)weight(session.user) / Math.max(1L, totalWeight);
+      return userShare / (long)userSessions;
+   }
+
+   private static int weight(String user) {
+      Integer weight = (Integer)userWeights.get(user);
+      return weight == null?1:weight.intValue();
+   }
+
+   boolean shouldYield(int coreId, ContinuousPagingScheduler.Session session) {
+      if(FAIR_SCHEDULING && TPC.isValidCoreId(coreId)) {
+         long now = Server.TIME_SOURCE.nanoTime();
+         if(interactiveLoad(coreId) < (long)INTERACTIVE_LOAD_THRESHOLD) {
+            session.yieldingSince = -1L;
+            return false;
+         } else if(session.yieldingSince == -1L) {
+            session.yieldingSince = now;
+            ContinuousPagingService.metrics.interactiveYields.mark();
+            return true;
+         } else if(now - session.yieldingSince >= MAX_YIELD_NANOS) {
+            session.yieldingSince = -1L;
+            return false;
+         } else {
+            return true;
+         }
+      } else {
+         return false;
+      }
+   }
+
+   private static long interactiveLoad(int coreId) {
+      TPCMetrics metrics = TPC.metrics(coreId);
+      long load = 0L;
+      TPCTaskType[] var4 = INTERACTIVE_TASKS;
+      int var5 = var4.length;
+
+      for(int var6 = 0; var6 < var5; ++var6) {
+         TPCTaskType type = var4[var6];
+         load += metrics.activeTaskCount(type) + metrics.pendingTaskCount(type);
+      }
+
+      return load;
+   }
+
+   static {
+      INTERACTIVE_TASKS = new TPCTaskType[]{TPCTaskType.READ_LOCAL, TPCTaskType.READ_REMOTE, TPCTaskType.WRITE_LOCAL, TPCTaskType.WRITE_REMOTE};
+      instance = new ContinuousPagingScheduler();
+   }
+
+   static final class Session {
+      final String user;
+      final long startedNanos;
+      final AtomicLong pendingBytes = new AtomicLong();
+      final AtomicLong bytes = new AtomicLong();
+      long rows;
+      volatile long yieldingSince = -1L;
+      volatile boolean unregistered;
+
+      private Session(String user, long startedNanos) {
+         this.user = user;
+         this.startedNanos = startedNanos;
+      }
+
+      void onRow() {
+         ++this.rows;
+      }
+
+      void onPageQueued(Frame frame) {
+         int size = frame.body.readableBytes();
+         this.pendingBytes.addAndGet((long)size);
+         ContinuousPagingScheduler.instance.pendingBytes.addAndGet((long)size);
+      }
+
+      void onPageDequeued(Frame frame, boolean written) {
+         int size = frame.body.readableBytes();
+         this.pendingBytes.addAndGet((long)(-size));
+         ContinuousPagingScheduler.instance.pendingBytes.addAndGet((long)(-size));
+         if(written) {
+            this.bytes.addAndGet((long)size);
+            ContinuousPagingService.metrics.pageQueueTime.addNano(Server.TIME_SOURCE.nanoTime() - frame.header.queryStartNanoTime);
+         }
+
+      }
+
+      public String toString() {
+         return String.format("[user: %s, rows: %d, bytes: %d, pending bytes: %d]", new Object[]{this.user, Long.valueOf(this.rows), Long.valueOf(this.bytes.get()), Long.valueOf(this.pendingBytes.get())});
+      }
+   }
+}
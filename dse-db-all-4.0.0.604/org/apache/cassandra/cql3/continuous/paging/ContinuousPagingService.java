@@ -3,6 +3,8 @@ package org.apache.cassandra.cql3.continuous.paging;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.reactivex.Single;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -48,6 +50,8 @@ import org.slf4j.LoggerFactory;
 public class ContinuousPagingService {
    private static final Logger logger = LoggerFactory.getLogger(ContinuousPagingService.class);
    public static final ContinuousPagingMetrics metrics = new ContinuousPagingMetrics();
+   static final boolean ZERO_COPY_PAGES = Boolean.parseBoolean(System.getProperty("dse.continuous_paging.zero_copy_pages", "false"));
+   static final int ZERO_COPY_VALUE_THRESHOLD = Integer.getInteger("dse.continuous_paging.zero_copy_value_threshold_kb", 64).intValue() * 1024;
    private static final ConcurrentHashMap<ContinuousPagingService.SessionKey, ContinuousPagingService.ContinuousPagingSession> sessions = new ConcurrentHashMap();
    @VisibleForTesting
    static final AtomicIntegerArray numSessions = new AtomicIntegerArray(TPC.getNumCores());
@@ -77,6 +81,7 @@ public class ContinuousPagingService {
          if(sessions.putIfAbsent(key, session) != null) {
             session.release();
             numSessions.decrementAndGet(session.coreId());
+            ContinuousPagingScheduler.instance.unregister(session.schedulerSession);
             metrics.creationFailures.mark();
             logger.error("Continuous paging session {} already exists", key);
             throw RequestValidations.invalidRequest("Invalid request, already executing continuous paging session %s", new Object[]{key});
@@ -128,6 +133,7 @@ public class ContinuousPagingService {
       ContinuousPagingService.ContinuousPagingSession ret = (ContinuousPagingService.ContinuousPagingSession)sessions.remove(key);
       if(ret != null) {
          numSessions.decrementAndGet(ret.coreId());
+         ContinuousPagingScheduler.instance.unregister(ret.schedulerSession);
          if(logger.isTraceEnabled()) {
             logger.trace("Removed continuous paging session {}, {} sessions still running", key, Long.valueOf(liveSessions()));
          }
@@ -146,6 +152,10 @@ public class ContinuousPagingService {
       return ret;
    }
 
+   public static long pendingBytes() {
+      return ContinuousPagingScheduler.instance.pendingBytes();
+   }
+
    public static long pendingPages() {
       return (long)((Integer)sessions.values().stream().map(ContinuousPagingService.ContinuousPagingSession::pendingPages).reduce(Integer::sum).orElseGet(() -> {
          return Integer.valueOf(0);
@@ -210,6 +220,7 @@ public class ContinuousPagingService {
       private final ContinuousPagingState continuousPagingState;
       private final QueryOptions.PagingOptions pagingOptions;
       private final ContinuousPagingService.SessionKey key;
+      private final ContinuousPagingScheduler.Session schedulerSession;
       private int avgRowSize;
       @VisibleForTesting
       int numPagesSent;
@@ -233,7 +244,8 @@ public class ContinuousPagingService {
          this.numPagesRequested = this.pagingOptions.nextPages() <= 0?2147483647:this.pagingOptions.nextPages();
          this.state = new AtomicReference(ContinuousPagingService.ContinuousPagingSession.State.RUNNING);
          this.paused = -1L;
-         this.pageWriter = new ContinuousPageWriter(continuousPagingState.channel, this.pagingOptions.maxPagesPerSecond(), continuousPagingState.config.max_session_pages);
+         this.schedulerSession = ContinuousPagingScheduler.instance.register(queryState.getClientState().getUser() == null?"":queryState.getClientState().getUser().getName());
+         this.pageWriter = new ContinuousPageWriter(continuousPagingState.channel, this.pagingOptions.maxPagesPerSecond(), continuousPagingState.config.max_session_pages, this.schedulerSession);
          this.avgRowSize = continuousPagingState.averageRowSize;
          this.allocatePage(1);
       }
@@ -294,7 +306,7 @@ public class ContinuousPagingService {
             this.currentPage = new ContinuousPagingService.ContinuousPagingSession.Page(bufferSize, this.resultMetaData, this.queryState, this.options, this.key, seqNo, maxPageSize);
          } else {
             if(ContinuousPagingService.logger.isTraceEnabled()) {
-               ContinuousPagingService.logger.trace("Reusing page with buffer size {}, avg row size {} for {}", new Object[]{Integer.valueOf(this.currentPage.buf.capacity()), Integer.valueOf(this.avgRowSize), this.key});
+               ContinuousPagingService.logger.trace("Reusing page with buffer size {}, avg row size {} for {}", new Object[]{Integer.valueOf(this.currentPage.capacity()), Integer.valueOf(this.avgRowSize), this.key});
             }
 
             this.currentPage.reuse(seqNo);
@@ -336,6 +348,7 @@ public class ContinuousPagingService {
             return false;
          } else {
             this.currentPage.addRow(row);
+            this.schedulerSession.onRow();
             boolean mustSendPage = !nextRowPending || this.pageCompleted(this.currentPage.numRows, this.currentPage.size(), this.avgRowSize) || this.pageIsCloseToMax();
             if(!mustSendPage) {
                return true;
@@ -367,6 +380,11 @@ public class ContinuousPagingService {
             ret = new ContinuousBackPressureException(String.format("Continuous paging queue is full (%d pages in the queue)", new Object[]{Integer.valueOf(this.pageWriter.pendingPages())}));
          } else if(this.numPagesSent >= this.numPagesRequested) {
             ret = new ContinuousBackPressureException(String.format("Continuous paging backpressure was triggered, requested %d sent %d", new Object[]{Integer.valueOf(this.numPagesRequested), Integer.valueOf(this.numPagesSent)}));
+         } else if(!ContinuousPagingScheduler.instance.mayProduce(this.schedulerSession)) {
+            ContinuousPagingService.metrics.fairSharePauses.mark();
+            ret = new ContinuousBackPressureException(String.format("Continuous paging memory budget exceeded (%d bytes pending node-wide, session %s)", new Object[]{Long.valueOf(ContinuousPagingScheduler.instance.pendingBytes()), this.schedulerSession}));
+         } else if(ContinuousPagingScheduler.instance.shouldYield(this.coreId(), this.schedulerSession)) {
+            ret = new ContinuousBackPressureException(String.format("Yielding core %d to interactive requests", new Object[]{Integer.valueOf(this.coreId())}));
          } else {
             if(startedAtMillis <= 0L || this.continuousPagingState.timeSource.currentTimeMillis() - startedAtMillis < (long)this.continuousPagingState.config.max_local_query_time_ms) {
                return;
@@ -388,7 +406,7 @@ public class ContinuousPagingService {
       private void maybeResume() {
          if(this.paused != -1L && this.state.get() != ContinuousPagingService.ContinuousPagingSession.State.STOPPED) {
             long now = this.continuousPagingState.timeSource.nanoTime();
-            boolean canResume = this.numPagesRequested == 2147483647?this.pageWriter.halfQueueAvailable():this.pageWriter.hasSpace() && this.numPagesSent < this.numPagesRequested;
+            boolean canResume = (this.numPagesRequested == 2147483647?this.pageWriter.halfQueueAvailable():this.pageWriter.hasSpace() && this.numPagesSent < this.numPagesRequested) && ContinuousPagingScheduler.instance.mayProduce(this.schedulerSession) && !ContinuousPagingScheduler.instance.shouldYield(this.coreId(), this.schedulerSession);
             if(canResume && ContinuousPagingService.logger.isTraceEnabled()) {
                ContinuousPagingService.logger.trace("Resuming session {}, pages requested: {}, pages sent: {}, queue size: {}, paging state {}", new Object[]{this.key, Integer.valueOf(this.numPagesRequested), Integer.valueOf(this.numPagesSent), Integer.valueOf(this.pageWriter.pendingPages()), this.pagingState});
             }
@@ -535,31 +553,62 @@ public class ContinuousPagingService {
          final QueryOptions.PagingOptions pagingOptions;
          final ProtocolVersion version;
          final ContinuousPagingService.SessionKey sessionKey;
+         final boolean zeroCopy;
+         final int bufferSize;
          ByteBuf buf;
+         ByteBuf tail;
          int numRows;
          int seqNo;
          int maxPageSize;
 
          Page(int bufferSize, ResultSet.ResultMetadata metadata, QueryState state, QueryOptions options, ContinuousPagingService.SessionKey sessionKey, int seqNo, int maxPageSize) {
+            this(bufferSize, metadata, state, options, sessionKey, seqNo, maxPageSize, ContinuousPagingService.ZERO_COPY_PAGES);
+         }
+
+         Page(int bufferSize, ResultSet.ResultMetadata metadata, QueryState state, QueryOptions options, ContinuousPagingService.SessionKey sessionKey, int seqNo, int maxPageSize, boolean zeroCopy) {
             this.metadata = metadata;
             this.state = state;
             this.pagingOptions = options.getPagingOptions();
             this.version = options.getProtocolVersion();
             this.sessionKey = sessionKey;
-            this.buf = CBUtil.allocator.buffer(bufferSize);
+            this.zeroCopy = zeroCopy;
+            this.bufferSize = bufferSize;
+            this.buf = this.allocate();
             this.seqNo = seqNo;
             this.maxPageSize = maxPageSize;
          }
 
+         private ByteBuf allocate() {
+            if(!this.zeroCopy) {
+               return CBUtil.allocator.buffer(this.bufferSize);
+            } else {
+               this.tail = CBUtil.allocator.directBuffer(this.bufferSize);
+               return CBUtil.allocator.compositeDirectBuffer(2147483647);
+            }
+         }
+
          Frame makeFrame(PagingResult pagingResult) {
+            if(this.zeroCopy) {
+               this.flushTail();
+            }
+
             this.metadata.setPagingResult(pagingResult);
-            ContinuousPagingService.ContinuousPagingSession.EncodedPage response = new ContinuousPagingService.ContinuousPagingSession.EncodedPage(this.metadata, this.numRows, this.buf);
+            ContinuousPagingService.ContinuousPagingSession.EncodedPage response = new ContinuousPagingService.ContinuousPagingSession.EncodedPage(this.metadata, this.numRows, this.buf, !this.zeroCopy);
             response.setWarnings(ClientWarn.instance.getWarnings());
             if(Tracing.isTracing()) {
                response.setTracingId(Tracing.instance.getSessionId());
             }
 
-            return makeFrame(response, ContinuousPagingService.ContinuousPagingSession.EncodedPage.codec, this.version, this.state.getStreamId());
+            Frame frame = makeFrame(response, ContinuousPagingService.ContinuousPagingSession.EncodedPage.codec, this.version, this.state.getStreamId());
+            if(!this.zeroCopy) {
+               return frame;
+            } else {
+               CompositeByteBuf body = CBUtil.allocator.compositeDirectBuffer(2);
+               body.addComponent(true, frame.body);
+               body.addComponent(true, this.buf);
+               this.buf = null;
+               return frame.with(body);
+            }
          }
 
          static <M extends Message.Response> Frame makeFrame(M response, Message.Codec codec, ProtocolVersion version, int streamId) {
@@ -571,6 +620,11 @@ public class ContinuousPagingService {
          }
 
          void addRow(List<ByteBuffer> row) {
+            if(this.zeroCopy) {
+               this.addRowZeroCopy(row);
+               return;
+            }
+
             int prevWriteIndex = this.buf.writerIndex();
             boolean ret = ResultSet.codec.encodeRow(row, this.metadata, this.buf, true);
             if(ret) {
@@ -598,8 +652,52 @@ public class ContinuousPagingService {
             }
          }
 
+         private void addRowZeroCopy(List<ByteBuffer> row) {
+            CompositeByteBuf composite = (CompositeByteBuf)this.buf;
+
+            for(int i = 0; i < this.metadata.columnCount; ++i) {
+               ByteBuffer value = (ByteBuffer)row.get(i);
+               if(value != null && value.hasArray() && value.remaining() >= ContinuousPagingService.ZERO_COPY_VALUE_THRESHOLD) {
+                  this.ensureWritable(4);
+                  this.tail.writeInt(value.remaining());
+                  this.flushTail();
+                  composite.addComponent(true, Unpooled.wrappedBuffer(value.duplicate()));
+               } else {
+                  this.ensureWritable(CBUtil.sizeOfValue(value));
+                  CBUtil.writeValue(value, this.tail);
+               }
+            }
+
+            ++this.numRows;
+         }
+
+         private void ensureWritable(int size) {
+            if(this.tail == null || this.tail.writableBytes() < size) {
+               this.flushTail();
+               this.tail = CBUtil.allocator.directBuffer(Math.max(size, this.bufferSize));
+            }
+
+         }
+
+         private void flushTail() {
+            if(this.tail != null) {
+               if(this.tail.isReadable()) {
+                  ((CompositeByteBuf)this.buf).addComponent(true, this.tail);
+               } else {
+                  this.tail.release();
+               }
+
+               this.tail = null;
+            }
+
+         }
+
          int size() {
-            return this.buf.readableBytes();
+            return this.buf.readableBytes() + (this.tail == null?0:this.tail.readableBytes());
+         }
+
+         int capacity() {
+            return this.buf == null?this.bufferSize:this.buf.capacity() + (this.tail == null?0:this.tail.capacity());
          }
 
          boolean isEmpty() {
@@ -609,12 +707,29 @@ public class ContinuousPagingService {
          void reuse(int seqNo) {
             this.numRows = 0;
             this.seqNo = seqNo;
-            this.buf.clear();
+            if(this.buf != null && this.zeroCopy) {
+               this.release();
+            }
+
+            if(this.buf == null) {
+               this.buf = this.allocate();
+            } else {
+               this.buf.clear();
+            }
+
          }
 
          void release() {
-            this.buf.release();
-            this.buf = null;
+            if(this.buf != null) {
+               this.buf.release();
+               this.buf = null;
+            }
+
+            if(this.tail != null) {
+               this.tail.release();
+               this.tail = null;
+            }
+
          }
 
          int seqNo() {
@@ -623,7 +738,7 @@ public class ContinuousPagingService {
 
          int avgRowSize(int current) {
             if(this.buf != null && this.numRows != 0) {
-               int avg = this.buf.readableBytes() / this.numRows;
+               int avg = this.size() / this.numRows;
                return (avg + current) / 2;
             } else {
                return current;
@@ -639,6 +754,7 @@ public class ContinuousPagingService {
          final ResultSet.ResultMetadata metadata;
          final int numRows;
          final ByteBuf buff;
+         final boolean inline;
          public static final Message.Codec<ContinuousPagingService.ContinuousPagingSession.EncodedPage> codec = new Message.Codec<ContinuousPagingService.ContinuousPagingSession.EncodedPage>() {
             public ContinuousPagingService.ContinuousPagingSession.EncodedPage decode(ByteBuf body, ProtocolVersion version) {
                assert false : "should never be called";
@@ -649,19 +765,23 @@ public class ContinuousPagingService {
             public void encode(ContinuousPagingService.ContinuousPagingSession.EncodedPage msg, ByteBuf dest, ProtocolVersion version) {
                dest.writeInt(msg.kind.id);
                ResultSet.codec.encodeHeader(msg.metadata, dest, msg.numRows, version);
-               dest.writeBytes(msg.buff);
+               if(msg.inline) {
+                  dest.writeBytes(msg.buff);
+               }
+
             }
 
             public int encodedSize(ContinuousPagingService.ContinuousPagingSession.EncodedPage msg, ProtocolVersion version) {
-               return 4 + ResultSet.codec.encodedHeaderSize(msg.metadata, version) + msg.buff.readableBytes();
+               return 4 + ResultSet.codec.encodedHeaderSize(msg.metadata, version) + (msg.inline?msg.buff.readableBytes():0);
             }
          };
 
-         private EncodedPage(ResultSet.ResultMetadata metadata, int numRows, ByteBuf buff) {
+         private EncodedPage(ResultSet.ResultMetadata metadata, int numRows, ByteBuf buff, boolean inline) {
             super(ResultMessage.Kind.ROWS);
             this.metadata = metadata;
             this.numRows = numRows;
             this.buff = buff;
+            this.inline = inline;
          }
 
          public String toString() {
@@ -735,7 +735,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean {
       return this.newSSTableDescriptor(directory, format.info.getLatestVersion(), format);
    }
 
-   private Descriptor newSSTableDescriptor(File directory, Version version, SSTableFormat.Type format) {
+   public Descriptor newSSTableDescriptor(File directory, Version version, SSTableFormat.Type format) {
       return new Descriptor(version, directory, this.keyspace.getName(), this.name, this.fileIndexGenerator.incrementAndGet(), format);
    }
 
@@ -818,6 +818,18 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean {
    }
 
    private static void setCommitLogUpperBound(AtomicReference<CommitLogPosition> commitLogUpperBound) {
+      if(CommitLog.instance.hasPerCoreSegments()) {
+         CommitLogPosition currentLast;
+         do {
+            currentLast = (CommitLogPosition)commitLogUpperBound.get();
+         } while(!commitLogUpperBound.compareAndSet(currentLast, CommitLog.instance.getCurrentFrontier().asLast(currentLast)));
+
+      } else {
+         setSingleCommitLogUpperBound(commitLogUpperBound);
+      }
+   }
+
+   private static void setSingleCommitLogUpperBound(AtomicReference<CommitLogPosition> commitLogUpperBound) {
       Memtable.LastCommitLogPosition lastReplayPosition;
       CommitLogPosition currentLast;
       do {
@@ -2183,7 +2195,8 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean {
                   flushRunnables = memtable.createFlushRunnables(txn);
 
                   for(int i = 0; i < flushRunnables.size(); ++i) {
-                     futures.add(ColumnFamilyStore.perDiskflushExecutors[i].submit((Callable)flushRunnables.get(i)));
+                     Memtable.FlushRunnable flushRunnable = (Memtable.FlushRunnable)flushRunnables.get(i);
+                     futures.add(ColumnFamilyStore.perDiskflushExecutors[flushRunnable.location].submit((Callable)flushRunnable));
                   }
 
                   if(flushNonCf2i) {
@@ -2279,7 +2292,12 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean {
             memtable.cfs.replaceFlushed(memtable, sstables);
             this.reclaim(memtable);
             memtable.cfs.compactionStrategyManager.compactionLogger.flush(sstables);
-            ColumnFamilyStore.logger.debug("Flushed to {} ({} sstables, {}), biggest {}, smallest {} ({}ms)", new Object[]{sstables, Integer.valueOf(sstables.size()), FBUtilities.prettyPrintMemory(totalBytesOnDisk), FBUtilities.prettyPrintMemory(maxBytesOnDisk), FBUtilities.prettyPrintMemory(minBytesOnDisk), Long.valueOf(System.currentTimeMillis() - start)});
+            long elapsed = System.currentTimeMillis() - start;
+            if(totalBytesOnDisk > 0L) {
+               memtable.cfs.metric.flushBytesPerSecond.update(totalBytesOnDisk * 1000L / Math.max(1L, elapsed));
+            }
+
+            ColumnFamilyStore.logger.debug("Flushed to {} ({} sstables, {}), biggest {}, smallest {} ({}ms)", new Object[]{sstables, Integer.valueOf(sstables.size()), FBUtilities.prettyPrintMemory(totalBytesOnDisk), FBUtilities.prettyPrintMemory(maxBytesOnDisk), FBUtilities.prettyPrintMemory(minBytesOnDisk), Long.valueOf(elapsed)});
             return sstables;
          } else {
             memtable.cfs.replaceFlushed(memtable, Collections.emptyList());
@@ -76,6 +76,7 @@ public class Keyspace {
    private volatile TPCBoundaries tpcBoundaries;
    private long boundariesForRingVersion = -1L;
    private static volatile boolean initialized;
+   private static final AtomicLong tpcBoundariesVersion = new AtomicLong();
    private volatile boolean replicationParamsChanged = false;
 
    public static void setInitialized() {
@@ -314,6 +315,7 @@ public class Keyspace {
    public void setDefaultTPCBoundaries(List<Range<Token>> ranges) {
       this.boundariesForRingVersion = StorageService.instance.getTokenMetadata().getRingVersion();
       this.tpcBoundaries = this.computeTPCBoundaries(ranges);
+      tpcBoundariesVersion.incrementAndGet();
    }
 
    public TPCBoundaries getTPCBoundaries() {
@@ -328,6 +330,7 @@ public class Keyspace {
             if(boundaries == null || this.boundariesForRingVersion < StorageService.instance.getTokenMetadata().getRingVersion() || this.replicationParamsChanged) {
                this.boundariesForRingVersion = StorageService.instance.getTokenMetadata().getRingVersion();
                this.tpcBoundaries = boundaries = this.computeTPCBoundaries();
+               tpcBoundariesVersion.incrementAndGet();
                this.replicationParamsChanged = false;
             }
          }
@@ -336,6 +339,25 @@ public class Keyspace {
       return boundaries;
    }
 
+   public static long tpcBoundariesVersion() {
+      return tpcBoundariesVersion.get();
+   }
+
+   public void rebalanceTPCBoundaries(double[] coreLoads, double adjustment) {
+      synchronized(this) {
+         TPCBoundaries boundaries = this.tpcBoundaries;
+         if(boundaries != null && boundaries != TPCBoundaries.LOCAL && boundaries.supportedCores() == coreLoads.length) {
+            TPCBoundaries rebalanced = boundaries.rebalance(coreLoads, adjustment);
+            if(!rebalanced.equals(boundaries)) {
+               logger.debug("Rebalanced TPC core assignments for {} based on core load: {}", this.getName(), rebalanced);
+               this.tpcBoundaries = rebalanced;
+               tpcBoundariesVersion.incrementAndGet();
+            }
+         }
+
+      }
+   }
+
    private TPCBoundaries computeTPCBoundaries() {
       if(SchemaConstants.isLocalSystemKeyspace(this.metadata.name)) {
          return TPCBoundaries.LOCAL;
@@ -21,8 +21,8 @@ import org.apache.cassandra.concurrent.TPCBoundaries;
 import org.apache.cassandra.concurrent.TPCTaskType;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.commitlog.CommitLog;
+import org.apache.cassandra.db.commitlog.CommitLogFrontier;
 import org.apache.cassandra.db.commitlog.CommitLogPosition;
-import org.apache.cassandra.db.commitlog.IntervalSet;
 import org.apache.cassandra.db.filter.ClusteringIndexFilter;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
@@ -39,6 +39,7 @@ import org.apache.cassandra.dht.Bounds;
 import org.apache.cassandra.dht.IncludingExcludingBounds;
 import org.apache.cassandra.dht.Murmur3Partitioner;
 import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.index.transactions.UpdateTransaction;
 import org.apache.cassandra.io.FSDiskFullWriteError;
 import org.apache.cassandra.io.FSWriteError;
@@ -214,6 +215,8 @@ public class Memtable implements Comparable<Memtable> {
          return false;
       } else if(commitLogPosition == null) {
          return true;
+      } else if(CommitLog.instance.hasPerCoreSegments()) {
+         return this.acceptsForSlot(commitLogPosition);
       } else {
          CommitLogPosition currentLast;
          do {
@@ -231,6 +234,25 @@ public class Memtable implements Comparable<Memtable> {
       }
    }
 
+   private boolean acceptsForSlot(CommitLogPosition commitLogPosition) {
+      int slot = CommitLog.instance.slotOf(commitLogPosition);
+
+      CommitLogPosition currentLast;
+      do {
+         currentLast = (CommitLogPosition)this.commitLogUpperBound.get();
+         CommitLogPosition slotLast = CommitLogFrontier.forSlot(currentLast, slot);
+         if(currentLast instanceof CommitLogFrontier && ((CommitLogFrontier)currentLast).last) {
+            return slotLast.compareTo(commitLogPosition) >= 0;
+         }
+
+         if(slotLast != null && slotLast.compareTo(commitLogPosition) >= 0) {
+            return true;
+         }
+      } while(!this.commitLogUpperBound.compareAndSet(currentLast, CommitLogFrontier.raise(currentLast, slot, commitLogPosition)));
+
+      return true;
+   }
+
    public CommitLogPosition getCommitLogLowerBound() {
       return (CommitLogPosition)this.commitLogLowerBound.get();
    }
@@ -261,6 +283,24 @@ public class Memtable implements Comparable<Memtable> {
       return true;
    }
 
+   public boolean hasDataIn(Range<Token> range) {
+      PartitionPosition from = ((Token)range.left).maxKeyBound();
+      PartitionPosition to = ((Token)range.right).maxKeyBound();
+      boolean toEnd = ((Token)range.right).isMinimum();
+      MemtableSubrange[] var5 = this.subranges;
+      int var6 = var5.length;
+
+      for(int var7 = 0; var7 < var6; ++var7) {
+         MemtableSubrange subrange = var5[var7];
+         Iterator<AtomicBTreePartition> iter = toEnd?subrange.tailIterator(from, false, MemtableSubrange.DataAccess.UNSAFE):subrange.subIterator(from, false, to, true, MemtableSubrange.DataAccess.UNSAFE);
+         if(iter.hasNext()) {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
    public boolean mayContainDataBefore(CommitLogPosition position) {
       return this.approximateCommitLogLowerBound.compareTo(position) < 0;
    }
@@ -297,7 +337,7 @@ public class Memtable implements Comparable<Memtable> {
             return Long.valueOf(p.colUpdateTimeDelta);
          });
       };
-      return partitionMap.allocator().whenBelowLimits(write, opGroup, TPC.getForCore(coreId), TPCTaskType.WRITE_MEMTABLE);
+      return partitionMap.allocator().whenBelowLimits(write, opGroup, TPC.getForCore(coreId), TPCTaskType.WRITE_MEMTABLE, this.cfs == null?null:this.cfs.metric.writeStallTime);
    }
 
    public long getLiveDataSize() {
@@ -455,26 +495,38 @@ public class Memtable implements Comparable<Memtable> {
    List<Memtable.FlushRunnable> createFlushRunnables(LifecycleTransaction txn, DiskBoundaries diskBoundaries) {
       List<PartitionPosition> boundaries = diskBoundaries.positions;
       List<Directories.DataDirectory> locations = diskBoundaries.directories;
-      if(boundaries == null) {
-         return Collections.singletonList(new Memtable.FlushRunnable(this.subranges, (Directories.DataDirectory)null, (PartitionPosition)null, (PartitionPosition)null, txn));
+      MemtableSubrange[][] groups = this.flushGroups();
+      if(boundaries == null && groups.length == 1) {
+         return Collections.singletonList(new Memtable.FlushRunnable(groups[0], 0, (Directories.DataDirectory)null, (PartitionPosition)null, (PartitionPosition)null, txn));
       } else {
-         List<Memtable.FlushRunnable> runnables = new ArrayList(boundaries.size());
-         Object rangeStart = this.cfs.getPartitioner().getMinimumToken().minKeyBound();
+         List<Memtable.FlushRunnable> runnables = new ArrayList((boundaries == null?1:boundaries.size()) * groups.length);
 
          try {
-            for(int i = 0; i < boundaries.size(); ++i) {
-               PartitionPosition t = (PartitionPosition)boundaries.get(i);
-               runnables.add(new Memtable.FlushRunnable(this.subranges, (Directories.DataDirectory)locations.get(i), (PartitionPosition)rangeStart, t, txn));
-               rangeStart = t;
+            if(boundaries == null) {
+               for(int g = 0; g < groups.length; ++g) {
+                  runnables.add(new Memtable.FlushRunnable(groups[g], 0, (Directories.DataDirectory)null, (PartitionPosition)null, (PartitionPosition)null, txn));
+               }
+            } else {
+               Object rangeStart = this.cfs.getPartitioner().getMinimumToken().minKeyBound();
+
+               for(int i = 0; i < boundaries.size(); ++i) {
+                  PartitionPosition t = (PartitionPosition)boundaries.get(i);
+
+                  for(int g = 0; g < groups.length; ++g) {
+                     runnables.add(new Memtable.FlushRunnable(groups[g], i, (Directories.DataDirectory)locations.get(i), (PartitionPosition)rangeStart, t, txn));
+                  }
+
+                  rangeStart = t;
+               }
             }
 
             return runnables;
-         } catch (Throwable var10) {
-            Throwable e = var10;
+         } catch (Throwable var11) {
+            Throwable e = var11;
 
             Memtable.FlushRunnable runnable;
-            for(Iterator var8 = runnables.iterator(); var8.hasNext(); e = runnable.abort(e)) {
-               runnable = (Memtable.FlushRunnable)var8.next();
+            for(Iterator var9 = runnables.iterator(); var9.hasNext(); e = runnable.abort(e)) {
+               runnable = (Memtable.FlushRunnable)var9.next();
             }
 
             throw Throwables.propagate(e);
@@ -482,6 +534,34 @@ public class Memtable implements Comparable<Memtable> {
       }
    }
 
+   private MemtableSubrange[][] flushGroups() {
+      int writers = Math.min(this.metadata.params.compaction.flushSubrangeWriters(), this.subranges.length);
+      if(writers > 1 && this.metadata.partitioner.equals(DatabaseDescriptor.getPartitioner())) {
+         List<MemtableSubrange> nonEmpty = new ArrayList(this.subranges.length);
+
+         for(int i = 0; i < this.subranges.length; ++i) {
+            if(!this.subranges[i].isEmpty()) {
+               nonEmpty.add(this.subranges[i]);
+            }
+         }
+
+         writers = Math.min(writers, nonEmpty.size());
+         if(writers <= 1) {
+            return new MemtableSubrange[][]{this.subranges};
+         } else {
+            MemtableSubrange[][] groups = new MemtableSubrange[writers][];
+
+            for(int g = 0; g < writers; ++g) {
+               groups[g] = (MemtableSubrange[])nonEmpty.subList(g * nonEmpty.size() / writers, (g + 1) * nonEmpty.size() / writers).toArray(new MemtableSubrange[0]);
+            }
+
+            return groups;
+         }
+      } else {
+         return new MemtableSubrange[][]{this.subranges};
+      }
+   }
+
    public Flow<Partition> getPartition(DecoratedKey key) {
       int coreId = this.getCoreFor(key);
       return Flow.just(this.subranges[coreId].get(key, MemtableSubrange.DataAccess.ON_HEAP));
@@ -541,10 +621,12 @@ public class Memtable implements Comparable<Memtable> {
       private final PartitionPosition from;
       private final PartitionPosition to;
       private final int keyCount;
+      final int location;
       private final AtomicReference<Memtable.FlushRunnableWriterState> state;
 
-      private FlushRunnable(MemtableSubrange[] subranges, Directories.DataDirectory flushLocation, PartitionPosition from, PartitionPosition to, LifecycleTransaction txn) {
+      private FlushRunnable(MemtableSubrange[] subranges, int location, Directories.DataDirectory flushLocation, PartitionPosition from, PartitionPosition to, LifecycleTransaction txn) {
          this.toFlush = new ArrayList(subranges.length);
+         this.location = location;
          this.from = from;
          this.to = to;
          long keySize = 0L;
@@ -668,7 +750,7 @@ public class Memtable implements Comparable<Memtable> {
       }
 
       public SSTableMultiWriter createFlushWriter(LifecycleTransaction txn, Descriptor descriptor, RegularAndStaticColumns columns, EncodingStats stats) {
-         MetadataCollector sstableMetadataCollector = (new MetadataCollector(Memtable.this.metadata.comparator)).commitLogIntervals(new IntervalSet((Comparable)Memtable.this.commitLogLowerBound.get(), (Comparable)Memtable.this.commitLogUpperBound.get()));
+         MetadataCollector sstableMetadataCollector = (new MetadataCollector(Memtable.this.metadata.comparator)).commitLogIntervals(CommitLog.instance.coveredIntervals((CommitLogPosition)Memtable.this.commitLogLowerBound.get(), (CommitLogPosition)Memtable.this.commitLogUpperBound.get()));
          return Memtable.this.cfs.createSSTableMultiWriter(descriptor, (long)this.keyCount, 0L, ActiveRepairService.NO_PENDING_REPAIR, sstableMetadataCollector, new SerializationHeader(true, Memtable.this.metadata, columns, stats), txn);
       }
 
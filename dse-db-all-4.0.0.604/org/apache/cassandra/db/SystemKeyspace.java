@@ -51,6 +51,7 @@ import org.apache.cassandra.cql3.functions.OperationFcts;
 import org.apache.cassandra.cql3.functions.TimeFcts;
 import org.apache.cassandra.cql3.functions.UuidFcts;
 import org.apache.cassandra.cql3.statements.CreateTableStatement;
+import org.apache.cassandra.db.commitlog.CommitLogFrontier;
 import org.apache.cassandra.db.commitlog.CommitLogPosition;
 import org.apache.cassandra.db.compaction.CompactionHistoryTabularData;
 import org.apache.cassandra.db.marshal.BytesType;
@@ -348,7 +349,8 @@ public final class SystemKeyspace {
       });
    }
 
-   public static CompletableFuture<Void> saveTruncationRecord(ColumnFamilyStore cfs, long truncatedAt, CommitLogPosition position) {
+   public static CompletableFuture<Void> saveTruncationRecord(ColumnFamilyStore cfs, long truncatedAt, CommitLogPosition replayAfter) {
+      CommitLogPosition position = CommitLogFrontier.oldest(replayAfter);
       return TPCUtils.withLock(GLOBAL_LOCK, () -> {
          String req = "UPDATE system.%s SET truncated_at = truncated_at + ? WHERE key = '%s'";
          return TPCUtils.toFuture(QueryProcessor.executeInternalAsync(String.format(req, new Object[]{"local", "local"}), new Object[]{truncationAsMapEntry(cfs, truncatedAt, position)})).thenCompose((resultSet) -> {
@@ -18,8 +18,10 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BooleanSupplier;
 import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.concurrent.TPC;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Keyspace;
@@ -35,11 +37,12 @@ import org.slf4j.LoggerFactory;
 
 public abstract class AbstractCommitLogSegmentManager {
    static final Logger logger = LoggerFactory.getLogger(AbstractCommitLogSegmentManager.class);
-   private volatile CommitLogSegment allocatingFrom = null;
+   static final boolean PER_CORE_SEGMENTS = Boolean.parseBoolean(System.getProperty("dse.commitlog.per_core_segments", "false"));
+   private final AtomicReferenceArray<CommitLogSegment> allocatingFrom;
    private final ConcurrentLinkedQueue<CommitLogSegment> activeSegments = new ConcurrentLinkedQueue();
    private final AtomicReference<CommitLogSegment> availableSegment = new AtomicReference((Object)null);
    private final AtomicReference<Runnable> segmentPreparedCallback = new AtomicReference();
-   private final AtomicReference<AbstractCommitLogSegmentManager.SegmentAdvancer> activeAdvanceRequest = new AtomicReference();
+   private final AtomicReferenceArray<AbstractCommitLogSegmentManager.SegmentAdvancer> activeAdvanceRequests;
    final String storageDirectory;
    private final AtomicLong size = new AtomicLong();
    private Thread managerThread;
@@ -54,6 +57,13 @@ public abstract class AbstractCommitLogSegmentManager {
    AbstractCommitLogSegmentManager(CommitLog commitLog, String storageDirectory) {
       this.commitLog = commitLog;
       this.storageDirectory = storageDirectory;
+      int slots = PER_CORE_SEGMENTS?TPC.getNumCores() + 1:1;
+      this.allocatingFrom = new AtomicReferenceArray(slots);
+      this.activeAdvanceRequests = new AtomicReferenceArray(slots);
+      if(PER_CORE_SEGMENTS) {
+         logger.info("Commit log segments are allocated per TPC core ({} allocation slots)", Integer.valueOf(slots));
+      }
+
    }
 
    void start() {
@@ -82,12 +92,15 @@ public abstract class AbstractCommitLogSegmentManager {
 
                   AbstractCommitLogSegmentManager.this.maybeFlushToReclaim();
                } catch (Throwable var3) {
-                  AbstractCommitLogSegmentManager.SegmentAdvancer advancer = (AbstractCommitLogSegmentManager.SegmentAdvancer)AbstractCommitLogSegmentManager.this.activeAdvanceRequest.get();
+                  AbstractCommitLogSegmentManager.SegmentAdvancer advancer = (AbstractCommitLogSegmentManager.SegmentAdvancer)AbstractCommitLogSegmentManager.this.activeAdvanceRequests.get(AbstractCommitLogSegmentManager.this.sharedSlot());
 
                   assert advancer != null : "The main thread should have requested the first segment before starting this thread";
 
-                  if(advancer.oldSegment == null) {
-                     advancer.completeExceptionally(var3);
+                  for(int slot = 0; slot < AbstractCommitLogSegmentManager.this.activeAdvanceRequests.length(); ++slot) {
+                     advancer = (AbstractCommitLogSegmentManager.SegmentAdvancer)AbstractCommitLogSegmentManager.this.activeAdvanceRequests.get(slot);
+                     if(advancer != null && advancer.oldSegment == null) {
+                        advancer.completeExceptionally(var3);
+                     }
                   }
 
                   if(!CommitLog.handleCommitError("Failed managing commit log segments", var3)) {
@@ -105,7 +118,7 @@ public abstract class AbstractCommitLogSegmentManager {
       this.shutdown = false;
       this.managerThread = NamedThreadFactory.createThread(runnable, "COMMIT-LOG-ALLOCATOR");
       this.managerThread.setDaemon(true);
-      CompletableFuture<Void> fut = this.advanceAllocatingFrom((CommitLogSegment)null);
+      CompletableFuture<Void> fut = this.advanceAllocatingFrom(this.sharedSlot(), (CommitLogSegment)null);
       this.managerThread.start();
       fut.join();
    }
@@ -123,7 +136,11 @@ public abstract class AbstractCommitLogSegmentManager {
 
          while(var6.hasNext()) {
             CommitLogSegment segment = (CommitLogSegment)var6.next();
-            if(segment == this.allocatingFrom) {
+            int slot = this.slotOf(segment);
+            if(slot >= 0) {
+               if(PER_CORE_SEGMENTS && segmentsToRecycle.isEmpty() && segment.id < this.newestAllocatingId()) {
+                  this.advanceAllocatingFrom(slot, segment);
+               }
                break;
             }
 
@@ -148,20 +165,24 @@ public abstract class AbstractCommitLogSegmentManager {
    abstract void discard(CommitLogSegment var1, boolean var2);
 
    CompletableFuture<Void> advanceAllocatingFrom(CommitLogSegment old) {
+      return this.advanceAllocatingFrom(this.currentSlot(), old);
+   }
+
+   CompletableFuture<Void> advanceAllocatingFrom(int slot, CommitLogSegment old) {
       AbstractCommitLogSegmentManager.SegmentAdvancer activeAdvancer;
       AbstractCommitLogSegmentManager.SegmentAdvancer ourAdvancer;
       do {
-         activeAdvancer = (AbstractCommitLogSegmentManager.SegmentAdvancer)this.activeAdvanceRequest.get();
+         activeAdvancer = (AbstractCommitLogSegmentManager.SegmentAdvancer)this.activeAdvanceRequests.get(slot);
          if(activeAdvancer != null && activeAdvancer.oldSegment == old) {
             return activeAdvancer;
          }
 
-         if(this.allocatingFrom != old) {
+         if(this.allocatingFrom.get(slot) != old) {
             return CompletableFuture.completedFuture(null);
          }
 
-         ourAdvancer = new AbstractCommitLogSegmentManager.SegmentAdvancer(old);
-      } while(!this.activeAdvanceRequest.compareAndSet(activeAdvancer, ourAdvancer));
+         ourAdvancer = new AbstractCommitLogSegmentManager.SegmentAdvancer(slot, old);
+      } while(!this.activeAdvanceRequests.compareAndSet(slot, activeAdvancer, ourAdvancer));
 
       if(this.availableSegment.get() != null) {
          ourAdvancer.run();
@@ -198,8 +219,22 @@ public abstract class AbstractCommitLogSegmentManager {
    void forceRecycleAll(Iterable<TableId> droppedTables) {
       List<CommitLogSegment> segmentsToRecycle = new ArrayList(this.activeSegments);
       CommitLogSegment last = (CommitLogSegment)segmentsToRecycle.get(segmentsToRecycle.size() - 1);
-      this.advanceAllocatingFrom(last).join();
-      last.waitForModifications();
+      List<CommitLogSegment> advanced = new ArrayList();
+
+      for(int slot = 0; slot < this.allocatingFrom.length(); ++slot) {
+         CommitLogSegment current = (CommitLogSegment)this.allocatingFrom.get(slot);
+         if(current != null && current.id <= last.id) {
+            this.advanceAllocatingFrom(slot, current).join();
+            advanced.add(current);
+         }
+      }
+
+      Iterator var4 = advanced.iterator();
+
+      while(var4.hasNext()) {
+         ((CommitLogSegment)var4.next()).waitForModifications();
+      }
+
       Keyspace.writeOrder.awaitNewBarrier();
       Iterable flushes = this.flushDataFrom(segmentsToRecycle, true);
 
@@ -364,16 +399,40 @@ public abstract class AbstractCommitLogSegmentManager {
    }
 
    CommitLogPosition getCurrentPosition() {
-      return this.allocatingFrom.getCurrentCommitLogPosition();
+      if(!PER_CORE_SEGMENTS) {
+         return ((CommitLogSegment)this.allocatingFrom.get(0)).getCurrentCommitLogPosition();
+      } else {
+         long oldest = 9223372036854775807L;
+
+         for(int slot = 0; slot < this.allocatingFrom.length(); ++slot) {
+            CommitLogSegment segment = (CommitLogSegment)this.allocatingFrom.get(slot);
+            if(segment != null && segment.id < oldest) {
+               oldest = segment.id;
+            }
+         }
+
+         return new CommitLogPosition(oldest, 0);
+      }
+   }
+
+   CommitLogFrontier getCurrentFrontier() {
+      CommitLogPosition[] positions = new CommitLogPosition[this.allocatingFrom.length()];
+
+      for(int slot = 0; slot < positions.length; ++slot) {
+         CommitLogSegment segment = (CommitLogSegment)this.allocatingFrom.get(slot);
+         positions[slot] = segment == null?CommitLogPosition.NONE:segment.getCurrentCommitLogPosition();
+      }
+
+      return new CommitLogFrontier(positions, false);
    }
 
    public void sync() throws IOException {
-      CommitLogSegment current = this.allocatingFrom;
+      long current = this.newestAllocatingId();
       Iterator var2 = this.getActiveSegments().iterator();
 
       while(var2.hasNext()) {
          CommitLogSegment segment = (CommitLogSegment)var2.next();
-         if(segment.id > current.id) {
+         if(segment.id > current) {
             return;
          }
 
@@ -395,26 +454,82 @@ public abstract class AbstractCommitLogSegmentManager {
    }
 
    CommitLogSegment allocatingFrom() {
-      return this.allocatingFrom;
+      return (CommitLogSegment)this.allocatingFrom.get(this.currentSlot());
+   }
+
+   private int currentSlot() {
+      return PER_CORE_SEGMENTS?TPC.getCoreId():0;
+   }
+
+   private int sharedSlot() {
+      return this.allocatingFrom.length() - 1;
+   }
+
+   int slots() {
+      return this.allocatingFrom.length();
+   }
+
+   int slotOf(CommitLogPosition position) {
+      Iterator var2 = this.activeSegments.iterator();
+
+      CommitLogSegment segment;
+      do {
+         if(!var2.hasNext()) {
+            return this.sharedSlot();
+         }
+
+         segment = (CommitLogSegment)var2.next();
+      } while(segment.id != position.segmentId);
+
+      return segment.slot;
+   }
+
+   private int slotOf(CommitLogSegment segment) {
+      for(int slot = 0; slot < this.allocatingFrom.length(); ++slot) {
+         if(this.allocatingFrom.get(slot) == segment) {
+            return slot;
+         }
+      }
+
+      return -1;
+   }
+
+   private long newestAllocatingId() {
+      long newest = -9223372036854775808L;
+
+      for(int slot = 0; slot < this.allocatingFrom.length(); ++slot) {
+         CommitLogSegment segment = (CommitLogSegment)this.allocatingFrom.get(slot);
+         if(segment != null && segment.id > newest) {
+            newest = segment.id;
+         }
+      }
+
+      return newest;
    }
 
    class SegmentAdvancer extends CompletableFuture<Void> implements Runnable {
+      final int slot;
       final CommitLogSegment oldSegment;
 
-      SegmentAdvancer(CommitLogSegment oldSegment) {
+      SegmentAdvancer(int slot, CommitLogSegment oldSegment) {
+         this.slot = slot;
          this.oldSegment = oldSegment;
       }
 
       public void run() {
-         assert AbstractCommitLogSegmentManager.this.allocatingFrom == this.oldSegment;
+         assert AbstractCommitLogSegmentManager.this.allocatingFrom.get(this.slot) == this.oldSegment;
 
          CommitLogSegment next = (CommitLogSegment)AbstractCommitLogSegmentManager.this.availableSegment.getAndSet(null);
          if(next == null) {
-            AbstractCommitLogSegmentManager.logger.warn("Available segment callback without available segment. This is only expected to happen while running commit log tests.");
+            if(!AbstractCommitLogSegmentManager.PER_CORE_SEGMENTS) {
+               AbstractCommitLogSegmentManager.logger.warn("Available segment callback without available segment. This is only expected to happen while running commit log tests.");
+            }
+
             AbstractCommitLogSegmentManager.this.runWhenSegmentIsAvailable(this);
          } else {
+            next.slot = this.slot;
             AbstractCommitLogSegmentManager.this.activeSegments.add(next);
-            AbstractCommitLogSegmentManager.this.allocatingFrom = next;
+            AbstractCommitLogSegmentManager.this.allocatingFrom.set(this.slot, next);
             AbstractCommitLogSegmentManager.this.wakeManager();
             this.complete(null);
             if(this.oldSegment != null) {
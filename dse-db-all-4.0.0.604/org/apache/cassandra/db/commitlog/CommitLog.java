@@ -166,6 +166,42 @@ public class CommitLog implements CommitLogMBean {
       return this.segmentManager.getCurrentPosition();
    }
 
+   public boolean hasPerCoreSegments() {
+      return AbstractCommitLogSegmentManager.PER_CORE_SEGMENTS;
+   }
+
+   public CommitLogFrontier getCurrentFrontier() {
+      return this.segmentManager.getCurrentFrontier();
+   }
+
+   public int slotOf(CommitLogPosition position) {
+      return this.segmentManager.slotOf(position);
+   }
+
+   public IntervalSet<CommitLogPosition> coveredIntervals(CommitLogPosition lowerBound, CommitLogPosition upperBound) {
+      if(!AbstractCommitLogSegmentManager.PER_CORE_SEGMENTS) {
+         return new IntervalSet(lowerBound, upperBound);
+      } else {
+         IntervalSet.Builder<CommitLogPosition> builder = new IntervalSet.Builder();
+         Iterator var4 = this.segmentManager.getActiveSegments().iterator();
+
+         while(var4.hasNext()) {
+            CommitLogSegment segment = (CommitLogSegment)var4.next();
+            CommitLogPosition start = CommitLogFrontier.forSlot(lowerBound, segment.slot);
+            CommitLogPosition end = CommitLogFrontier.forSlot(upperBound, segment.slot);
+            if(start != null && end != null && start.segmentId <= segment.id && end.segmentId >= segment.id) {
+               start = start.segmentId == segment.id?start:new CommitLogPosition(segment.id, 0);
+               end = end.segmentId == segment.id?end:new CommitLogPosition(segment.id, 2147483647);
+               if(start.compareTo(end) <= 0) {
+                  builder.add(start, end);
+               }
+            }
+         }
+
+         return builder.build();
+      }
+   }
+
    public void forceRecycleAllSegments(Iterable<TableId> droppedTables) {
       this.segmentManager.forceRecycleAll(droppedTables);
    }
@@ -248,7 +284,12 @@ public class CommitLog implements CommitLogMBean {
 
       while(iter.hasNext()) {
          CommitLogSegment segment = (CommitLogSegment)iter.next();
-         segment.markClean(id, lowerBound, upperBound);
+         CommitLogPosition start = CommitLogFrontier.forSlot(lowerBound, segment.slot);
+         CommitLogPosition end = CommitLogFrontier.forSlot(upperBound, segment.slot);
+         if(start != null && end != null) {
+            segment.markClean(id, start, end);
+         }
+
          if(segment.isUnused()) {
             logger.debug("Commit log segment {} is unused", segment);
             this.segmentManager.archiveAndDiscard(segment);
@@ -256,7 +297,7 @@ public class CommitLog implements CommitLogMBean {
             logger.trace("Not safe to delete{} commit log segment {}; dirty is {}", new Object[]{iter.hasNext()?"":" active", segment, segment.dirtyString()});
          }
 
-         if(segment.contains(upperBound)) {
+         if(!AbstractCommitLogSegmentManager.PER_CORE_SEGMENTS && segment.contains(upperBound)) {
             break;
          }
       }
@@ -0,0 +1,94 @@
+package org.apache.cassandra.db.commitlog;
+
+import java.util.Arrays;
+
+public final class CommitLogFrontier extends CommitLogPosition {
+   private final CommitLogPosition[] slots;
+   public final boolean last;
+
+   CommitLogFrontier(CommitLogPosition[] slots, boolean last) {
+      super(newest(slots).segmentId, newest(slots).position);
+      this.slots = slots;
+      this.last = last;
+   }
+
+   public static CommitLogPosition forSlot(CommitLogPosition bound, int slot) {
+      return bound instanceof CommitLogFrontier?((CommitLogFrontier)bound).slots[slot]:bound;
+   }
+
+   public static CommitLogFrontier raise(CommitLogPosition bound, int slot, CommitLogPosition position) {
+      CommitLogPosition[] slots = new CommitLogPosition[CommitLog.instance.segmentManager.slots()];
+
+      for(int i = 0; i < slots.length; ++i) {
+         slots[i] = forSlot(bound, i);
+      }
+
+      slots[slot] = position;
+      return new CommitLogFrontier(slots, false);
+   }
+
+   public CommitLogFrontier asLast(CommitLogPosition bound) {
+      CommitLogPosition[] slots = new CommitLogPosition[this.slots.length];
+
+      for(int i = 0; i < slots.length; ++i) {
+         CommitLogPosition previous = forSlot(bound, i);
+         slots[i] = previous != null && previous.compareTo(this.slots[i]) > 0?previous:this.slots[i];
+      }
+
+      return new CommitLogFrontier(slots, true);
+   }
+
+   public static CommitLogPosition oldest(CommitLogPosition bound) {
+      if(!(bound instanceof CommitLogFrontier)) {
+         return bound;
+      } else {
+         CommitLogPosition oldest = null;
+         CommitLogPosition[] var2 = ((CommitLogFrontier)bound).slots;
+         int var3 = var2.length;
+
+         for(int var4 = 0; var4 < var3; ++var4) {
+            CommitLogPosition position = var2[var4];
+            if(position == null) {
+               return CommitLogPosition.NONE;
+            }
+
+            if(position.compareTo(CommitLogPosition.NONE) > 0 && (oldest == null || position.compareTo(oldest) < 0)) {
+               oldest = position;
+            }
+         }
+
+         return oldest == null?CommitLogPosition.NONE:oldest;
+      }
+   }
+
+   private static CommitLogPosition newest(CommitLogPosition[] slots) {
+      CommitLogPosition newest = CommitLogPosition.NONE;
+      CommitLogPosition[] var2 = slots;
+      int var3 = slots.length;
+
+      for(int var4 = 0; var4 < var3; ++var4) {
+         CommitLogPosition position = var2[var4];
+         if(position != null && position.compareTo(newest) > 0) {
+            newest = position;
+         }
+      }
+
+      return newest;
+   }
+
+   public boolean equals(Object o) {
+      return o instanceof CommitLogFrontier && this.last == ((CommitLogFrontier)o).last && Arrays.equals(this.slots, ((CommitLogFrontier)o).slots);
+   }
+
+   public int hashCode() {
+      return Arrays.hashCode(this.slots);
+   }
+
+   public String toString() {
+      return "CommitLogFrontier(" + Arrays.toString(this.slots) + (this.last?", last)":")");
+   }
+
+   public CommitLogPosition clone() {
+      return new CommitLogPosition(this.segmentId, this.position);
+   }
+}
@@ -9,15 +9,22 @@ import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileAttribute;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.CRC32;
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.Mutation;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
@@ -28,6 +35,7 @@ import org.apache.cassandra.io.util.DataInputBuffer;
 import org.apache.cassandra.io.util.FileDataInput;
 import org.apache.cassandra.io.util.RandomAccessReader;
 import org.apache.cassandra.io.util.RebufferingInputStream;
+import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.JVMStabilityInspector;
@@ -122,6 +130,55 @@ public class CommitLogReader {
 
    }
 
+   public void readAllFiles(CommitLogReadHandler handler, File[] files, CommitLogPosition minPosition, int parallelism, long maxOutstandingBytes) throws IOException {
+      if(parallelism <= 1) {
+         this.readAllFiles(handler, files, minPosition);
+      } else {
+         List<File> filteredLogs = filterCommitLogFiles(files);
+         ExecutorService executor = DebuggableThreadPoolExecutor.createWithFixedPoolSize("CommitLogReplayDecoder", parallelism);
+         Queue<CommitLogReader.SegmentDecoder> decoding = new ArrayDeque(parallelism);
+         int next = 0;
+         long outstandingBytes = 0L;
+
+         try {
+            while(next < filteredLogs.size() || !decoding.isEmpty()) {
+               while(decoding.size() < parallelism && next < filteredLogs.size() && (decoding.isEmpty() || outstandingBytes < maxOutstandingBytes)) {
+                  CommitLogReader.SegmentDecoder decoder = new CommitLogReader.SegmentDecoder(handler, minPosition, (File)filteredLogs.get(next), next == filteredLogs.size() - 1);
+                  decoder.submit(executor);
+                  outstandingBytes += decoder.bytes;
+                  decoding.add(decoder);
+                  ++next;
+               }
+
+               CommitLogReader.SegmentDecoder decoder = (CommitLogReader.SegmentDecoder)decoding.poll();
+               decoder.await();
+               outstandingBytes -= decoder.bytes;
+               decoder.replay(this, handler);
+               if(decoder.schemaChanged) {
+                  logger.info("Schema mutation replayed from {}, decoding the remaining commit log segments sequentially", decoder.file);
+                  next -= decoding.size();
+                  Iterator var11 = decoding.iterator();
+
+                  while(var11.hasNext()) {
+                     ((CommitLogReader.SegmentDecoder)var11.next()).decoding.cancel(true);
+                  }
+
+                  decoding.clear();
+                  break;
+               }
+            }
+         } finally {
+            executor.shutdownNow();
+         }
+
+         while(next < filteredLogs.size()) {
+            this.readCommitLogSegment(handler, (File)filteredLogs.get(next), minPosition, -1, next == filteredLogs.size() - 1);
+            ++next;
+         }
+
+      }
+   }
+
    public void readCommitLogSegment(CommitLogReadHandler handler, File file, boolean tolerateTruncation) throws IOException {
       this.readCommitLogSegment(handler, file, CommitLogPosition.NONE, -1, tolerateTruncation);
    }
@@ -389,6 +446,121 @@ public class CommitLogReader {
 
    }
 
+   private static class SegmentDecoder extends CommitLogReader implements CommitLogReadHandler {
+      private final CommitLogReadHandler handler;
+      private final CommitLogPosition minPosition;
+      private final File file;
+      private final boolean tolerateTruncation;
+      private final long bytes;
+      private final List<CommitLogReader.DecodedMutation> decoded = new ArrayList();
+      private Future<?> decoding;
+      private boolean schemaChanged;
+
+      SegmentDecoder(CommitLogReadHandler handler, CommitLogPosition minPosition, File file, boolean tolerateTruncation) {
+         this.handler = handler;
+         this.minPosition = minPosition;
+         this.file = file;
+         this.tolerateTruncation = tolerateTruncation;
+         this.bytes = file.length();
+      }
+
+      void submit(ExecutorService executor) {
+         this.decoding = executor.submit(() -> {
+            this.readCommitLogSegment(this, this.file, this.minPosition, -1, this.tolerateTruncation);
+            return null;
+         });
+      }
+
+      void await() throws IOException {
+         try {
+            this.decoding.get();
+         } catch (ExecutionException var2) {
+            if(var2.getCause() instanceof IOException) {
+               throw (IOException)var2.getCause();
+            } else if(var2.getCause() instanceof RuntimeException) {
+               throw (RuntimeException)var2.getCause();
+            } else {
+               throw new RuntimeException(var2.getCause());
+            }
+         } catch (InterruptedException var3) {
+            throw new AssertionError(var3);
+         }
+      }
+
+      protected void readMutation(CommitLogReadHandler handler, byte[] inputBuffer, int size, CommitLogPosition minPosition, int entryLocation, CommitLogDescriptor desc) throws IOException {
+         if(!this.schemaChanged) {
+            try {
+               Mutation mutation = deserialize(inputBuffer, size, desc);
+               if(entryLocation > minPosition.position) {
+                  this.decoded.add(new CommitLogReader.DecodedMutation(mutation, (byte[])null, size, entryLocation, desc));
+                  this.schemaChanged = SchemaConstants.isSchemaKeyspace(mutation.getKeyspaceName());
+               }
+
+               return;
+            } catch (Throwable var8) {
+               JVMStabilityInspector.inspectThrowable(var8);
+            }
+         }
+
+         this.decoded.add(new CommitLogReader.DecodedMutation((Mutation)null, Arrays.copyOf(inputBuffer, size), size, entryLocation, desc));
+      }
+
+      private static Mutation deserialize(byte[] inputBuffer, int size, CommitLogDescriptor desc) throws IOException {
+         Mutation mutation = ((Mutation.MutationSerializer)Mutation.rawSerializers.get(desc.version.encodingVersion)).deserialize(new DataInputBuffer(inputBuffer, 0, size), SerializationHelper.Flag.LOCAL);
+         Iterator var4 = mutation.getPartitionUpdates().iterator();
+
+         while(var4.hasNext()) {
+            PartitionUpdate upd = (PartitionUpdate)var4.next();
+            upd.validate();
+         }
+
+         return mutation;
+      }
+
+      public boolean shouldSkipSegmentOnError(CommitLogReadHandler.CommitLogReadException exception) throws IOException {
+         return this.handler.shouldSkipSegmentOnError(exception);
+      }
+
+      public void handleUnrecoverableError(CommitLogReadHandler.CommitLogReadException exception) {
+         this.handler.handleUnrecoverableError(exception);
+      }
+
+      public void handleMutation(Mutation mutation, int size, int entryLocation, CommitLogDescriptor desc) {
+         this.decoded.add(new CommitLogReader.DecodedMutation(mutation, (byte[])null, size, entryLocation, desc));
+      }
+
+      void replay(CommitLogReader reader, CommitLogReadHandler handler) throws IOException {
+         Iterator var3 = this.decoded.iterator();
+
+         while(var3.hasNext()) {
+            CommitLogReader.DecodedMutation entry = (CommitLogReader.DecodedMutation)var3.next();
+            if(entry.mutation != null) {
+               handler.handleMutation(entry.mutation, entry.size, entry.entryLocation, entry.desc);
+            } else {
+               reader.readMutation(handler, entry.serialized, entry.size, this.minPosition, entry.entryLocation, entry.desc);
+            }
+         }
+
+         this.decoded.clear();
+      }
+   }
+
+   private static class DecodedMutation {
+      final Mutation mutation;
+      final byte[] serialized;
+      final int size;
+      final int entryLocation;
+      final CommitLogDescriptor desc;
+
+      DecodedMutation(Mutation mutation, byte[] serialized, int size, int entryLocation, CommitLogDescriptor desc) {
+         this.mutation = mutation;
+         this.serialized = serialized;
+         this.size = size;
+         this.entryLocation = entryLocation;
+         this.desc = desc;
+      }
+   }
+
    private static class ReadStatusTracker {
       private int mutationsLeft;
       public String errorContext = "";
@@ -26,9 +26,11 @@ import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.apache.cassandra.concurrent.TPC;
+import org.apache.cassandra.concurrent.TPCTaskType;
 import org.apache.cassandra.concurrent.TPCUtils;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Keyspace;
@@ -36,6 +38,7 @@ import org.apache.cassandra.db.Mutation;
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.metrics.CommitLogMetrics;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableId;
@@ -44,6 +47,7 @@ import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.JVMStabilityInspector;
 import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.flow.RxThreads;
 import org.apache.commons.lang3.StringUtils;
 import org.jctools.maps.NonBlockingHashSet;
 import org.slf4j.Logger;
@@ -57,14 +61,18 @@ public class CommitLogReplayer implements CommitLogReadHandler {
    static final String IGNORE_REPLAY_ERRORS_PROPERTY = "cassandra.commitlog.ignorereplayerrors";
    private static final Logger logger = LoggerFactory.getLogger(CommitLogReplayer.class);
    private static final int MAX_OUTSTANDING_REPLAY_COUNT = Integer.getInteger("cassandra.commitlog_max_outstanding_replay_count", 1024).intValue();
+   private static final int REPLAY_PARALLELISM = Integer.getInteger("dse.commitlog.replay_parallelism", Math.min(4, FBUtilities.getAvailableProcessors())).intValue();
    private final Set<Keyspace> keyspacesReplayed = new NonBlockingHashSet();
    private final Queue<Future<Integer>> futures = new ArrayDeque();
    private final AtomicInteger replayedCount = new AtomicInteger();
    private final Map<TableId, IntervalSet<CommitLogPosition>> cfPersisted;
    private final CommitLogPosition globalPosition;
    private long pendingMutationBytes = 0L;
+   private long replayedBytes = 0L;
+   private long replayStartNanos;
    private final CommitLogReplayer.ReplayFilter replayFilter;
    private final CommitLogArchiver archiver;
+   private final CommitLogMetrics metrics;
    @VisibleForTesting
    protected CommitLogReader commitLogReader;
    public final OpOrder writeOrder;
@@ -74,6 +82,7 @@ public class CommitLogReplayer implements CommitLogReadHandler {
       this.globalPosition = globalPosition;
       this.replayFilter = replayFilter;
       this.archiver = commitLog.archiver;
+      this.metrics = commitLog.metrics;
       this.commitLogReader = new CommitLogReader();
       this.writeOrder = TPC.newOpOrder(CommitLogReplayer.class);
    }
@@ -108,11 +117,13 @@ public class CommitLogReplayer implements CommitLogReadHandler {
    }
 
    public void replayPath(File file, boolean tolerateTruncation) throws IOException {
+      this.replayStartNanos = System.nanoTime();
       this.commitLogReader.readCommitLogSegment(this, file, this.globalPosition, -1, tolerateTruncation);
    }
 
    public void replayFiles(File[] clogs) throws IOException {
-      this.commitLogReader.readAllFiles(this, clogs, this.globalPosition);
+      this.replayStartNanos = System.nanoTime();
+      this.commitLogReader.readAllFiles(this, clogs, this.globalPosition, REPLAY_PARALLELISM, MAX_OUTSTANDING_REPLAY_BYTES);
    }
 
    public int blockForWrites() {
@@ -142,9 +153,16 @@ public class CommitLogReplayer implements CommitLogReadHandler {
       }
 
       FBUtilities.waitOnFutures(futures);
+      this.logReplayThroughput();
       return this.replayedCount.get();
    }
 
+   private void logReplayThroughput() {
+      long elapsedMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.replayStartNanos));
+      int mutations = this.replayedCount.get();
+      logger.info("Replayed {} mutations ({}) in {} ms: {} MB/s, {} mutations/s (decoding parallelism {})", new Object[]{Integer.valueOf(mutations), FBUtilities.prettyPrintMemory(this.replayedBytes), Long.valueOf(elapsedMillis), String.format("%.2f", new Object[]{Double.valueOf((double)this.replayedBytes / 1048576.0D * 1000.0D / (double)elapsedMillis)}), Long.valueOf((long)mutations * 1000L / elapsedMillis), Integer.valueOf(REPLAY_PARALLELISM)});
+   }
+
    public static IntervalSet<CommitLogPosition> persistedIntervals(Iterable<SSTableReader> onDisk, CommitLogPosition truncatedAt) {
       IntervalSet.Builder<CommitLogPosition> builder = new IntervalSet.Builder();
       Iterator var3 = onDisk.iterator();
@@ -189,6 +207,8 @@ public class CommitLogReplayer implements CommitLogReadHandler {
 
    public void handleMutation(Mutation m, int size, int entryLocation, CommitLogDescriptor desc) {
       this.pendingMutationBytes += (long)size;
+      this.replayedBytes += (long)size;
+      this.metrics.replayedBytes.mark((long)size);
       boolean isSchemaMutation = SchemaConstants.isSchemaKeyspace(m.getKeyspaceName());
       if(isSchemaMutation) {
          this.writeOrder.awaitNewBarrier();
@@ -337,6 +357,7 @@ public class CommitLogReplayer implements CommitLogReadHandler {
                      }
 
                      commitLogReplayer.replayedCount.incrementAndGet();
+                     commitLogReplayer.metrics.replayedMutations.mark();
                   }
                }
 
@@ -357,10 +378,11 @@ public class CommitLogReplayer implements CommitLogReadHandler {
                }
             }
          });
+         Completable routed = mutation.getScheduler() == null?completable:RxThreads.subscribeOn(completable, mutation.getScheduler(), TPCTaskType.WRITE_LOCAL);
          OpOrder var10000 = commitLogReplayer.writeOrder;
          commitLogReplayer.writeOrder.getClass();
          return TPCUtils.toFuture(Single.using(var10000::start, (opOrder) -> {
-            return completable.toSingleDefault(Integer.valueOf(serializedSize));
+            return routed.toSingleDefault(Integer.valueOf(serializedSize));
          }, (opOrder) -> {
             opOrder.close();
          }));
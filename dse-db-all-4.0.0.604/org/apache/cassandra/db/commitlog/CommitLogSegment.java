@@ -53,6 +53,7 @@ public abstract class CommitLogSegment {
    private final NonBlockingHashMap<TableId, IntegerInterval> tableDirty;
    private final ConcurrentHashMap<TableId, IntegerInterval.Set> tableClean;
    public final long id;
+   volatile int slot;
    final File logFile;
    final FileChannel channel;
    final int fd;
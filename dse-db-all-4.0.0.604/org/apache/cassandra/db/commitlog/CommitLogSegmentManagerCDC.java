@@ -72,12 +72,15 @@ public class CommitLogSegmentManagerCDC extends AbstractCommitLogSegmentManager
                   if(!this.isDisposed()) {
                      try {
                         CommitLogSegment segment = CommitLogSegmentManagerCDC.this.allocatingFrom();
-                        CommitLogSegmentManagerCDC.this.throwIfForbidden(mutation, segment);
-                        if(CommitLogSegmentManagerCDC.logger.isTraceEnabled()) {
+                        if(segment != null) {
+                           CommitLogSegmentManagerCDC.this.throwIfForbidden(mutation, segment);
+                        }
+
+                        if(CommitLogSegmentManagerCDC.logger.isTraceEnabled() && segment != null) {
                            CommitLogSegmentManagerCDC.logger.trace("Allocating mutation of size {} on segment {} with space {}", new Object[]{Integer.valueOf(size), Long.valueOf(segment.id), Long.valueOf(segment.availableSize())});
                         }
 
-                        CommitLogSegment.Allocation alloc = segment.allocate(mutation, size);
+                        CommitLogSegment.Allocation alloc = segment != null?segment.allocate(mutation, size):null;
                         if(alloc != null) {
                            if(mutation.trackedByCDC()) {
                               segment.setCDCState(CommitLogSegment.CDCState.CONTAINS);
@@ -39,11 +39,11 @@ public class CommitLogSegmentManagerStandard extends AbstractCommitLogSegmentMan
                   if(!this.isDisposed()) {
                      try {
                         CommitLogSegment segment = CommitLogSegmentManagerStandard.this.allocatingFrom();
-                        if(AbstractCommitLogSegmentManager.logger.isTraceEnabled()) {
+                        if(AbstractCommitLogSegmentManager.logger.isTraceEnabled() && segment != null) {
                            AbstractCommitLogSegmentManager.logger.trace("Allocating mutation of size {} on segment {} with space {}", new Object[]{Integer.valueOf(size), Long.valueOf(segment.id), Long.valueOf(segment.availableSize())});
                         }
 
-                        CommitLogSegment.Allocation alloc = segment.allocate(mutation, size);
+                        CommitLogSegment.Allocation alloc = segment != null?segment.allocate(mutation, size):null;
                         if(alloc != null) {
                            observer.onSuccess(alloc);
                         } else {
@@ -280,6 +280,7 @@ public abstract class AbstractCompactionStrategy {
                uncheckedOptions.remove("enabled");
                uncheckedOptions.remove("only_purge_repaired_tombstones");
                uncheckedOptions.remove(CompactionParams.Option.PROVIDE_OVERLAPPING_TOMBSTONES.toString());
+               uncheckedOptions.remove(CompactionParams.Option.FLUSH_SUBRANGE_WRITERS.toString());
                return uncheckedOptions;
             }
          }
@@ -232,6 +232,24 @@ public class CompactionLogger {
 
    }
 
+   public void throughput(double previous, double current, String reason, double readP99Millis, long tpcPending, double diskBusy, long pendingBytes) {
+      if(this.enabled.get()) {
+         ObjectNode node = json.objectNode();
+         node.put("type", "throughput");
+         this.describeStrategy(node);
+         node.put("time", String.valueOf(System.currentTimeMillis()));
+         node.put("previous", previous);
+         node.put("current", current);
+         node.put("reason", reason);
+         node.put("readP99Millis", readP99Millis);
+         node.put("tpcPending", tpcPending);
+         node.put("diskBusy", diskBusy);
+         node.put("pendingBytes", pendingBytes);
+         serializer.write(node, this::startStrategies, this);
+      }
+
+   }
+
    static {
       json = JsonNodeFactory.instance;
       logger = LoggerFactory.getLogger(CompactionLogger.class);
@@ -140,7 +140,12 @@ public class CompactionManager implements CompactionManagerMBean {
    }
 
    public RateLimiter getRateLimiter() {
-      this.setRate((double)DatabaseDescriptor.getCompactionThroughputMbPerSec());
+      if(!CompactionThroughputController.ENABLED) {
+         this.setRate((double)DatabaseDescriptor.getCompactionThroughputMbPerSec());
+      } else {
+         CompactionThroughputController.instance.checkConfiguredRate();
+      }
+
       return this.compactionRateLimiter;
    }
 
@@ -1272,9 +1277,14 @@ public class CompactionManager implements CompactionManagerMBean {
    }
 
    static void compactionRateLimiterAcquire(RateLimiter limiter, long bytesScanned, long lastBytesScanned, double compressionRatio) {
-      long lengthRead;
-      for(lengthRead = (long)((double)(bytesScanned - lastBytesScanned) * compressionRatio) + 1L; lengthRead >= 2147483647L; lengthRead -= 2147483647L) {
+      long lengthRead = (long)((double)(bytesScanned - lastBytesScanned) * compressionRatio) + 1L;
+      if(CompactionThroughputController.ENABLED) {
+         CompactionThroughputController.instance.recordCompactionBytes(lengthRead);
+      }
+
+      while(lengthRead >= 2147483647L) {
          limiter.acquire(2147483647);
+         lengthRead -= 2147483647L;
       }
 
       if(lengthRead > 0L) {
@@ -1354,6 +1364,9 @@ public class CompactionManager implements CompactionManagerMBean {
 
                      try {
                         validator.prepare(cfs, tree);
+                        RateLimiter limiter = CompactionThroughputController.ENABLED?CompactionThroughputController.instance.validationLimiter():null;
+                        double compressionRatio = scanners.getCompressionRatio();
+                        long lastBytesScanned = 0L;
 
                         while(ci.hasNext()) {
                            if(ci.isStopRequested()) {
@@ -1366,6 +1379,11 @@ public class CompactionManager implements CompactionManagerMBean {
                            try {
                               validator.add(partition);
                               ++partitionCount;
+                              if(limiter != null) {
+                                 long bytesScanned = scanners.getTotalBytesScanned();
+                                 compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio == -1.0D?1.0D:compressionRatio);
+                                 lastBytesScanned = bytesScanned;
+                              }
                            } catch (Throwable var138) {
                               var20 = var138;
                               throw var138;
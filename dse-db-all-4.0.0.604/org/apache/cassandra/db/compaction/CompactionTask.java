@@ -27,6 +27,7 @@ import org.apache.cassandra.io.FSDiskFullWriteError;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.concurrent.Refs;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -126,114 +127,153 @@ public class CompactionTask extends AbstractCompactionTask {
             long lastCheckObsoletion;
             double compressionRatio;
             try {
-               AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact);
-               Throwable var27 = null;
-
-               try {
-                  CompactionIterator ci = new CompactionIterator(this.compactionType, scanners.scanners, controller, nowInSec, taskId);
-                  Throwable var29 = null;
+               ShardedCompaction sharded = ShardedCompaction.maybeCreate(this, actuallyCompact, nowInSec);
+               if(sharded != null) {
+                  Throwable shardFailure = null;
 
                   try {
-                     lastCheckObsoletion = start;
-                     inputSizeBytes = scanners.getTotalCompressedSize();
-                     compressionRatio = scanners.getCompressionRatio();
-                     if(compressionRatio == -1.0D) {
-                        compressionRatio = 1.0D;
-                     }
-
-                     long lastBytesScanned = 0L;
+                     inputSizeBytes = SSTableReader.getTotalBytes(actuallyCompact);
+                     estimatedKeys = sharded.estimatedKeys();
                      if(!controller.cfs.getCompactionStrategyManager().isActive()) {
-                        throw new CompactionInterruptedException(ci.getCompactionInfo());
+                        throw new CompactionInterruptedException(sharded.getCompactionInfo());
                      }
 
+                     logger.debug("Compacting ({}) in {} token range shards", taskId, Integer.valueOf(sharded.size()));
                      if(this.collector != null) {
-                        this.collector.beginCompaction(ci);
+                        this.collector.beginCompaction(sharded);
+                     }
+
+                     try {
+                        newSStables = sharded.run();
+                     } finally {
+                        if(this.collector != null) {
+                           this.collector.finishCompaction(sharded);
+                        }
+
+                        mergedRowCounts = sharded.mergedRowCounts();
+                        totalSourceCQLRows = sharded.totalSourceCQLRows();
+                        totalKeysWritten = sharded.keysWritten();
+                     }
+                  } catch (Throwable var180) {
+                     shardFailure = var180;
+                     throw var180;
+                  } finally {
+                     Throwable closeFailure = sharded.close(shardFailure);
+                     if(shardFailure == null) {
+                        Throwables.maybeFail(closeFailure);
                      }
 
+                  }
+               } else {
+                  AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact);
+                  Throwable var27 = null;
+
+                  try {
+                     CompactionIterator ci = new CompactionIterator(this.compactionType, scanners.scanners, controller, nowInSec, taskId);
+                     Throwable var29 = null;
+
                      try {
-                        CompactionAwareWriter writer = this.getCompactionAwareWriter(this.cfs, this.getDirectories(), this.transaction, actuallyCompact);
-                        Throwable var37 = null;
+                        lastCheckObsoletion = start;
+                        inputSizeBytes = scanners.getTotalCompressedSize();
+                        compressionRatio = scanners.getCompressionRatio();
+                        if(compressionRatio == -1.0D) {
+                           compressionRatio = 1.0D;
+                        }
+
+                        long lastBytesScanned = 0L;
+                        if(!controller.cfs.getCompactionStrategyManager().isActive()) {
+                           throw new CompactionInterruptedException(ci.getCompactionInfo());
+                        }
+
+                        if(this.collector != null) {
+                           this.collector.beginCompaction(ci);
+                        }
 
                         try {
-                           estimatedKeys = writer.estimatedKeys();
+                           CompactionAwareWriter writer = this.getCompactionAwareWriter(this.cfs, this.getDirectories(), this.transaction, actuallyCompact);
+                           Throwable var37 = null;
 
-                           while(ci.hasNext()) {
-                              if(ci.isStopRequested()) {
-                                 throw new CompactionInterruptedException(ci.getCompactionInfo());
-                              }
+                           try {
+                              estimatedKeys = writer.estimatedKeys();
 
-                              if(writer.append(ci.next())) {
-                                 ++totalKeysWritten;
-                              }
+                              while(ci.hasNext()) {
+                                 if(ci.isStopRequested()) {
+                                    throw new CompactionInterruptedException(ci.getCompactionInfo());
+                                 }
 
-                              long bytesScanned = scanners.getTotalBytesScanned();
-                              CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
-                              lastBytesScanned = bytesScanned;
-                              if(System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L)) {
-                                 controller.maybeRefreshOverlaps();
-                                 lastCheckObsoletion = System.nanoTime();
+                                 if(writer.append(ci.next())) {
+                                    ++totalKeysWritten;
+                                 }
+
+                                 long bytesScanned = scanners.getTotalBytesScanned();
+                                 CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+                                 lastBytesScanned = bytesScanned;
+                                 if(System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L)) {
+                                    controller.maybeRefreshOverlaps();
+                                    lastCheckObsoletion = System.nanoTime();
+                                 }
                               }
-                           }
 
-                           newSStables = writer.finish();
-                        } catch (Throwable var168) {
-                           var37 = var168;
-                           throw var168;
-                        } finally {
-                           if(writer != null) {
-                              if(var37 != null) {
-                                 try {
+                              newSStables = writer.finish();
+                           } catch (Throwable var168) {
+                              var37 = var168;
+                              throw var168;
+                           } finally {
+                              if(writer != null) {
+                                 if(var37 != null) {
+                                    try {
+                                       writer.close();
+                                    } catch (Throwable var167) {
+                                       var37.addSuppressed(var167);
+                                    }
+                                 } else {
                                     writer.close();
-                                 } catch (Throwable var167) {
-                                    var37.addSuppressed(var167);
                                  }
-                              } else {
-                                 writer.close();
                               }
+
+                           }
+                        } finally {
+                           if(this.collector != null) {
+                              this.collector.finishCompaction(ci);
                            }
 
+                           mergedRowCounts = ci.getMergedRowCounts();
+                           totalSourceCQLRows = ci.getTotalSourceCQLRows();
                         }
+                     } catch (Throwable var171) {
+                        var29 = var171;
+                        throw var171;
                      } finally {
-                        if(this.collector != null) {
-                           this.collector.finishCompaction(ci);
+                        if(ci != null) {
+                           if(var29 != null) {
+                              try {
+                                 ci.close();
+                              } catch (Throwable var166) {
+                                 var29.addSuppressed(var166);
+                              }
+                           } else {
+                              ci.close();
+                           }
                         }
 
-                        mergedRowCounts = ci.getMergedRowCounts();
-                        totalSourceCQLRows = ci.getTotalSourceCQLRows();
                      }
-                  } catch (Throwable var171) {
-                     var29 = var171;
-                     throw var171;
+                  } catch (Throwable var173) {
+                     var27 = var173;
+                     throw var173;
                   } finally {
-                     if(ci != null) {
-                        if(var29 != null) {
+                     if(scanners != null) {
+                        if(var27 != null) {
                            try {
-                              ci.close();
-                           } catch (Throwable var166) {
-                              var29.addSuppressed(var166);
+                              scanners.close();
+                           } catch (Throwable var165) {
+                              var27.addSuppressed(var165);
                            }
                         } else {
-                           ci.close();
-                        }
-                     }
-
-                  }
-               } catch (Throwable var173) {
-                  var27 = var173;
-                  throw var173;
-               } finally {
-                  if(scanners != null) {
-                     if(var27 != null) {
-                        try {
                            scanners.close();
-                        } catch (Throwable var165) {
-                           var27.addSuppressed(var165);
                         }
-                     } else {
-                        scanners.close();
                      }
-                  }
 
+                  }
                }
             } catch (Throwable var175) {
                var25 = var175;
@@ -0,0 +1,301 @@
+package org.apache.cassandra.db.compaction;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.cassandra.concurrent.ScheduledExecutors;
+import org.apache.cassandra.concurrent.TPC;
+import org.apache.cassandra.concurrent.TPCTaskType;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.lifecycle.SSTableSet;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CompactionThroughputController implements Runnable {
+   private static final Logger logger = LoggerFactory.getLogger(CompactionThroughputController.class);
+   public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("dse.compaction.adaptive_throughput", "false"));
+   private static final long INTERVAL_SECONDS = Long.getLong("dse.compaction.adaptive_interval_seconds", 10L).longValue();
+   private static final double MIN_MB_PER_SEC = Double.parseDouble(System.getProperty("dse.compaction.adaptive_min_mbps", "8"));
+   private static final double MAX_MB_PER_SEC = Double.parseDouble(System.getProperty("dse.compaction.adaptive_max_mbps", "0"));
+   private static final double READ_P99_TARGET_MILLIS = Double.parseDouble(System.getProperty("dse.compaction.adaptive_read_p99_target_ms", "10"));
+   private static final long TPC_PENDING_THRESHOLD = Long.getLong("dse.compaction.adaptive_tpc_pending_threshold", 256L).longValue();
+   private static final double DISK_BUSY_THRESHOLD = Double.parseDouble(System.getProperty("dse.compaction.adaptive_disk_busy_threshold", "0.8"));
+   private static final long PENDING_BYTES_THRESHOLD = Long.getLong("dse.compaction.adaptive_pending_mb", 1024L).longValue() * 1024L * 1024L;
+   private static final double INCREASE_FACTOR = 1.25D;
+   private static final double DECREASE_FACTOR = 0.7D;
+   private static final double VIEW_BUILD_MAX_KEYS_PER_SEC = Double.parseDouble(System.getProperty("dse.compaction.adaptive_view_build_max_keys_per_second", "10000"));
+   private static final File DISKSTATS = new File("/proc/diskstats");
+   public static final CompactionThroughputController instance = new CompactionThroughputController();
+   private final RateLimiter validationLimiter = RateLimiter.create(1.7976931348623157E308D);
+   private final RateLimiter viewBuildLimiter = RateLimiter.create(1.7976931348623157E308D);
+   private final Map<String, Long> lastIoTicks = new HashMap();
+   private final AtomicLong compactionBytes = new AtomicLong();
+   private long lastSampleMillis;
+   private long lastSectorsRead;
+   private long lastCompactionBytes;
+   private volatile int configuredMbPerSec = -1;
+   private boolean overridden;
+   private volatile double rate;
+   private volatile CompactionThroughputController.Sample lastSample;
+
+   private CompactionThroughputController() {
+   }
+
+   public void start() {
+      if(ENABLED && INTERVAL_SECONDS > 0L) {
+         this.configuredMbPerSec = DatabaseDescriptor.getCompactionThroughputMbPerSec();
+         this.rate = this.maxRate();
+         this.apply(this.rate);
+         this.sampleDiskBusy();
+         ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(this, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+         logger.info("Adaptive compaction throughput enabled between {} and {} MB/s, adjusted every {} seconds", new Object[]{Double.valueOf(this.minRate()), Double.valueOf(this.maxRate()), Long.valueOf(INTERVAL_SECONDS)});
+      }
+   }
+
+   public double currentRate() {
+      return ENABLED?this.rate:(double)DatabaseDescriptor.getCompactionThroughputMbPerSec();
+   }
+
+   public RateLimiter validationLimiter() {
+      return this.validationLimiter;
+   }
+
+   public RateLimiter viewBuildLimiter() {
+      return this.viewBuildLimiter;
+   }
+
+   public void recordCompactionBytes(long bytes) {
+      this.compactionBytes.addAndGet(bytes);
+   }
+
+   public void checkConfiguredRate() {
+      int configured = DatabaseDescriptor.getCompactionThroughputMbPerSec();
+      if(this.configuredMbPerSec >= 0 && configured != this.configuredMbPerSec) {
+         synchronized(this) {
+            if(configured != this.configuredMbPerSec) {
+               this.configuredMbPerSec = configured;
+               this.overridden = true;
+               this.rate = this.maxRate();
+               this.apply(this.rate);
+               logger.info("Compaction throughput set to {} MB/s, adaptive throughput now adjusts between {} and {} MB/s", new Object[]{Integer.valueOf(configured), Double.valueOf(this.minRate()), Double.valueOf(this.maxRate())});
+            }
+         }
+      }
+
+   }
+
+   private double maxRate() {
+      double configured = MAX_MB_PER_SEC > 0.0D && !this.overridden?MAX_MB_PER_SEC:(double)this.configuredMbPerSec;
+      return configured > 0.0D?configured:1024.0D;
+   }
+
+   private double minRate() {
+      return Math.min(MIN_MB_PER_SEC, this.maxRate());
+   }
+
+   public void run() {
+      try {
+         this.checkConfiguredRate();
+         this.adjust();
+      } catch (Throwable var2) {
+         logger.warn("Failed to adjust compaction throughput", var2);
+      }
+
+   }
+
+   private synchronized void adjust() {
+      CompactionThroughputController.Sample sample = new CompactionThroughputController.Sample(readP99Millis(), tpcPendingTasks(), this.sampleDiskBusy(), pendingCompactionBytes());
+      double previous = this.rate;
+      double max = this.maxRate();
+      double min = this.minRate();
+      String reason;
+      double next;
+      if(sample.readP99Millis > READ_P99_TARGET_MILLIS) {
+         reason = "read latency";
+         next = previous * 0.7D;
+      } else if(sample.tpcPending > TPC_PENDING_THRESHOLD) {
+         reason = "TPC backlog";
+         next = previous * 0.7D;
+      } else if(sample.diskBusy > DISK_BUSY_THRESHOLD) {
+         reason = "disk utilisation";
+         next = previous * 0.7D;
+      } else {
+         reason = sample.pendingBytes > PENDING_BYTES_THRESHOLD?"compaction backlog":"no foreground pressure";
+         next = previous * 1.25D;
+      }
+
+      next = Math.max(min, Math.min(max, next));
+      this.lastSample = sample;
+      if(next != previous) {
+         this.rate = next;
+         this.apply(next);
+         CompactionManager.instance.getMetrics().throughputAdjustments.inc();
+         logger.debug("Compaction throughput adjusted from {} to {} MB/s because of {} ({})", new Object[]{String.format("%.1f", new Object[]{Double.valueOf(previous)}), String.format("%.1f", new Object[]{Double.valueOf(next)}), reason, sample});
+         this.logAdjustment(previous, next, reason, sample);
+      }
+
+   }
+
+   private void apply(double mbPerSec) {
+      CompactionManager.instance.setRate(mbPerSec);
+      this.validationLimiter.setRate(mbPerSec * 1024.0D * 1024.0D);
+      this.viewBuildLimiter.setRate(Math.max(1.0D, VIEW_BUILD_MAX_KEYS_PER_SEC * mbPerSec / this.maxRate()));
+   }
+
+   private void logAdjustment(double previous, double next, String reason, CompactionThroughputController.Sample sample) {
+      Iterator var7 = Keyspace.nonSystem().iterator();
+
+      while(var7.hasNext()) {
+         Keyspace keyspace = (Keyspace)var7.next();
+         Iterator var9 = keyspace.getColumnFamilyStores().iterator();
+
+         while(var9.hasNext()) {
+            ColumnFamilyStore cfs = (ColumnFamilyStore)var9.next();
+            cfs.getCompactionStrategyManager().compactionLogger.throughput(previous, next, reason, sample.readP99Millis, sample.tpcPending, sample.diskBusy, sample.pendingBytes);
+         }
+      }
+
+   }
+
+   private static double readP99Millis() {
+      double max = 0.0D;
+      Iterator var2 = Keyspace.nonSystem().iterator();
+
+      while(var2.hasNext()) {
+         Keyspace keyspace = (Keyspace)var2.next();
+
+         ColumnFamilyStore cfs;
+         for(Iterator var4 = keyspace.getColumnFamilyStores().iterator(); var4.hasNext(); max = Math.max(max, cfs.metric.readLatency.latency.getSnapshot().get99thPercentile())) {
+            cfs = (ColumnFamilyStore)var4.next();
+         }
+      }
+
+      return max / 1000000.0D;
+   }
+
+   private static long tpcPendingTasks() {
+      TPCTaskType[] types = TPCTaskType.values();
+      long pending = 0L;
+
+      for(int i = 0; i < TPC.getNumCores(); ++i) {
+         for(int j = 0; j < types.length; ++j) {
+            if(types[j].includedInTotals()) {
+               pending += TPC.perCoreMetrics[i].pendingTaskCount(types[j]);
+            }
+         }
+      }
+
+      return pending;
+   }
+
+   private static long pendingCompactionBytes() {
+      long bytes = 0L;
+      Iterator var2 = Keyspace.nonSystem().iterator();
+
+      while(var2.hasNext()) {
+         Keyspace keyspace = (Keyspace)var2.next();
+         Iterator var4 = keyspace.getColumnFamilyStores().iterator();
+
+         while(var4.hasNext()) {
+            ColumnFamilyStore cfs = (ColumnFamilyStore)var4.next();
+            int pendingTasks = cfs.getCompactionStrategyManager().getEstimatedRemainingTasks();
+            if(pendingTasks > 0) {
+               Iterable<SSTableReader> sstables = cfs.getSSTables(SSTableSet.LIVE);
+               int count = 0;
+
+               for(Iterator var9 = sstables.iterator(); var9.hasNext(); ++count) {
+                  var9.next();
+               }
+
+               long averageSize = SSTableReader.getTotalBytes(sstables) / (long)Math.max(1, count);
+               bytes += (long)pendingTasks * averageSize * (long)cfs.getMinimumCompactionThreshold();
+            }
+         }
+      }
+
+      return bytes;
+   }
+
+   private double sampleDiskBusy() {
+      if(!DISKSTATS.exists()) {
+         return 0.0D;
+      } else {
+         List lines;
+         try {
+            lines = Files.readAllLines(DISKSTATS.toPath());
+         } catch (IOException var13) {
+            logger.trace("Could not read {}", DISKSTATS, var13);
+            return 0.0D;
+         }
+
+         long now = System.currentTimeMillis();
+         long elapsed = now - this.lastSampleMillis;
+         double busy = 0.0D;
+         long sectorsRead = 0L;
+         Iterator var7 = lines.iterator();
+
+         while(var7.hasNext()) {
+            String line = (String)var7.next();
+            String[] fields = line.trim().split("\\s+");
+            if(fields.length >= 13 && !fields[2].startsWith("loop") && !fields[2].startsWith("ram")) {
+               try {
+                  long ioTicks = Long.parseLong(fields[12]);
+                  Long previous = (Long)this.lastIoTicks.put(fields[2], Long.valueOf(ioTicks));
+                  if(previous != null && this.lastSampleMillis > 0L && elapsed > 0L) {
+                     busy = Math.max(busy, (double)(ioTicks - previous.longValue()) / (double)elapsed);
+                  }
+
+                  if((new File("/sys/block", fields[2])).exists()) {
+                     sectorsRead += Long.parseLong(fields[5]);
+                  }
+               } catch (NumberFormatException var12) {
+                  ;
+               }
+            }
+         }
+
+         long compacted = this.compactionBytes.get();
+         long deviceBytes = (sectorsRead - this.lastSectorsRead) * 512L;
+         if(this.lastSectorsRead > 0L && deviceBytes > 0L) {
+            busy *= Math.max(0.0D, 1.0D - (double)(compacted - this.lastCompactionBytes) / (double)deviceBytes);
+         }
+
+         this.lastSampleMillis = now;
+         this.lastSectorsRead = sectorsRead;
+         this.lastCompactionBytes = compacted;
+         return Math.min(1.0D, busy);
+      }
+   }
+
+   public String toString() {
+      return String.format("%.1f MB/s (last sample: %s)", new Object[]{Double.valueOf(this.currentRate()), this.lastSample});
+   }
+
+   private static final class Sample {
+      final double readP99Millis;
+      final long tpcPending;
+      final double diskBusy;
+      final long pendingBytes;
+
+      private Sample(double readP99Millis, long tpcPending, double diskBusy, long pendingBytes) {
+         this.readP99Millis = readP99Millis;
+         this.tpcPending = tpcPending;
+         this.diskBusy = diskBusy;
+         this.pendingBytes = pendingBytes;
+      }
+
+      public String toString() {
+         return String.format("read p99: %.2f ms, TPC pending: %d, disk busy: %.0f%%, pending compaction: %d MB", new Object[]{Double.valueOf(this.readP99Millis), Long.valueOf(this.tpcPending), Double.valueOf(this.diskBusy * 100.0D), Long.valueOf(this.pendingBytes / 1048576L)});
+      }
+   }
+}
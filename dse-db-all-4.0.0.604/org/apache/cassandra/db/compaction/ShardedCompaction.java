@@ -0,0 +1,353 @@
+package org.apache.cassandra.db.compaction;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Throwables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+final class ShardedCompaction extends CompactionInfo.Holder {
+   private static final Logger logger = LoggerFactory.getLogger(ShardedCompaction.class);
+   static final int MAX_SHARDS = Integer.getInteger("dse.compaction.shards", 1).intValue();
+   private static final long MIN_SHARD_BYTES = Long.getLong("dse.compaction.min_shard_size_mb", 1024L).longValue() * 1024L * 1024L;
+   private static final int SHARD_THREADS = Integer.getInteger("dse.compaction.shard_threads", FBUtilities.getAvailableProcessors()).intValue();
+   private static final DebuggableThreadPoolExecutor executor;
+   private final CompactionTask task;
+   private final ColumnFamilyStore cfs;
+   private final LifecycleTransaction transaction;
+   private final OperationType type;
+   private final UUID taskId;
+   private final long totalBytes;
+   private final List<ShardedCompaction.Shard> shards;
+
+   private ShardedCompaction(CompactionTask task, Set<SSTableReader> actuallyCompact, List<Range<Token>> ranges, int nowInSec) {
+      this.task = task;
+      this.cfs = task.cfs;
+      this.transaction = task.transaction;
+      this.type = task.compactionType;
+      this.taskId = this.transaction.opId();
+      long bytes = 0L;
+
+      SSTableReader sstable;
+      for(Iterator var6 = actuallyCompact.iterator(); var6.hasNext(); bytes += sstable.uncompressedLength()) {
+         sstable = (SSTableReader)var6.next();
+      }
+
+      this.totalBytes = bytes;
+      this.shards = new ArrayList(ranges.size());
+
+      try {
+         Iterator var11 = ranges.iterator();
+
+         while(var11.hasNext()) {
+            Range<Token> range = (Range)var11.next();
+            this.shards.add(new ShardedCompaction.Shard(range, actuallyCompact, nowInSec));
+         }
+
+      } catch (Throwable var10) {
+         Throwables.maybeFail(this.close(var10));
+         throw var10;
+      }
+   }
+
+   static ShardedCompaction maybeCreate(CompactionTask task, Set<SSTableReader> actuallyCompact, int nowInSec) {
+      if(MAX_SHARDS > 1 && task.compactionType == OperationType.COMPACTION && !task.transaction.isOffline() && !actuallyCompact.isEmpty()) {
+         IPartitioner partitioner = task.cfs.getPartitioner();
+         if(!partitioner.splitter().isPresent()) {
+            return null;
+         } else {
+            long inputBytes = SSTableReader.getTotalBytes(actuallyCompact);
+            int count = (int)Math.min((long)MAX_SHARDS, inputBytes / Math.max(1L, MIN_SHARD_BYTES));
+            if(count <= 1) {
+               return null;
+            } else {
+               List<Range<Token>> ranges = shardRanges(partitioner, actuallyCompact, count);
+               return ranges.size() <= 1?null:new ShardedCompaction(task, actuallyCompact, ranges, nowInSec);
+            }
+         }
+      } else {
+         return null;
+      }
+   }
+
+   private static List<Range<Token>> shardRanges(IPartitioner partitioner, Set<SSTableReader> sstables, int count) {
+      Token min = null;
+      Token max = null;
+      Iterator var5 = sstables.iterator();
+
+      while(var5.hasNext()) {
+         SSTableReader sstable = (SSTableReader)var5.next();
+         Token first = sstable.first.getToken();
+         Token last = sstable.last.getToken();
+         min = min == null || first.compareTo(min) < 0?first:min;
+         max = max == null || last.compareTo(max) > 0?last:max;
+      }
+
+      List<Range<Token>> ranges = new ArrayList(count);
+      if(min.compareTo(max) >= 0) {
+         return ranges;
+      } else {
+         Token left = partitioner.getMinimumToken();
+
+         for(int i = 1; i < count; ++i) {
+            Token right = partitioner.split(min, max, (double)i / (double)count);
+            if(right.compareTo(left) > 0 && right.compareTo(max) < 0) {
+               ranges.add(new Range(left, right));
+               left = right;
+            }
+         }
+
+         ranges.add(new Range(left, partitioner.getMaximumToken()));
+         return ranges;
+      }
+   }
+
+   int size() {
+      return this.shards.size();
+   }
+
+   Collection<SSTableReader> run() throws Exception {
+      List<Future<Void>> futures = new ArrayList(this.shards.size() - 1);
+      Throwable accumulate = null;
+
+      try {
+         for(int i = 1; i < this.shards.size(); ++i) {
+            futures.add(executor.submit((Callable)this.shards.get(i)));
+         }
+
+         ((ShardedCompaction.Shard)this.shards.get(0)).call();
+      } catch (Throwable var8) {
+         accumulate = var8;
+         this.stop();
+      }
+
+      Iterator var3 = futures.iterator();
+
+      while(var3.hasNext()) {
+         Future future = (Future)var3.next();
+
+         try {
+            future.get();
+         } catch (ExecutionException var6) {
+            accumulate = Throwables.merge(accumulate, var6.getCause());
+            this.stop();
+         } catch (Throwable var7) {
+            accumulate = Throwables.merge(accumulate, var7);
+            this.stop();
+         }
+      }
+
+      if(accumulate != null) {
+         accumulate = this.abort(accumulate);
+         Throwables.maybeFail(accumulate);
+      }
+
+      return this.commit();
+   }
+
+   private Collection<SSTableReader> commit() {
+      List<SSTableReader> newSSTables = new ArrayList();
+      Throwable accumulate = null;
+
+      try {
+         Iterator var3 = this.shards.iterator();
+
+         while(var3.hasNext()) {
+            ShardedCompaction.Shard shard = (ShardedCompaction.Shard)var3.next();
+            newSSTables.addAll(shard.writer.finished());
+         }
+
+         this.transaction.update(newSSTables, false);
+         this.transaction.checkpoint();
+         if(!this.task.keepOriginals) {
+            this.transaction.obsoleteOriginals();
+         }
+
+         this.transaction.prepareToCommit();
+      } catch (Throwable var5) {
+         Throwables.maybeFail(this.abort(var5));
+      }
+
+      ShardedCompaction.Shard shard;
+      for(Iterator var6 = this.shards.iterator(); var6.hasNext(); accumulate = shard.writer.commit(accumulate)) {
+         shard = (ShardedCompaction.Shard)var6.next();
+      }
+
+      Throwables.maybeFail(this.transaction.commit(accumulate));
+      return newSSTables;
+   }
+
+   private Throwable abort(Throwable accumulate) {
+      ShardedCompaction.Shard shard;
+      for(Iterator var2 = this.shards.iterator(); var2.hasNext(); accumulate = shard.writer == null?accumulate:shard.writer.abort(accumulate)) {
+         shard = (ShardedCompaction.Shard)var2.next();
+      }
+
+      return this.transaction.abort(accumulate);
+   }
+
+   Throwable close(Throwable accumulate) {
+      ShardedCompaction.Shard shard;
+      for(Iterator var2 = this.shards.iterator(); var2.hasNext(); accumulate = shard.close(accumulate)) {
+         shard = (ShardedCompaction.Shard)var2.next();
+      }
+
+      return accumulate;
+   }
+
+   long keysWritten() {
+      long keys = 0L;
+
+      ShardedCompaction.Shard shard;
+      for(Iterator var3 = this.shards.iterator(); var3.hasNext(); keys += shard.keysWritten) {
+         shard = (ShardedCompaction.Shard)var3.next();
+      }
+
+      return keys;
+   }
+
+   long estimatedKeys() {
+      return SSTableReader.getApproximateKeyCount(this.transaction.originals());
+   }
+
+   long[] mergedRowCounts() {
+      long[] counts = new long[0];
+      Iterator var2 = this.shards.iterator();
+
+      while(var2.hasNext()) {
+         ShardedCompaction.Shard shard = (ShardedCompaction.Shard)var2.next();
+         long[] shardCounts = shard.iterator.getMergedRowCounts();
+         if(shardCounts.length > counts.length) {
+            long[] resized = new long[shardCounts.length];
+            System.arraycopy(counts, 0, resized, 0, counts.length);
+            counts = resized;
+         }
+
+         for(int i = 0; i < shardCounts.length; ++i) {
+            counts[i] += shardCounts[i];
+         }
+      }
+
+      return counts;
+   }
+
+   long totalSourceCQLRows() {
+      long rows = 0L;
+
+      ShardedCompaction.Shard shard;
+      for(Iterator var3 = this.shards.iterator(); var3.hasNext(); rows += shard.iterator.getTotalSourceCQLRows()) {
+         shard = (ShardedCompaction.Shard)var3.next();
+      }
+
+      return rows;
+   }
+
+   public CompactionInfo getCompactionInfo() {
+      long completed = 0L;
+
+      ShardedCompaction.Shard shard;
+      for(Iterator var3 = this.shards.iterator(); var3.hasNext(); completed += shard.iterator.getCompactionInfo().getCompleted()) {
+         shard = (ShardedCompaction.Shard)var3.next();
+      }
+
+      return new CompactionInfo(this.cfs.metadata(), this.type, Math.min(completed, this.totalBytes), this.totalBytes, this.taskId);
+   }
+
+   protected boolean maybeStop(com.google.common.base.Predicate<SSTableReader> predicate) {
+      boolean stop = false;
+      Iterator var3 = this.shards.iterator();
+
+      while(var3.hasNext()) {
+         ShardedCompaction.Shard shard = (ShardedCompaction.Shard)var3.next();
+         shard.iterator.stop(predicate);
+         stop |= shard.iterator.isStopRequested();
+      }
+
+      return stop;
+   }
+
+   public String toString() {
+      return String.format("Sharded compaction %s of %s.%s (%d shards)", new Object[]{this.taskId, this.cfs.keyspace.getName(), this.cfs.name, Integer.valueOf(this.shards.size())});
+   }
+
+   static {
+      executor = MAX_SHARDS > 1?DebuggableThreadPoolExecutor.createWithMaximumPoolSize("CompactionShardExecutor", Math.max(1, SHARD_THREADS), 60, TimeUnit.SECONDS):null;
+   }
+
+   private final class Shard implements Callable<Void> {
+      private final Range<Token> range;
+      private final Set<SSTableReader> actuallyCompact;
+      private final CompactionController controller;
+      private final AbstractCompactionStrategy.ScannerList scanners;
+      private final CompactionIterator iterator;
+      private CompactionAwareWriter writer;
+      private long keysWritten;
+
+      private Shard(Range<Token> range, Set<SSTableReader> actuallyCompact, int nowInSec) {
+         this.range = range;
+         this.actuallyCompact = actuallyCompact;
+         this.controller = ShardedCompaction.this.task.getCompactionController(ShardedCompaction.this.transaction.originals());
+         this.scanners = ShardedCompaction.this.cfs.getCompactionStrategyManager().getScanners(actuallyCompact, Collections.singleton(range));
+         this.iterator = new CompactionIterator(ShardedCompaction.this.type, this.scanners.scanners, this.controller, nowInSec, ShardedCompaction.this.taskId);
+      }
+
+      public Void call() {
+         RateLimiter limiter = CompactionManager.instance.getRateLimiter();
+         double compressionRatio = this.scanners.getCompressionRatio();
+         if(compressionRatio == -1.0D) {
+            compressionRatio = 1.0D;
+         }
+
+         long lastBytesScanned = 0L;
+         long lastCheckObsoletion = System.nanoTime();
+         long keys = 0L;
+         this.writer = ShardedCompaction.this.task.getCompactionAwareWriter(ShardedCompaction.this.cfs, ShardedCompaction.this.task.getDirectories(), ShardedCompaction.this.transaction, this.actuallyCompact).sharedTransaction();
+
+         while(this.iterator.hasNext()) {
+            if(ShardedCompaction.this.isStopRequested() || this.iterator.isStopRequested()) {
+               throw new CompactionInterruptedException(ShardedCompaction.this.getCompactionInfo());
+            }
+
+            if(this.writer.append(this.iterator.next())) {
+               ++keys;
+            }
+
+            long bytesScanned = this.scanners.getTotalBytesScanned();
+            CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+            lastBytesScanned = bytesScanned;
+            if(System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L)) {
+               this.controller.maybeRefreshOverlaps();
+               lastCheckObsoletion = System.nanoTime();
+            }
+         }
+
+         this.keysWritten = keys;
+         this.writer.prepareToCommit();
+         logger.trace("Shard {} of {} wrote {} partitions", new Object[]{this.range, ShardedCompaction.this, Long.valueOf(keys)});
+         return null;
+      }
+
+      private Throwable close(Throwable accumulate) {
+         return Throwables.closeNonNull(accumulate, new AutoCloseable[]{this.writer, this.iterator, this.scanners, this.controller});
+      }
+   }
+}
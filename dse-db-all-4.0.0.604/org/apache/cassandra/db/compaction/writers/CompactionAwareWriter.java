@@ -76,6 +76,15 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
       return this.sstableWriter.finished();
    }
 
+   public Collection<SSTableReader> finished() {
+      return this.sstableWriter.finished();
+   }
+
+   public CompactionAwareWriter sharedTransaction() {
+      this.sstableWriter.sharedTransaction();
+      return this;
+   }
+
    public long estimatedKeys() {
       return this.estimatedTotalKeys;
    }
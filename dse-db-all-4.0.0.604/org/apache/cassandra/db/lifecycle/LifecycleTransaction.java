@@ -354,11 +354,11 @@ public class LifecycleTransaction extends Transactional.AbstractTransactional {
       return (SSTableReader)Iterables.getFirst(this.originals, (Object)null);
    }
 
-   public void trackNew(SSTable table) {
+   public synchronized void trackNew(SSTable table) {
       this.log.trackNew(table);
    }
 
-   public void untrackNew(SSTable table) {
+   public synchronized void untrackNew(SSTable table) {
       this.log.untrackNew(table);
    }
 
@@ -20,6 +20,7 @@ import org.apache.cassandra.db.SinglePartitionReadCommand;
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.db.compaction.CompactionInfo;
 import org.apache.cassandra.db.compaction.CompactionInterruptedException;
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
 import org.apache.cassandra.db.compaction.OperationType;
 import org.apache.cassandra.db.lifecycle.SSTableSet;
 import org.apache.cassandra.db.partitions.UnfilteredPartitionIterators;
@@ -111,6 +112,9 @@ public class ViewBuilderTask extends CompactionInfo.Holder implements Callable<L
             DecoratedKey key = (DecoratedKey)iter.next();
             Token token = key.getToken();
             if (!this.range.contains(token) || this.prevToken != null && token.compareTo(this.prevToken) <= 0) continue;
+            if (CompactionThroughputController.ENABLED) {
+               CompactionThroughputController.instance.viewBuildLimiter().acquire();
+            }
             this.buildKey(key);
             ++this.keysBuilt;
             while (iter.hasNext() && ((DecoratedKey)iter.peek()).getToken().equals(token)) {
@@ -0,0 +1,106 @@
+package org.apache.cassandra.hints;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import org.apache.cassandra.concurrent.SchedulableMessage;
+import org.apache.cassandra.concurrent.StagedScheduler;
+import org.apache.cassandra.concurrent.TPC;
+import org.apache.cassandra.concurrent.TPCTaskType;
+import org.apache.cassandra.concurrent.TracingAwareExecutor;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.utils.Serializer;
+import org.apache.cassandra.utils.UUIDSerializer;
+import org.apache.cassandra.utils.versioning.VersionDependent;
+import org.apache.cassandra.utils.versioning.Versioned;
+
+public class HintBatchMessage implements SchedulableMessage {
+   public static final Versioned<HintsVerbs.HintsVersion, Serializer<HintBatchMessage>> serializers = HintsVerbs.HintsVersion.versioned((x$0) -> {
+      return new HintBatchMessage.HintBatchSerializer(x$0);
+   });
+   final UUID hostId;
+   final List<HintMessage> hints;
+   final transient StagedScheduler scheduler;
+   final transient TracingAwareExecutor requestExecutor;
+   final transient TracingAwareExecutor responseExecutor;
+
+   HintBatchMessage(UUID hostId, List<HintMessage> hints) {
+      this.hostId = hostId;
+      this.hints = hints;
+      this.scheduler = TPC.bestTPCScheduler();
+      this.requestExecutor = this.scheduler.forTaskType(TPCTaskType.HINT_DISPATCH);
+      this.responseExecutor = this.scheduler.forTaskType(TPCTaskType.HINT_RESPONSE);
+   }
+
+   public StagedScheduler getScheduler() {
+      return this.scheduler;
+   }
+
+   public TracingAwareExecutor getRequestExecutor() {
+      return this.requestExecutor;
+   }
+
+   public TracingAwareExecutor getResponseExecutor() {
+      return this.responseExecutor;
+   }
+
+   long getOldestHintCreationTime() {
+      long oldest = 9223372036854775807L;
+
+      HintMessage hint;
+      for(Iterator var3 = this.hints.iterator(); var3.hasNext(); oldest = Math.min(oldest, hint.getHintCreationTime())) {
+         hint = (HintMessage)var3.next();
+      }
+
+      return oldest;
+   }
+
+   public String toString() {
+      return String.format("HintBatchMessage(%s, %d hints)", new Object[]{this.hostId, Integer.valueOf(this.hints.size())});
+   }
+
+   private static class HintBatchSerializer extends VersionDependent<HintsVerbs.HintsVersion> implements Serializer<HintBatchMessage> {
+      private HintBatchSerializer(HintsVerbs.HintsVersion version) {
+         super(version);
+      }
+
+      public long serializedSize(HintBatchMessage message) {
+         long size = UUIDSerializer.serializer.serializedSize(message.hostId) + (long)TypeSizes.sizeofUnsignedVInt((long)message.hints.size());
+
+         HintMessage hint;
+         for(Iterator var4 = message.hints.iterator(); var4.hasNext(); size += hint.serializedSize((HintsVerbs.HintsVersion)this.version)) {
+            hint = (HintMessage)var4.next();
+         }
+
+         return size;
+      }
+
+      public void serialize(HintBatchMessage message, DataOutputPlus out) throws IOException {
+         UUIDSerializer.serializer.serialize(message.hostId, out);
+         out.writeUnsignedVInt((long)message.hints.size());
+         Iterator var3 = message.hints.iterator();
+
+         while(var3.hasNext()) {
+            HintMessage hint = (HintMessage)var3.next();
+            hint.serialize(out, (HintsVerbs.HintsVersion)this.version);
+         }
+
+      }
+
+      public HintBatchMessage deserialize(DataInputPlus in) throws IOException {
+         UUID hostId = UUIDSerializer.serializer.deserialize(in);
+         int count = (int)in.readUnsignedVInt();
+         List<HintMessage> hints = new ArrayList(count);
+
+         for(int i = 0; i < count; ++i) {
+            hints.add(HintMessage.deserialize(hostId, in, (HintsVerbs.HintsVersion)this.version));
+         }
+
+         return new HintBatchMessage(hostId, hints);
+      }
+   }
+}
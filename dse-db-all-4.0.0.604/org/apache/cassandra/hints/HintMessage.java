@@ -47,6 +47,10 @@ public abstract class HintMessage implements SchedulableMessage {
       return new HintMessage.Encoded(hostId, hint, version);
    }
 
+   static HintMessage deserialize(UUID hostId, DataInputPlus in, HintsVerbs.HintsVersion version) throws IOException {
+      return HintMessage.Simple.deserialize(hostId, in, version);
+   }
+
    public StagedScheduler getScheduler() {
       return this.scheduler;
    }
@@ -83,7 +87,7 @@ public abstract class HintMessage implements SchedulableMessage {
 
       public HintMessage deserialize(DataInputPlus in) throws IOException {
          UUID hostId = UUIDSerializer.serializer.deserialize(in);
-         return HintMessage.Simple.deserialize(hostId, in, (HintsVerbs.HintsVersion)this.version);
+         return HintMessage.deserialize(hostId, in, (HintsVerbs.HintsVersion)this.version);
       }
    }
 
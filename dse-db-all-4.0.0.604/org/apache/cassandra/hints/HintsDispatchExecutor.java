@@ -163,7 +163,7 @@ final class HintsDispatchExecutor {
             return false;
          } else {
             HintsVerbs.HintsVersion version = (HintsVerbs.HintsVersion)((MessagingVersion)optVersion.get()).groupVersion(Verbs.Group.HINTS);
-            HintsDispatcher dispatcher = HintsDispatcher.create(file, this.rateLimiter, address, version, descriptor.hostId, shouldAbort);
+            HintsDispatcher dispatcher = HintsDispatcher.create(file, this.rateLimiter, address, version, ((MessagingVersion)optVersion.get()).compareTo(MessagingVersion.DSE_604) >= 0, descriptor.hostId, shouldAbort);
             Throwable var9 = null;
 
             boolean var10;
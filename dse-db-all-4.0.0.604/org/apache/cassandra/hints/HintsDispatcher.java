@@ -4,9 +4,11 @@ import com.google.common.util.concurrent.RateLimiter;
 import java.io.File;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BooleanSupplier;
@@ -27,23 +29,27 @@ import org.slf4j.LoggerFactory;
 
 final class HintsDispatcher implements AutoCloseable {
    private static final Logger logger = LoggerFactory.getLogger(HintsDispatcher.class);
+   private static final int WINDOW = Integer.getInteger("dse.hints.dispatch_window", 0).intValue();
+   private static final int BATCH_SIZE_BYTES = Integer.getInteger("dse.hints.dispatch_batch_size_kb", 0).intValue() * 1024;
    private final HintsReader reader;
    private final UUID hostId;
    private final InetAddress address;
    private final HintsVerbs.HintsVersion version;
    private final BooleanSupplier abortRequested;
+   private final boolean supportsBatches;
    private InputPosition currentPagePosition = null;
 
-   private HintsDispatcher(HintsReader reader, UUID hostId, InetAddress address, HintsVerbs.HintsVersion version, BooleanSupplier abortRequested) {
+   private HintsDispatcher(HintsReader reader, UUID hostId, InetAddress address, HintsVerbs.HintsVersion version, boolean supportsBatches, BooleanSupplier abortRequested) {
       this.reader = reader;
       this.hostId = hostId;
       this.address = address;
       this.version = version;
+      this.supportsBatches = supportsBatches;
       this.abortRequested = abortRequested;
    }
 
-   static HintsDispatcher create(File file, RateLimiter rateLimiter, InetAddress address, HintsVerbs.HintsVersion version, UUID hostId, BooleanSupplier abortRequested) {
-      return new HintsDispatcher(HintsReader.open(file, rateLimiter), hostId, address, version, abortRequested);
+   static HintsDispatcher create(File file, RateLimiter rateLimiter, InetAddress address, HintsVerbs.HintsVersion version, boolean supportsBatches, UUID hostId, BooleanSupplier abortRequested) {
+      return new HintsDispatcher(HintsReader.open(file, rateLimiter), hostId, address, version, supportsBatches, abortRequested);
    }
 
    public void close() {
@@ -55,6 +61,14 @@ final class HintsDispatcher implements AutoCloseable {
    }
 
    boolean dispatch() {
+      if(WINDOW > 0) {
+         return this.dispatchPipelined();
+      } else {
+         return this.dispatchPages();
+      }
+   }
+
+   private boolean dispatchPages() {
       Iterator var1 = this.reader.iterator();
 
       HintsReader.Page page;
@@ -70,6 +84,95 @@ final class HintsDispatcher implements AutoCloseable {
       return false;
    }
 
+   private boolean dispatchPipelined() {
+      ArrayDeque<HintsDispatcher.Callback> window = new ArrayDeque(WINDOW);
+      boolean encoded = this.sendsEncoded();
+      boolean aborted = false;
+      InputPosition failedPosition = null;
+      Iterator pages = this.reader.iterator();
+
+      label:
+      while(pages.hasNext()) {
+         HintsReader.Page page = (HintsReader.Page)pages.next();
+         this.currentPagePosition = page.position;
+         Iterator<?> hints = encoded?page.buffersIterator():page.hintsIterator();
+
+         while(hints.hasNext()) {
+            if(this.abortRequested.getAsBoolean()) {
+               aborted = true;
+               break label;
+            }
+
+            while(window.size() >= WINDOW) {
+               failedPosition = this.awaitOldest(window);
+               if(failedPosition != null) {
+                  break label;
+               }
+            }
+
+            window.add(this.sendNext(hints, page.position, encoded));
+         }
+      }
+
+      while(!window.isEmpty()) {
+         InputPosition position = this.awaitOldest(window);
+         if(failedPosition == null) {
+            failedPosition = position;
+         }
+      }
+
+      if(failedPosition != null) {
+         this.currentPagePosition = failedPosition;
+         return false;
+      } else {
+         return !aborted;
+      }
+   }
+
+   private InputPosition awaitOldest(ArrayDeque<HintsDispatcher.Callback> window) {
+      HintsDispatcher.Callback callback = (HintsDispatcher.Callback)window.poll();
+      HintsDispatcher.Callback.Outcome outcome = callback.await();
+      HintsServiceMetrics.updateInFlight(-1);
+      this.updateMetrics(outcome, callback.hints);
+      return outcome == HintsDispatcher.Callback.Outcome.SUCCESS?null:callback.position;
+   }
+
+   private HintsDispatcher.Callback sendNext(Iterator<?> hints, InputPosition position, boolean encoded) {
+      HintsDispatcher.Callback callback;
+      long bytes;
+      if(BATCH_SIZE_BYTES > 0 && this.supportsBatches) {
+         List<HintMessage> batch = new ArrayList();
+         bytes = 0L;
+
+         do {
+            HintMessage hint = this.message(hints.next(), encoded);
+            batch.add(hint);
+            bytes += hint.serializedSize(this.version);
+         } while(bytes < (long)BATCH_SIZE_BYTES && hints.hasNext());
+
+         HintBatchMessage message = new HintBatchMessage(this.hostId, batch);
+         callback = new HintsDispatcher.Callback(message.getOldestHintCreationTime(), batch.size(), position);
+         MessagingService.instance().send((Request)Verbs.HINTS.HINT_BATCH.newRequest(this.address, message), callback);
+      } else {
+         HintMessage message = this.message(hints.next(), encoded);
+         bytes = message.serializedSize(this.version);
+         callback = new HintsDispatcher.Callback(message.getHintCreationTime(), 1, position);
+         MessagingService.instance().send((Request)Verbs.HINTS.HINT.newRequest(this.address, message), callback);
+      }
+
+      HintsServiceMetrics.bytesDispatched.mark(bytes);
+      HintsServiceMetrics.updateInFlight(1);
+      return callback;
+   }
+
+   private HintMessage message(Object hint, boolean encoded) {
+      return encoded?HintMessage.createEncoded(this.hostId, (ByteBuffer)hint, this.version):HintMessage.create(this.hostId, (Hint)hint);
+   }
+
+   private boolean sendsEncoded() {
+      return this.reader.descriptor().version == this.version && !this.address.equals(FBUtilities.getBroadcastAddress());
+   }
+
    InputPosition dispatchPosition() {
       return this.currentPagePosition;
    }
@@ -80,7 +183,7 @@ final class HintsDispatcher implements AutoCloseable {
 
    private HintsDispatcher.Action sendHintsAndAwait(HintsReader.Page page) {
       Collection<HintsDispatcher.Callback> callbacks = new ArrayList();
-      HintsDispatcher.Action action = this.reader.descriptor().version == this.version && !this.address.equals(FBUtilities.getBroadcastAddress())?this.sendHints(page.buffersIterator(), callbacks, this::sendEncodedHint):this.sendHints(page.hintsIterator(), callbacks, this::sendHint);
+      HintsDispatcher.Action action = this.sendsEncoded()?this.sendHints(page.buffersIterator(), callbacks, this::sendEncodedHint):this.sendHints(page.hintsIterator(), callbacks, this::sendHint);
       if(action == HintsDispatcher.Action.ABORT) {
          return action;
       } else {
@@ -90,7 +193,7 @@ final class HintsDispatcher implements AutoCloseable {
          while(var5.hasNext()) {
             HintsDispatcher.Callback cb = (HintsDispatcher.Callback)var5.next();
             HintsDispatcher.Callback.Outcome outcome = cb.await();
-            this.updateMetrics(outcome);
+            this.updateMetrics(outcome, 1);
             if(outcome != HintsDispatcher.Callback.Outcome.SUCCESS) {
                hadFailures = true;
             }
@@ -100,18 +203,18 @@ final class HintsDispatcher implements AutoCloseable {
       }
    }
 
-   private void updateMetrics(Callback.Outcome outcome) {
+   private void updateMetrics(Callback.Outcome outcome, int hints) {
       switch (outcome) {
          case SUCCESS: {
-            HintsServiceMetrics.hintsSucceeded.mark();
+            HintsServiceMetrics.hintsSucceeded.mark((long)hints);
             break;
          }
          case FAILURE: {
-            HintsServiceMetrics.hintsFailed.mark();
+            HintsServiceMetrics.hintsFailed.mark((long)hints);
             break;
          }
          case TIMEOUT: {
-            HintsServiceMetrics.hintsTimedOut.mark();
+            HintsServiceMetrics.hintsTimedOut.mark((long)hints);
          }
       }
    }
@@ -129,15 +232,17 @@ final class HintsDispatcher implements AutoCloseable {
    }
 
    private HintsDispatcher.Callback sendHint(Hint hint) {
-      HintsDispatcher.Callback callback = new HintsDispatcher.Callback(hint.creationTime);
+      HintsDispatcher.Callback callback = new HintsDispatcher.Callback(hint.creationTime, 1, (InputPosition)null);
       HintMessage message = HintMessage.create(this.hostId, hint);
+      HintsServiceMetrics.bytesDispatched.mark(message.serializedSize(this.version));
       MessagingService.instance().send((Request)Verbs.HINTS.HINT.newRequest(this.address, message), callback);
       return callback;
    }
 
    private HintsDispatcher.Callback sendEncodedHint(ByteBuffer hint) {
       HintMessage message = HintMessage.createEncoded(this.hostId, hint, this.version);
-      HintsDispatcher.Callback callback = new HintsDispatcher.Callback(message.getHintCreationTime());
+      HintsDispatcher.Callback callback = new HintsDispatcher.Callback(message.getHintCreationTime(), 1, (InputPosition)null);
+      HintsServiceMetrics.bytesDispatched.mark(message.serializedSize(this.version));
       MessagingService.instance().send((Request)Verbs.HINTS.HINT.newRequest(this.address, message), callback);
       return callback;
    }
@@ -147,11 +252,15 @@ final class HintsDispatcher implements AutoCloseable {
       private final SimpleCondition condition;
       private volatile HintsDispatcher.Callback.Outcome outcome;
       private final long hintCreationTime;
+      private final int hints;
+      private final InputPosition position;
 
-      private Callback(long hintCreationTime) {
+      private Callback(long hintCreationTime, int hints, InputPosition position) {
          this.start = System.nanoTime();
          this.condition = new SimpleCondition();
          this.hintCreationTime = hintCreationTime;
+         this.hints = hints;
+         this.position = position;
       }
 
       HintsDispatcher.Callback.Outcome await() {
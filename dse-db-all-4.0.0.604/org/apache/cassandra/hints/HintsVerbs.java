@@ -1,6 +1,9 @@
 package org.apache.cassandra.hints;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -30,21 +33,40 @@ import org.slf4j.LoggerFactory;
 public class HintsVerbs extends VerbGroup<HintsVerbs.HintsVersion> {
    private static final Logger logger = LoggerFactory.getLogger(HintsVerbs.class);
    public final Verb.AckedRequest<HintMessage> HINT;
+   public final Verb.AckedRequest<HintBatchMessage> HINT_BATCH;
    private static final VerbHandlers.AckedRequest<HintMessage> HINT_HANDLER = (from, msg) -> {
+      return apply(msg);
+   };
+   private static final VerbHandlers.AckedRequest<HintBatchMessage> HINT_BATCH_HANDLER = (from, msg) -> {
+      List<CompletableFuture<?>> futures = new ArrayList(msg.hints.size());
+      Iterator var3 = msg.hints.iterator();
+
+      while(var3.hasNext()) {
+         HintMessage hint = (HintMessage)var3.next();
+         CompletableFuture<?> future = apply(hint);
+         if(future != null) {
+            futures.add(future);
+         }
+      }
+
+      return futures.isEmpty()?null:CompletableFuture.allOf((CompletableFuture[])futures.toArray(new CompletableFuture[0]));
+   };
+
+   private static CompletableFuture<?> apply(HintMessage msg) {
       UUID hostId = msg.hostId;
       InetAddress address = StorageService.instance.getEndpointForHostId(hostId);
 
       Hint hint;
       try {
          hint = msg.hint();
-      } catch (UnknownTableException var7) {
-         logger.trace("Failed to decode and apply a hint for {} ({}) - table with id {} is unknown", new Object[]{address, hostId, var7.id});
+      } catch (UnknownTableException var6) {
+         logger.trace("Failed to decode and apply a hint for {} ({}) - table with id {} is unknown", new Object[]{address, hostId, var6.id});
          return null;
       }
 
       try {
          hint.mutation.getPartitionUpdates().forEach(PartitionUpdate::validate);
-      } catch (MarshalException var6) {
+      } catch (MarshalException var5) {
          logger.warn("Failed to validate a hint for {} ({}) - skipped", address, hostId);
          return null;
       }
@@ -60,12 +82,13 @@ public class HintsVerbs extends VerbGroup<HintsVerbs.HintsVersion> {
       }, (cmd) -> {
          StageManager.getStage(Stage.BACKGROUND_IO).execute(cmd, ExecutorLocals.create());
       }):hint.applyFuture());
-   };
+   }
 
    public HintsVerbs(Verbs.Group id) {
       super(id, true, HintsVerbs.HintsVersion.class);
       VerbGroup<HintsVerbs.HintsVersion>.RegistrationHelper helper = this.helper().droppedGroup(DroppedMessages.Group.HINT);
       this.HINT = ((VerbGroup.RegistrationHelper.AckedRequestBuilder)((VerbGroup.RegistrationHelper.AckedRequestBuilder)helper.ackedRequest("HINT", HintMessage.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).withBackPressure()).handler(HINT_HANDLER);
+      this.HINT_BATCH = ((VerbGroup.RegistrationHelper.AckedRequestBuilder)((VerbGroup.RegistrationHelper.AckedRequestBuilder)helper.ackedRequest("HINT_BATCH", HintBatchMessage.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).withBackPressure()).handler(HINT_BATCH_HANDLER);
    }
 
    public static enum HintsVersion implements Version<HintsVerbs.HintsVersion> {
@@ -42,7 +42,7 @@ public class Component {
       return this.name;
    }
 
-   static Component parse(String name) {
+   public static Component parse(String name) {
       Type type = Type.fromRepresentation(name);
       switch (type) {
          case DATA: {
@@ -104,6 +104,10 @@ public abstract class SSTable {
       return this.descriptor.cfname;
    }
 
+   public Set<Component> getComponents() {
+      return Collections.unmodifiableSet(this.components);
+   }
+
    public String getKeyspaceName() {
       return this.descriptor.ksname;
    }
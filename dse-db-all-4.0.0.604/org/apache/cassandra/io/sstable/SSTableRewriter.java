@@ -25,7 +25,7 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
    @VisibleForTesting
    public static boolean disableEarlyOpeningForTests = false;
    private static boolean disableIncrementalKeyCacheMigration = Boolean.getBoolean("cassandra.disable_incremental_keycache_migration");
-   private final long preemptiveOpenInterval;
+   private long preemptiveOpenInterval;
    private final long maxAge;
    private long repairedAt;
    private final LifecycleTransaction transaction;
@@ -38,6 +38,7 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
    private Collection<DecoratedKey> cachedKeys;
    private boolean throwEarly;
    private boolean throwLate;
+   private boolean sharedTransaction;
 
    /** @deprecated */
    @Deprecated
@@ -86,6 +87,14 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
       return !disableEarlyOpeningForTests && shouldOpenEarly && interval > 0L?interval * 1048576L:9223372036854775807L;
    }
 
+   public SSTableRewriter sharedTransaction() {
+      assert this.writers.isEmpty() : "the transaction must be shared before any writer is added";
+
+      this.preemptiveOpenInterval = 9223372036854775807L;
+      this.sharedTransaction = true;
+      return this;
+   }
+
    public SSTableWriter currentWriter() {
       return this.writer;
    }
@@ -129,7 +138,10 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
          writer = (SSTableWriter)var2.next();
       }
 
-      accumulate = this.transaction.abort(accumulate);
+      if(!this.sharedTransaction) {
+         accumulate = this.transaction.abort(accumulate);
+      }
+
       return accumulate;
    }
 
@@ -139,7 +151,10 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
          writer = (SSTableWriter)var2.next();
       }
 
-      accumulate = this.transaction.commit(accumulate);
+      if(!this.sharedTransaction) {
+         accumulate = this.transaction.commit(accumulate);
+      }
+
       return accumulate;
    }
 
@@ -264,10 +279,17 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
 
             writer.setRepairedAt(this.repairedAt).setOpenResult(true).prepareToCommit();
             SSTableReader reader = writer.finished();
-            this.transaction.update(reader, false);
+            if(!this.sharedTransaction) {
+               this.transaction.update(reader, false);
+            }
+
             this.preparedForCommit.add(reader);
          }
 
+         if(this.sharedTransaction) {
+            return;
+         }
+
          this.transaction.checkpoint();
          if(this.throwLate) {
             throw new RuntimeException("exception thrown after all sstables finished, for testing");
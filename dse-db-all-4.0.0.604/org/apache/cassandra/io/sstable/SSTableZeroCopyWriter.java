@@ -0,0 +1,211 @@
+package org.apache.cassandra.io.sstable;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadataRef;
+import org.apache.cassandra.utils.Throwables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SSTableZeroCopyWriter extends SSTable implements SSTableMultiWriter {
+   private static final Logger logger = LoggerFactory.getLogger(SSTableZeroCopyWriter.class);
+   private static final long TRANSFER_CHUNK_SIZE = 10485760L;
+   private final LifecycleTransaction txn;
+   private final int sstableLevel;
+   private volatile long bytesWritten;
+   private boolean openResult;
+   private boolean committed;
+   private boolean aborted;
+   private SSTableReader finalReader;
+
+   public SSTableZeroCopyWriter(Descriptor descriptor, Set<Component> components, TableMetadataRef metadata, int sstableLevel, LifecycleTransaction txn) {
+      super(descriptor, components, metadata, DatabaseDescriptor.getDiskOptimizationStrategy());
+      this.sstableLevel = sstableLevel;
+      this.txn = txn;
+      txn.trackNew(this);
+   }
+
+   public void writeComponent(Component component, ReadableByteChannel in, long size) throws IOException {
+      this.writeComponent(component, in, size, (RateLimiter)null);
+   }
+
+   private void writeComponent(Component component, ReadableByteChannel in, long size, RateLimiter limiter) throws IOException {
+      assert this.components.contains(component) : String.format("Unexpected component %s for %s", new Object[]{component, this.descriptor});
+
+      File file = new File(this.descriptor.filenameFor(component));
+      logger.trace("Writing {} bytes to {}", Long.valueOf(size), file);
+      FileChannel out = FileChannel.open(file.toPath(), new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE});
+      Throwable var7 = null;
+
+      try {
+         long transferred;
+         for(long position = 0L; position < size; position += transferred) {
+            long chunk = Math.min(TRANSFER_CHUNK_SIZE, size - position);
+            if(limiter != null) {
+               limiter.acquire((int)chunk);
+            }
+
+            transferred = out.transferFrom(in, position, chunk);
+            if(transferred <= 0L) {
+               throw new EOFException(String.format("Stream ended after %d of %d bytes of %s", new Object[]{Long.valueOf(position), Long.valueOf(size), file}));
+            }
+
+            this.bytesWritten += transferred;
+         }
+
+         out.force(true);
+      } catch (Throwable var17) {
+         var7 = var17;
+         throw var17;
+      } finally {
+         if(var7 != null) {
+            try {
+               out.close();
+            } catch (Throwable var16) {
+               var7.addSuppressed(var16);
+            }
+         } else {
+            out.close();
+         }
+
+      }
+
+   }
+
+   public void linkComponent(Component component, File source, RateLimiter limiter) throws IOException {
+      assert this.components.contains(component) : String.format("Unexpected component %s for %s", new Object[]{component, this.descriptor});
+
+      File file = new File(this.descriptor.filenameFor(component));
+
+      try {
+         FileUtils.createHardLink(source, file);
+         this.bytesWritten += file.length();
+      } catch (FSWriteError var10) {
+         logger.trace("Could not hard link {} to {}, copying it instead: {}", new Object[]{source, file, var10.getMessage()});
+         FileChannel in = FileChannel.open(source.toPath(), new StandardOpenOption[]{StandardOpenOption.READ});
+         Throwable var5 = null;
+
+         try {
+            this.writeComponent(component, in, in.size(), limiter);
+         } catch (Throwable var11) {
+            var5 = var11;
+            throw var11;
+         } finally {
+            if(var5 != null) {
+               try {
+                  in.close();
+               } catch (Throwable var9) {
+                  var5.addSuppressed(var9);
+               }
+            } else {
+               in.close();
+            }
+
+         }
+      }
+
+   }
+
+   public boolean append(UnfilteredRowIterator partition) {
+      throw new UnsupportedOperationException("Partitions cannot be appended to an sstable received as a whole");
+   }
+
+   public Collection<SSTableReader> finish(long repairedAt, long maxDataAge, boolean openResult) {
+      return this.finish(openResult);
+   }
+
+   public Collection<SSTableReader> finish(boolean openResult) {
+      this.setOpenResult(openResult);
+      this.prepareToCommit();
+      Throwables.maybeFail(this.commit((Throwable)null));
+      return this.finished();
+   }
+
+   public Collection<SSTableReader> finished() {
+      return this.finalReader == null?Collections.emptyList():Collections.singleton(this.finalReader);
+   }
+
+   public SSTableMultiWriter setOpenResult(boolean openResult) {
+      this.openResult = openResult;
+      return this;
+   }
+
+   public long getFilePointer() {
+      return this.bytesWritten;
+   }
+
+   public TableId getTableId() {
+      return this.metadata().id;
+   }
+
+   public void prepareToCommit() {
+      try {
+         this.descriptor.getMetadataSerializer().mutateLevel(this.descriptor, this.sstableLevel);
+      } catch (IOException var2) {
+         throw new FSWriteError(var2, this.descriptor.filenameFor(Component.STATS));
+      }
+
+      if(this.openResult) {
+         this.finalReader = SSTableReader.open(this.descriptor, this.components, this.metadata);
+      }
+
+   }
+
+   public Throwable commit(Throwable accumulate) {
+      this.committed = true;
+      return accumulate;
+   }
+
+   public Throwable abort(Throwable accumulate) {
+      if(this.aborted) {
+         return accumulate;
+      } else {
+         this.aborted = true;
+         this.txn.untrackNew(this);
+         if(this.finalReader != null) {
+            accumulate = this.finalReader.selfRef().ensureReleased(accumulate);
+            this.finalReader = null;
+         }
+
+         Iterator var2 = this.components.iterator();
+
+         while(var2.hasNext()) {
+            Component component = (Component)var2.next();
+            File file = new File(this.descriptor.filenameFor(component));
+
+            try {
+               if(file.exists() && !file.delete()) {
+                  throw new IOException("Failed to delete " + file);
+               }
+            } catch (Throwable var6) {
+               accumulate = Throwables.merge(accumulate, var6);
+            }
+         }
+
+         return accumulate;
+      }
+   }
+
+   public void close() {
+      if(!this.committed && !this.aborted) {
+         Throwables.maybeFail(this.abort((Throwable)null));
+      }
+
+   }
+}
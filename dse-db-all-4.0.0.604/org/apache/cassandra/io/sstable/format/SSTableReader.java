@@ -1200,6 +1200,18 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
       this.readMeter = this.tidy.global.readMeter = readMeter;
    }
 
+   public void inheritReadMeter(RestorableMeter readMeter) {
+      if(this.tidy.setupFuture != null) {
+         TPCUtils.blockingAwait(this.tidy.setupFuture);
+      }
+
+      if(this.readMeter != null) {
+         this.tidy.global.inheritReadMeter(readMeter);
+         this.readMeter = readMeter;
+      }
+
+   }
+
    public void addTo(Ref.IdentityCollection identities) {
       identities.add((SelfRefCounted)this);
       identities.add(this.tidy.globalRef);
@@ -1302,6 +1314,11 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
 
       }
 
+      private void inheritReadMeter(RestorableMeter readMeter) {
+         this.stopReadMeterPersistence();
+         this.setReadMeter(readMeter);
+      }
+
       private void stopReadMeterPersistence() {
          ScheduledFuture<?> readMeterSyncFutureLocal = (ScheduledFuture)this.readMeterSyncFuture.get();
          if(readMeterSyncFutureLocal != null) {
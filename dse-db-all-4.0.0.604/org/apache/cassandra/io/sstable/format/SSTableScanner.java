@@ -48,7 +48,7 @@ public class SSTableScanner implements ISSTableScanner {
    }
 
    public static ISSTableScanner getScanner(SSTableReader sstable, ColumnFilter columns, DataRange dataRange, SSTableReadsListener listener) {
-      return new SSTableScanner(sstable, columns, dataRange, makeBounds(sstable, dataRange).iterator(), listener);
+      return new SSTableScanner(sstable, columns, dataRange, makeBounds(sstable, dataRange).iterator(), listener, FileAccessType.SEQUENTIAL);
    }
 
    public static ISSTableScanner getScanner(SSTableReader sstable, Collection<Range<Token>> tokenRanges) {
@@ -57,13 +57,13 @@ public class SSTableScanner implements ISSTableScanner {
    }
 
    public static ISSTableScanner getScanner(SSTableReader sstable, Iterator<AbstractBounds<PartitionPosition>> rangeIterator) {
-      return new SSTableScanner(sstable, ColumnFilter.all(sstable.metadata()), (DataRange)null, rangeIterator, SSTableReadsListener.NOOP_LISTENER);
+      return new SSTableScanner(sstable, ColumnFilter.all(sstable.metadata()), (DataRange)null, rangeIterator, SSTableReadsListener.NOOP_LISTENER, FileAccessType.FULL_FILE);
    }
 
-   private SSTableScanner(SSTableReader sstable, ColumnFilter columns, DataRange dataRange, Iterator<AbstractBounds<PartitionPosition>> rangeIterator, SSTableReadsListener listener) {
+   private SSTableScanner(SSTableReader sstable, ColumnFilter columns, DataRange dataRange, Iterator<AbstractBounds<PartitionPosition>> rangeIterator, SSTableReadsListener listener, FileAccessType accessType) {
       assert sstable != null;
 
-      this.dfile = sstable.openDataReader(FileAccessType.SEQUENTIAL);
+      this.dfile = sstable.openDataReader(accessType);
       this.sstable = sstable;
       this.columns = columns;
       this.dataRange = dataRange;
@@ -1,16 +1,39 @@
 package org.apache.cassandra.io.util;
 
+import com.codahale.metrics.Gauge;
 import io.netty.channel.epoll.AIOContext.Config;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.cassandra.concurrent.ScheduledExecutors;
+import org.apache.cassandra.metrics.CassandraMetricsRegistry;
+import org.apache.cassandra.metrics.DefaultNameFactory;
+import org.apache.cassandra.metrics.MetricNameFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class AioCoordinator {
+public class AioCoordinator implements Runnable {
    private static final Logger logger = LoggerFactory.getLogger(AioCoordinator.class);
    static final int maxPendingDepth = 65536;
+   public static final boolean ADAPTIVE_DEPTH = Boolean.parseBoolean(System.getProperty("dse.io.aio.adaptive_depth", "false"));
+   private static final double DEPTH_HEADROOM = Double.parseDouble(System.getProperty("dse.io.aio.depth_headroom", "2.0"));
+   private static final long REBALANCE_INTERVAL_MILLIS = Long.getLong("dse.io.aio.rebalance_interval_ms", 1000L).longValue();
    private final int numTPCCores;
    private final int numIOCores;
    private final int globalQueueDepth;
    private final int[] tpcToAioCores;
+   private final int[] shares;
+   private final int[] contextDepths;
+   private final AtomicIntegerArray limits;
+   private final AtomicIntegerArray inFlight;
+   private final AtomicIntegerArray peakInFlight;
+   private final AtomicLongArray latencyNanos;
+   private final AtomicLongArray completed;
+   private final double[] avgLatencyMicros;
+   private final AtomicLong redirected = new AtomicLong();
 
    public AioCoordinator(int numTPCCores, int numIOCores, int globalQueueDepth) {
       assert numIOCores >= 0 : String.format("Invalid numIOCores: %d", new Object[]{Integer.valueOf(numIOCores)});
@@ -21,6 +44,14 @@ public class AioCoordinator {
       this.numIOCores = numIOCores;
       this.globalQueueDepth = globalQueueDepth;
       this.tpcToAioCores = new int[numTPCCores];
+      this.shares = new int[numIOCores];
+      this.contextDepths = new int[numIOCores];
+      this.limits = new AtomicIntegerArray(numIOCores);
+      this.inFlight = new AtomicIntegerArray(numIOCores);
+      this.peakInFlight = new AtomicIntegerArray(numIOCores);
+      this.latencyNanos = new AtomicLongArray(numIOCores);
+      this.completed = new AtomicLongArray(numIOCores);
+      this.avgLatencyMicros = new double[numIOCores];
       if(numIOCores > 0) {
          this.initAioCores();
       }
@@ -38,6 +69,13 @@ public class AioCoordinator {
          }
       }
 
+      for(int aioCore = 0; aioCore < this.numIOCores; ++aioCore) {
+         int share = this.globalQueueDepth % this.numIOCores == 0?this.globalQueueDepth / this.numIOCores:(int)Math.floor((double)this.globalQueueDepth / (double)this.numIOCores) + (aioCore + 1 <= this.globalQueueDepth % this.numIOCores?1:0);
+         this.shares[aioCore] = share;
+         this.contextDepths[aioCore] = ADAPTIVE_DEPTH?Math.min(this.globalQueueDepth, (int)Math.ceil((double)share * DEPTH_HEADROOM)):share;
+         this.limits.set(aioCore, share);
+      }
+
    }
 
    public Config getIOConfig(int coreId) {
@@ -47,7 +85,7 @@ public class AioCoordinator {
          return null;
       } else {
          int aioCore = this.tpcToAioCores[coreId];
-         int depth = this.globalQueueDepth % this.numIOCores == 0?this.globalQueueDepth / this.numIOCores:(int)Math.floor((double)this.globalQueueDepth / (double)this.numIOCores) + (aioCore + 1 <= this.globalQueueDepth % this.numIOCores?1:0);
+         int depth = this.contextDepths[aioCore];
          Config ret = coreId == aioCore && depth > 0?new Config(depth, 65536):null;
          if(ret != null) {
             logger.debug("Assigning AIO [{}] to core {}", ret, Integer.valueOf(coreId));
@@ -61,7 +99,150 @@ public class AioCoordinator {
       return this.tpcToAioCores[coreId];
    }
 
+   public int selectIOCore(int coreId) {
+      int aioCore = this.tpcToAioCores[coreId];
+      if(ADAPTIVE_DEPTH && this.numIOCores >= 2 && this.inFlight.get(aioCore) >= this.limits.get(aioCore)) {
+         int best = aioCore;
+         double bestOccupancy = this.occupancy(aioCore);
+
+         for(int i = 0; i < this.numIOCores; ++i) {
+            double occupancy = this.occupancy(i);
+            if(occupancy < bestOccupancy) {
+               best = i;
+               bestOccupancy = occupancy;
+            }
+         }
+
+         if(best != aioCore) {
+            this.redirected.incrementAndGet();
+         }
+
+         return best;
+      } else {
+         return aioCore;
+      }
+   }
+
+   private double occupancy(int aioCore) {
+      return (double)this.inFlight.get(aioCore) / (double)Math.max(1, this.limits.get(aioCore));
+   }
+
+   public CompletionHandler<Integer, ByteBuffer> track(final int aioCore, final CompletionHandler<Integer, ByteBuffer> handler) {
+      if(this.numIOCores == 0) {
+         return handler;
+      } else {
+         final long start = System.nanoTime();
+         int pending = this.inFlight.incrementAndGet(aioCore);
+         this.peakInFlight.accumulateAndGet(aioCore, pending, Math::max);
+         return new CompletionHandler<Integer, ByteBuffer>() {
+            public void completed(Integer result, ByteBuffer attachment) {
+               AioCoordinator.this.onComplete(aioCore, start);
+               handler.completed(result, attachment);
+            }
+
+            public void failed(Throwable exc, ByteBuffer attachment) {
+               AioCoordinator.this.onComplete(aioCore, start);
+               handler.failed(exc, attachment);
+            }
+         };
+      }
+   }
+
+   private void onComplete(int aioCore, long start) {
+      this.inFlight.decrementAndGet(aioCore);
+      this.latencyNanos.addAndGet(aioCore, System.nanoTime() - start);
+      this.completed.incrementAndGet(aioCore);
+   }
+
+   public void start() {
+      if(this.numIOCores != 0) {
+         for(int aioCore = 0; aioCore < this.numIOCores; ++aioCore) {
+            this.registerMetrics(aioCore);
+         }
+
+         CassandraMetricsRegistry.Metrics.register((new DefaultNameFactory("AIO")).createMetricName("Redirected"), new Gauge<Long>() {
+            public Long getValue() {
+               return Long.valueOf(AioCoordinator.this.redirected.get());
+            }
+         });
+         if(REBALANCE_INTERVAL_MILLIS > 0L) {
+            ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(this, REBALANCE_INTERVAL_MILLIS, REBALANCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+         }
+
+      }
+   }
+
+   private void registerMetrics(final int aioCore) {
+      MetricNameFactory factory = new DefaultNameFactory("AIO", "Core" + aioCore);
+      CassandraMetricsRegistry.Metrics.register(factory.createMetricName("Depth"), new Gauge<Integer>() {
+         public Integer getValue() {
+            return Integer.valueOf(AioCoordinator.this.limits.get(aioCore));
+         }
+      });
+      CassandraMetricsRegistry.Metrics.register(factory.createMetricName("ContextDepth"), new Gauge<Integer>() {
+         public Integer getValue() {
+            return Integer.valueOf(AioCoordinator.this.contextDepths[aioCore]);
+         }
+      });
+      CassandraMetricsRegistry.Metrics.register(factory.createMetricName("InFlight"), new Gauge<Integer>() {
+         public Integer getValue() {
+            return Integer.valueOf(AioCoordinator.this.inFlight.get(aioCore));
+         }
+      });
+      CassandraMetricsRegistry.Metrics.register(factory.createMetricName("Occupancy"), new Gauge<Double>() {
+         public Double getValue() {
+            return Double.valueOf(AioCoordinator.this.occupancy(aioCore));
+         }
+      });
+      CassandraMetricsRegistry.Metrics.register(factory.createMetricName("CompletionLatencyMicros"), new Gauge<Double>() {
+         public Double getValue() {
+            return Double.valueOf(AioCoordinator.this.avgLatencyMicros[aioCore]);
+         }
+      });
+   }
+
+   public void run() {
+      int[] peaks = new int[this.numIOCores];
+      double totalLatency = 0.0D;
+      int withLatency = 0;
+
+      for(int i = 0; i < this.numIOCores; ++i) {
+         peaks[i] = this.peakInFlight.getAndSet(i, this.inFlight.get(i));
+         long count = this.completed.getAndSet(i, 0L);
+         long nanos = this.latencyNanos.getAndSet(i, 0L);
+         if(count > 0L) {
+            this.avgLatencyMicros[i] = (double)nanos / (double)count / 1000.0D;
+            totalLatency += this.avgLatencyMicros[i];
+            ++withLatency;
+         }
+      }
+
+      if(ADAPTIVE_DEPTH && this.numIOCores >= 2) {
+         double meanLatency = withLatency == 0?0.0D:totalLatency / (double)withLatency;
+         double[] weights = new double[this.numIOCores];
+         double totalWeight = 0.0D;
+
+         for(int i = 0; i < this.numIOCores; ++i) {
+            weights[i] = (double)Math.max(1, peaks[i]);
+            if(meanLatency > 0.0D && this.avgLatencyMicros[i] > meanLatency) {
+               weights[i] *= meanLatency / this.avgLatencyMicros[i];
+            }
+
+            totalWeight += weights[i];
+         }
+
+         for(int i = 0; i < this.numIOCores; ++i) {
+            int limit = (int)Math.round((double)this.globalQueueDepth * weights[i] / totalWeight);
+            limit = Math.max(Math.max(1, this.shares[i] / 2), Math.min(this.contextDepths[i], limit));
+            if(limit != this.limits.getAndSet(i, limit) && logger.isTraceEnabled()) {
+               logger.trace("AIO core {} depth set to {} (peak in flight {}, latency {} us)", new Object[]{Integer.valueOf(i), Integer.valueOf(limit), Integer.valueOf(peaks[i]), Double.valueOf(this.avgLatencyMicros[i])});
+            }
+         }
+
+      }
+   }
+
    public String toString() {
-      return String.format("Num cores: %d, Num IO cores: %d, globalQueueDepth: %d, maxPending: %d", new Object[]{Integer.valueOf(this.numTPCCores), Integer.valueOf(this.numIOCores), Integer.valueOf(this.globalQueueDepth), Integer.valueOf(65536)});
+      return String.format("Num cores: %d, Num IO cores: %d, globalQueueDepth: %d, maxPending: %d, adaptive: %s", new Object[]{Integer.valueOf(this.numTPCCores), Integer.valueOf(this.numIOCores), Integer.valueOf(this.globalQueueDepth), Integer.valueOf(65536), Boolean.valueOf(ADAPTIVE_DEPTH)});
    }
 }
@@ -113,7 +113,8 @@ public class AsynchronousChannelProxy extends AbstractChannelProxy<AsynchronousF
 
       try {
          if(this.epollChannel != null) {
-            this.epollChannel.read(dest, offset, dest, retryingHandler, (EpollEventLoop)TPC.bestIOEventLoop());
+            int ioCore = TPC.bestIOCore();
+            this.epollChannel.read(dest, offset, dest, TPC.aioCoordinator.track(ioCore, retryingHandler), (EpollEventLoop)TPC.ioEventLoop(ioCore));
          } else {
             ((AsynchronousFileChannel)this.channel).read(dest, offset, dest, retryingHandler);
          }
@@ -206,6 +207,7 @@ public class AsynchronousChannelProxy extends AbstractChannelProxy<AsynchronousF
       private static final FastThreadLocal<Batch<ByteBuffer>> batch = new FastThreadLocal();
       private final boolean vectored;
       private final AIOEpollFileChannel epollChannel;
+      private int batchIOCore;
 
       private AIOEpollBatchedChannelProxy(AsynchronousChannelProxy inner, boolean vectored) {
          super(inner);
@@ -218,9 +220,10 @@ public class AsynchronousChannelProxy extends AbstractChannelProxy<AsynchronousF
 
          try {
             if(!batch.isSet()) {
-               this.epollChannel.read(dest, offset, dest, handler, (EpollEventLoop)TPC.bestIOEventLoop());
+               int ioCore = TPC.bestIOCore();
+               this.epollChannel.read(dest, offset, dest, TPC.aioCoordinator.track(ioCore, handler), (EpollEventLoop)TPC.ioEventLoop(ioCore));
             } else {
-               ((Batch)batch.get()).add(offset, dest, dest, handler);
+               ((Batch)batch.get()).add(offset, dest, dest, TPC.aioCoordinator.track(this.batchIOCore, handler));
             }
          } catch (Throwable var7) {
             handler.failed(var7, dest);
@@ -231,6 +234,7 @@ public class AsynchronousChannelProxy extends AbstractChannelProxy<AsynchronousF
       public void startBatch() {
          assert !batch.isSet() : "Batch was already started";
 
+         this.batchIOCore = TPC.bestIOCore();
          batch.set(this.epollChannel.newBatch(this.vectored));
       }
 
@@ -241,7 +245,7 @@ public class AsynchronousChannelProxy extends AbstractChannelProxy<AsynchronousF
          final Batch<ByteBuffer> batch = (Batch<ByteBuffer>)AIOEpollBatchedChannelProxy.batch.get();
          try {
             if (batch.numRequests() > 0) {
-               this.epollChannel.read((Batch)batch, (EpollEventLoop)TPC.bestIOEventLoop());
+               this.epollChannel.read((Batch)batch, (EpollEventLoop)TPC.ioEventLoop(this.batchIOCore));
             }
          }
          catch (Throwable err) {
@@ -5,14 +5,19 @@ import com.google.common.base.Throwables;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
+import org.apache.cassandra.io.sstable.Descriptor;
 import org.apache.cassandra.metrics.CassandraMetricsRegistry;
 import org.apache.cassandra.metrics.DefaultNameFactory;
 import org.apache.cassandra.metrics.Meter;
 import org.apache.cassandra.metrics.MetricNameFactory;
+import org.apache.cassandra.metrics.TableMetrics;
+import org.apache.cassandra.utils.memory.BufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,27 +27,47 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
    public static final int READ_AHEAD_SIZE_KB;
    private static final double READ_AHEAD_WINDOW = Double.parseDouble(System.getProperty("dse.read_ahead_window", "0.5"));
    public static final boolean READ_AHEAD_VECTORED = Boolean.parseBoolean(System.getProperty("dse.read_ahead_vectored", "true"));
+   public static final boolean READ_AHEAD_ADAPTIVE = Boolean.parseBoolean(System.getProperty("dse.read_ahead_adaptive", "false"));
+   private static final int READ_AHEAD_MAX_SIZE_KB;
+   private static final long READ_AHEAD_MAX_INFLIGHT_BYTES;
+   private static final AtomicLong inFlightBytes = new AtomicLong();
    private final AsynchronousChannelProxy channel;
    private final Deque<PrefetchingRebufferer.PrefetchedEntry> queue;
-   private final int prefetchSize;
-   private final int windowSize;
+   private final int minPrefetchSize;
+   private final int maxPrefetchSize;
+   private final double window;
+   private final boolean adaptive;
+   private final TableMetrics tableMetrics;
+   private int prefetchSize;
+   private int windowSize;
+   private int hits;
+   private long lastPosition = -1L;
    private final int alignmentMask;
    @VisibleForTesting
    public static final PrefetchingRebufferer.PrefetchingMetrics metrics;
 
    public PrefetchingRebufferer(Rebufferer source, AsynchronousChannelProxy channel) {
-      this(source, channel, READ_AHEAD_SIZE_KB * 1024, READ_AHEAD_WINDOW);
+      this(source, channel, READ_AHEAD_SIZE_KB * 1024, READ_AHEAD_WINDOW, READ_AHEAD_ADAPTIVE);
    }
 
    PrefetchingRebufferer(Rebufferer source, AsynchronousChannelProxy channel, int readHeadSize, double window) {
+      this(source, channel, readHeadSize, window, false);
+   }
+
+   PrefetchingRebufferer(Rebufferer source, AsynchronousChannelProxy channel, int readHeadSize, double window, boolean adaptive) {
       super(source);
       if(readHeadSize <= 0) {
          throw new IllegalArgumentException("Invalid read-ahead size: " + readHeadSize);
       } else if(window >= 0.0D && window <= 1.0D) {
          this.channel = channel;
+         this.window = window;
+         this.adaptive = adaptive;
          this.prefetchSize = (int)Math.ceil((double)readHeadSize / (double)source.rebufferSize());
+         this.minPrefetchSize = adaptive?1:this.prefetchSize;
+         this.maxPrefetchSize = adaptive?Math.max(this.prefetchSize, (int)Math.ceil((double)READ_AHEAD_MAX_SIZE_KB * 1024.0D / (double)source.rebufferSize())):this.prefetchSize;
          this.windowSize = (int)Math.ceil(window * (double)this.prefetchSize);
-         this.queue = new ArrayDeque(this.prefetchSize);
+         this.queue = new ArrayDeque(this.maxPrefetchSize);
+         this.tableMetrics = tableMetricsFor(channel.filePath());
 
          assert Integer.bitCount(source.rebufferSize()) == 1 : String.format("%d must be a power of two", new Object[]{Integer.valueOf(source.rebufferSize())});
 
@@ -56,10 +81,59 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
       }
    }
 
+   private static TableMetrics tableMetricsFor(String path) {
+      try {
+         Descriptor desc = Descriptor.fromFilename(path);
+         ColumnFamilyStore cfs = ColumnFamilyStore.getIfExists(desc.ksname, desc.cfname);
+         return cfs == null?null:cfs.metric;
+      } catch (Throwable var3) {
+         return null;
+      }
+   }
+
+   private void resize(int newSize) {
+      this.prefetchSize = Math.max(this.minPrefetchSize, Math.min(this.maxPrefetchSize, newSize));
+      this.windowSize = (int)Math.ceil(this.window * (double)this.prefetchSize);
+   }
+
+   private void onConsumed(PrefetchingRebufferer.PrefetchedEntry entry) {
+      entry.untrack();
+      if(!entry.future.isDone()) {
+         metrics.notReady.mark();
+         if(this.tableMetrics != null) {
+            this.tableMetrics.prefetchNotReadyChunks.inc();
+         }
+
+         if(this.adaptive) {
+            this.hits = 0;
+            this.resize(this.prefetchSize * 2);
+         }
+      } else if(this.adaptive && ++this.hits >= this.prefetchSize) {
+         this.hits = 0;
+         this.resize(this.prefetchSize * 2);
+      }
+
+   }
+
+   private void onUnused(PrefetchingRebufferer.PrefetchedEntry entry) {
+      if(entry.release() && this.adaptive) {
+         this.hits = 0;
+         this.resize(this.prefetchSize / 2);
+      }
+
+   }
+
    public Rebufferer.BufferHolder rebuffer(long position, Rebufferer.ReaderConstraint rc) {
       CompletableFuture<Rebufferer.BufferHolder> fut = this.rebufferAsync(position);
       if(rc != Rebufferer.ReaderConstraint.NONE && !fut.isDone()) {
-         throw new Rebufferer.NotInCacheException(this.channel(), fut.thenAccept(Rebufferer.BufferHolder::release), this.channel().filePath, position);
+         long pageAlignedPos = position & (long)this.alignmentMask;
+         if(this.queue.isEmpty() || ((PrefetchingRebufferer.PrefetchedEntry)this.queue.peekFirst()).position == pageAlignedPos + (long)this.source.rebufferSize()) {
+            this.queue.addFirst(new PrefetchingRebufferer.PrefetchedEntry(pageAlignedPos, fut, false));
+            throw new Rebufferer.NotInCacheException(this.channel(), fut.thenAccept((buffer) -> {
+            }), this.channel().filePath, position);
+         } else {
+            throw new Rebufferer.NotInCacheException(this.channel(), fut.thenAccept(Rebufferer.BufferHolder::release), this.channel().filePath, position);
+         }
       } else {
          try {
             return (Rebufferer.BufferHolder)fut.join();
@@ -72,23 +146,25 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
 
    public CompletableFuture<Rebufferer.BufferHolder> rebufferAsync(long position) {
       long pageAlignedPos = position & (long)this.alignmentMask;
+      boolean sequential = this.lastPosition >= 0L && (pageAlignedPos == this.lastPosition || pageAlignedPos == this.lastPosition + (long)this.source.rebufferSize());
+      this.lastPosition = pageAlignedPos;
 
       PrefetchingRebufferer.PrefetchedEntry entry;
       for(entry = (PrefetchingRebufferer.PrefetchedEntry)this.queue.poll(); entry != null && entry.position < pageAlignedPos; entry = (PrefetchingRebufferer.PrefetchedEntry)this.queue.poll()) {
-         entry.release();
+         this.onUnused(entry);
       }
 
       CompletableFuture ret;
       if(entry == null) {
          ret = super.rebufferAsync(pageAlignedPos);
-         this.prefetch(pageAlignedPos + (long)this.source.rebufferSize());
+         if(!this.adaptive || sequential) {
+            this.prefetch(pageAlignedPos + (long)this.source.rebufferSize());
+         }
+
          return ret;
       } else if(entry.position == pageAlignedPos) {
          ret = entry.future;
-         if(!entry.future.isDone()) {
-            metrics.notReady.mark();
-         }
-
+         this.onConsumed(entry);
          this.prefetch(pageAlignedPos + (long)this.source.rebufferSize());
          return ret;
       } else {
@@ -109,7 +185,12 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
 
       long firstPositionToPrefetch = this.queue.isEmpty()?pageAlignedPosition:((PrefetchingRebufferer.PrefetchedEntry)this.queue.peekLast()).position + (long)this.source.rebufferSize();
       int toPrefetch = this.prefetchSize - this.queue.size();
-      if(toPrefetch >= this.windowSize) {
+      if(toPrefetch >= this.windowSize && toPrefetch > 0) {
+         if(BufferPool.sizeInBytesOverLimit() > 0L) {
+            metrics.throttled.mark();
+            return;
+         }
+
          this.channel.startBatch();
 
          try {
@@ -119,7 +200,13 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
                   break;
                }
 
-               this.queue.addLast(new PrefetchingRebufferer.PrefetchedEntry(prefetchPosition, super.rebufferAsync(prefetchPosition)));
+               if(inFlightBytes.addAndGet((long)this.source.rebufferSize()) > READ_AHEAD_MAX_INFLIGHT_BYTES) {
+                  inFlightBytes.addAndGet((long)(-this.source.rebufferSize()));
+                  metrics.throttled.mark();
+                  break;
+               }
+
+               this.queue.addLast(new PrefetchingRebufferer.PrefetchedEntry(prefetchPosition, super.rebufferAsync(prefetchPosition), this.source.rebufferSize(), this.tableMetrics));
             }
          } finally {
             this.channel.submitBatch();
@@ -155,6 +242,11 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
       this.queue.clear();
    }
 
+   @VisibleForTesting
+   int prefetchSize() {
+      return this.prefetchSize;
+   }
+
    public String toString() {
       return String.format("Prefetching rebufferer: (%d/%d) buffers read-ahead, %d buffer size", new Object[]{Integer.valueOf(this.prefetchSize), Integer.valueOf(this.windowSize), Integer.valueOf(this.source.rebufferSize())});
    }
@@ -162,7 +254,9 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
    static {
       DiskOptimizationStrategy diskOptimizationStrategy = DatabaseDescriptor.getDiskOptimizationStrategy();
       READ_AHEAD_SIZE_KB = READ_AHEAD_SIZE_KB_FROM_OPERATOR.isEmpty()?diskOptimizationStrategy.readAheadSizeKb():Integer.parseInt(READ_AHEAD_SIZE_KB_FROM_OPERATOR);
-      logger.info("Read ahead for sequential reads (e.g. range queries, compactions) is {} k-bytes, window: {}, vectored: {}", new Object[]{Integer.valueOf(READ_AHEAD_SIZE_KB), Double.valueOf(READ_AHEAD_WINDOW), Boolean.valueOf(READ_AHEAD_VECTORED)});
+      READ_AHEAD_MAX_SIZE_KB = Integer.getInteger("dse.read_ahead_max_size_kb", READ_AHEAD_SIZE_KB * 4).intValue();
+      READ_AHEAD_MAX_INFLIGHT_BYTES = Long.getLong("dse.read_ahead_max_inflight_mb", Math.max(1L, BufferPool.MEMORY_USAGE_THRESHOLD / 8L / 1048576L)).longValue() * 1024L * 1024L;
+      logger.info("Read ahead for sequential reads (e.g. range queries, compactions) is {} k-bytes, window: {}, vectored: {}, adaptive: {} (max {} k-bytes), in-flight limit: {} bytes", new Object[]{Integer.valueOf(READ_AHEAD_SIZE_KB), Double.valueOf(READ_AHEAD_WINDOW), Boolean.valueOf(READ_AHEAD_VECTORED), Boolean.valueOf(READ_AHEAD_ADAPTIVE), Integer.valueOf(READ_AHEAD_MAX_SIZE_KB), Long.valueOf(READ_AHEAD_MAX_INFLIGHT_BYTES)});
       metrics = new PrefetchingRebufferer.PrefetchingMetrics();
    }
 
@@ -173,12 +267,17 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
       final Meter skipped;
       final Meter unused;
       final Meter notReady;
+      final Meter throttled;
 
       PrefetchingMetrics() {
          this.prefetched = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("Prefetched"));
          this.skipped = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("Skipped"));
          this.unused = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("Unused"));
          this.notReady = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("NotReady"));
+         this.throttled = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("Throttled"));
+         CassandraMetricsRegistry.Metrics.register(this.factory.createMetricName("InFlightBytes"), () -> {
+            return Long.valueOf(PrefetchingRebufferer.inFlightBytes.get());
+         });
       }
 
       public String toString() {
@@ -190,28 +289,63 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
          this.prefetched.mark(-this.prefetched.getCount());
          this.skipped.mark(-this.skipped.getCount());
          this.unused.mark(-this.unused.getCount());
+         this.notReady.mark(-this.notReady.getCount());
+         this.throttled.mark(-this.throttled.getCount());
       }
    }
 
    private static final class PrefetchedEntry {
       private final long position;
       private final CompletableFuture<Rebufferer.BufferHolder> future;
+      private final TableMetrics tableMetrics;
+      private int inFlightSize;
       private boolean released;
 
-      PrefetchedEntry(long position, CompletableFuture<Rebufferer.BufferHolder> future) {
+      PrefetchedEntry(long position, CompletableFuture<Rebufferer.BufferHolder> future, int size, TableMetrics tableMetrics) {
          this.position = position;
          this.future = future;
+         this.inFlightSize = size;
+         this.tableMetrics = tableMetrics;
          PrefetchingRebufferer.metrics.prefetched.mark();
+         if(tableMetrics != null) {
+            tableMetrics.prefetchedChunks.inc();
+         }
+
+      }
+
+      PrefetchedEntry(long position, CompletableFuture<Rebufferer.BufferHolder> future, boolean prefetched) {
+         this.position = position;
+         this.future = future;
+         this.inFlightSize = 0;
+         this.tableMetrics = null;
+         if(prefetched) {
+            PrefetchingRebufferer.metrics.prefetched.mark();
+         }
+
+      }
+
+      void untrack() {
+         if(this.inFlightSize > 0) {
+            PrefetchingRebufferer.inFlightBytes.addAndGet((long)(-this.inFlightSize));
+            this.inFlightSize = 0;
+         }
+
       }
 
-      public void release() {
-         if(!this.released) {
+      public boolean release() {
+         this.untrack();
+         if(this.released) {
+            return false;
+         } else {
             this.released = true;
             this.future.whenComplete((buffer, error) -> {
                try {
                   if(buffer != null) {
                      buffer.release();
                      PrefetchingRebufferer.metrics.unused.mark();
+                     if(this.tableMetrics != null) {
+                        this.tableMetrics.prefetchUnusedChunks.inc();
+                     }
                   }
 
                   if(error != null) {
@@ -222,6 +356,7 @@ public class PrefetchingRebufferer extends WrappingRebufferer {
                }
 
             });
+            return true;
          }
       }
 
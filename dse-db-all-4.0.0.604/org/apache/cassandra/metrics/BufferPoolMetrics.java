@@ -11,8 +11,13 @@ import org.apache.cassandra.utils.memory.BufferPool;
 public class BufferPoolMetrics {
     private static final MetricNameFactory factory = new DefaultNameFactory("BufferPool");
     public final Meter misses = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("Misses"));
+    public final Meter overflowAllocations = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("OverflowAllocations"));
+    public final Meter crossNodeAllocations = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("CrossNodeAllocations"));
     public final Gauge<Long> totalSize = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("Size"), BufferPool::sizeInBytes);
     public final Gauge<Long> overflowSize = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("OverflowSize"), BufferPool::sizeInBytesOverLimit);
     public final Gauge<Long> usedSize = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("UsedSize"), BufferPool::usedSizeInBytes);
+    public final Gauge<Long> freeSize = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("FreeSize"), BufferPool::freeSizeInBytes);
+    public final Gauge<Double> fragmentation = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("Fragmentation"), BufferPool::fragmentation);
+    public final Gauge<Integer> numaNodes = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("NumaNodes"), BufferPool::numaNodes);
     public final Gauge<Long> chunkReaderBufferSize = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("ChunkReaderBufferSize"), ChunkReader.bufferSize::get);
 }
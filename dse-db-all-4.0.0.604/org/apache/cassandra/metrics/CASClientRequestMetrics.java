@@ -3,16 +3,25 @@ package org.apache.cassandra.metrics;
 public class CASClientRequestMetrics extends ClientRequestMetrics {
    public final Histogram contention;
    public final Counter unfinishedCommit;
+   public final Counter stateCacheHits;
+   public final Counter stateCacheMisses;
+   public final Counter stateCacheEvictions;
 
    public CASClientRequestMetrics(String scope) {
       super(scope);
       this.contention = CassandraMetricsRegistry.Metrics.histogram(this.factory.createMetricName("ContentionHistogram"), false);
       this.unfinishedCommit = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("UnfinishedCommit"));
+      this.stateCacheHits = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("PaxosStateCacheHits"));
+      this.stateCacheMisses = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("PaxosStateCacheMisses"));
+      this.stateCacheEvictions = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("PaxosStateCacheEvictions"));
    }
 
    public void release() {
       super.release();
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("ContentionHistogram"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("UnfinishedCommit"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("PaxosStateCacheHits"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("PaxosStateCacheMisses"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("PaxosStateCacheEvictions"));
    }
 }
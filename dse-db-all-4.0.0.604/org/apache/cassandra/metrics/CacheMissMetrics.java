@@ -3,13 +3,16 @@ package org.apache.cassandra.metrics;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.RatioGauge;
 import com.codahale.metrics.RatioGauge.Ratio;
+import java.util.EnumMap;
 import org.apache.cassandra.cache.CacheSize;
+import org.apache.cassandra.io.util.FileAccessType;
 
 public class CacheMissMetrics {
    public final Gauge<Long> capacity;
    public final Meter misses;
    public final Meter requests;
    public final Meter notInCacheExceptions;
+   public final Meter bypassed;
    public final Timer missLatency;
    public final Gauge<Double> hitRate;
    public final Gauge<Double> oneMinuteHitRate;
@@ -17,6 +20,7 @@ public class CacheMissMetrics {
    public final Gauge<Double> fifteenMinuteHitRate;
    public final Gauge<Long> size;
    public final Gauge<Integer> entries;
+   private final EnumMap<FileAccessType, CacheMissMetrics.AccessTypeMetrics> byAccessType;
 
     public CacheMissMetrics(String type, CacheSize cache) {
         DefaultNameFactory factory = new DefaultNameFactory("Cache", type);
@@ -59,14 +63,61 @@ public class CacheMissMetrics {
         });
         this.size = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("Size"), cache::weightedSize);
         this.entries = CassandraMetricsRegistry.Metrics.register(factory.createMetricName("Entries"), cache::size);
+        this.bypassed = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("Bypassed"));
+        this.byAccessType = new EnumMap(FileAccessType.class);
+        for (FileAccessType accessType : FileAccessType.values()) {
+            this.byAccessType.put(accessType, new CacheMissMetrics.AccessTypeMetrics(factory, accessType));
+        }
     }
 
+   public CacheMissMetrics.AccessTypeMetrics forAccessType(FileAccessType accessType) {
+      return (CacheMissMetrics.AccessTypeMetrics)this.byAccessType.get(accessType);
+   }
+
    public void reset() {
       this.requests.mark(-this.requests.getCount());
       this.misses.mark(-this.misses.getCount());
+      this.byAccessType.values().forEach(CacheMissMetrics.AccessTypeMetrics::reset);
    }
 
    public String toString() {
-      return String.format("Requests: %s, Misses: %s, NotInCacheExceptions: %s, missLatency: %s", new Object[]{this.requests, this.misses, this.notInCacheExceptions, this.missLatency});
+      return String.format("Requests: %s, Misses: %s, NotInCacheExceptions: %s, Bypassed: %s, missLatency: %s", new Object[]{this.requests, this.misses, this.notInCacheExceptions, this.bypassed, this.missLatency});
+   }
+
+   public static class AccessTypeMetrics {
+      public final Meter requests;
+      public final Meter misses;
+      public final Gauge<Double> hitRate;
+
+      AccessTypeMetrics(MetricNameFactory factory, FileAccessType accessType) {
+         String prefix = metricPrefix(accessType);
+         this.requests = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName(prefix + "Requests"));
+         this.misses = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName(prefix + "Misses"));
+         this.hitRate = (Gauge)CassandraMetricsRegistry.Metrics.register(factory.createMetricName(prefix + "HitRate"), new RatioGauge() {
+            public RatioGauge.Ratio getRatio() {
+               long req = AccessTypeMetrics.this.requests.getCount();
+               long mis = AccessTypeMetrics.this.misses.getCount();
+               return RatioGauge.Ratio.of((double)(req - mis), (double)req);
+            }
+         });
+      }
+
+      private static String metricPrefix(FileAccessType accessType) {
+         StringBuilder sb = new StringBuilder();
+         String[] var2 = accessType.name().toLowerCase().split("_");
+         int var3 = var2.length;
+
+         for(int var4 = 0; var4 < var3; ++var4) {
+            String part = var2[var4];
+            sb.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+         }
+
+         return sb.toString();
+      }
+
+      void reset() {
+         this.requests.mark(-this.requests.getCount());
+         this.misses.mark(-this.misses.getCount());
+      }
    }
 }
@@ -11,10 +11,14 @@ public class CommitLogMetrics {
    public Gauge<Long> totalCommitLogSize;
    public final Timer waitingOnSegmentAllocation;
    public final Timer waitingOnCommit;
+   public final Meter replayedBytes;
+   public final Meter replayedMutations;
 
    public CommitLogMetrics() {
       this.waitingOnSegmentAllocation = CassandraMetricsRegistry.Metrics.timer(factory.createMetricName("WaitingOnSegmentAllocation"));
       this.waitingOnCommit = CassandraMetricsRegistry.Metrics.timer(factory.createMetricName("WaitingOnCommit"));
+      this.replayedBytes = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("ReplayedBytes"));
+      this.replayedMutations = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("ReplayedMutations"));
    }
 
    public void attach(final AbstractCommitLogService service, final AbstractCommitLogSegmentManager segmentManager) {
@@ -14,6 +14,7 @@ import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.compaction.CompactionInfo;
 import org.apache.cassandra.db.compaction.CompactionManager;
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.TableMetadata;
 
@@ -28,6 +29,8 @@ public class CompactionMetrics implements CompactionManager.CompactionExecutorSt
    public final Counter compactionsReduced;
    public final Counter sstablesDropppedFromCompactions;
    public final Counter compactionsAborted;
+   public final Gauge<Double> throughputMbPerSec;
+   public final Counter throughputAdjustments;
 
    public CompactionMetrics(final ThreadPoolExecutor... collectors) {
       this.pendingTasks = (Gauge)CassandraMetricsRegistry.Metrics.register(factory.createMetricName("PendingTasks"), new Gauge<Integer>() {
@@ -110,6 +113,12 @@ public class CompactionMetrics implements CompactionManager.CompactionExecutorSt
       this.compactionsReduced = CassandraMetricsRegistry.Metrics.counter(factory.createMetricName("CompactionsReduced"));
       this.sstablesDropppedFromCompactions = CassandraMetricsRegistry.Metrics.counter(factory.createMetricName("SSTablesDroppedFromCompaction"));
       this.compactionsAborted = CassandraMetricsRegistry.Metrics.counter(factory.createMetricName("CompactionsAborted"));
+      this.throughputMbPerSec = (Gauge)CassandraMetricsRegistry.Metrics.register(factory.createMetricName("ThroughputMbPerSec"), new Gauge<Double>() {
+         public Double getValue() {
+            return Double.valueOf(CompactionThroughputController.instance.currentRate());
+         }
+      });
+      this.throughputAdjustments = CassandraMetricsRegistry.Metrics.counter(factory.createMetricName("ThroughputAdjustments"));
    }
 
    public void beginCompaction(CompactionInfo.Holder ci) {
@@ -18,6 +18,10 @@ public class ConnectionMetrics {
    public final Gauge<Long> gossipMessageCompletedTasks;
    public final Gauge<Long> gossipMessageDroppedTasks;
    public final Meter timeouts;
+   public final Counter frameBytesUncompressed;
+   public final Counter frameBytesCompressed;
+   public final Counter frameCompressionNanos;
+   public final Gauge<Double> frameCompressionRatio;
    private final MetricNameFactory factory;
 
    public ConnectionMetrics(InetAddress ip, final OutboundTcpConnectionPool connectionPool) {
@@ -69,6 +73,15 @@ public class ConnectionMetrics {
          }
       });
       this.timeouts = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("Timeouts"));
+      this.frameBytesUncompressed = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("FrameBytesUncompressed"));
+      this.frameBytesCompressed = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("FrameBytesCompressed"));
+      this.frameCompressionNanos = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("FrameCompressionNanos"));
+      this.frameCompressionRatio = (Gauge)CassandraMetricsRegistry.Metrics.register(this.factory.createMetricName("FrameCompressionRatio"), new Gauge<Double>() {
+         public Double getValue() {
+            long uncompressed = ConnectionMetrics.this.frameBytesUncompressed.getCount();
+            return Double.valueOf(uncompressed == 0L?1.0D:(double)ConnectionMetrics.this.frameBytesCompressed.getCount() / (double)uncompressed);
+         }
+      });
    }
 
    public void release() {
@@ -82,6 +95,10 @@ public class ConnectionMetrics {
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("GossipMessageCompletedTasks"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("GossipMessageDroppedTasks"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("Timeouts"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("FrameBytesUncompressed"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("FrameBytesCompressed"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("FrameCompressionNanos"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("FrameCompressionRatio"));
    }
 
    static {
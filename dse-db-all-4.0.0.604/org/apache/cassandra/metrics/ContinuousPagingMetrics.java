@@ -9,6 +9,7 @@ public class ContinuousPagingMetrics {
    private final LatencyMetrics slowPathLatency = new LatencyMetrics("ContinuousPaging", "SlowPathLatency");
    public final Gauge liveSessions = CassandraMetricsRegistry.Metrics.register(this.factory.createMetricName("LiveSessions"), ContinuousPagingService::liveSessions);
    public final Gauge pendingPages = CassandraMetricsRegistry.Metrics.register(this.factory.createMetricName("PendingPages"), ContinuousPagingService::pendingPages);
+   public final Gauge pendingBytes = CassandraMetricsRegistry.Metrics.register(this.factory.createMetricName("PendingBytes"), ContinuousPagingService::pendingBytes);
    public final Meter requests;
    public final Meter creationFailures;
    public final Meter tooManySessions;
@@ -17,6 +18,11 @@ public class ContinuousPagingMetrics {
    public final LatencyMetrics waitingTime;
    public final Counter serverBlocked;
    public final LatencyMetrics serverBlockedLatency;
+   public final LatencyMetrics pageQueueTime;
+   public final Meter fairSharePauses;
+   public final Meter interactiveYields;
+   public final Histogram sessionRowsPerSecond;
+   public final Histogram sessionBytesPerSecond;
 
    public ContinuousPagingMetrics() {
       this.requests = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("Requests"));
@@ -27,6 +33,11 @@ public class ContinuousPagingMetrics {
       this.waitingTime = new LatencyMetrics("ContinuousPaging", "WaitingTime");
       this.serverBlocked = CassandraMetricsRegistry.Metrics.counter(this.factory.createMetricName("ServerBlocked"));
       this.serverBlockedLatency = new LatencyMetrics("ContinuousPaging", "ServerBlockedLatency");
+      this.pageQueueTime = new LatencyMetrics("ContinuousPaging", "PageQueueTime");
+      this.fairSharePauses = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("FairSharePauses"));
+      this.interactiveYields = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("InteractiveYields"));
+      this.sessionRowsPerSecond = CassandraMetricsRegistry.Metrics.histogram(this.factory.createMetricName("SessionRowsPerSecond"), false);
+      this.sessionBytesPerSecond = CassandraMetricsRegistry.Metrics.histogram(this.factory.createMetricName("SessionBytesPerSecond"), false);
    }
 
    public void addTotalDuration(boolean isLocal, long nanos) {
@@ -43,6 +54,7 @@ public class ContinuousPagingMetrics {
       this.slowPathLatency.release();
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("LiveSessions"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("PendingPages"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("PendingBytes"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("Requests"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("CreationFailures"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("TooManySessions"));
@@ -51,5 +63,10 @@ public class ContinuousPagingMetrics {
       this.waitingTime.release();
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("ServerBlocked"));
       this.serverBlockedLatency.release();
+      this.pageQueueTime.release();
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("FairSharePauses"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("InteractiveYields"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("SessionRowsPerSecond"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("SessionBytesPerSecond"));
    }
 }
@@ -1,10 +1,12 @@
 package org.apache.cassandra.metrics;
 
+import com.codahale.metrics.Gauge;
 import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.util.concurrent.MoreExecutors;
 import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,12 +16,18 @@ public final class HintsServiceMetrics {
    public static final Meter hintsSucceeded;
    public static final Meter hintsFailed;
    public static final Meter hintsTimedOut;
+   public static final Meter bytesDispatched;
+   private static final AtomicInteger messagesInFlight = new AtomicInteger();
    private static final Histogram globalDelayHistogram;
    private static final LoadingCache<InetAddress, Histogram> delayByEndpoint;
 
    public HintsServiceMetrics() {
    }
 
+   public static void updateInFlight(int delta) {
+      messagesInFlight.addAndGet(delta);
+   }
+
    public static void updateDelayMetrics(InetAddress endpoint, long delay) {
       if(delay <= 0L) {
          logger.warn("Invalid negative latency in hint delivery delay: {}", Long.valueOf(delay));
@@ -33,6 +41,12 @@ public final class HintsServiceMetrics {
       hintsSucceeded = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("HintsSucceeded"));
       hintsFailed = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("HintsFailed"));
       hintsTimedOut = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("HintsTimedOut"));
+      bytesDispatched = CassandraMetricsRegistry.Metrics.meter(factory.createMetricName("BytesDispatched"));
+      CassandraMetricsRegistry.Metrics.register(factory.createMetricName("MessagesInFlight"), new Gauge<Integer>() {
+         public Integer getValue() {
+            return Integer.valueOf(HintsServiceMetrics.messagesInFlight.get());
+         }
+      });
       globalDelayHistogram = CassandraMetricsRegistry.Metrics.histogram(factory.createMetricName("Hint_delays"), false);
       delayByEndpoint = Caffeine.newBuilder().executor(MoreExecutors.directExecutor()).build((address) -> {
          return CassandraMetricsRegistry.Metrics.histogram(factory.createMetricName("Hint_delays-" + address.getHostAddress().replace(':', '.')), false);
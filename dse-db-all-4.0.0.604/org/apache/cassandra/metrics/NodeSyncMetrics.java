@@ -19,6 +19,7 @@ public class NodeSyncMetrics {
    public final Counter partialRepairedPages;
    public final Counter uncompletedPages;
    public final Counter failedPages;
+   public final Counter skippedSegments;
    private final MetricNameFactory factory;
    private final String namePrefix;
    private final Set<CassandraMetricsRegistry.MetricName> metricsNames = new HashSet();
@@ -39,6 +40,7 @@ public class NodeSyncMetrics {
       this.partialRepairedPages = CassandraMetricsRegistry.Metrics.counter(this.name("PartialRepairedPages"));
       this.uncompletedPages = CassandraMetricsRegistry.Metrics.counter(this.name("UncompletedPages"));
       this.failedPages = CassandraMetricsRegistry.Metrics.counter(this.name("FailedPages"));
+      this.skippedSegments = CassandraMetricsRegistry.Metrics.counter(this.name("SkippedSegments"));
    }
 
    public void incrementObjects(long validated, long repaired) {
@@ -10,6 +10,8 @@ public class StreamingMetrics {
    public static final Counter activeStreamsOutbound;
    public static final Counter totalIncomingBytes;
    public static final Counter totalOutgoingBytes;
+   public static final Counter totalIncomingEntireSSTables;
+   public static final Counter totalOutgoingEntireSSTables;
    public final Counter incomingBytes;
    public final Counter outgoingBytes;
 
@@ -33,5 +35,7 @@ public class StreamingMetrics {
       activeStreamsOutbound = CassandraMetricsRegistry.Metrics.counter(DefaultNameFactory.createMetricName("Streaming", "ActiveOutboundStreams", (String)null));
       totalIncomingBytes = CassandraMetricsRegistry.Metrics.counter(DefaultNameFactory.createMetricName("Streaming", "TotalIncomingBytes", (String)null));
       totalOutgoingBytes = CassandraMetricsRegistry.Metrics.counter(DefaultNameFactory.createMetricName("Streaming", "TotalOutgoingBytes", (String)null));
+      totalIncomingEntireSSTables = CassandraMetricsRegistry.Metrics.counter(DefaultNameFactory.createMetricName("Streaming", "TotalIncomingEntireSSTables", (String)null));
+      totalOutgoingEntireSSTables = CassandraMetricsRegistry.Metrics.counter(DefaultNameFactory.createMetricName("Streaming", "TotalOutgoingEntireSSTables", (String)null));
    }
 }
@@ -103,8 +103,14 @@ public class TableMetrics {
    public final Timer coordinatorReadLatency;
    public final Timer coordinatorScanLatency;
    public final Histogram waitingOnFreeMemtableSpace;
+   public final Histogram flushBytesPerSecond;
+   public final Timer writeStallTime;
    public final Counter droppedMutations;
    public final NodeSyncMetrics nodeSyncMetrics;
+   public final Counter prefetchedChunks;
+   public final Counter prefetchUnusedChunks;
+   public final Counter prefetchNotReadyChunks;
+   public final Gauge<Double> prefetchEfficiency;
    private final MetricNameFactory factory;
    private final MetricNameFactory aliasFactory;
    private static final MetricNameFactory globalFactory = new TableMetrics.AllTableMetricNameFactory("Table");
@@ -644,6 +650,8 @@ public class TableMetrics {
       this.coordinatorReadLatency = CassandraMetricsRegistry.Metrics.timer(this.factory.createMetricName("CoordinatorReadLatency"));
       this.coordinatorScanLatency = CassandraMetricsRegistry.Metrics.timer(this.factory.createMetricName("CoordinatorScanLatency"));
       this.waitingOnFreeMemtableSpace = CassandraMetricsRegistry.Metrics.histogram(this.factory.createMetricName("WaitingOnFreeMemtableSpace"), false);
+      this.flushBytesPerSecond = CassandraMetricsRegistry.Metrics.histogram(this.factory.createMetricName("FlushBytesPerSecond"), false);
+      this.writeStallTime = CassandraMetricsRegistry.Metrics.timer(this.factory.createMetricName("WriteStallTime"));
       if(cfs.metadata().isView()) {
          this.viewLockAcquireTime = null;
          this.viewReadTime = null;
@@ -663,6 +671,18 @@ public class TableMetrics {
       this.tombstoneFailures = this.createTableCounter("TombstoneFailures");
       this.tombstoneWarnings = this.createTableCounter("TombstoneWarnings");
       this.droppedMutations = this.createTableCounter("DroppedMutations");
+      this.prefetchedChunks = this.createTableCounter("PrefetchedChunks");
+      this.prefetchUnusedChunks = this.createTableCounter("PrefetchUnusedChunks");
+      this.prefetchNotReadyChunks = this.createTableCounter("PrefetchNotReadyChunks");
+      this.prefetchEfficiency = this.createTableGauge("PrefetchEfficiency", new Gauge<Double>() {
+         public Double getValue() {
+            return Double.valueOf(TableMetrics.prefetchEfficiency(TableMetrics.this.prefetchedChunks.getCount(), TableMetrics.this.prefetchUnusedChunks.getCount()));
+         }
+      }, new Gauge<Double>() {
+         public Double getValue() {
+            return Double.valueOf(TableMetrics.prefetchEfficiency(TableMetrics.sumCounters("PrefetchedChunks"), TableMetrics.sumCounters("PrefetchUnusedChunks")));
+         }
+      });
       this.viewLockAcquisitionTimeouts = this.createTableCounter("ViewLockAcquisitionTimeouts");
       this.casPrepare = new LatencyMetrics(this.factory, this.aliasFactory, "CasPrepare", new LatencyMetrics[]{cfs.keyspace.metric.casPrepare});
       this.casPropose = new LatencyMetrics(this.factory, this.aliasFactory, "CasPropose", new LatencyMetrics[]{cfs.keyspace.metric.casPropose});
@@ -686,6 +706,23 @@ public class TableMetrics {
       this.shortReadProtectionRequests = CassandraMetricsRegistry.Metrics.meter(this.factory.createMetricName("ShortReadProtectionRequests"));
    }
 
+   private static double prefetchEfficiency(long prefetched, long unused) {
+      return prefetched == 0L?1.0D:(double)Math.max(0L, prefetched - unused) / (double)prefetched;
+   }
+
+   private static long sumCounters(String name) {
+      long total = 0L;
+      Set<Metric> metrics = (Set)allTableMetrics.get(name);
+      if(metrics != null) {
+         Metric metric;
+         for(Iterator var4 = metrics.iterator(); var4.hasNext(); total += ((Counter)metric).getCount()) {
+            metric = (Metric)var4.next();
+         }
+      }
+
+      return total;
+   }
+
    public void updateSSTableIterated(int count) {
       this.sstablesPerReadHistogram.update(count);
    }
@@ -714,6 +751,8 @@ public class TableMetrics {
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("CoordinatorReadLatency"), this.aliasFactory.createMetricName("CoordinatorReadLatency"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("CoordinatorScanLatency"), this.aliasFactory.createMetricName("CoordinatorScanLatency"));
       CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("WaitingOnFreeMemtableSpace"), this.aliasFactory.createMetricName("WaitingOnFreeMemtableSpace"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("FlushBytesPerSecond"), this.aliasFactory.createMetricName("FlushBytesPerSecond"));
+      CassandraMetricsRegistry.Metrics.remove(this.factory.createMetricName("WriteStallTime"), this.aliasFactory.createMetricName("WriteStallTime"));
       this.nodeSyncMetrics.release();
    }
 
@@ -0,0 +1,253 @@
+package org.apache.cassandra.net;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import org.apache.cassandra.io.compress.DeflateCompressor;
+import org.apache.cassandra.io.compress.ICompressor;
+import org.apache.cassandra.io.compress.LZ4Compressor;
+
+public class FrameCompressor {
+   public static final FrameCompressor.Codec CODEC = FrameCompressor.Codec.valueOf(System.getProperty("dse.internode.frame_compression", "none").toUpperCase());
+   public static final int THRESHOLD = Integer.getInteger("dse.internode.frame_compression_threshold", 512).intValue();
+   public static final int MAX_FRAME_SIZE = Integer.getInteger("dse.internode.frame_size_kb", 64).intValue() * 1024;
+   private static final int COMPRESSED_FLAG = -2147483648;
+   private final FrameCompressor.Codec codec;
+   private final ICompressor compressor;
+   private final OutboundTcpConnectionPool pool;
+   private ByteBuffer output;
+
+   public FrameCompressor(FrameCompressor.Codec codec, OutboundTcpConnectionPool pool) {
+      assert codec != FrameCompressor.Codec.NONE;
+
+      this.codec = codec;
+      this.compressor = codec.compressor();
+      this.pool = pool;
+      this.output = ByteBuffer.allocate(8 + this.compressor.initialCompressedBufferLength(MAX_FRAME_SIZE));
+   }
+
+   public FrameCompressor.Codec codec() {
+      return this.codec;
+   }
+
+   public ByteBuffer frame(ByteBuffer input) throws IOException {
+      int length = input.remaining();
+
+      assert length <= MAX_FRAME_SIZE : "Frame too large: " + length;
+
+      this.output.clear();
+      if(length >= THRESHOLD) {
+         long start = System.nanoTime();
+         int mark = input.position();
+         this.output.position(8);
+         this.compressor.compress(input, this.output);
+         int compressedLength = this.output.position() - 8;
+         this.pool.recordFrameCompression(length, Math.min(length, compressedLength), System.nanoTime() - start);
+         if(compressedLength < length) {
+            this.output.putInt(0, compressedLength | COMPRESSED_FLAG);
+            this.output.putInt(4, length);
+            this.output.flip();
+            return this.output;
+         }
+
+         input.position(mark);
+         this.output.clear();
+      }
+
+      this.output.putInt(length);
+      this.output.put(input);
+      this.output.flip();
+      return this.output;
+   }
+
+   public static OutputStream newOutputStream(OutputStream out, FrameCompressor.Codec codec, OutboundTcpConnectionPool pool) {
+      return new FrameCompressor.FramedOutputStream(out, new FrameCompressor(codec, pool));
+   }
+
+   public static InputStream newInputStream(InputStream in, FrameCompressor.Codec codec) {
+      return new FrameCompressor.FramedInputStream(in, codec.compressor());
+   }
+
+   public static enum Codec {
+      NONE(0),
+      LZ4(1),
+      DEFLATE(2);
+
+      public final int code;
+
+      private Codec(int code) {
+         this.code = code;
+      }
+
+      ICompressor compressor() {
+         switch(this) {
+         case LZ4:
+            return LZ4Compressor.create(Collections.emptyMap());
+         case DEFLATE:
+            return DeflateCompressor.instance;
+         default:
+            throw new AssertionError("No compressor for " + this);
+         }
+      }
+
+      public static FrameCompressor.Codec fromCode(int code) {
+         FrameCompressor.Codec[] var1 = values();
+         int var2 = var1.length;
+
+         for(int var3 = 0; var3 < var2; ++var3) {
+            FrameCompressor.Codec codec = var1[var3];
+            if(codec.code == code) {
+               return codec;
+            }
+         }
+
+         throw new IllegalArgumentException("Unknown frame compression codec " + code);
+      }
+   }
+
+   private static class FramedInputStream extends InputStream {
+      private final DataInputStream in;
+      private final ICompressor compressor;
+      private ByteBuffer compressed;
+      private ByteBuffer frame;
+
+      FramedInputStream(InputStream in, ICompressor compressor) {
+         this.in = new DataInputStream(in);
+         this.compressor = compressor;
+         this.compressed = ByteBuffer.allocate(0);
+         this.frame = ByteBuffer.allocate(0);
+      }
+
+      private boolean readFrame() throws IOException {
+         int header;
+         try {
+            header = this.in.readInt();
+         } catch (EOFException var4) {
+            return false;
+         }
+
+         int length = header & 2147483647;
+         if((header & COMPRESSED_FLAG) == 0) {
+            this.frame = ensureCapacity(this.frame, length);
+            this.in.readFully(this.frame.array(), 0, length);
+            this.frame.limit(length);
+         } else {
+            int uncompressedLength = this.in.readInt();
+            this.compressed = ensureCapacity(this.compressed, length);
+            this.in.readFully(this.compressed.array(), 0, length);
+            this.compressed.limit(length);
+            this.frame = ensureCapacity(this.frame, uncompressedLength);
+            this.compressor.uncompress(this.compressed, this.frame);
+            if(this.frame.position() != uncompressedLength) {
+               throw new IOException(String.format("Frame decompressed to %d bytes, expected %d", new Object[]{Integer.valueOf(this.frame.position()), Integer.valueOf(uncompressedLength)}));
+            }
+
+            this.frame.flip();
+         }
+
+         return true;
+      }
+
+      private static ByteBuffer ensureCapacity(ByteBuffer buffer, int length) {
+         ByteBuffer result = buffer.capacity() < length?ByteBuffer.allocate(length):buffer;
+         result.clear();
+         return result;
+      }
+
+      public int read() throws IOException {
+         while(!this.frame.hasRemaining()) {
+            if(!this.readFrame()) {
+               return -1;
+            }
+         }
+
+         return this.frame.get() & 255;
+      }
+
+      public int read(byte[] b, int off, int len) throws IOException {
+         if(len == 0) {
+            return 0;
+         } else {
+            while(!this.frame.hasRemaining()) {
+               if(!this.readFrame()) {
+                  return -1;
+               }
+            }
+
+            int count = Math.min(len, this.frame.remaining());
+            this.frame.get(b, off, count);
+            return count;
+         }
+      }
+
+      public int available() {
+         return this.frame.remaining();
+      }
+
+      public void close() throws IOException {
+         this.in.close();
+      }
+   }
+
+   private static class FramedOutputStream extends OutputStream {
+      private final OutputStream out;
+      private final FrameCompressor compressor;
+      private final ByteBuffer buffer;
+
+      FramedOutputStream(OutputStream out, FrameCompressor compressor) {
+         this.out = out;
+         this.compressor = compressor;
+         this.buffer = ByteBuffer.allocate(FrameCompressor.MAX_FRAME_SIZE);
+      }
+
+      public void write(int b) throws IOException {
+         if(!this.buffer.hasRemaining()) {
+            this.writeFrame();
+         }
+
+         this.buffer.put((byte)b);
+      }
+
+      public void write(byte[] b, int off, int len) throws IOException {
+         int count;
+         for(; len > 0; len -= count) {
+            if(!this.buffer.hasRemaining()) {
+               this.writeFrame();
+            }
+
+            count = Math.min(len, this.buffer.remaining());
+            this.buffer.put(b, off, count);
+            off += count;
+         }
+
+      }
+
+      private void writeFrame() throws IOException {
+         if(this.buffer.position() > 0) {
+            this.buffer.flip();
+            ByteBuffer frame = this.compressor.frame(this.buffer);
+            this.out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            this.buffer.clear();
+         }
+
+      }
+
+      public void flush() throws IOException {
+         this.writeFrame();
+         this.out.flush();
+      }
+
+      public void close() throws IOException {
+         try {
+            this.flush();
+         } finally {
+            this.out.close();
+         }
+
+      }
+   }
+}
@@ -2,6 +2,7 @@ package org.apache.cassandra.net;
 
 import com.google.common.collect.Multimap;
 import io.netty.util.concurrent.FastThreadLocalThread;
+import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.DataInput;
 import java.io.DataOutputStream;
@@ -30,16 +31,18 @@ public class IncomingTcpConnection extends FastThreadLocalThread implements Clos
    private long connectTime = 0L;
    private final ProtocolVersion protocolVersion;
    private final boolean compressed;
+   private final FrameCompressor.Codec frameCodec;
    private final Socket socket;
    private final Multimap<InetAddress, Closeable> group;
    public final InetAddress socketFrom;
    private Message.Serializer messageSerializer;
    public InetAddress snitchFrom;
 
-   public IncomingTcpConnection(ProtocolVersion version, boolean compressed, Socket socket, Multimap<InetAddress, Closeable> group) {
+   public IncomingTcpConnection(ProtocolVersion version, boolean compressed, FrameCompressor.Codec frameCodec, Socket socket, Multimap<InetAddress, Closeable> group) {
       super("MessagingService-Incoming-" + socket.getInetAddress());
       this.protocolVersion = version;
       this.compressed = compressed;
+      this.frameCodec = frameCodec;
       this.socket = socket;
       this.socketFrom = socket.getInetAddress();
       this.group = group;
@@ -122,6 +125,9 @@ public class IncomingTcpConnection extends FastThreadLocalThread implements Clos
          LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
          Checksum checksum = XXHashFactory.fastestInstance().newStreamingHash32(-1756908916).asChecksum();
          in = new DataInputPlus.DataInputStreamPlus(new LZ4BlockInputStream(this.socket.getInputStream(), decompressor, checksum));
+      } else if(this.frameCodec != FrameCompressor.Codec.NONE) {
+         logger.trace("Upgrading incoming connection to use {} frame compression", this.frameCodec);
+         in = new DataInputPlus.DataInputStreamPlus(FrameCompressor.newInputStream(new BufferedInputStream(this.socket.getInputStream(), BUFFER_SIZE), this.frameCodec));
       } else {
          ReadableByteChannel channel = this.socket.getChannel();
          in = new NIODataInputStream((ReadableByteChannel)(channel != null?channel:Channels.newChannel(this.socket.getInputStream())), BUFFER_SIZE);
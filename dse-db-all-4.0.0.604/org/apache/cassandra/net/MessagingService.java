@@ -572,7 +572,7 @@ public final class MessagingService implements MessagingServiceMBean {
       }
    }
 
-   public CompletableFuture<OutboundTcpConnection> getConnection(Message msg) {
+   public CompletableFuture<OutboundConnection> getConnection(Message msg) {
       return this.getConnectionPool(msg.to()).thenApply((cp) -> {
          return cp == null?null:cp.getConnection(msg);
       });
@@ -978,7 +978,7 @@ public final class MessagingService implements MessagingServiceMBean {
 
    static {
       noSpamLogger = NoSpamLogger.getLogger(logger, 1L, TimeUnit.MINUTES);
-      current_version = MessagingVersion.DSE_603;
+      current_version = MessagingVersion.DSE_604;
       idGen = new AtomicInteger(0);
       STARTUP_TIME = System.nanoTime();
    }
@@ -1016,7 +1016,7 @@ public final class MessagingService implements MessagingServiceMBean {
                   ProtocolVersion version = ProtocolVersion.fromProtocolHeader(header);
                   MessagingService.logger.trace("Connection version {} from {}", version, socket.getInetAddress());
                   socket.setSoTimeout(0);
-                  Thread thread = isStream?new IncomingStreamingConnection(version, socket, this.connections):new IncomingTcpConnection(version, MessagingService.getBits(header, 2, 1) == 1, socket, this.connections);
+                  Thread thread = isStream?new IncomingStreamingConnection(version, socket, this.connections):new IncomingTcpConnection(version, MessagingService.getBits(header, 2, 1) == 1, FrameCompressor.Codec.fromCode(MessagingService.getBits(header, 5, 2)), socket, this.connections);
                   ((Thread)thread).start();
                   this.connections.put(socket.getInetAddress(), (Closeable)thread);
                   continue;
@@ -18,7 +18,8 @@ public enum MessagingVersion {
    OSS_3014(ProtocolVersion.oss(11), ReadVerbs.ReadVersion.OSS_3014, WriteVerbs.WriteVersion.OSS_30, LWTVerbs.LWTVersion.OSS_30, HintsVerbs.HintsVersion.OSS_30, OperationsVerbs.OperationsVersion.OSS_30, GossipVerbs.GossipVersion.OSS_30, (RepairVerbs.RepairVersion)null, SchemaVerbs.SchemaVersion.OSS_30, (AuthVerbs.AuthVersion)null, (NodeSyncVerbs.NodeSyncVersion)null),
    OSS_40(ProtocolVersion.oss(12), ReadVerbs.ReadVersion.OSS_40, WriteVerbs.WriteVersion.OSS_30, LWTVerbs.LWTVersion.OSS_30, HintsVerbs.HintsVersion.OSS_30, OperationsVerbs.OperationsVersion.OSS_30, GossipVerbs.GossipVersion.OSS_30, RepairVerbs.RepairVersion.OSS_40, SchemaVerbs.SchemaVersion.OSS_30, (AuthVerbs.AuthVersion)null, (NodeSyncVerbs.NodeSyncVersion)null),
    DSE_60(ProtocolVersion.dse(1), ReadVerbs.ReadVersion.DSE_60, WriteVerbs.WriteVersion.OSS_30, LWTVerbs.LWTVersion.OSS_30, HintsVerbs.HintsVersion.OSS_30, OperationsVerbs.OperationsVersion.DSE_60, GossipVerbs.GossipVersion.OSS_30, RepairVerbs.RepairVersion.DSE_60, SchemaVerbs.SchemaVersion.OSS_30, AuthVerbs.AuthVersion.DSE_60, (NodeSyncVerbs.NodeSyncVersion)null),
-   DSE_603(ProtocolVersion.dse(2), ReadVerbs.ReadVersion.DSE_60, WriteVerbs.WriteVersion.OSS_30, LWTVerbs.LWTVersion.OSS_30, HintsVerbs.HintsVersion.OSS_30, OperationsVerbs.OperationsVersion.DSE_60, GossipVerbs.GossipVersion.OSS_30, RepairVerbs.RepairVersion.DSE_60, SchemaVerbs.SchemaVersion.DSE_603, AuthVerbs.AuthVersion.DSE_60, NodeSyncVerbs.NodeSyncVersion.DSE_603);
+   DSE_603(ProtocolVersion.dse(2), ReadVerbs.ReadVersion.DSE_60, WriteVerbs.WriteVersion.OSS_30, LWTVerbs.LWTVersion.OSS_30, HintsVerbs.HintsVersion.OSS_30, OperationsVerbs.OperationsVersion.DSE_60, GossipVerbs.GossipVersion.OSS_30, RepairVerbs.RepairVersion.DSE_60, SchemaVerbs.SchemaVersion.DSE_603, AuthVerbs.AuthVersion.DSE_60, NodeSyncVerbs.NodeSyncVersion.DSE_603),
+   DSE_604(ProtocolVersion.dse(3), ReadVerbs.ReadVersion.DSE_60, WriteVerbs.WriteVersion.OSS_30, LWTVerbs.LWTVersion.OSS_30, HintsVerbs.HintsVersion.OSS_30, OperationsVerbs.OperationsVersion.DSE_60, GossipVerbs.GossipVersion.OSS_30, RepairVerbs.RepairVersion.DSE_60, SchemaVerbs.SchemaVersion.DSE_603, AuthVerbs.AuthVersion.DSE_60, NodeSyncVerbs.NodeSyncVersion.DSE_603);
 
    private final ProtocolVersion protocolVersion;
    private final EnumMap<Verbs.Group, Version<?>> groupVersions;
@@ -0,0 +1,556 @@
+package org.apache.cassandra.net;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.compression.Lz4FrameEncoder;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+import org.apache.cassandra.concurrent.TPC;
+import org.apache.cassandra.concurrent.TPCEventLoop;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.monitoring.ApproximateTime;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.io.util.DataOutputBufferFixed;
+import org.apache.cassandra.tracing.Tracing;
+import org.apache.cassandra.transport.CBUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+import org.apache.cassandra.utils.NoSpamLogger;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpscGrowableArrayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class NettyOutboundConnection implements OutboundConnection {
+   private static final Logger logger = LoggerFactory.getLogger(NettyOutboundConnection.class);
+   private static final NoSpamLogger nospamLogger;
+   public static final boolean ENABLED = Boolean.getBoolean("dse.internode.netty.enabled");
+   private static final int HIGH_WATER_MARK = Integer.getInteger("dse.internode.netty.high_water_mark_kb", 1024).intValue() * 1024;
+   private static final int LOW_WATER_MARK;
+   private static final int LZ4_BLOCK_SIZE = 16384;
+   private final OutboundTcpConnectionPool poolReference;
+   private final String name;
+   private final boolean isGossip;
+   private final int maxBackLogSize;
+   private final TPCEventLoop eventLoop;
+   private final MessagePassingQueue<NettyOutboundConnection.Frame> backlog;
+   private final AtomicInteger numBacklogMessages;
+   private final AtomicBoolean drainScheduled;
+   private final AtomicLong dropped;
+   private volatile long completed;
+   private volatile boolean isStopped;
+   private volatile Channel channel;
+   private volatile Message.Serializer messageSerializer;
+   private boolean connecting;
+   private boolean retryScheduled;
+   private long connectStartNanos;
+   private int generation;
+
+   public NettyOutboundConnection(OutboundTcpConnectionPool pool, Message.Kind kind) {
+      this.poolReference = pool;
+      this.name = kind.toString();
+      this.isGossip = kind == Message.Kind.GOSSIP;
+      this.maxBackLogSize = OutboundTcpConnection.getMaxBackLogSize(kind);
+      this.eventLoop = (TPCEventLoop)TPC.eventLoopGroup().eventLoops().get(TPC.getNextCore());
+      this.backlog = new MpscGrowableArrayQueue(4096, 1073741824);
+      this.numBacklogMessages = new AtomicInteger(0);
+      this.drainScheduled = new AtomicBoolean();
+      this.dropped = new AtomicLong();
+   }
+
+   public boolean enqueue(Message message) {
+      if(this.isStopped) {
+         return false;
+      } else if(message.isDroppable() && this.numBacklogMessages.get() >= this.maxBackLogSize) {
+         return false;
+      } else {
+         NettyOutboundConnection.Frame frame = new NettyOutboundConnection.Frame(message);
+         Message.Serializer serializer = this.messageSerializer;
+         if(serializer != null && message != Message.CLOSE_SENTINEL) {
+            frame.tryEncode(serializer);
+         }
+
+         boolean ret = this.backlog.relaxedOffer(frame);
+
+         assert ret : String.format("Dropped a message that should not have been dropped: %s, kind: %s", new Object[]{message.toString(), message.kind()});
+
+         this.numBacklogMessages.incrementAndGet();
+         this.scheduleDrain();
+         return ret;
+      }
+   }
+
+   private void scheduleDrain() {
+      if(this.drainScheduled.compareAndSet(false, true)) {
+         this.eventLoop.execute(this::drain);
+      }
+
+   }
+
+   private void drain() {
+      this.drainScheduled.set(false);
+      if(this.isStopped) {
+         this.dropBacklog();
+         this.disconnect();
+      } else if(this.channel == null) {
+         if(!this.backlog.isEmpty()) {
+            this.maybeConnect();
+         }
+
+      } else {
+         int written = 0;
+
+         while(written < OutboundTcpConnection.MAX_COALESCED_MESSAGES && this.channel != null && this.channel.isWritable()) {
+            NettyOutboundConnection.Frame frame = (NettyOutboundConnection.Frame)this.backlog.relaxedPoll();
+            if(frame == null) {
+               break;
+            }
+
+            this.numBacklogMessages.decrementAndGet();
+            if(frame.message == Message.CLOSE_SENTINEL) {
+               logger.trace("Disconnecting because CLOSE_SENTINEL detected");
+               this.disconnect();
+               written = 0;
+            } else if(frame.message.isTimedOut(ApproximateTime.currentTimeMillis())) {
+               frame.release();
+               this.dropped.incrementAndGet();
+            } else {
+               this.write(frame);
+               ++written;
+            }
+         }
+
+         if(written > 0) {
+            this.channel.flush();
+         }
+
+         if(!this.backlog.isEmpty() && (this.channel == null || this.channel.isWritable())) {
+            this.scheduleDrain();
+         }
+
+      }
+   }
+
+   private void write(NettyOutboundConnection.Frame frame) {
+      try {
+         ByteBuf buffer = frame.take(this.messageSerializer);
+         Tracing.instance.onMessageSend(frame.message, frame.size);
+         this.channel.write(buffer, this.channel.voidPromise());
+         ++this.completed;
+      } catch (Throwable var3) {
+         frame.release();
+         JVMStabilityInspector.inspectThrowable(var3);
+         logger.error("error writing to {}", this.poolReference.endPoint(), var3);
+      }
+
+   }
+
+   private int dropBacklog() {
+      int drained = this.backlog.drain((frame) -> {
+         frame.release();
+      });
+      this.numBacklogMessages.addAndGet(-drained);
+      return drained;
+   }
+
+   private void disconnect() {
+      Channel current = this.channel;
+      if(current != null) {
+         this.channel = null;
+         current.flush();
+         current.close();
+         logger.debug("Channel to {} closed", this.poolReference.endPoint());
+      }
+
+   }
+
+   private void maybeConnect() {
+      if(!this.connecting && !this.retryScheduled) {
+         InetAddress endpoint = this.poolReference.endPoint();
+         if(!DatabaseDescriptor.getInternodeAuthenticator().authenticate(endpoint, OutboundTcpConnectionPool.portFor(endpoint))) {
+            logger.warn("Internode auth failed connecting to {}", endpoint);
+            this.dropped.addAndGet((long)this.dropBacklog());
+            MessagingService.instance().destroyConnectionPool(endpoint);
+         } else {
+            logger.debug("Attempting to connect to {}", endpoint);
+            this.connecting = true;
+            if(this.connectStartNanos == 0L) {
+               this.connectStartNanos = System.nanoTime();
+            }
+
+            MessagingVersion targetVersion = (MessagingVersion)MessagingService.instance().getVersion(endpoint).orElse(MessagingService.current_version);
+            FrameCompressor.Codec frameCodec = OutboundTcpConnection.shouldCompressConnection(endpoint)?FrameCompressor.CODEC:FrameCompressor.Codec.NONE;
+            boolean compress = frameCodec == FrameCompressor.Codec.NONE && OutboundTcpConnection.shouldCompressConnection(endpoint);
+            boolean tcpNoDelay = !OutboundTcpConnection.isLocalDC(endpoint) && !this.isGossip?DatabaseDescriptor.getInterDCTcpNoDelay():OutboundTcpConnection.INTRADC_TCP_NODELAY;
+            Bootstrap bootstrap = (Bootstrap)((Bootstrap)((Bootstrap)((Bootstrap)((Bootstrap)((Bootstrap)((Bootstrap)(new Bootstrap()).group(this.eventLoop)).channel(TPC.USE_EPOLL?EpollSocketChannel.class:NioSocketChannel.class)).option(ChannelOption.SO_KEEPALIVE, Boolean.valueOf(true))).option(ChannelOption.TCP_NODELAY, Boolean.valueOf(tcpNoDelay))).option(ChannelOption.ALLOCATOR, CBUtil.allocator)).option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(LOW_WATER_MARK, HIGH_WATER_MARK))).handler(new NettyOutboundConnection.Handler(endpoint, targetVersion, compress, frameCodec, this.generation));
+            if(DatabaseDescriptor.getInternodeSendBufferSize() > 0) {
+               bootstrap.option(ChannelOption.SO_SNDBUF, Integer.valueOf(DatabaseDescriptor.getInternodeSendBufferSize()));
+            }
+
+            bootstrap.connect(new InetSocketAddress(endpoint, DatabaseDescriptor.getStoragePort())).addListener((future) -> {
+               if(!future.isSuccess()) {
+                  this.connecting = false;
+                  nospamLogger.debug(String.format("Unable to connect to %s (%s)", new Object[]{endpoint, future.cause()}), new Object[0]);
+                  this.retryConnect();
+               }
+
+            });
+         }
+      }
+   }
+
+   private void retryConnect() {
+      if(this.backlog.isEmpty()) {
+         this.connectStartNanos = 0L;
+      } else if(System.nanoTime() - this.connectStartNanos >= TimeUnit.MILLISECONDS.toNanos(DatabaseDescriptor.getRpcTimeout())) {
+         this.connectStartNanos = 0L;
+         this.dropped.addAndGet((long)this.dropBacklog());
+      } else {
+         this.retryScheduled = true;
+         this.eventLoop.schedule(() -> {
+            this.retryScheduled = false;
+            this.drain();
+         }, 100L, TimeUnit.MILLISECONDS);
+      }
+
+   }
+
+   private void onConnected(Channel connected, Message.Serializer serializer, int generation) {
+      if(this.isStopped || generation != this.generation) {
+         this.connecting = false;
+         connected.close();
+         logger.debug("Discarding connection to {} established before the socket was closed", this.poolReference.endPoint());
+         if(!this.isStopped && !this.backlog.isEmpty()) {
+            this.scheduleDrain();
+         }
+
+      } else {
+         this.onConnected(connected, serializer);
+      }
+   }
+
+   private void onConnected(Channel connected, Message.Serializer serializer) {
+      this.messageSerializer = serializer;
+      this.channel = connected;
+      this.connecting = false;
+      this.connectStartNanos = 0L;
+      logger.debug("Done connecting to {}", this.poolReference.endPoint());
+      this.scheduleDrain();
+   }
+
+   private void onDisconnected(Channel disconnected) {
+      if(this.channel == disconnected) {
+         this.channel = null;
+         this.scheduleDrain();
+      } else if(this.connecting) {
+         this.connecting = false;
+         this.retryConnect();
+      }
+
+   }
+
+   public void closeSocket(boolean destroyThread) {
+      logger.debug("Enqueuing socket close for {} with backlog size: {}", this.poolReference.endPoint(), this.numBacklogMessages);
+      this.isStopped = destroyThread;
+      this.eventLoop.execute(() -> {
+         ++this.generation;
+         this.dropBacklog();
+         this.disconnect();
+      });
+   }
+
+   public void softCloseSocket() {
+      this.enqueue(Message.CLOSE_SENTINEL);
+   }
+
+   public void start() {
+   }
+
+   public boolean isSocketOpen() {
+      Channel current = this.channel;
+      return current != null && current.isActive();
+   }
+
+   public int getPendingMessages() {
+      return this.numBacklogMessages.get();
+   }
+
+   public long getCompletedMesssages() {
+      return this.completed;
+   }
+
+   public long getDroppedMessages() {
+      return this.dropped.get();
+   }
+
+   public String toString() {
+      return "MessagingService-Outgoing-" + this.poolReference.endPoint() + "-" + this.name;
+   }
+
+   static {
+      nospamLogger = NoSpamLogger.getLogger(logger, 10L, TimeUnit.SECONDS);
+      LOW_WATER_MARK = HIGH_WATER_MARK / 2;
+   }
+
+   private class Handler extends ChannelInboundHandlerAdapter {
+      private final InetAddress endpoint;
+      private final MessagingVersion targetVersion;
+      private final boolean compress;
+      private final FrameCompressor.Codec frameCodec;
+      private final int generation;
+      private int maxVersion;
+      private int versionBytesRead;
+
+      Handler(InetAddress endpoint, MessagingVersion targetVersion, boolean compress, FrameCompressor.Codec frameCodec, int generation) {
+         this.endpoint = endpoint;
+         this.targetVersion = targetVersion;
+         this.compress = compress;
+         this.frameCodec = frameCodec;
+         this.generation = generation;
+      }
+
+      public void channelActive(ChannelHandlerContext ctx) throws Exception {
+         ByteBuf header = ctx.alloc().buffer(8);
+         header.writeInt(-900387334);
+         header.writeInt(this.targetVersion.protocolVersion().makeProtocolHeader(this.compress, false, this.frameCodec));
+         ctx.writeAndFlush(header);
+         ctx.executor().schedule(() -> {
+            if(this.versionBytesRead < 4) {
+               logger.trace("No version received from {} in time, will retry", this.endpoint);
+               ctx.close();
+            }
+
+         }, 5000L, TimeUnit.MILLISECONDS);
+         super.channelActive(ctx);
+      }
+
+      public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+         ByteBuf in = (ByteBuf)msg;
+
+         try {
+            while(this.versionBytesRead < 4 && in.isReadable()) {
+               this.maxVersion = this.maxVersion << 8 | in.readUnsignedByte();
+               if(++this.versionBytesRead == 4) {
+                  this.handshake(ctx);
+               }
+            }
+         } finally {
+            in.release();
+         }
+
+      }
+
+      private void handshake(ChannelHandlerContext ctx) throws IOException {
+         ProtocolVersion targetProtocolVersion = this.targetVersion.protocolVersion();
+         ProtocolVersion maxTargetVersion = ProtocolVersion.fromHandshakeVersion(this.maxVersion);
+         if(maxTargetVersion == null) {
+            logger.trace("Target max version is {}; no version information yet, will retry", maxTargetVersion);
+            ctx.close();
+         } else {
+            MessagingService.instance().setVersion(this.endpoint, MessagingVersion.from(maxTargetVersion));
+            if(targetProtocolVersion.compareTo(maxTargetVersion) > 0) {
+               logger.trace("Target max version is {}; will reconnect with that version", maxTargetVersion);
+               ctx.close();
+            } else {
+               if(targetProtocolVersion.compareTo(maxTargetVersion) < 0 && this.targetVersion != MessagingService.current_version) {
+                  logger.trace("Detected higher max version {} (using {}); will reconnect when queued messages are done", maxTargetVersion, targetProtocolVersion);
+                  NettyOutboundConnection.this.softCloseSocket();
+               }
+
+               long baseTimestampMillis = System.currentTimeMillis();
+               Message.Serializer serializer = Message.createSerializer(this.targetVersion, baseTimestampMillis);
+               DataOutputBuffer out = new DataOutputBuffer();
+               Throwable var8 = null;
+
+               try {
+                  out.writeInt(MessagingService.current_version.protocolVersion().handshakeVersion);
+                  CompactEndpointSerializationHelper.serialize(FBUtilities.getBroadcastAddress(), out);
+                  if(this.targetVersion.isDSE()) {
+                     MessageParameters connectionParameters = MessageParameters.builder().putLong("BASE_TIMESTAMP", baseTimestampMillis).build();
+                     MessageParameters.serializer().serialize(connectionParameters, out);
+                  }
+
+                  ctx.writeAndFlush(Unpooled.wrappedBuffer(out.buffer()));
+               } catch (Throwable var17) {
+                  var8 = var17;
+                  throw var17;
+               } finally {
+                  if(var8 != null) {
+                     try {
+                        out.close();
+                     } catch (Throwable var16) {
+                        var8.addSuppressed(var16);
+                     }
+                  } else {
+                     out.close();
+                  }
+
+               }
+
+               if(this.frameCodec != FrameCompressor.Codec.NONE) {
+                  logger.trace("Upgrading channel to {} to {} frame compression", this.endpoint, this.frameCodec);
+                  ctx.pipeline().addLast(new NettyOutboundConnection.FrameEncoder(new FrameCompressor(this.frameCodec, NettyOutboundConnection.this.poolReference)));
+               } else if(this.compress) {
+                  logger.trace("Upgrading channel to {} to be compressed", this.endpoint);
+                  ctx.pipeline().addLast(new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, LZ4_BLOCK_SIZE, XXHashFactory.fastestInstance().newStreamingHash32(-1756908916).asChecksum()));
+               }
+
+               NettyOutboundConnection.this.onConnected(ctx.channel(), serializer, this.generation);
+            }
+         }
+      }
+
+      public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+         if(ctx.channel().isWritable()) {
+            NettyOutboundConnection.this.scheduleDrain();
+         }
+
+         super.channelWritabilityChanged(ctx);
+      }
+
+      public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+         NettyOutboundConnection.this.onDisconnected(ctx.channel());
+         super.channelInactive(ctx);
+      }
+
+      public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+         JVMStabilityInspector.inspectThrowable(cause);
+         if(!(cause instanceof IOException) && !(cause.getCause() instanceof IOException)) {
+            logger.error("error writing to {}", this.endpoint, cause);
+         } else {
+            logger.debug("Error writing to {}", this.endpoint, cause);
+         }
+
+         ctx.close();
+      }
+   }
+
+   private static class FrameEncoder extends ChannelOutboundHandlerAdapter {
+      private final FrameCompressor compressor;
+      private final ByteBuffer pending;
+
+      FrameEncoder(FrameCompressor compressor) {
+         this.compressor = compressor;
+         this.pending = ByteBuffer.allocate(FrameCompressor.MAX_FRAME_SIZE);
+      }
+
+      public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+         ByteBuf in = (ByteBuf)msg;
+
+         try {
+            while(in.isReadable()) {
+               if(!this.pending.hasRemaining()) {
+                  this.writeFrame(ctx);
+               }
+
+               int count = Math.min(in.readableBytes(), this.pending.remaining());
+               in.readBytes(this.pending.array(), this.pending.arrayOffset() + this.pending.position(), count);
+               this.pending.position(this.pending.position() + count);
+            }
+         } finally {
+            in.release();
+         }
+
+         promise.trySuccess();
+      }
+
+      public void flush(ChannelHandlerContext ctx) throws Exception {
+         this.writeFrame(ctx);
+         ctx.flush();
+      }
+
+      private void writeFrame(ChannelHandlerContext ctx) throws IOException {
+         if(this.pending.position() > 0) {
+            this.pending.flip();
+            ByteBuffer frame = this.compressor.frame(this.pending);
+            ByteBuf out = ctx.alloc().buffer(frame.remaining());
+            out.writeBytes(frame);
+            ctx.write(out, ctx.voidPromise());
+            this.pending.clear();
+         }
+
+      }
+   }
+
+   private static class Frame {
+      final Message message;
+      int size;
+      private Message.Serializer serializer;
+      private ByteBuf buffer;
+
+      Frame(Message message) {
+         this.message = message;
+      }
+
+      void tryEncode(Message.Serializer serializer) {
+         try {
+            this.encode(serializer);
+         } catch (Throwable var3) {
+            JVMStabilityInspector.inspectThrowable(var3);
+            this.release();
+         }
+
+      }
+
+      private void encode(Message.Serializer serializer) throws IOException {
+         long serializedSize = serializer.serializedSize(this.message);
+
+         assert serializedSize <= 2147483643L : "Invalid message, too large: " + serializedSize;
+
+         int messageSize = (int)serializedSize;
+         ByteBuf frame = CBUtil.allocator.directBuffer(messageSize + 4);
+
+         try {
+            ByteBuffer target = frame.nioBuffer(0, messageSize + 4);
+            DataOutputBufferFixed out = new DataOutputBufferFixed(target);
+            serializer.writeSerializedSize(messageSize, out);
+            serializer.serialize(this.message, out);
+            frame.writerIndex(target.position());
+         } catch (Throwable var8) {
+            frame.release();
+            throw var8;
+         }
+
+         this.size = messageSize;
+         this.serializer = serializer;
+         this.buffer = frame;
+      }
+
+      ByteBuf take(Message.Serializer serializer) throws IOException {
+         if(this.buffer == null || this.serializer != serializer) {
+            this.release();
+            this.encode(serializer);
+         }
+
+         ByteBuf frame = this.buffer;
+         this.buffer = null;
+         return frame;
+      }
+
+      void release() {
+         if(this.buffer != null) {
+            this.buffer.release();
+            this.buffer = null;
+         }
+
+      }
+   }
+}
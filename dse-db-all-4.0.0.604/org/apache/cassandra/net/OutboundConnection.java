@@ -0,0 +1,19 @@
+package org.apache.cassandra.net;
+
+public interface OutboundConnection {
+   boolean enqueue(Message var1);
+
+   void closeSocket(boolean var1);
+
+   void softCloseSocket();
+
+   void start();
+
+   boolean isSocketOpen();
+
+   int getPendingMessages();
+
+   long getCompletedMesssages();
+
+   long getDroppedMessages();
+}
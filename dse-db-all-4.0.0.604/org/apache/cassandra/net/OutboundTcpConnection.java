@@ -41,12 +41,12 @@ import org.jctools.queues.MessagePassingQueue.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class OutboundTcpConnection extends FastThreadLocalThread implements ParkedThreadsMonitor.MonitorableThread {
+public class OutboundTcpConnection extends FastThreadLocalThread implements ParkedThreadsMonitor.MonitorableThread, OutboundConnection {
    private static final Logger logger = LoggerFactory.getLogger(OutboundTcpConnection.class);
    private static final NoSpamLogger nospamLogger;
    private static final String PREFIX = "cassandra.";
    private static final String INTRADC_TCP_NODELAY_PROPERTY = "cassandra.otc_intradc_tcp_nodelay";
-   private static final boolean INTRADC_TCP_NODELAY;
+   static final boolean INTRADC_TCP_NODELAY;
    private static final String BUFFER_SIZE_PROPERTY = "cassandra.otc_buffer_size";
    private static final int BUFFER_SIZE;
    public static final int MAX_COALESCED_MESSAGES = 128;
@@ -72,7 +72,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread implements Park
    private volatile MessagingVersion targetVersion;
    private volatile Message.Serializer messageSerializer;
 
-   private static int getMaxBackLogSize(Message.Kind kind) {
+   static int getMaxBackLogSize(Message.Kind kind) {
       switch (kind) {
          case GOSSIP: {
             return Integer.MAX_VALUE;
@@ -111,7 +111,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread implements Park
       this.targetVersion = (MessagingVersion)MessagingService.instance().getVersion(pool.endPoint()).orElse(MessagingService.current_version);
    }
 
-   private static boolean isLocalDC(InetAddress targetHost) {
+   static boolean isLocalDC(InetAddress targetHost) {
       return isLocalDC(DatabaseDescriptor.getEndpointSnitch().getDatacenter(targetHost));
    }
 
@@ -136,7 +136,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread implements Park
       }
    }
 
-   void closeSocket(boolean destroyThread) {
+   public void closeSocket(boolean destroyThread) {
       logger.debug("Enqueuing socket close for {} with backlog size: {}", this.poolReference.endPoint(), this.numBacklogMessages);
       this.isStopped = destroyThread;
       int drained = this.backlog.drain((msg) -> {
@@ -145,7 +145,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread implements Park
       this.enqueue(Message.CLOSE_SENTINEL);
    }
 
-   void softCloseSocket() {
+   public void softCloseSocket() {
       this.enqueue(Message.CLOSE_SENTINEL);
    }
 
@@ -237,7 +237,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread implements Park
       return this.dropped.get();
    }
 
-   private static boolean shouldCompressConnection(InetAddress endpoint) {
+   static boolean shouldCompressConnection(InetAddress endpoint) {
       switch (DatabaseDescriptor.internodeCompression()) {
          case none: {
             return false;
@@ -366,9 +366,10 @@ public class OutboundTcpConnection extends FastThreadLocalThread implements Park
                   WritableByteChannel ch = this.socket.getChannel();
                   this.out = new BufferedDataOutputStreamPlus((WritableByteChannel)(ch != null?ch:Channels.newChannel(this.socket.getOutputStream())), BUFFER_SIZE);
                   ProtocolVersion targetProtocolVersion = this.targetVersion.protocolVersion();
-                  boolean compress = shouldCompressConnection(this.poolReference.endPoint());
+                  FrameCompressor.Codec frameCodec = shouldCompressConnection(this.poolReference.endPoint())?FrameCompressor.CODEC:FrameCompressor.Codec.NONE;
+                  boolean compress = frameCodec == FrameCompressor.Codec.NONE && shouldCompressConnection(this.poolReference.endPoint());
                   this.out.writeInt(-900387334);
-                  this.out.writeInt(targetProtocolVersion.makeProtocolHeader(compress, false));
+                  this.out.writeInt(targetProtocolVersion.makeProtocolHeader(compress, false, frameCodec));
                   this.out.flush();
                   DataInputStream in = new DataInputStream(this.socket.getInputStream());
                   ProtocolVersion maxTargetVersion = this.handshakeVersion(this.socket, in);
@@ -415,6 +416,10 @@ public class OutboundTcpConnection extends FastThreadLocalThread implements Park
                      LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
                      Checksum checksum = XXHashFactory.fastestInstance().newStreamingHash32(-1756908916).asChecksum();
                      this.out = new WrappedDataOutputStreamPlus(new LZ4BlockOutputStream(this.socket.getOutputStream(), 16384, compressor, checksum, true));
+                  } else if(frameCodec != FrameCompressor.Codec.NONE) {
+                     this.out.flush();
+                     logger.trace("Upgrading OutputStream to {} to use {} frame compression", endpoint, frameCodec);
+                     this.out = new WrappedDataOutputStreamPlus(FrameCompressor.newOutputStream(this.socket.getOutputStream(), frameCodec, this.poolReference));
                   }
 
                   logger.debug("Done connecting to {}", endpoint);
@@ -22,9 +22,9 @@ public class OutboundTcpConnectionPool {
    public static final long LARGE_MESSAGE_THRESHOLD = Long.getLong("cassandra.otcp_large_message_threshold", 65536L).longValue();
    private final InetAddress id;
    private final CountDownLatch started;
-   private final EnumMap<Message.Kind, OutboundTcpConnection> connectionByKind;
+   private final EnumMap<Message.Kind, OutboundConnection> connectionByKind;
    private InetAddress resetEndpoint;
-   private ConnectionMetrics metrics;
+   private volatile ConnectionMetrics metrics;
    private final BackPressureState backPressureState;
 
    OutboundTcpConnectionPool(InetAddress remoteEp, InetAddress preferredIp, BackPressureState backPressureState) {
@@ -37,30 +37,30 @@ public class OutboundTcpConnectionPool {
 
       for(int var6 = 0; var6 < var5; ++var6) {
          Message.Kind kind = var4[var6];
-         this.connectionByKind.put(kind, new OutboundTcpConnection(this, kind));
+         this.connectionByKind.put(kind, (OutboundConnection)(NettyOutboundConnection.ENABLED && !isEncryptedChannel(this.endPoint())?new NettyOutboundConnection(this, kind):new OutboundTcpConnection(this, kind)));
       }
 
       this.backPressureState = backPressureState;
    }
 
-   OutboundTcpConnection getConnection(Message msg) {
-      return (OutboundTcpConnection)this.connectionByKind.get(msg.kind());
+   OutboundConnection getConnection(Message msg) {
+      return (OutboundConnection)this.connectionByKind.get(msg.kind());
    }
 
    public BackPressureState getBackPressureState() {
       return this.backPressureState;
    }
 
-   public OutboundTcpConnection large() {
-      return (OutboundTcpConnection)this.connectionByKind.get(Message.Kind.LARGE);
+   public OutboundConnection large() {
+      return (OutboundConnection)this.connectionByKind.get(Message.Kind.LARGE);
    }
 
-   public OutboundTcpConnection small() {
-      return (OutboundTcpConnection)this.connectionByKind.get(Message.Kind.SMALL);
+   public OutboundConnection small() {
+      return (OutboundConnection)this.connectionByKind.get(Message.Kind.SMALL);
    }
 
-   public OutboundTcpConnection gossip() {
-      return (OutboundTcpConnection)this.connectionByKind.get(Message.Kind.GOSSIP);
+   public OutboundConnection gossip() {
+      return (OutboundConnection)this.connectionByKind.get(Message.Kind.GOSSIP);
    }
 
    void reset() {
@@ -68,7 +68,7 @@ public class OutboundTcpConnectionPool {
       Iterator var1 = this.connectionByKind.values().iterator();
 
       while(var1.hasNext()) {
-         OutboundTcpConnection conn = (OutboundTcpConnection)var1.next();
+         OutboundConnection conn = (OutboundConnection)var1.next();
          conn.closeSocket(false);
       }
 
@@ -79,7 +79,7 @@ public class OutboundTcpConnectionPool {
       Iterator var1 = this.connectionByKind.values().iterator();
 
       while(var1.hasNext()) {
-         OutboundTcpConnection conn = (OutboundTcpConnection)var1.next();
+         OutboundConnection conn = (OutboundConnection)var1.next();
          conn.softCloseSocket();
       }
 
@@ -91,7 +91,7 @@ public class OutboundTcpConnectionPool {
       Iterator var2 = this.connectionByKind.values().iterator();
 
       while(var2.hasNext()) {
-         OutboundTcpConnection conn = (OutboundTcpConnection)var2.next();
+         OutboundConnection conn = (OutboundConnection)var2.next();
          conn.softCloseSocket();
       }
 
@@ -99,6 +99,16 @@ public class OutboundTcpConnectionPool {
       this.metrics = new ConnectionMetrics(this.resetEndpoint, this);
    }
 
+   public void recordFrameCompression(int uncompressedBytes, int compressedBytes, long nanos) {
+      ConnectionMetrics current = this.metrics;
+      if(current != null) {
+         current.frameBytesUncompressed.inc((long)uncompressedBytes);
+         current.frameBytesCompressed.inc((long)compressedBytes);
+         current.frameCompressionNanos.inc(nanos);
+      }
+
+   }
+
    public long getTimeouts() {
       return this.metrics.timeouts.getCount();
    }
@@ -155,7 +165,7 @@ public class OutboundTcpConnectionPool {
       Iterator var1 = this.connectionByKind.values().iterator();
 
       while(var1.hasNext()) {
-         OutboundTcpConnection connection = (OutboundTcpConnection)var1.next();
+         OutboundConnection connection = (OutboundConnection)var1.next();
          connection.start();
       }
 
@@ -190,7 +200,7 @@ public class OutboundTcpConnectionPool {
       Iterator var1 = this.connectionByKind.values().iterator();
 
       while(var1.hasNext()) {
-         OutboundTcpConnection connection = (OutboundTcpConnection)var1.next();
+         OutboundConnection connection = (OutboundConnection)var1.next();
          connection.closeSocket(true);
       }
 
@@ -28,7 +28,11 @@ public class ProtocolVersion implements Comparable<ProtocolVersion> {
    }
 
    public int makeProtocolHeader(boolean compressionEnabled, boolean isStream) {
-      int header = this.rawHeader;
+      return this.makeProtocolHeader(compressionEnabled, isStream, FrameCompressor.Codec.NONE);
+   }
+
+   public int makeProtocolHeader(boolean compressionEnabled, boolean isStream, FrameCompressor.Codec frameCodec) {
+      int header = this.rawHeader | frameCodec.code << 4;
       if(compressionEnabled) {
          header |= 4;
       }
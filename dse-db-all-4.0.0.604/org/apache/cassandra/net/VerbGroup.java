@@ -287,6 +287,11 @@ public abstract class VerbGroup<V extends Enum<V> & Version<V>> implements Itera
             return this.us();
          }
 
+         public T requestExecutor(ExecutorSupplier<P> requestExecutor) {
+            this.requestExecutor = requestExecutor;
+            return this.us();
+         }
+
          public T responseExecutor(ExecutorSupplier<P> responseExecutor) {
             this.responseExecutor = responseExecutor;
             return this.us();
@@ -6,6 +6,8 @@ import com.datastax.bdp.db.nodesync.UserValidationProposer;
 import com.datastax.bdp.db.nodesync.ValidationInfo;
 import com.datastax.bdp.db.nodesync.ValidationMetrics;
 import com.datastax.bdp.db.nodesync.ValidationOutcome;
+import com.datastax.bdp.db.upgrade.SchemaUpgrade;
+import com.datastax.bdp.db.upgrade.VersionDependentFeature;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -16,6 +18,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -26,6 +29,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -42,6 +46,9 @@ import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.exceptions.RequestTimeoutException;
 import org.apache.cassandra.exceptions.UnavailableException;
+import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.net.MessagingVersion;
 import org.apache.cassandra.repair.messages.RepairOption;
 import org.apache.cassandra.schema.Functions;
 import org.apache.cassandra.schema.KeyspaceMetadata;
@@ -52,6 +59,7 @@ import org.apache.cassandra.schema.Tables;
 import org.apache.cassandra.schema.Types;
 import org.apache.cassandra.schema.Views;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.CassandraVersion;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.NoSpamLogger;
 import org.apache.cassandra.utils.Throwables;
@@ -75,6 +83,9 @@ public final class SystemDistributedKeyspace {
    public static final UserType NodeSyncValidation;
    private static final String tokenType;
    private static final TableMetadata NodeSyncStatus;
+   private static final TableMetadata NodeSyncStatusWithDataWatermark;
+   private static final VersionDependentFeature<SystemDistributedKeyspace.NodeSyncStatusColumns> nodeSyncDataWatermarkFeature;
+   private static final AtomicBoolean nodeSyncDataWatermarkSetup = new AtomicBoolean();
    public static final UserType NodeSyncMetrics;
    private static final TableMetadata NodeSyncUserValidations;
 
@@ -97,6 +108,33 @@ public final class SystemDistributedKeyspace {
       return KeyspaceMetadata.create("system_distributed", KeyspaceParams.simple(3), Tables.of(new TableMetadata[]{RepairHistory, ParentRepairHistory, ViewBuildStatus, NodeSyncStatus, NodeSyncUserValidations}), Views.none(), types(), Functions.none());
    }
 
+   public static void setupNodeSyncDataWatermarks() {
+      if(!nodeSyncDataWatermarkSetup.get() && allEndpointsSupportDataWatermarks() && nodeSyncDataWatermarkSetup.compareAndSet(false, true)) {
+         nodeSyncDataWatermarkFeature.setup(Gossiper.instance.clusterVersionBarrier);
+      }
+
+   }
+
+   private static boolean allEndpointsSupportDataWatermarks() {
+      InetAddress local = FBUtilities.getBroadcastAddress();
+      Iterator var1 = Gossiper.instance.getAllEndpoints().iterator();
+
+      InetAddress endpoint;
+      do {
+         if(!var1.hasNext()) {
+            return true;
+         }
+
+         endpoint = (InetAddress)var1.next();
+      } while(endpoint.equals(local) || MessagingService.instance().versionAtLeast(endpoint, MessagingVersion.DSE_604));
+
+      return false;
+   }
+
+   public static boolean hasNodeSyncDataWatermarks() {
+      return ((SystemDistributedKeyspace.NodeSyncStatusColumns)nodeSyncDataWatermarkFeature.implementation()).withDataWatermark;
+   }
+
    private static Types types() {
       return Types.of(new UserType[]{NodeSyncValidation, NodeSyncMetrics});
    }
@@ -298,7 +336,9 @@ public final class SystemDistributedKeyspace {
                ValidationInfo lastUnsuccessfulValidation = row.has("last_unsuccessful_validation")?ValidationInfo.fromBytes(row.getBytes("last_unsuccessful_validation")):null;
                ValidationInfo lastValidation = lastUnsuccessfulValidation != null && (lastSuccessfulValidation == null || !lastSuccessfulValidation.isMoreRecentThan(lastUnsuccessfulValidation))?lastUnsuccessfulValidation:lastSuccessfulValidation;
                InetAddress lockedBy = row.has("locked_by")?row.getInetAddress("locked_by"):null;
-               records.add(new NodeSyncRecord(new Segment(table, new Range(start, end)), lastValidation, lastSuccessfulValidation, lockedBy));
+               Long dataWatermark = row.has("data_watermark") && row.has("data_watermark_validated_at")?Long.valueOf(row.getLong("data_watermark")):null;
+               Long dataWatermarkValidatedAt = dataWatermark == null?null:Long.valueOf(row.getTimestamp("data_watermark_validated_at").getTime());
+               records.add(NodeSyncRecord.withDataWatermark(new Segment(table, new Range(start, end)), lastValidation, lastSuccessfulValidation, lockedBy, dataWatermark, dataWatermarkValidatedAt));
             } catch (RuntimeException var13) {
                noSpamLogger.warn("Unexpected error (msg: {}) reading NodeSync record: {}", new Object[]{var13.getMessage(), "this won't prevent NodeSync but may lead to ranges being validated more often than necessary"});
             }
@@ -339,7 +379,7 @@ public final class SystemDistributedKeyspace {
    private static UntypedResultSet queryNodeSyncRecords(TableMetadata table, Range<Token> range, Token.TokenFactory tkf) {
       Token start = (Token)range.left;
       Token end = (Token)range.right;
-      String qBase = "SELECT start_token, end_token, last_successful_validation, last_unsuccessful_validation, locked_by FROM %s.%s WHERE keyspace_name = ? AND table_name = ? AND range_group IN ? AND start_token >= ?";
+      String qBase = "SELECT start_token, end_token, last_successful_validation, last_unsuccessful_validation, locked_by" + (hasNodeSyncDataWatermarks()?", data_watermark, data_watermark_validated_at":"") + " FROM %s.%s WHERE keyspace_name = ? AND table_name = ? AND range_group IN ? AND start_token >= ?";
       if(!end.isMinimum()) {
          qBase = qBase + " AND start_token < ?";
       }
@@ -372,9 +412,14 @@ public final class SystemDistributedKeyspace {
    }
 
    public static void recordNodeSyncValidation(Segment segment, ValidationInfo info, boolean wasPreviousSuccessful) {
+      recordNodeSyncValidation(segment, info, wasPreviousSuccessful, (Long)null, (Long)null);
+   }
+
+   public static void recordNodeSyncValidation(Segment segment, ValidationInfo info, boolean wasPreviousSuccessful, Long dataWatermark, Long dataWatermarkValidatedAt) {
       logger.trace("Recording (and unlocking) NodeSync validation of segment {}: {}", segment, info);
       Token.TokenFactory tkf = segment.table.partitioner.getTokenFactory();
-      String q = "INSERT INTO %s.%s (keyspace_name, table_name, range_group, start_token, end_token, last_successful_validation, last_unsuccessful_validation, locked_by) VALUES (?, ?, ?, ?, ?, ?, ?, null)";
+      boolean withDataWatermark = dataWatermark != null && hasNodeSyncDataWatermarks();
+      String q = withDataWatermark?"INSERT INTO %s.%s (keyspace_name, table_name, range_group, start_token, end_token, last_successful_validation, last_unsuccessful_validation, locked_by, data_watermark, data_watermark_validated_at) VALUES (?, ?, ?, ?, ?, ?, ?, null, ?, ?)":"INSERT INTO %s.%s (keyspace_name, table_name, range_group, start_token, end_token, last_successful_validation, last_unsuccessful_validation, locked_by) VALUES (?, ?, ?, ?, ?, ?, ?, null)";
       String query = String.format(q, new Object[]{"system_distributed", "nodesync_status"});
       ByteBuffer lastSuccessfulValidation;
       ByteBuffer lastUnsuccessfulValidation;
@@ -387,7 +432,7 @@ public final class SystemDistributedKeyspace {
       }
 
       withNodeSyncExceptionHandling(() -> {
-         return QueryProcessor.execute(query, ConsistencyLevel.ONE, new Object[]{segment.table.keyspace, segment.table.name, ByteBufferUtil.bytes((byte)rangeGroupFor((Token)segment.range.left)), tkf.toByteArray((Token)segment.range.left), tkf.toByteArray((Token)segment.range.right), lastSuccessfulValidation, lastUnsuccessfulValidation});
+         return withDataWatermark?QueryProcessor.execute(query, ConsistencyLevel.ONE, new Object[]{segment.table.keyspace, segment.table.name, ByteBufferUtil.bytes((byte)rangeGroupFor((Token)segment.range.left)), tkf.toByteArray((Token)segment.range.left), tkf.toByteArray((Token)segment.range.right), lastSuccessfulValidation, lastUnsuccessfulValidation, dataWatermark, new Date(dataWatermarkValidatedAt.longValue())}):QueryProcessor.execute(query, ConsistencyLevel.ONE, new Object[]{segment.table.keyspace, segment.table.name, ByteBufferUtil.bytes((byte)rangeGroupFor((Token)segment.range.left)), tkf.toByteArray((Token)segment.range.left), tkf.toByteArray((Token)segment.range.right), lastSuccessfulValidation, lastUnsuccessfulValidation});
       }, (Object)null, "recording NodeSync validation");
    }
 
@@ -447,8 +492,21 @@ public final class SystemDistributedKeyspace {
       NodeSyncValidation = parseType("nodesync_validation", "CREATE TYPE %s (started_at timestamp,outcome tinyint,missing_nodes set<inet>)");
       tokenType = DatabaseDescriptor.getPartitioner().getTokenValidator().asCQL3Type().toString();
       NodeSyncStatus = parse("nodesync_status", "Tracks NodeSync recent validations", "CREATE TABLE %s (keyspace_name text,table_name text,range_group blob,start_token " + tokenType + ',' + "end_token " + tokenType + ',' + "last_successful_validation frozen<" + "nodesync_validation" + ">,last_unsuccessful_validation frozen<" + "nodesync_validation" + ">,locked_by inet,PRIMARY KEY ((keyspace_name, table_name, range_group), start_token, end_token))", Collections.singleton(NodeSyncValidation)).defaultTimeToLive((int)TimeUnit.DAYS.toSeconds(28L)).build();
+      NodeSyncStatusWithDataWatermark = parse("nodesync_status", "Tracks NodeSync recent validations", "CREATE TABLE %s (keyspace_name text,table_name text,range_group blob,start_token " + tokenType + ',' + "end_token " + tokenType + ',' + "last_successful_validation frozen<" + "nodesync_validation" + ">,last_unsuccessful_validation frozen<" + "nodesync_validation" + ">,locked_by inet,data_watermark bigint,data_watermark_validated_at timestamp,PRIMARY KEY ((keyspace_name, table_name, range_group), start_token, end_token))", Collections.singleton(NodeSyncValidation)).defaultTimeToLive((int)TimeUnit.DAYS.toSeconds(28L)).build();
       NodeSyncMetrics = parseType("nodesync_metrics", "CREATE TYPE %s (data_validated bigint,data_repaired bigint,objects_validated bigint,objects_repaired bigint,repair_data_sent bigint,repair_objects_sent bigint,pages_outcomes frozen<map<text, bigint>>)");
       NodeSyncUserValidations = parse("nodesync_user_validations", "NodeSync user-triggered validations status", "CREATE TABLE %s (id text,keyspace_name text static,table_name text static,node inet,status text,validated_ranges frozen<set<text>>,started_at timestamp,ended_at timestamp,segments_to_validate bigint,segments_validated bigint,outcomes frozen<map<text, bigint>>,metrics frozen<nodesync_metrics>,PRIMARY KEY (id, node))", Collections.singleton(NodeSyncMetrics)).defaultTimeToLive((int)TimeUnit.DAYS.toSeconds(1L)).build();
+      nodeSyncDataWatermarkFeature = VersionDependentFeature.createForSchemaUpgrade("NodeSyncDataWatermark", new CassandraVersion("4.0.0.604"), new SystemDistributedKeyspace.NodeSyncStatusColumns(false), new SystemDistributedKeyspace.NodeSyncStatusColumns(true), new SchemaUpgrade(metadata(), Collections.singletonList(NodeSyncStatusWithDataWatermark), false), logger, "All live nodes support NodeSync data watermarks - preparing to add them to system_distributed.nodesync_status", "All live nodes support NodeSync data watermarks - incremental NodeSync validation available", "Not all live nodes support NodeSync data watermarks or upgrade in progress - NodeSync validations will read all segments until all nodes are upgraded and automatic schema upgrade has finished");
+   }
+
+   private static final class NodeSyncStatusColumns implements VersionDependentFeature.VersionDependent {
+      private final boolean withDataWatermark;
+
+      private NodeSyncStatusColumns(boolean withDataWatermark) {
+         this.withDataWatermark = withDataWatermark;
+      }
+
+      public void initialize() {
+      }
    }
 
    private static enum BuildStatus {
@@ -21,6 +21,7 @@ public final class CompactionParams {
    public static final int DEFAULT_MIN_THRESHOLD = 4;
    public static final int DEFAULT_MAX_THRESHOLD = 32;
    public static final boolean DEFAULT_ENABLED = true;
+   public static final int DEFAULT_FLUSH_SUBRANGE_WRITERS = Math.max(1, Integer.getInteger("dse.flush.subrange_writers", 1).intValue());
    public static final CompactionParams.TombstoneOption DEFAULT_PROVIDE_OVERLAPPING_TOMBSTONES;
    public static final Map<String, String> DEFAULT_THRESHOLDS;
    public static final CompactionParams DEFAULT;
@@ -66,6 +67,11 @@ public final class CompactionParams {
       return threshold == null?32:Integer.parseInt(threshold);
    }
 
+   public int flushSubrangeWriters() {
+      String writers = (String)this.options.get(CompactionParams.Option.FLUSH_SUBRANGE_WRITERS.toString());
+      return writers == null?DEFAULT_FLUSH_SUBRANGE_WRITERS:Integer.parseInt(writers);
+   }
+
    public CompactionParams.TombstoneOption tombstoneOption() {
       return this.tombstoneOption;
    }
@@ -89,6 +95,11 @@ public final class CompactionParams {
          throw new ConfigurationException("Cannot access method validateOptions in " + this.klass.getName(), var5);
       }
 
+      String flushWriters = (String)this.options.get(CompactionParams.Option.FLUSH_SUBRANGE_WRITERS.toString());
+      if(flushWriters != null && (!StringUtils.isNumeric(flushWriters) || flushWriters.length() > 4 || Integer.parseInt(flushWriters) < 1)) {
+         throw new ConfigurationException(String.format("Invalid value %s for '%s' compaction sub-option - must be an integer between 1 and 9999", new Object[]{flushWriters, CompactionParams.Option.FLUSH_SUBRANGE_WRITERS}));
+      }
+
       String minThreshold = (String)this.options.get(CompactionParams.Option.MIN_THRESHOLD.toString());
       if(minThreshold != null && !StringUtils.isNumeric(minThreshold)) {
          throw new ConfigurationException(String.format("Invalid value %s for '%s' compaction sub-option - must be an integer", new Object[]{minThreshold, CompactionParams.Option.MIN_THRESHOLD}));
@@ -198,7 +209,8 @@ public final class CompactionParams {
       ENABLED,
       MIN_THRESHOLD,
       MAX_THRESHOLD,
-      PROVIDE_OVERLAPPING_TOMBSTONES;
+      PROVIDE_OVERLAPPING_TOMBSTONES,
+      FLUSH_SUBRANGE_WRITERS;
 
       private Option() {
       }
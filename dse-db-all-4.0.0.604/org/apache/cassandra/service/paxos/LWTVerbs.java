@@ -1,8 +1,6 @@
 package org.apache.cassandra.service.paxos;
 
 import java.util.function.Function;
-import java.util.function.Supplier;
-import org.apache.cassandra.concurrent.TPC;
 import org.apache.cassandra.concurrent.TPCTaskType;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.EncodingVersion;
@@ -22,15 +20,21 @@ public class LWTVerbs extends VerbGroup<LWTVerbs.LWTVersion> {
 
    public LWTVerbs(Verbs.Group id) {
       super(id, false, LWTVerbs.LWTVersion.class);
-      VerbGroup<LWTVerbs.LWTVersion>.RegistrationHelper helper = this.helper().executeOnIOScheduler().droppedGroup(DroppedMessages.Group.LWT);
-      this.PREPARE = ((VerbGroup.RegistrationHelper.RequestResponseBuilder)((VerbGroup.RegistrationHelper.RequestResponseBuilder)helper.requestResponse("PREPARE", Commit.class, PrepareResponse.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).requestExecutor(TPC.ioScheduler().forTaskType(TPCTaskType.LWT_PREPARE))).syncHandler((from, commit) -> {
+      VerbGroup<LWTVerbs.LWTVersion>.RegistrationHelper helper = this.helper().droppedGroup(DroppedMessages.Group.LWT);
+      this.PREPARE = ((VerbGroup.RegistrationHelper.RequestResponseBuilder)((VerbGroup.RegistrationHelper.RequestResponseBuilder)helper.requestResponse("PREPARE", Commit.class, PrepareResponse.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).requestExecutor((commit) -> {
+         return PaxosState.executorFor((Commit)commit, TPCTaskType.LWT_PREPARE);
+      })).handler((from, commit) -> {
          return PaxosState.prepare((Commit)commit);
       });
-      this.PROPOSE = ((VerbGroup.RegistrationHelper.RequestResponseBuilder)((VerbGroup.RegistrationHelper.RequestResponseBuilder)((VerbGroup.RegistrationHelper.RequestResponseBuilder)helper.requestResponse("PROPOSE", Commit.class, Boolean.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).requestExecutor(TPC.ioScheduler().forTaskType(TPCTaskType.LWT_PROPOSE))).withResponseSerializer(BooleanSerializer.serializer)).syncHandler((from, commit) -> {
+      this.PROPOSE = ((VerbGroup.RegistrationHelper.RequestResponseBuilder)((VerbGroup.RegistrationHelper.RequestResponseBuilder)((VerbGroup.RegistrationHelper.RequestResponseBuilder)helper.requestResponse("PROPOSE", Commit.class, Boolean.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).requestExecutor((commit) -> {
+         return PaxosState.executorFor((Commit)commit, TPCTaskType.LWT_PROPOSE);
+      })).withResponseSerializer(BooleanSerializer.serializer)).handler((from, commit) -> {
          return PaxosState.propose((Commit)commit);
       });
-      this.COMMIT = ((VerbGroup.RegistrationHelper.AckedRequestBuilder)((VerbGroup.RegistrationHelper.AckedRequestBuilder)helper.ackedRequest("COMMIT", Commit.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).requestExecutor(TPC.ioScheduler().forTaskType(TPCTaskType.LWT_COMMIT))).syncHandler((from, commit) -> {
-         PaxosState.commit((Commit)commit);
+      this.COMMIT = ((VerbGroup.RegistrationHelper.AckedRequestBuilder)((VerbGroup.RegistrationHelper.AckedRequestBuilder)helper.ackedRequest("COMMIT", Commit.class).timeout(DatabaseDescriptor::getWriteRpcTimeout)).requestExecutor((commit) -> {
+         return PaxosState.executorFor((Commit)commit, TPCTaskType.LWT_COMMIT);
+      })).handler((from, commit) -> {
+         return PaxosState.commit((Commit)commit);
       });
    }
 
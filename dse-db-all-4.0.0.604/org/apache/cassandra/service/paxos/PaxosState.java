@@ -1,19 +1,35 @@
 package org.apache.cassandra.service.paxos;
 
-import com.google.common.util.concurrent.Striped;
-import java.util.concurrent.locks.Lock;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.apache.cassandra.concurrent.ExecutorLocals;
 import org.apache.cassandra.concurrent.TPC;
+import org.apache.cassandra.concurrent.TPCTaskType;
 import org.apache.cassandra.concurrent.TPCUtils;
+import org.apache.cassandra.concurrent.TracingAwareExecutor;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.Mutation;
 import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.metrics.CASClientRequestMetrics;
+import org.apache.cassandra.metrics.TableMetrics;
+import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.tracing.Tracing;
+import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.UUIDGen;
 
 public class PaxosState {
-   private static final Striped<Lock> LOCKS = Striped.lazyWeakLock(TPC.getNumCores() * 1024);
+   private static final int STATE_CACHE_SIZE = Integer.getInteger("dse.paxos.state_cache_size", 0).intValue();
+   private static final CASClientRequestMetrics replicaMetrics = new CASClientRequestMetrics("CASReplica");
+   private static final PaxosState.KeySequencer SEQUENCER = new PaxosState.KeySequencer();
+   private static final PaxosState.StateCache[] CACHES = new PaxosState.StateCache[TPC.getNumCores() + 1];
    private final Commit promised;
    private final Commit accepted;
    private final Commit mostRecentCommit;
@@ -36,82 +52,270 @@ public class PaxosState {
       this.mostRecentCommit = mostRecentCommit;
    }
 
-   public static PrepareResponse prepare(Commit toPrepare) {
-      long start = System.nanoTime();
+   static {
+      for(int i = 0; i < CACHES.length; ++i) {
+         CACHES[i] = new PaxosState.StateCache(STATE_CACHE_SIZE);
+      }
 
-      PrepareResponse var6;
-      try {
-         Lock lock = (Lock)LOCKS.get(toPrepare.update.partitionKey());
-         lock.lock();
+   }
 
-         try {
-            int nowInSec = UUIDGen.unixTimestampInSec(toPrepare.ballot);
-            PaxosState state = (PaxosState)TPCUtils.blockingGet(SystemKeyspace.loadPaxosState(toPrepare.update.partitionKey(), toPrepare.update.metadata(), nowInSec));
+   public static TracingAwareExecutor executorFor(Commit commit, TPCTaskType taskType) {
+      return TPC.getForKey(Keyspace.open(commit.update.metadata().keyspace), commit.update.partitionKey()).forTaskType(taskType);
+   }
+
+   private static TableMetrics metrics(Commit commit) {
+      return Keyspace.open(commit.update.metadata().keyspace).getColumnFamilyStore(commit.update.metadata().id).metric;
+   }
+
+   private static <T> CompletableFuture<T> sequence(Commit commit, TPCTaskType taskType, Function<Executor, CompletableFuture<T>> action) {
+      TracingAwareExecutor executor = executorFor(commit, taskType);
+      ExecutorLocals locals = ExecutorLocals.create();
+      Executor onCore = (runnable) -> {
+         executor.execute(runnable, locals);
+      };
+      CompletableFuture<T> result = new CompletableFuture();
+      onCore.execute(() -> {
+         SEQUENCER.submit(commit.update.partitionKey(), onCore, (e) -> {
+            return ((CompletableFuture)action.apply(e)).whenCompleteAsync((value, error) -> {
+               if(error != null) {
+                  CACHES[TPC.getCoreId()].invalidate(commit);
+               }
+
+            }, e);
+         }, result);
+      });
+      return result;
+   }
+
+   private static CompletableFuture<PaxosState> loadState(Commit commit, Executor onCore) {
+      PaxosState.StateCache cache = CACHES[TPC.getCoreId()];
+      PaxosState cached = cache.get(commit);
+      if(cached != null) {
+         return CompletableFuture.completedFuture(cached);
+      } else {
+         int nowInSec = UUIDGen.unixTimestampInSec(commit.ballot);
+         return SystemKeyspace.loadPaxosState(commit.update.partitionKey(), commit.update.metadata(), nowInSec).thenApplyAsync((state) -> {
+            cache.put(commit, state);
+            return state;
+         }, onCore);
+      }
+   }
+
+   private PaxosState withPromise(Commit promise) {
+      return promise.isAfter(this.promised)?new PaxosState(promise, this.accepted, this.mostRecentCommit):this;
+   }
+
+   private PaxosState withProposal(Commit proposal) {
+      return !proposal.isAfter(this.accepted) && !proposal.hasBallot(this.accepted.ballot)?this:new PaxosState(this.promised, proposal, this.mostRecentCommit);
+   }
+
+   private PaxosState withCommit(Commit commit) {
+      Commit accepted = this.accepted.isAfter(commit)?this.accepted:Commit.emptyCommit(commit.update.partitionKey(), commit.update.metadata());
+      Commit mostRecent = commit.isAfter(this.mostRecentCommit)?commit:this.mostRecentCommit;
+      return new PaxosState(this.promised, accepted, mostRecent);
+   }
+
+   public static CompletableFuture<PrepareResponse> prepare(Commit toPrepare) {
+      long start = System.nanoTime();
+      return sequence(toPrepare, TPCTaskType.LWT_PREPARE, (onCore) -> {
+         return loadState(toPrepare, onCore).thenCompose((state) -> {
             if(!toPrepare.isAfter(state.promised)) {
                Tracing.trace("Promise rejected; {} is not sufficiently newer than {}", toPrepare, state.promised);
-               var6 = new PrepareResponse(false, state.promised, state.mostRecentCommit);
-               return var6;
+               return CompletableFuture.completedFuture(new PrepareResponse(false, state.promised, state.mostRecentCommit));
+            } else {
+               Tracing.trace("Promising ballot {}", (Object)toPrepare.ballot);
+               return SystemKeyspace.savePaxosPromise(toPrepare).thenApplyAsync((v) -> {
+                  CACHES[TPC.getCoreId()].update(toPrepare, (cached) -> {
+                     return cached.withPromise(toPrepare);
+                  });
+                  return new PrepareResponse(true, state.accepted, state.mostRecentCommit);
+               }, onCore);
             }
+         });
+      }).whenComplete((response, error) -> {
+         metrics(toPrepare).casPrepare.addNano(System.nanoTime() - start);
+      });
+   }
 
-            Tracing.trace("Promising ballot {}", (Object)toPrepare.ballot);
-            TPCUtils.blockingAwait(SystemKeyspace.savePaxosPromise(toPrepare));
-            var6 = new PrepareResponse(true, state.accepted, state.mostRecentCommit);
-         } finally {
-            lock.unlock();
+   public static CompletableFuture<Boolean> propose(Commit proposal) {
+      long start = System.nanoTime();
+      return sequence(proposal, TPCTaskType.LWT_PROPOSE, (onCore) -> {
+         return loadState(proposal, onCore).thenCompose((state) -> {
+            if(!proposal.hasBallot(state.promised.ballot) && !proposal.isAfter(state.promised)) {
+               Tracing.trace("Rejecting proposal for {} because inProgress is now {}", proposal, state.promised);
+               return CompletableFuture.completedFuture(Boolean.valueOf(false));
+            } else {
+               Tracing.trace("Accepting proposal {}", (Object)proposal);
+               return SystemKeyspace.savePaxosProposal(proposal).thenApplyAsync((v) -> {
+                  CACHES[TPC.getCoreId()].update(proposal, (cached) -> {
+                     return cached.withProposal(proposal);
+                  });
+                  return Boolean.valueOf(true);
+               }, onCore);
+            }
+         });
+      }).whenComplete((accepted, error) -> {
+         metrics(proposal).casPropose.addNano(System.nanoTime() - start);
+      });
+   }
+
+   public static CompletableFuture<Void> commit(Commit proposal) {
+      long start = System.nanoTime();
+      return sequence(proposal, TPCTaskType.LWT_COMMIT, (onCore) -> {
+         CompletableFuture<Void> applied;
+         if(UUIDGen.unixTimestamp(proposal.ballot) >= SystemKeyspace.getTruncatedAt(proposal.update.metadata().id)) {
+            Tracing.trace("Committing proposal {}", (Object)proposal);
+            Mutation mutation = proposal.makeMutation();
+            applied = TPCUtils.toFuture(Keyspace.open(mutation.getKeyspaceName()).apply(mutation, true));
+         } else {
+            Tracing.trace("Not committing proposal {} as ballot timestamp predates last truncation time", (Object)proposal);
+            applied = CompletableFuture.completedFuture((Void)null);
          }
-      } finally {
-         Keyspace.open(toPrepare.update.metadata().keyspace).getColumnFamilyStore(toPrepare.update.metadata().id).metric.casPrepare.addNano(System.nanoTime() - start);
-      }
 
-      return var6;
+         return applied.thenCompose((v) -> {
+            return SystemKeyspace.savePaxosCommit(proposal);
+         }).thenApplyAsync((v) -> {
+            CACHES[TPC.getCoreId()].update(proposal, (cached) -> {
+               return cached.withCommit(proposal);
+            });
+            return (Void)null;
+         }, onCore);
+      }).whenComplete((v, error) -> {
+         metrics(proposal).casCommit.addNano(System.nanoTime() - start);
+      });
    }
 
-   public static Boolean propose(Commit proposal) {
-      long start = System.nanoTime();
+   private static class KeySequencer {
+      private final ConcurrentMap<DecoratedKey, ArrayDeque<Runnable>> inFlight;
 
-      Boolean var6;
-      try {
-         Lock lock = (Lock)LOCKS.get(proposal.update.partitionKey());
-         lock.lock();
+      private KeySequencer() {
+         this.inFlight = new ConcurrentHashMap();
+      }
 
-         try {
-            int nowInSec = UUIDGen.unixTimestampInSec(proposal.ballot);
-            PaxosState state = (PaxosState)TPCUtils.blockingGet(SystemKeyspace.loadPaxosState(proposal.update.partitionKey(), proposal.update.metadata(), nowInSec));
-            if(proposal.hasBallot(state.promised.ballot) || proposal.isAfter(state.promised)) {
-               Tracing.trace("Accepting proposal {}", (Object)proposal);
-               TPCUtils.blockingAwait(SystemKeyspace.savePaxosProposal(proposal));
-               var6 = Boolean.valueOf(true);
-               return var6;
+      <T> void submit(DecoratedKey key, Executor onCore, Function<Executor, CompletableFuture<T>> action, CompletableFuture<T> result) {
+         ArrayDeque<Runnable> queue = new ArrayDeque();
+         ArrayDeque<Runnable> waiting = (ArrayDeque)this.inFlight.compute(key, (k, current) -> {
+            if(current == null) {
+               return queue;
+            } else {
+               current.add(() -> {
+                  onCore.execute(() -> {
+                     this.run(key, onCore, action, result);
+                  });
+               });
+               return current;
             }
+         });
+         if(waiting == queue) {
+            this.run(key, onCore, action, result);
+         }
 
-            Tracing.trace("Rejecting proposal for {} because inProgress is now {}", proposal, state.promised);
-            var6 = Boolean.valueOf(false);
-         } finally {
-            lock.unlock();
+      }
+
+      private <T> void run(DecoratedKey key, Executor onCore, Function<Executor, CompletableFuture<T>> action, CompletableFuture<T> result) {
+         CompletableFuture future;
+         try {
+            future = (CompletableFuture)action.apply(onCore);
+         } catch (Throwable var7) {
+            future = new CompletableFuture();
+            future.completeExceptionally(var7);
          }
-      } finally {
-         Keyspace.open(proposal.update.metadata().keyspace).getColumnFamilyStore(proposal.update.metadata().id).metric.casPropose.addNano(System.nanoTime() - start);
+
+         future.whenCompleteAsync((value, error) -> {
+            if(error == null) {
+               result.complete(value);
+            } else {
+               result.completeExceptionally((Throwable)error);
+            }
+
+            this.next(key);
+         }, onCore);
       }
 
-      return var6;
+      private void next(DecoratedKey key) {
+         Runnable[] task = new Runnable[1];
+         this.inFlight.computeIfPresent(key, (k, waiting) -> {
+            task[0] = (Runnable)waiting.poll();
+            return task[0] == null?null:waiting;
+         });
+         if(task[0] != null) {
+            task[0].run();
+         }
+
+      }
    }
 
-   public static void commit(Commit proposal) {
-      long start = System.nanoTime();
+   private static class StateCache {
+      private final int capacity;
+      private final LinkedHashMap<Pair<TableId, DecoratedKey>, PaxosState> states;
+      private long boundariesVersion;
 
-      try {
-         if(UUIDGen.unixTimestamp(proposal.ballot) >= SystemKeyspace.getTruncatedAt(proposal.update.metadata().id)) {
-            Tracing.trace("Committing proposal {}", (Object)proposal);
-            Mutation mutation = proposal.makeMutation();
-            TPCUtils.blockingAwait(Keyspace.open(mutation.getKeyspaceName()).apply(mutation, true));
+      private StateCache(final int capacity) {
+         this.capacity = capacity;
+         this.states = new LinkedHashMap<Pair<TableId, DecoratedKey>, PaxosState>(16, 0.75F, true) {
+            protected boolean removeEldestEntry(Entry<Pair<TableId, DecoratedKey>, PaxosState> eldest) {
+               if(this.size() > capacity) {
+                  PaxosState.replicaMetrics.stateCacheEvictions.inc();
+                  return true;
+               } else {
+                  return false;
+               }
+            }
+         };
+      }
+
+      private static Pair<TableId, DecoratedKey> key(Commit commit) {
+         return Pair.create(commit.update.metadata().id, commit.update.partitionKey());
+      }
+
+      private void maybeClear() {
+         long version = Keyspace.tpcBoundariesVersion();
+         if(version != this.boundariesVersion) {
+            this.states.clear();
+            this.boundariesVersion = version;
+         }
+
+      }
+
+      PaxosState get(Commit commit) {
+         if(this.capacity <= 0) {
+            return null;
          } else {
-            Tracing.trace("Not committing proposal {} as ballot timestamp predates last truncation time", (Object)proposal);
+            this.maybeClear();
+            PaxosState state = (PaxosState)this.states.get(key(commit));
+            if(state == null) {
+               PaxosState.replicaMetrics.stateCacheMisses.inc();
+            } else {
+               PaxosState.replicaMetrics.stateCacheHits.inc();
+            }
+
+            return state;
+         }
+      }
+
+      void put(Commit commit, PaxosState state) {
+         if(this.capacity > 0) {
+            this.maybeClear();
+            this.states.put(key(commit), state);
          }
 
-         TPCUtils.blockingAwait(SystemKeyspace.savePaxosCommit(proposal));
-      } finally {
-         Keyspace.open(proposal.update.metadata().keyspace).getColumnFamilyStore(proposal.update.metadata().id).metric.casCommit.addNano(System.nanoTime() - start);
       }
 
+      void update(Commit commit, Function<PaxosState, PaxosState> updater) {
+         if(this.capacity > 0) {
+            this.maybeClear();
+            this.states.computeIfPresent(key(commit), (k, state) -> {
+               return (PaxosState)updater.apply(state);
+            });
+         }
+
+      }
+
+      void invalidate(Commit commit) {
+         if(this.capacity > 0) {
+            this.states.remove(key(commit));
+         }
+
+      }
    }
 }
@@ -90,7 +90,7 @@ public class ConnectionHandler {
    public void sendMessage(StreamMessage message) {
       if(this.outgoing.isClosed()) {
          throw new RuntimeException("Outgoing stream handler has been closed");
-      } else if(message.type == StreamMessage.Type.FILE && this.isPreview) {
+      } else if((message.type == StreamMessage.Type.FILE || message.type == StreamMessage.Type.ENTIRE_SSTABLE) && this.isPreview) {
          throw new RuntimeException("Cannot send file messages for preview streaming sessions");
       } else {
          this.outgoing.enqueue(message);
@@ -0,0 +1,201 @@
+package org.apache.cassandra.streaming;
+
+import com.google.common.base.Throwables;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.Map.Entry;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.DiskBoundaries;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.compaction.OperationType;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.ISSTableScanner;
+import org.apache.cassandra.io.sstable.SSTableMultiWriter;
+import org.apache.cassandra.io.sstable.SSTableZeroCopyWriter;
+import org.apache.cassandra.io.sstable.format.RangeAwareSSTableWriter;
+import org.apache.cassandra.io.sstable.format.SSTableFormat;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.format.Version;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.streaming.messages.FileMessageHeader;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class EntireSSTableStreamReader {
+   private static final Logger logger = LoggerFactory.getLogger(EntireSSTableStreamReader.class);
+   private final TableId tableId;
+   private final StreamSession session;
+   private final Version inputVersion;
+   private final SSTableFormat.Type format;
+   private final int sstableLevel;
+   private final int fileSeqNum;
+   private final long estimatedKeys;
+   private final long repairedAt;
+   private final UUID pendingRepair;
+   private long totalSize;
+
+   public EntireSSTableStreamReader(FileMessageHeader header, StreamSession session) {
+      this.session = session;
+      this.tableId = header.tableId;
+      this.inputVersion = header.version;
+      this.format = header.format;
+      this.sstableLevel = header.sstableLevel;
+      this.fileSeqNum = header.sequenceNumber;
+      this.estimatedKeys = header.estimatedKeys;
+      this.repairedAt = header.repairedAt;
+      this.pendingRepair = header.pendingRepair;
+   }
+
+   public long totalSize() {
+      return this.totalSize;
+   }
+
+   public SSTableMultiWriter read(ReadableByteChannel channel) throws IOException {
+      ColumnFamilyStore cfs = ColumnFamilyStore.getIfExists(this.tableId);
+      if(cfs == null) {
+         throw new IOException("CF " + this.tableId + " was dropped during streaming");
+      } else {
+         DataInputPlus in = new DataInputPlus.DataInputStreamPlus(Channels.newInputStream(channel));
+         int count = in.readInt();
+         Map<Component, Long> manifest = new LinkedHashMap(count);
+
+         for(int i = 0; i < count; ++i) {
+            Component component = Component.parse(in.readUTF());
+            long size = in.readLong();
+            manifest.put(component, Long.valueOf(size));
+            this.totalSize += size;
+         }
+
+         DecoratedKey first = cfs.decorateKey(ByteBufferUtil.readWithShortLength(in));
+         DecoratedKey last = cfs.decorateKey(ByteBufferUtil.readWithShortLength(in));
+         logger.debug("[Stream #{}] Start receiving entire sstable #{} from {}, components = {}, size = {}, ks = '{}', table = '{}'.", new Object[]{this.session.planId(), Integer.valueOf(this.fileSeqNum), this.session.peer, manifest.keySet(), Long.valueOf(this.totalSize), cfs.keyspace.getName(), cfs.getTableName()});
+         DiskBoundaries boundaries = cfs.getDiskBoundaries();
+         int firstDisk = diskIndex(boundaries, first);
+         Directories.DataDirectory localDir = boundaries.positions == null?cfs.getDirectories().getWriteableLocation(this.totalSize):(Directories.DataDirectory)boundaries.directories.get(firstDisk);
+         if(localDir == null) {
+            throw new IOException(String.format("Insufficient disk space to store %s", new Object[]{FBUtilities.prettyPrintMemory(this.totalSize)}));
+         } else if(firstDisk == diskIndex(boundaries, last)) {
+            return this.receive(cfs, localDir, manifest, channel, this.session.getTransaction(this.tableId));
+         } else {
+            logger.debug("[Stream #{}] Entire sstable #{} from {} spans several data directories, rewriting it by partition", new Object[]{this.session.planId(), Integer.valueOf(this.fileSeqNum), this.session.peer});
+            return this.receiveAndSplit(cfs, localDir, manifest, channel);
+         }
+      }
+   }
+
+   private static int diskIndex(DiskBoundaries boundaries, DecoratedKey key) {
+      if(boundaries.positions == null) {
+         return 0;
+      } else {
+         int pos = Collections.binarySearch(boundaries.positions, key);
+         return pos < 0?-pos - 1:pos;
+      }
+   }
+
+   private SSTableZeroCopyWriter receive(ColumnFamilyStore cfs, Directories.DataDirectory localDir, Map<Component, Long> manifest, ReadableByteChannel channel, LifecycleTransaction txn) throws IOException {
+      Descriptor desc = cfs.newSSTableDescriptor(cfs.getDirectories().getLocationForDisk(localDir), this.inputVersion, this.format);
+      SSTableZeroCopyWriter writer = new SSTableZeroCopyWriter(desc, manifest.keySet(), cfs.metadata, this.sstableLevel, txn);
+      StreamHook.instance.reportIncomingFile(cfs, writer, this.session, this.fileSeqNum);
+
+      try {
+         long received = 0L;
+         Iterator var9 = manifest.entrySet().iterator();
+
+         while(var9.hasNext()) {
+            Entry<Component, Long> entry = (Entry)var9.next();
+            writer.writeComponent((Component)entry.getKey(), channel, ((Long)entry.getValue()).longValue());
+            received += ((Long)entry.getValue()).longValue();
+            this.session.progress(writer.getFilename(), ProgressInfo.Direction.IN, received, this.totalSize);
+         }
+
+         logger.debug("[Stream #{}] Finished receiving entire sstable #{} from {} as {}, size = {}", new Object[]{this.session.planId(), Integer.valueOf(this.fileSeqNum), this.session.peer, desc, FBUtilities.prettyPrintMemory(received)});
+         return writer;
+      } catch (Throwable var12) {
+         logger.warn("[Stream {}] Error while receiving entire sstable #{} on ks='{}' and table='{}'.", new Object[]{this.session.planId(), Integer.valueOf(this.fileSeqNum), cfs.keyspace.getName(), cfs.getTableName(), var12});
+         writer.abort(var12);
+         throw Throwables.propagate(var12);
+      }
+   }
+
+   private SSTableMultiWriter receiveAndSplit(ColumnFamilyStore cfs, Directories.DataDirectory localDir, Map<Component, Long> manifest, ReadableByteChannel channel) throws IOException {
+      LifecycleTransaction staging = LifecycleTransaction.offline(OperationType.STREAM);
+      SSTableZeroCopyWriter staged = null;
+      RangeAwareSSTableWriter writer = null;
+
+      try {
+         staged = this.receive(cfs, localDir, manifest, channel, staging);
+         SSTableReader reader = (SSTableReader)staged.finish(true).iterator().next();
+         writer = new RangeAwareSSTableWriter(cfs, this.estimatedKeys, this.repairedAt, this.pendingRepair, SSTableFormat.streamWriteFormat(), this.sstableLevel, this.totalSize, this.session.getTransaction(this.tableId), reader.header);
+         StreamHook.instance.reportIncomingFile(cfs, writer, this.session, this.fileSeqNum);
+         ISSTableScanner scanner = reader.getScanner();
+         Throwable var8 = null;
+
+         try {
+            while(scanner.hasNext()) {
+               UnfilteredRowIterator partition = (UnfilteredRowIterator)scanner.next();
+               Throwable var10 = null;
+
+               try {
+                  writer.append(partition);
+               } catch (Throwable var33) {
+                  var10 = var33;
+                  throw var33;
+               } finally {
+                  if(partition != null) {
+                     if(var10 != null) {
+                        try {
+                           partition.close();
+                        } catch (Throwable var32) {
+                           var10.addSuppressed(var32);
+                        }
+                     } else {
+                        partition.close();
+                     }
+                  }
+
+               }
+            }
+         } catch (Throwable var35) {
+            var8 = var35;
+            throw var35;
+         } finally {
+            if(scanner != null) {
+               if(var8 != null) {
+                  try {
+                     scanner.close();
+                  } catch (Throwable var31) {
+                     var8.addSuppressed(var31);
+                  }
+               } else {
+                  scanner.close();
+               }
+            }
+
+         }
+
+         return writer;
+      } catch (Throwable var37) {
+         logger.warn("[Stream {}] Error while splitting entire sstable #{} on ks='{}' and table='{}'.", new Object[]{this.session.planId(), Integer.valueOf(this.fileSeqNum), cfs.keyspace.getName(), cfs.getTableName(), var37});
+         if(writer != null) {
+            writer.abort(var37);
+         }
+
+         throw Throwables.propagate(var37);
+      } finally {
+         org.apache.cassandra.utils.Throwables.maybeFail(staging.abort(staged == null?null:staged.abort((Throwable)null)));
+      }
+   }
+}
@@ -0,0 +1,141 @@
+package org.apache.cassandra.streaming;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class EntireSSTableStreamWriter {
+   private static final Logger logger = LoggerFactory.getLogger(EntireSSTableStreamWriter.class);
+   private static final int CHUNK_SIZE = 10485760;
+   private final SSTableReader sstable;
+   private final StreamManager.StreamRateLimiter limiter;
+   private final StreamSession session;
+
+   public EntireSSTableStreamWriter(SSTableReader sstable, StreamSession session) {
+      this.sstable = sstable;
+      this.session = session;
+      this.limiter = StreamManager.getRateLimiter(session.peer);
+   }
+
+   public static List<Component> components(SSTableReader sstable) {
+      List<Component> components = new ArrayList();
+      Iterator var2 = sstable.getComponents().iterator();
+
+      while(var2.hasNext()) {
+         Component component = (Component)var2.next();
+         if((new File(sstable.descriptor.filenameFor(component))).exists()) {
+            components.add(component);
+         }
+      }
+
+      return components;
+   }
+
+   public static long totalSize(SSTableReader sstable) {
+      long size = 0L;
+
+      Component component;
+      for(Iterator var3 = components(sstable).iterator(); var3.hasNext(); size += (new File(sstable.descriptor.filenameFor(component))).length()) {
+         component = (Component)var3.next();
+      }
+
+      return size;
+   }
+
+   private static boolean isMutable(Component component) {
+      return component.equals(Component.STATS) || component.equals(Component.SUMMARY);
+   }
+
+   public void write(DataOutputStreamPlus out) throws IOException {
+      List<Component> components = components(this.sstable);
+      Map<Component, ByteBuffer> snapshots = new HashMap();
+      long[] sizes = new long[components.size()];
+      long totalSize = 0L;
+
+      for(int i = 0; i < components.size(); ++i) {
+         Component component = (Component)components.get(i);
+         File file = new File(this.sstable.descriptor.filenameFor(component));
+         if(isMutable(component)) {
+            ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            snapshots.put(component, snapshot);
+            sizes[i] = (long)snapshot.remaining();
+         } else {
+            sizes[i] = file.length();
+         }
+
+         totalSize += sizes[i];
+      }
+
+      logger.debug("[Stream #{}] Start streaming entire sstable {} to {}, components = {}, totalSize = {}", new Object[]{this.session.planId(), this.sstable.getFilename(), this.session.peer, components, FBUtilities.prettyPrintMemory(totalSize)});
+      out.writeInt(components.size());
+
+      for(int i = 0; i < components.size(); ++i) {
+         out.writeUTF(((Component)components.get(i)).name);
+         out.writeLong(sizes[i]);
+      }
+
+      ByteBufferUtil.writeWithShortLength(this.sstable.first.getKey(), out);
+      ByteBufferUtil.writeWithShortLength(this.sstable.last.getKey(), out);
+
+      long progress = 0L;
+
+      for(int i = 0; i < components.size(); ++i) {
+         Component component = (Component)components.get(i);
+         ByteBuffer snapshot = (ByteBuffer)snapshots.get(component);
+         if(snapshot != null) {
+            this.limiter.acquire(snapshot.remaining());
+            out.write(snapshot);
+            progress += sizes[i];
+            this.session.progress(this.sstable.getFilename(), ProgressInfo.Direction.OUT, progress, totalSize);
+         } else {
+            progress = this.transfer(out, component, sizes[i], progress, totalSize);
+         }
+      }
+
+      logger.debug("[Stream #{}] Finished streaming entire sstable {} to {}, bytesTransferred = {}", new Object[]{this.session.planId(), this.sstable.getFilename(), this.session.peer, FBUtilities.prettyPrintMemory(progress)});
+   }
+
+   private long transfer(DataOutputStreamPlus out, Component component, long size, long progress, long totalSize) throws IOException {
+      File file = new File(this.sstable.descriptor.filenameFor(component));
+
+      try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         if(fc.size() < size) {
+            throw new IOException(String.format("File %s shrank from %d to %d bytes while streaming", new Object[]{file, Long.valueOf(size), Long.valueOf(fc.size())}));
+         }
+
+         long lastWrite;
+         for(long position = 0L; position < size; position += lastWrite) {
+            long positionFinal = position;
+            int toTransfer = (int)Math.min(CHUNK_SIZE, size - position);
+            this.limiter.acquire(toTransfer);
+            lastWrite = out.applyToChannel((wbc) -> {
+               return Long.valueOf(fc.transferTo(positionFinal, (long)toTransfer, (WritableByteChannel)wbc));
+            }).longValue();
+            if(lastWrite <= 0L) {
+               throw new IOException(String.format("Could not transfer %s past position %d of %d", new Object[]{file, Long.valueOf(position), Long.valueOf(size)}));
+            }
+
+            progress += lastWrite;
+            this.session.progress(this.sstable.getFilename(), ProgressInfo.Direction.OUT, progress, totalSize);
+         }
+      }
+
+      return progress;
+   }
+}
@@ -28,8 +28,10 @@ public class StreamCoordinator {
    private Iterator<StreamSession> sessionsToConnect = null;
    private final UUID pendingRepair;
    private final PreviewKind previewKind;
+   private final StreamOperation streamOperation;
 
-   public StreamCoordinator(int connectionsPerHost, boolean keepSSTableLevel, StreamConnectionFactory factory, boolean connectSequentially, UUID pendingRepair, PreviewKind previewKind) {
+   public StreamCoordinator(StreamOperation streamOperation, int connectionsPerHost, boolean keepSSTableLevel, StreamConnectionFactory factory, boolean connectSequentially, UUID pendingRepair, PreviewKind previewKind) {
+      this.streamOperation = streamOperation;
       this.connectionsPerHost = connectionsPerHost;
       this.factory = factory;
       this.keepSSTableLevel = keepSSTableLevel;
@@ -250,7 +252,7 @@ public class StreamCoordinator {
 
       public StreamSession getOrCreateNextSession(InetAddress peer, InetAddress connecting) {
          if(this.streamSessions.size() < StreamCoordinator.this.connectionsPerHost) {
-            StreamSession session = new StreamSession(peer, connecting, StreamCoordinator.this.factory, this.streamSessions.size(), StreamCoordinator.this.keepSSTableLevel, StreamCoordinator.this.pendingRepair, StreamCoordinator.this.previewKind);
+            StreamSession session = new StreamSession(StreamCoordinator.this.streamOperation, peer, connecting, StreamCoordinator.this.factory, this.streamSessions.size(), StreamCoordinator.this.keepSSTableLevel, StreamCoordinator.this.pendingRepair, StreamCoordinator.this.previewKind);
             this.streamSessions.put(Integer.valueOf(++this.lastReturned), session);
             return session;
          } else {
@@ -279,7 +281,7 @@ public class StreamCoordinator {
       public StreamSession getOrCreateSessionById(InetAddress peer, int id, InetAddress connecting) {
          StreamSession session = (StreamSession)this.streamSessions.get(Integer.valueOf(id));
          if(session == null) {
-            session = new StreamSession(peer, connecting, StreamCoordinator.this.factory, id, StreamCoordinator.this.keepSSTableLevel, StreamCoordinator.this.pendingRepair, StreamCoordinator.this.previewKind);
+            session = new StreamSession(StreamCoordinator.this.streamOperation, peer, connecting, StreamCoordinator.this.factory, id, StreamCoordinator.this.keepSSTableLevel, StreamCoordinator.this.pendingRepair, StreamCoordinator.this.previewKind);
             this.streamSessions.put(Integer.valueOf(id), session);
          }
 
@@ -33,7 +33,7 @@ public class StreamPlan {
       this.handlers = new ArrayList();
       this.flushBeforeTransfer = true;
       this.streamOperation = streamOperation;
-      this.coordinator = new StreamCoordinator(connectionsPerHost, keepSSTableLevels, new DefaultConnectionFactory(), connectSequentially, pendingRepair, previewKind);
+      this.coordinator = new StreamCoordinator(streamOperation, connectionsPerHost, keepSSTableLevels, new DefaultConnectionFactory(), connectSequentially, pendingRepair, previewKind);
    }
 
    public StreamPlan requestRanges(InetAddress from, InetAddress connecting, String keyspace, Collection<Range<Token>> ranges) {
@@ -35,7 +35,7 @@ public final class StreamResultFuture extends AbstractFuture<StreamState> {
    }
 
    private StreamResultFuture(UUID planId, StreamOperation streamOperation, boolean keepSSTableLevels, UUID pendingRepair, PreviewKind previewKind) {
-      this(planId, streamOperation, new StreamCoordinator(0, keepSSTableLevels, new DefaultConnectionFactory(), false, pendingRepair, previewKind));
+      this(planId, streamOperation, new StreamCoordinator(streamOperation, 0, keepSSTableLevels, new DefaultConnectionFactory(), false, pendingRepair, previewKind));
    }
 
    static StreamResultFuture init(UUID planId, StreamOperation streamOperation, Collection<StreamEventHandler> listeners, StreamCoordinator coordinator) {
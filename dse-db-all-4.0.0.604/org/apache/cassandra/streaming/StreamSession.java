@@ -37,8 +37,12 @@ import org.apache.cassandra.db.lifecycle.SSTableSet;
 import org.apache.cassandra.db.lifecycle.View;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableFormat;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.metrics.StreamingMetrics;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.net.MessagingVersion;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.streaming.messages.CompleteMessage;
@@ -63,6 +67,7 @@ public class StreamSession {
    private static final CassandraVersion STREAM_KEEP_ALIVE_VERSION = new CassandraVersion("3.10");
    private static final Logger logger = LoggerFactory.getLogger(StreamSession.class);
    private static final DebuggableScheduledThreadPoolExecutor keepAliveExecutor = new DebuggableScheduledThreadPoolExecutor("StreamKeepAliveExecutor");
+   private static final boolean STREAM_ENTIRE_SSTABLES = Boolean.parseBoolean(System.getProperty("dse.streaming.entire_sstables", "false"));
    public final InetAddress peer;
    private final int index;
    public final InetAddress connecting;
@@ -81,10 +86,12 @@ public class StreamSession {
    private ScheduledFuture<?> keepAliveFuture = null;
    private final UUID pendingRepair;
    private final PreviewKind previewKind;
+   private final StreamOperation streamOperation;
    private volatile StreamSession.State state;
    private volatile boolean completeSent;
 
-   public StreamSession(InetAddress peer, InetAddress connecting, StreamConnectionFactory factory, int index, boolean keepSSTableLevel, UUID pendingRepair, PreviewKind previewKind) {
+   public StreamSession(StreamOperation streamOperation, InetAddress peer, InetAddress connecting, StreamConnectionFactory factory, int index, boolean keepSSTableLevel, UUID pendingRepair, PreviewKind previewKind) {
+      this.streamOperation = streamOperation;
       this.state = StreamSession.State.INITIALIZED;
       this.completeSent = false;
       this.peer = peer;
@@ -107,7 +114,7 @@ public class StreamSession {
    }
 
    public StreamOperation streamOperation() {
-      return this.streamResult == null?null:this.streamResult.streamOperation;
+      return this.streamOperation;
    }
 
    public boolean keepSSTableLevel() {
@@ -251,7 +258,7 @@ public class StreamSession {
          }
          final List<SSTableStreamingSections> sections = new ArrayList<SSTableStreamingSections>(refs.size());
          for (final SSTableReader sstable : refs) {
-            sections.add(new SSTableStreamingSections(refs.get(sstable), sstable.getPositionsForRanges(ranges), sstable.estimatedKeysForRanges(ranges)));
+            sections.add(new SSTableStreamingSections(refs.get(sstable), sstable.getPositionsForRanges(ranges), sstable.estimatedKeysForRanges(ranges), isFullyContained(ranges, sstable)));
          }
          return sections;
       }
@@ -262,6 +269,30 @@ public class StreamSession {
    }
 
 
+   private static boolean isFullyContained(Collection<Range<Token>> ranges, SSTableReader sstable) {
+      Iterator var2 = ranges.iterator();
+
+      Range<Token> range;
+      do {
+         if(!var2.hasNext()) {
+            return false;
+         }
+
+         range = (Range)var2.next();
+      } while(!range.contains(sstable.first.getToken()) || !range.contains(sstable.last.getToken()));
+
+      return true;
+   }
+
+   private boolean canStreamEntireSSTable(StreamSession.SSTableStreamingSections details) {
+      if(STREAM_ENTIRE_SSTABLES && details.fullyContained && MessagingService.instance().versionAtLeast(this.peer, MessagingVersion.DSE_604) && this.streamOperation != null && !this.streamOperation.requiresViewBuild() && this.pendingRepair == ActiveRepairService.NO_PENDING_REPAIR && !this.isPreview()) {
+         Descriptor descriptor = ((SSTableReader)details.ref.get()).descriptor;
+         return descriptor.formatType == SSTableFormat.streamWriteFormat() && descriptor.version.isLatestVersion();
+      } else {
+         return false;
+      }
+   }
+
    public synchronized void addTransferFiles(Collection<StreamSession.SSTableStreamingSections> sstableDetails) {
       this.failIfFinished();
       Iterator iter = sstableDetails.iterator();
@@ -282,7 +313,7 @@ public class StreamSession {
                }
             }
 
-            task.addTransferFile(details.ref, details.estimatedKeys, details.sections);
+            task.addTransferFile(details.ref, details.estimatedKeys, details.sections, this.canStreamEntireSSTable(details));
             iter.remove();
          }
       }
@@ -332,7 +363,8 @@ public class StreamSession {
             this.prepare(msg.requests, msg.summaries);
             break;
          }
-         case FILE: {
+         case FILE:
+         case ENTIRE_SSTABLE: {
             this.receive((IncomingFileMessage)message);
             break;
          }
@@ -640,11 +672,17 @@ public class StreamSession {
       public final Ref<SSTableReader> ref;
       public final List<Pair<Long, Long>> sections;
       public final long estimatedKeys;
+      public final boolean fullyContained;
 
       public SSTableStreamingSections(Ref<SSTableReader> ref, List<Pair<Long, Long>> sections, long estimatedKeys) {
+         this(ref, sections, estimatedKeys, false);
+      }
+
+      public SSTableStreamingSections(Ref<SSTableReader> ref, List<Pair<Long, Long>> sections, long estimatedKeys, boolean fullyContained) {
          this.ref = ref;
          this.sections = sections;
          this.estimatedKeys = estimatedKeys;
+         this.fullyContained = fullyContained;
       }
    }
 
@@ -16,6 +16,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.cassandra.concurrent.NamedThreadFactory;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.streaming.messages.OutgoingEntireSSTableMessage;
 import org.apache.cassandra.streaming.messages.OutgoingFileMessage;
 import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.concurrent.Ref;
@@ -34,9 +35,13 @@ public class StreamTransferTask extends StreamTask {
    }
 
    public synchronized void addTransferFile(Ref<SSTableReader> ref, long estimatedKeys, List<Pair<Long, Long>> sections) {
+      this.addTransferFile(ref, estimatedKeys, sections, false);
+   }
+
+   public synchronized void addTransferFile(Ref<SSTableReader> ref, long estimatedKeys, List<Pair<Long, Long>> sections, boolean entireSSTable) {
       assert ref.get() != null && this.tableId.equals(((SSTableReader)ref.get()).metadata().id);
 
-      OutgoingFileMessage message = new OutgoingFileMessage(ref, this.sequenceNumber.getAndIncrement(), estimatedKeys, sections, this.session.keepSSTableLevel());
+      OutgoingFileMessage message = (OutgoingFileMessage)(entireSSTable?new OutgoingEntireSSTableMessage(ref, this.sequenceNumber.getAndIncrement(), estimatedKeys, this.session.keepSSTableLevel()):new OutgoingFileMessage(ref, this.sequenceNumber.getAndIncrement(), estimatedKeys, sections, this.session.keepSSTableLevel()));
       message = StreamHook.instance.reportOutgoingFile(this.session, (SSTableReader)ref.get(), message);
       this.files.put(Integer.valueOf(message.header.sequenceNumber), message);
       this.totalSize += message.header.size();
@@ -2,6 +2,7 @@ package org.apache.cassandra.streaming.messages;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
@@ -69,6 +70,22 @@ public class FileMessageHeader {
       this.size = this.calculateSize();
    }
 
+   public FileMessageHeader(TableId tableId, int sequenceNumber, Version version, SSTableFormat.Type format, long estimatedKeys, long repairedAt, UUID pendingRepair, int sstableLevel, SerializationHeader.Component header, long size) {
+      this.tableId = tableId;
+      this.sequenceNumber = sequenceNumber;
+      this.version = version;
+      this.format = format;
+      this.estimatedKeys = estimatedKeys;
+      this.sections = Collections.emptyList();
+      this.compressionInfo = null;
+      this.compressionMetadata = null;
+      this.repairedAt = repairedAt;
+      this.pendingRepair = pendingRepair;
+      this.sstableLevel = sstableLevel;
+      this.header = header;
+      this.size = size;
+   }
+
    public boolean isCompressed() {
       return this.compressionInfo != null || this.compressionMetadata != null;
    }
@@ -0,0 +1,39 @@
+package org.apache.cassandra.streaming.messages;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import org.apache.cassandra.io.sstable.SSTableMultiWriter;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.metrics.StreamingMetrics;
+import org.apache.cassandra.streaming.EntireSSTableStreamReader;
+import org.apache.cassandra.streaming.StreamSession;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+
+public class IncomingEntireSSTableMessage extends IncomingFileMessage {
+   public static StreamMessage.Serializer<IncomingEntireSSTableMessage> serializer = new StreamMessage.Serializer<IncomingEntireSSTableMessage>() {
+      public IncomingEntireSSTableMessage deserialize(ReadableByteChannel in, StreamMessage.StreamVersion version, StreamSession session) throws IOException {
+         DataInputPlus input = new DataInputPlus.DataInputStreamPlus(Channels.newInputStream(in));
+         FileMessageHeader header = ((FileMessageHeader.FileMessageHeaderSerializer)FileMessageHeader.serializers.get(version)).deserialize(input);
+         EntireSSTableStreamReader reader = new EntireSSTableStreamReader(header, session);
+
+         try {
+            SSTableMultiWriter sstable = reader.read(in);
+            StreamingMetrics.totalIncomingEntireSSTables.inc();
+            return new IncomingEntireSSTableMessage(sstable, new FileMessageHeader(header.tableId, header.sequenceNumber, header.version, header.format, header.estimatedKeys, header.repairedAt, header.pendingRepair, header.sstableLevel, header.header, reader.totalSize()));
+         } catch (Throwable var7) {
+            JVMStabilityInspector.inspectThrowable(var7);
+            throw var7;
+         }
+      }
+
+      public void serialize(IncomingEntireSSTableMessage message, DataOutputStreamPlus out, StreamMessage.StreamVersion version, StreamSession session) {
+         throw new UnsupportedOperationException("Not allowed to call serialize on an incoming file");
+      }
+   };
+
+   public IncomingEntireSSTableMessage(SSTableMultiWriter sstable, FileMessageHeader header) {
+      super(StreamMessage.Type.ENTIRE_SSTABLE, sstable, header);
+   }
+}
@@ -34,7 +34,11 @@ public class IncomingFileMessage extends StreamMessage {
    public SSTableMultiWriter sstable;
 
    public IncomingFileMessage(SSTableMultiWriter sstable, FileMessageHeader header) {
-      super(StreamMessage.Type.FILE);
+      this(StreamMessage.Type.FILE, sstable, header);
+   }
+
+   protected IncomingFileMessage(StreamMessage.Type type, SSTableMultiWriter sstable, FileMessageHeader header) {
+      super(type);
       this.header = header;
       this.sstable = sstable;
    }
@@ -0,0 +1,25 @@
+package org.apache.cassandra.streaming.messages;
+
+import java.io.IOException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.metrics.StreamingMetrics;
+import org.apache.cassandra.streaming.EntireSSTableStreamWriter;
+import org.apache.cassandra.streaming.StreamSession;
+import org.apache.cassandra.utils.concurrent.Ref;
+
+public class OutgoingEntireSSTableMessage extends OutgoingFileMessage {
+   public OutgoingEntireSSTableMessage(Ref<SSTableReader> ref, int sequenceNumber, long estimatedKeys, boolean keepSSTableLevel) {
+      super(StreamMessage.Type.ENTIRE_SSTABLE, ref, header((SSTableReader)ref.get(), sequenceNumber, estimatedKeys, keepSSTableLevel));
+   }
+
+   private static FileMessageHeader header(SSTableReader sstable, int sequenceNumber, long estimatedKeys, boolean keepSSTableLevel) {
+      return new FileMessageHeader(sstable.metadata().id, sequenceNumber, sstable.descriptor.version, sstable.descriptor.formatType, estimatedKeys, sstable.getRepairedAt(), sstable.getPendingRepair(), keepSSTableLevel?sstable.getSSTableLevel():0, sstable.header.toComponent(), EntireSSTableStreamWriter.totalSize(sstable));
+   }
+
+   protected void write(DataOutputStreamPlus out, StreamMessage.StreamVersion version, StreamSession session) throws IOException {
+      ((FileMessageHeader.FileMessageHeaderSerializer)FileMessageHeader.serializers.get(version)).serialize(this.header, out);
+      (new EntireSSTableStreamWriter((SSTableReader)this.ref.get(), session)).write(out);
+      StreamingMetrics.totalOutgoingEntireSSTables.inc();
+   }
+}
@@ -32,28 +32,39 @@ public class OutgoingFileMessage extends StreamMessage {
       }
    };
    public final FileMessageHeader header;
-   private final Ref<SSTableReader> ref;
+   protected final Ref<SSTableReader> ref;
    private final String filename;
    private boolean completed = false;
    private boolean transferring = false;
 
    public OutgoingFileMessage(Ref<SSTableReader> ref, int sequenceNumber, long estimatedKeys, List<Pair<Long, Long>> sections, boolean keepSSTableLevel) {
-      super(StreamMessage.Type.FILE);
+      this(StreamMessage.Type.FILE, ref, header((SSTableReader)ref.get(), sequenceNumber, estimatedKeys, sections, keepSSTableLevel));
+   }
+
+   protected OutgoingFileMessage(StreamMessage.Type type, Ref<SSTableReader> ref, FileMessageHeader header) {
+      super(type);
       this.ref = ref;
-      SSTableReader sstable = (SSTableReader)ref.get();
-      this.filename = sstable.getFilename();
-      this.header = new FileMessageHeader(sstable.metadata().id, sequenceNumber, sstable.descriptor.version, sstable.descriptor.formatType, estimatedKeys, sections, sstable.compression?sstable.getCompressionMetadata():null, sstable.getRepairedAt(), sstable.getPendingRepair(), keepSSTableLevel?sstable.getSSTableLevel():0, sstable.header.toComponent());
+      this.filename = ((SSTableReader)ref.get()).getFilename();
+      this.header = header;
+   }
+
+   private static FileMessageHeader header(SSTableReader sstable, int sequenceNumber, long estimatedKeys, List<Pair<Long, Long>> sections, boolean keepSSTableLevel) {
+      return new FileMessageHeader(sstable.metadata().id, sequenceNumber, sstable.descriptor.version, sstable.descriptor.formatType, estimatedKeys, sections, sstable.compression?sstable.getCompressionMetadata():null, sstable.getRepairedAt(), sstable.getPendingRepair(), keepSSTableLevel?sstable.getSSTableLevel():0, sstable.header.toComponent());
    }
 
    public synchronized void serialize(DataOutputStreamPlus out, StreamMessage.StreamVersion version, StreamSession session) throws IOException {
       if(!this.completed) {
-         CompressionInfo compressionInfo = ((FileMessageHeader.FileMessageHeaderSerializer)FileMessageHeader.serializers.get(version)).serialize(this.header, out);
-         SSTableReader reader = (SSTableReader)this.ref.get();
-         StreamWriter writer = compressionInfo == null?new StreamWriter(reader, this.header.sections, session):new CompressedStreamWriter(reader, this.header.sections, compressionInfo, session);
-         ((StreamWriter)writer).write(out);
+         this.write(out, version, session);
       }
    }
 
+   protected void write(DataOutputStreamPlus out, StreamMessage.StreamVersion version, StreamSession session) throws IOException {
+      CompressionInfo compressionInfo = ((FileMessageHeader.FileMessageHeaderSerializer)FileMessageHeader.serializers.get(version)).serialize(this.header, out);
+      SSTableReader reader = (SSTableReader)this.ref.get();
+      StreamWriter writer = compressionInfo == null?new StreamWriter(reader, this.header.sections, session):new CompressedStreamWriter(reader, this.header.sections, compressionInfo, session);
+      ((StreamWriter)writer).write(out);
+   }
+
    @VisibleForTesting
    public synchronized void finishTransfer() {
       this.transferring = false;
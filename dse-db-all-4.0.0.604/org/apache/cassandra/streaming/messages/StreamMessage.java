@@ -62,7 +62,8 @@ public abstract class StreamMessage {
       RETRY(4, 4, RetryMessage.serializer),
       COMPLETE(5, 1, CompleteMessage.serializer),
       SESSION_FAILED(6, 5, SessionFailedMessage.serializer),
-      KEEP_ALIVE(7, 5, KeepAliveMessage.serializer);
+      KEEP_ALIVE(7, 5, KeepAliveMessage.serializer),
+      ENTIRE_SSTABLE(8, 0, IncomingEntireSSTableMessage.serializer, OutgoingFileMessage.serializer);
 
       private final byte type;
       public final int priority;
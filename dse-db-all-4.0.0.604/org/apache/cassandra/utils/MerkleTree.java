@@ -5,12 +5,14 @@ import com.google.common.collect.PeekingIterator;
 import java.io.DataInput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -29,10 +31,13 @@ import org.apache.cassandra.utils.versioning.VersionDependent;
 import org.apache.cassandra.utils.versioning.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sun.misc.Cleaner;
 
 public class MerkleTree implements Serializable {
    public static final Versioned<RepairVerbs.RepairVersion, MerkleTree.MerkleTreeSerializer> serializers = RepairVerbs.RepairVersion.versioned(MerkleTree.MerkleTreeSerializer::new);
    private static Logger logger = LoggerFactory.getLogger(MerkleTree.class);
+   public static final boolean OFF_HEAP = Boolean.getBoolean("dse.repair.off_heap_merkle_trees");
+   private static final long OFF_HEAP_BUDGET = Long.getLong("dse.repair.off_heap_merkle_trees_budget_mb", 256L).longValue() * 1024L * 1024L;
    private static final long serialVersionUID = 2L;
    public static final byte RECOMMENDED_DEPTH = 126;
    public static final int CONSISTENT = 0;
@@ -45,6 +50,7 @@ public class MerkleTree implements Serializable {
    private long maxsize;
    private long size;
    private MerkleTree.Hashable root;
+   private MerkleTree.OffHeapNodes nodes;
 
    public MerkleTree(IPartitioner partitioner, Range<Token> range, byte hashdepth, long maxsize) {
       assert hashdepth < 127;
@@ -66,10 +72,27 @@ public class MerkleTree implements Serializable {
    public void init() {
       byte sizedepth = (byte)((int)(Math.log10((double)this.maxsize) / Math.log10(2.0D)));
       byte depth = (byte)Math.min(sizedepth, this.hashdepth);
-      this.root = this.initHelper((Token)this.fullRange.left, (Token)this.fullRange.right, (byte)0, depth);
+      MerkleTree.OffHeapNodes nodes = OFF_HEAP && MerkleTree.OffHeapNodes.fits(depth) && this.isBalanced((Token)this.fullRange.left, (Token)this.fullRange.right, (byte)0, depth)?MerkleTree.OffHeapNodes.tryAllocate(this.partitioner, depth):null;
+      if(nodes != null) {
+         this.nodes = nodes;
+         this.root = null;
+      } else {
+         this.nodes = null;
+         this.root = this.initHelper((Token)this.fullRange.left, (Token)this.fullRange.right, (byte)0, depth);
+      }
+
       this.size = (long)Math.pow(2.0D, (double)depth);
    }
 
+   private boolean isBalanced(Token left, Token right, byte depth, byte max) {
+      if(depth == max) {
+         return true;
+      } else {
+         Token midpoint = this.partitioner.midpoint(left, right);
+         return !midpoint.equals(left) && !midpoint.equals(right) && this.isBalanced(left, midpoint, inc(depth), max) && this.isBalanced(midpoint, right, inc(depth), max);
+      }
+   }
+
    private MerkleTree.Hashable initHelper(Token left, Token right, byte depth, byte max) {
       if(depth == max) {
          return new MerkleTree.Leaf();
@@ -87,7 +110,7 @@ public class MerkleTree implements Serializable {
 
    @VisibleForTesting
    public MerkleTree.Hashable root() {
-      return this.root;
+      return this.nodes != null?this.nodes.toHashable(0, (Token)this.fullRange.left, (Token)this.fullRange.right):this.root;
    }
 
    public IPartitioner partitioner() {
@@ -115,6 +138,8 @@ public class MerkleTree implements Serializable {
    public static List<MerkleTree.TreeDifference> diff(MerkleTree ltree, MerkleTree rtree) {
       if(!ltree.fullRange.equals(rtree.fullRange)) {
          throw new IllegalArgumentException("Difference only make sense on tree covering the same range (but " + ltree.fullRange + " != " + rtree.fullRange + ")");
+      } else if(ltree.nodes != null && rtree.nodes != null && ltree.nodes.depth == rtree.nodes.depth) {
+         return offHeapDiff(ltree, rtree);
       } else {
          List<MerkleTree.TreeDifference> diff = new ArrayList();
          MerkleTree.TreeDifference active = new MerkleTree.TreeDifference((Token)ltree.fullRange.left, (Token)ltree.fullRange.right, (byte)0);
@@ -217,8 +242,95 @@ public class MerkleTree implements Serializable {
       }
    }
 
+   private static List<MerkleTree.TreeDifference> offHeapDiff(MerkleTree ltree, MerkleTree rtree) {
+      List<MerkleTree.TreeDifference> diff = new ArrayList();
+      MerkleTree.OffHeapNodes lnodes = ltree.nodes;
+      MerkleTree.OffHeapNodes rnodes = rtree.nodes;
+      Token left = (Token)ltree.fullRange.left;
+      Token right = (Token)ltree.fullRange.right;
+      lnodes.calc(0);
+      rnodes.calc(0);
+      boolean resolved = lnodes.hasHash(0) && rnodes.hasHash(0);
+      if(resolved && !lnodes.hashEquals(0, rnodes)) {
+         if(!lnodes.isLeaf(0)) {
+            logger.trace("Digest mismatch detected, traversing trees [{}, {}]", ltree, rtree);
+            if(1 == offHeapDifferenceHelper(ltree, rtree, diff, left, right, 0, (byte)0)) {
+               diff.add(offHeapDifference(lnodes, rnodes, left, right, (byte)0, 0, false));
+            }
+         } else {
+            diff.add(offHeapDifference(lnodes, rnodes, left, right, (byte)0, 0, false));
+         }
+      } else if(!resolved) {
+         diff.add(offHeapDifference(lnodes, rnodes, left, right, (byte)0, 0, false));
+      }
+
+      return diff;
+   }
+
+   private static int offHeapDifferenceHelper(MerkleTree ltree, MerkleTree rtree, List<MerkleTree.TreeDifference> diff, Token left, Token right, int index, byte depth) {
+      Token midpoint = ltree.partitioner.midpoint(left, right);
+      byte childDepth = inc(depth);
+      int ldiff = offHeapChildDifference(ltree, rtree, diff, left, midpoint, MerkleTree.OffHeapNodes.left(index), childDepth);
+      int rdiff = offHeapChildDifference(ltree, rtree, diff, midpoint, right, MerkleTree.OffHeapNodes.right(index), childDepth);
+      if(ldiff == 1 && rdiff == 1) {
+         return 1;
+      } else {
+         if(ldiff == 1) {
+            diff.add(offHeapDifference(ltree.nodes, rtree.nodes, left, midpoint, childDepth, MerkleTree.OffHeapNodes.left(index), true));
+         } else if(rdiff == 1) {
+            diff.add(offHeapDifference(ltree.nodes, rtree.nodes, midpoint, right, childDepth, MerkleTree.OffHeapNodes.right(index), true));
+         }
+
+         return 2;
+      }
+   }
+
+   private static int offHeapChildDifference(MerkleTree ltree, MerkleTree rtree, List<MerkleTree.TreeDifference> diff, Token left, Token right, int index, byte depth) {
+      MerkleTree.OffHeapNodes lnodes = ltree.nodes;
+      MerkleTree.OffHeapNodes rnodes = rtree.nodes;
+      lnodes.calc(index);
+      rnodes.calc(index);
+      if(lnodes.hasHash(index) && rnodes.hasHash(index)) {
+         return lnodes.hashEquals(index, rnodes)?0:(lnodes.isLeaf(index)?1:offHeapDifferenceHelper(ltree, rtree, diff, left, right, index, depth));
+      } else {
+         return 1;
+      }
+   }
+
+   private static MerkleTree.TreeDifference offHeapDifference(MerkleTree.OffHeapNodes lnodes, MerkleTree.OffHeapNodes rnodes, Token left, Token right, byte depth, int index, boolean withRows) {
+      MerkleTree.TreeDifference difference = new MerkleTree.TreeDifference(left, right, depth);
+      difference.setSize(lnodes.sizeOfRange(index), rnodes.sizeOfRange(index));
+      if(withRows) {
+         difference.setRows(lnodes.rowsInRange(index), rnodes.rowsInRange(index));
+      }
+
+      difference.setHashes(lnodes.hash(index), rnodes.hash(index));
+      return difference;
+   }
+
    public MerkleTree.TreeRange get(Token t) {
-      return this.getHelper(this.root, (Token)this.fullRange.left, (Token)this.fullRange.right, (byte)0, t);
+      if(this.nodes == null) {
+         return this.getHelper(this.root, (Token)this.fullRange.left, (Token)this.fullRange.right, (byte)0, t);
+      } else {
+         Token pleft = (Token)this.fullRange.left;
+         Token pright = (Token)this.fullRange.right;
+         byte depth = 0;
+
+         int index;
+         Token midpoint;
+         for(index = 0; !this.nodes.isLeaf(index); depth = inc(depth)) {
+            midpoint = this.partitioner.midpoint(pleft, pright);
+            if(Range.contains(pleft, midpoint, t)) {
+               index = MerkleTree.OffHeapNodes.left(index);
+               pright = midpoint;
+            } else {
+               index = MerkleTree.OffHeapNodes.right(index);
+               pleft = midpoint;
+            }
+         }
+
+         return new MerkleTree.TreeRange(this, pleft, pright, depth, index);
+      }
    }
 
    MerkleTree.TreeRange getHelper(MerkleTree.Hashable hashable, Token pleft, Token pright, byte depth, Token t) {
@@ -238,7 +350,29 @@ public class MerkleTree implements Serializable {
    }
 
    public void invalidate(Token t) {
-      this.invalidateHelper(this.root, (Token)this.fullRange.left, t);
+      if(this.nodes == null) {
+         this.invalidateHelper(this.root, (Token)this.fullRange.left, t);
+      } else {
+         Token pleft = (Token)this.fullRange.left;
+         Token pright = (Token)this.fullRange.right;
+         int index = 0;
+
+         while(true) {
+            this.nodes.hash(index, (byte[])null);
+            if(this.nodes.isLeaf(index)) {
+               return;
+            }
+
+            Token midpoint = this.partitioner.midpoint(pleft, pright);
+            if(Range.contains(pleft, midpoint, t)) {
+               index = MerkleTree.OffHeapNodes.left(index);
+               pright = midpoint;
+            } else {
+               index = MerkleTree.OffHeapNodes.right(index);
+               pleft = midpoint;
+            }
+         }
+      }
    }
 
    private void invalidateHelper(MerkleTree.Hashable hashable, Token pleft, Token t) {
@@ -260,7 +394,7 @@ public class MerkleTree implements Serializable {
 
    private MerkleTree.Hashable find(Range<Token> range) {
       try {
-         return this.findHelper(this.root, new Range(this.fullRange.left, this.fullRange.right), range);
+         return this.nodes != null?this.findOffHeap(range):this.findHelper(this.root, new Range(this.fullRange.left, this.fullRange.right), range);
       } catch (MerkleTree.StopRecursion var3) {
          return new MerkleTree.Leaf();
       }
@@ -295,10 +429,48 @@ public class MerkleTree implements Serializable {
       }
    }
 
+   private MerkleTree.Hashable findOffHeap(Range<Token> find) throws MerkleTree.StopRecursion {
+      Token left = (Token)this.fullRange.left;
+      Token right = (Token)this.fullRange.right;
+
+      int index = 0;
+
+      while(!this.nodes.isLeaf(index)) {
+         Token midpoint = this.partitioner.midpoint(left, right);
+         if(find.contains((AbstractBounds)(new Range(left, right)))) {
+            this.nodes.calc(index);
+            return this.nodes.detached(index, midpoint);
+         }
+
+         if((new Range(left, midpoint)).contains((AbstractBounds)find)) {
+            index = MerkleTree.OffHeapNodes.left(index);
+            right = midpoint;
+         } else {
+            if(!(new Range(midpoint, right)).contains((AbstractBounds)find)) {
+               throw new MerkleTree.StopRecursion.BadRange();
+            }
+
+            index = MerkleTree.OffHeapNodes.right(index);
+            left = midpoint;
+         }
+      }
+
+      if(!find.contains((AbstractBounds)(new Range(left, right)))) {
+         throw new MerkleTree.StopRecursion.BadRange();
+      } else {
+         return this.nodes.detached(index, (Token)null);
+      }
+   }
+
    public boolean split(Token t) {
       if(this.size >= this.maxsize) {
          return false;
       } else {
+         if(this.nodes != null) {
+            this.root = this.root();
+            this.nodes = null;
+         }
+
          try {
             this.root = this.splitHelper(this.root, (Token)this.fullRange.left, (Token)this.fullRange.right, (byte)0, t);
             return true;
@@ -341,7 +513,7 @@ public class MerkleTree implements Serializable {
 
       while(var2.hasNext()) {
          MerkleTree.TreeRange range = (MerkleTree.TreeRange)var2.next();
-         histbuild.add(range.hashable.sizeOfRange);
+         histbuild.add(range.sizeOfRange());
       }
 
       return histbuild.buildWithStdevRangesAroundMean();
@@ -353,7 +525,7 @@ public class MerkleTree implements Serializable {
 
       while(var2.hasNext()) {
          MerkleTree.TreeRange range = (MerkleTree.TreeRange)var2.next();
-         histbuild.add(range.hashable.rowsInRange);
+         histbuild.add(range.rowsInRange());
       }
 
       return histbuild.buildWithStdevRangesAroundMean();
@@ -363,7 +535,7 @@ public class MerkleTree implements Serializable {
       long count = 0L;
 
       MerkleTree.TreeRange range;
-      for(Iterator var3 = (new MerkleTree.TreeRangeIterator(this)).iterator(); var3.hasNext(); count += range.hashable.rowsInRange) {
+      for(Iterator var3 = (new MerkleTree.TreeRangeIterator(this)).iterator(); var3.hasNext(); count += range.rowsInRange()) {
          range = (MerkleTree.TreeRange)var3.next();
       }
 
@@ -373,7 +545,12 @@ public class MerkleTree implements Serializable {
    public String toString() {
       StringBuilder buff = new StringBuilder();
       buff.append("#<MerkleTree root=");
-      this.root.toString(buff, 8);
+      if(this.nodes != null) {
+         this.nodes.toString(buff, 0, (Token)this.fullRange.left, (Token)this.fullRange.right, 8);
+      } else {
+         this.root.toString(buff, 8);
+      }
+
       buff.append(">");
       return buff.toString();
    }
@@ -666,19 +843,332 @@ public class MerkleTree implements Serializable {
       }
    }
 
+   static class OffHeapNodes {
+      static final int HASH_SIZE = 32;
+      private static final int SIZE_OFFSET = 0;
+      private static final int ROWS_OFFSET = 8;
+      private static final int LENGTH_OFFSET = 16;
+      private static final int HASH_OFFSET = 17;
+      private static final int NODE_SIZE = 56;
+      private final IPartitioner partitioner;
+      final byte depth;
+      private static final AtomicLong allocated = new AtomicLong();
+      private final int firstLeaf;
+      private final ByteBuffer buffer;
+
+      private OffHeapNodes(IPartitioner partitioner, byte depth, long size) {
+         this.partitioner = partitioner;
+         this.depth = depth;
+         this.firstLeaf = (1 << depth) - 1;
+         int count = 2 * this.firstLeaf + 1;
+         this.buffer = ByteBuffer.allocateDirect(count * NODE_SIZE);
+         Cleaner.create(this, () -> {
+            allocated.addAndGet(-size);
+         });
+
+         for(int i = 0; i < count; ++i) {
+            this.buffer.put(i * NODE_SIZE + LENGTH_OFFSET, (byte)-1);
+         }
+
+      }
+
+      static MerkleTree.OffHeapNodes tryAllocate(IPartitioner partitioner, byte depth) {
+         assert fits(depth);
+
+         long size = sizeOf(depth);
+
+         long current;
+         do {
+            current = allocated.get();
+            if(current + size > OFF_HEAP_BUDGET) {
+               MerkleTree.logger.debug("Off-heap merkle tree budget of {} exhausted ({} in use), building tree of depth {} on heap", new Object[]{FBUtilities.prettyPrintMemory(OFF_HEAP_BUDGET), FBUtilities.prettyPrintMemory(current), Byte.valueOf(depth)});
+               return null;
+            }
+         } while(!allocated.compareAndSet(current, current + size));
+
+         try {
+            return new MerkleTree.OffHeapNodes(partitioner, depth, size);
+         } catch (OutOfMemoryError var6) {
+            allocated.addAndGet(-size);
+            MerkleTree.logger.debug("Could not allocate off-heap merkle tree of depth {}, building it on heap", Byte.valueOf(depth), var6);
+            return null;
+         }
+      }
+
+      static boolean fits(int depth) {
+         return depth >= 0 && depth < 31 && sizeOf(depth) <= 2147483647L;
+      }
+
+      private static long sizeOf(int depth) {
+         return ((2L << depth) - 1L) * (long)NODE_SIZE;
+      }
+
+      static int left(int index) {
+         return 2 * index + 1;
+      }
+
+      static int right(int index) {
+         return 2 * index + 2;
+      }
+
+      boolean isLeaf(int index) {
+         return index >= this.firstLeaf;
+      }
+
+      private int length(int index) {
+         return this.buffer.get(index * NODE_SIZE + LENGTH_OFFSET);
+      }
+
+      boolean hasHash(int index) {
+         return this.length(index) >= 0;
+      }
+
+      byte[] hash(int index) {
+         int length = this.length(index);
+         if(length < 0) {
+            return null;
+         } else {
+            int offset = index * NODE_SIZE + HASH_OFFSET;
+            byte[] hash = new byte[length];
+
+            for(int i = 0; i < length; ++i) {
+               hash[i] = this.buffer.get(offset + i);
+            }
+
+            return hash;
+         }
+      }
+
+      void hash(int index, byte[] hash) {
+         int offset = index * NODE_SIZE;
+         if(hash == null) {
+            this.buffer.put(offset + LENGTH_OFFSET, (byte)-1);
+         } else {
+            if(hash.length > HASH_SIZE) {
+               throw new IllegalArgumentException(String.format("Off-heap merkle tree nodes hold hashes of at most %d bytes, got %d", new Object[]{Integer.valueOf(HASH_SIZE), Integer.valueOf(hash.length)}));
+            }
+
+            this.buffer.put(offset + LENGTH_OFFSET, (byte)hash.length);
+
+            for(int i = 0; i < hash.length; ++i) {
+               this.buffer.put(offset + HASH_OFFSET + i, hash[i]);
+            }
+         }
+
+      }
+
+      long sizeOfRange(int index) {
+         return this.buffer.getLong(index * NODE_SIZE + SIZE_OFFSET);
+      }
+
+      long rowsInRange(int index) {
+         return this.buffer.getLong(index * NODE_SIZE + ROWS_OFFSET);
+      }
+
+      void addHash(int index, byte[] righthash, long sizeOfRow) {
+         int offset = index * NODE_SIZE;
+         int length = this.length(index);
+         if(length < 0) {
+            this.hash(index, righthash);
+         } else {
+            if(righthash.length > HASH_SIZE) {
+               throw new IllegalArgumentException(String.format("Off-heap merkle tree nodes hold hashes of at most %d bytes, got %d", new Object[]{Integer.valueOf(HASH_SIZE), Integer.valueOf(righthash.length)}));
+            }
+
+            for(int i = 0; i < righthash.length; ++i) {
+               byte current = i < length?this.buffer.get(offset + HASH_OFFSET + i):0;
+               this.buffer.put(offset + HASH_OFFSET + i, (byte)(current ^ righthash[i]));
+            }
+
+            this.buffer.put(offset + LENGTH_OFFSET, (byte)Math.max(length, righthash.length));
+         }
+
+         this.buffer.putLong(offset + SIZE_OFFSET, this.sizeOfRange(index) + sizeOfRow);
+         this.buffer.putLong(offset + ROWS_OFFSET, this.rowsInRange(index) + 1L);
+      }
+
+      void calc(int index) {
+         if(!this.isLeaf(index) && !this.hasHash(index)) {
+            int lindex = left(index);
+            int rindex = right(index);
+            this.calc(lindex);
+            this.calc(rindex);
+            int llength = this.length(lindex);
+            int rlength = this.length(rindex);
+            int offset = index * NODE_SIZE;
+            if(llength >= 0 && rlength >= 0) {
+               int loffset = lindex * NODE_SIZE + HASH_OFFSET;
+               int roffset = rindex * NODE_SIZE + HASH_OFFSET;
+               int length = Math.max(llength, rlength);
+
+               for(int i = 0; i < length; ++i) {
+                  byte lbyte = i < llength?this.buffer.get(loffset + i):0;
+                  byte rbyte = i < rlength?this.buffer.get(roffset + i):0;
+                  this.buffer.put(offset + HASH_OFFSET + i, (byte)(lbyte ^ rbyte));
+               }
+
+               this.buffer.put(offset + LENGTH_OFFSET, (byte)length);
+            }
+
+            this.buffer.putLong(offset + SIZE_OFFSET, this.sizeOfRange(lindex) + this.sizeOfRange(rindex));
+            this.buffer.putLong(offset + ROWS_OFFSET, this.rowsInRange(lindex) + this.rowsInRange(rindex));
+         }
+
+      }
+
+      boolean hashEquals(int index, MerkleTree.OffHeapNodes other) {
+         int length = this.length(index);
+         if(length != other.length(index)) {
+            return false;
+         } else {
+            int offset = index * NODE_SIZE + HASH_OFFSET;
+
+            for(int i = 0; i < length; ++i) {
+               if(this.buffer.get(offset + i) != other.buffer.get(offset + i)) {
+                  return false;
+               }
+            }
+
+            return true;
+         }
+      }
+
+      MerkleTree.Hashable detached(int index, Token token) {
+         MerkleTree.Hashable node = (MerkleTree.Hashable)(this.isLeaf(index)?new MerkleTree.Leaf():new MerkleTree.Inner(token, (MerkleTree.Hashable)null, (MerkleTree.Hashable)null));
+         node.hash = this.hash(index);
+         node.sizeOfRange = this.sizeOfRange(index);
+         node.rowsInRange = this.rowsInRange(index);
+         return node;
+      }
+
+      MerkleTree.Hashable toHashable(int index, Token left, Token right) {
+         Object node;
+         if(this.isLeaf(index)) {
+            node = new MerkleTree.Leaf();
+         } else {
+            Token midpoint = this.partitioner.midpoint(left, right);
+            node = new MerkleTree.Inner(midpoint, this.toHashable(left(index), left, midpoint), this.toHashable(right(index), midpoint, right));
+         }
+
+         ((MerkleTree.Hashable)node).hash = this.hash(index);
+         ((MerkleTree.Hashable)node).sizeOfRange = this.sizeOfRange(index);
+         ((MerkleTree.Hashable)node).rowsInRange = this.rowsInRange(index);
+         return (MerkleTree.Hashable)node;
+      }
+
+      void toString(StringBuilder buff, int index, Token left, Token right, int maxdepth) {
+         if(this.isLeaf(index)) {
+            buff.append("#<Leaf ").append(MerkleTree.Hashable.toString(this.hash(index))).append(">");
+         } else {
+            Token midpoint = this.partitioner.midpoint(left, right);
+            buff.append("#<Inner ").append(midpoint);
+            buff.append(" hash=").append(MerkleTree.Hashable.toString(this.hash(index)));
+            buff.append(" children=[");
+            if(maxdepth < 1) {
+               buff.append("#");
+            } else {
+               this.toString(buff, left(index), left, midpoint, maxdepth - 1);
+               buff.append(" ");
+               this.toString(buff, right(index), midpoint, right, maxdepth - 1);
+            }
+
+            buff.append("]>");
+         }
+      }
+
+      void serialize(int index, Token left, Token right, DataOutputPlus out, RepairVerbs.RepairVersion version) throws IOException {
+         if(this.isLeaf(index)) {
+            out.writeByte(1);
+            int length = this.length(index);
+            out.writeByte(length);
+            if(length > 0) {
+               ByteBuffer hash = this.buffer.duplicate();
+               hash.limit(index * NODE_SIZE + HASH_OFFSET + length).position(index * NODE_SIZE + HASH_OFFSET);
+               out.write(hash);
+            }
+         } else {
+            Token midpoint = this.partitioner.midpoint(left, right);
+            out.writeByte(2);
+            Token.serializer.serialize(midpoint, out, version.boundsVersion);
+            this.serialize(left(index), left, midpoint, out, version);
+            this.serialize(right(index), midpoint, right, out, version);
+         }
+
+      }
+
+      long serializedSize(int index, Token left, Token right, RepairVerbs.RepairVersion version) {
+         if(this.isLeaf(index)) {
+            return (long)(2 + Math.max(this.length(index), 0));
+         } else {
+            Token midpoint = this.partitioner.midpoint(left, right);
+            return (long)(1 + Token.serializer.serializedSize(midpoint, version.boundsVersion)) + this.serializedSize(left(index), left, midpoint, version) + this.serializedSize(right(index), midpoint, right, version);
+         }
+      }
+
+      MerkleTree.Hashable deserialize(int index, Token left, Token right, DataInput in, RepairVerbs.RepairVersion version) throws IOException {
+         byte ident = in.readByte();
+         if(1 == ident) {
+            int hashLen = in.readByte();
+            if(this.isLeaf(index) && hashLen <= HASH_SIZE) {
+               int offset = index * NODE_SIZE;
+               this.buffer.put(offset + LENGTH_OFFSET, (byte)hashLen);
+
+               for(int i = 0; i < hashLen; ++i) {
+                  this.buffer.put(offset + HASH_OFFSET + i, in.readByte());
+               }
+
+               return null;
+            } else {
+               byte[] hash = hashLen < 0?null:new byte[hashLen];
+               if(hash != null) {
+                  in.readFully(hash);
+               }
+
+               return new MerkleTree.Leaf(hash);
+            }
+         } else if(2 == ident) {
+            Token token = Token.serializer.deserialize(in, this.partitioner, version.boundsVersion);
+            MerkleTree.Hashable lchild;
+            MerkleTree.Hashable rchild;
+            if(!this.isLeaf(index) && token.equals(this.partitioner.midpoint(left, right))) {
+               lchild = this.deserialize(left(index), left, token, in, version);
+               rchild = this.deserialize(right(index), token, right, in, version);
+               if(lchild == null && rchild == null) {
+                  return null;
+               }
+
+               if(lchild == null) {
+                  lchild = this.toHashable(left(index), left, token);
+               }
+
+               if(rchild == null) {
+                  rchild = this.toHashable(right(index), token, right);
+               }
+            } else {
+               lchild = (MerkleTree.Hashable)MerkleTree.Hashable.serializer.deserialize(in, this.partitioner, version);
+               rchild = (MerkleTree.Hashable)MerkleTree.Hashable.serializer.deserialize(in, this.partitioner, version);
+            }
+
+            return new MerkleTree.Inner(token, lchild, rchild);
+         } else {
+            throw new IOException("Unexpected Hashable: " + ident);
+         }
+      }
+   }
+
    public static class TreeRangeIterator extends AbstractIterator<MerkleTree.TreeRange> implements Iterable<MerkleTree.TreeRange>, PeekingIterator<MerkleTree.TreeRange> {
       private final ArrayDeque<MerkleTree.TreeRange> tovisit = new ArrayDeque();
       private final MerkleTree tree;
 
       TreeRangeIterator(MerkleTree tree) {
-         this.tovisit.add(new MerkleTree.TreeRange(tree, (Token)tree.fullRange.left, (Token)tree.fullRange.right, (byte)0, tree.root));
+         this.tovisit.add(tree.nodes != null?new MerkleTree.TreeRange(tree, (Token)tree.fullRange.left, (Token)tree.fullRange.right, (byte)0, 0):new MerkleTree.TreeRange(tree, (Token)tree.fullRange.left, (Token)tree.fullRange.right, (byte)0, tree.root));
          this.tree = tree;
       }
 
       public MerkleTree.TreeRange computeNext() {
          while(!this.tovisit.isEmpty()) {
             MerkleTree.TreeRange active = (MerkleTree.TreeRange)this.tovisit.pop();
-            if(active.hashable instanceof MerkleTree.Leaf) {
+            if(active.isLeaf()) {
                if(active.isWrapAround() && !this.tovisit.isEmpty()) {
                   this.tovisit.addLast(active);
                }
@@ -686,9 +1176,18 @@ public class MerkleTree implements Serializable {
                return active;
             }
 
-            MerkleTree.Inner node = (MerkleTree.Inner)active.hashable;
-            MerkleTree.TreeRange left = new MerkleTree.TreeRange(this.tree, (Token)active.left, node.token, MerkleTree.inc(active.depth), node.lchild);
-            MerkleTree.TreeRange right = new MerkleTree.TreeRange(this.tree, node.token, (Token)active.right, MerkleTree.inc(active.depth), node.rchild);
+            MerkleTree.TreeRange left;
+            MerkleTree.TreeRange right;
+            if(active.hashable == null) {
+               Token midpoint = this.tree.partitioner.midpoint((Token)active.left, (Token)active.right);
+               left = new MerkleTree.TreeRange(this.tree, (Token)active.left, midpoint, MerkleTree.inc(active.depth), MerkleTree.OffHeapNodes.left(active.index));
+               right = new MerkleTree.TreeRange(this.tree, midpoint, (Token)active.right, MerkleTree.inc(active.depth), MerkleTree.OffHeapNodes.right(active.index));
+            } else {
+               MerkleTree.Inner node = (MerkleTree.Inner)active.hashable;
+               left = new MerkleTree.TreeRange(this.tree, (Token)active.left, node.token, MerkleTree.inc(active.depth), node.lchild);
+               right = new MerkleTree.TreeRange(this.tree, node.token, (Token)active.right, MerkleTree.inc(active.depth), node.rchild);
+            }
+
             if(right.isWrapAround()) {
                this.tovisit.addLast(left);
                this.tovisit.addFirst(right);
@@ -711,38 +1210,74 @@ public class MerkleTree implements Serializable {
       protected final MerkleTree tree;
       public final byte depth;
       private final MerkleTree.Hashable hashable;
+      private final int index;
 
       TreeRange(MerkleTree tree, Token left, Token right, byte depth, MerkleTree.Hashable hashable) {
          super(left, right);
          this.tree = tree;
          this.depth = depth;
          this.hashable = hashable;
+         this.index = -1;
+      }
+
+      TreeRange(MerkleTree tree, Token left, Token right, byte depth, int index) {
+         super(left, right);
+         this.tree = tree;
+         this.depth = depth;
+         this.hashable = null;
+         this.index = index;
+      }
+
+      boolean isLeaf() {
+         return this.hashable == null?this.tree.nodes.isLeaf(this.index):this.hashable instanceof MerkleTree.Leaf;
+      }
+
+      long sizeOfRange() {
+         return this.hashable == null?this.tree.nodes.sizeOfRange(this.index):this.hashable.sizeOfRange;
+      }
+
+      long rowsInRange() {
+         return this.hashable == null?this.tree.nodes.rowsInRange(this.index):this.hashable.rowsInRange;
       }
 
       public void hash(byte[] hash) {
          assert this.tree != null : "Not intended for modification!";
 
-         this.hashable.hash(hash);
+         if(this.hashable == null) {
+            this.tree.nodes.hash(this.index, hash);
+         } else {
+            this.hashable.hash(hash);
+         }
+
       }
 
       public byte[] hash() {
-         return this.hashable.hash();
+         return this.hashable == null?this.tree.nodes.hash(this.index):this.hashable.hash();
       }
 
       public void addHash(MerkleTree.RowHash entry) {
          assert this.tree != null : "Not intended for modification!";
 
-         assert this.hashable instanceof MerkleTree.Leaf;
+         assert this.isLeaf();
+
+         if(this.hashable == null) {
+            this.tree.nodes.addHash(this.index, entry.hash, entry.size);
+         } else {
+            this.hashable.addHash(entry.hash, entry.size);
+         }
 
-         this.hashable.addHash(entry.hash, entry.size);
       }
 
       public void ensureHashInitialised() {
          assert this.tree != null : "Not intended for modification!";
 
-         assert this.hashable instanceof MerkleTree.Leaf;
+         assert this.isLeaf();
 
-         if(this.hashable.hash == null) {
+         if(this.hashable == null) {
+            if(!this.tree.nodes.hasHash(this.index)) {
+               this.tree.nodes.hash(this.index, MerkleTree.EMPTY_HASH);
+            }
+         } else if(this.hashable.hash == null) {
             this.hashable.hash = MerkleTree.EMPTY_HASH;
          }
 
@@ -831,7 +1366,12 @@ public class MerkleTree implements Serializable {
          out.writeUTF(mt.partitioner.getClass().getCanonicalName());
          Token.serializer.serialize((Token)mt.fullRange.left, out, ((RepairVerbs.RepairVersion)this.version).boundsVersion);
          Token.serializer.serialize((Token)mt.fullRange.right, out, ((RepairVerbs.RepairVersion)this.version).boundsVersion);
-         MerkleTree.Hashable.serializer.serialize(mt.root, out, this.version);
+         if(mt.nodes != null) {
+            mt.nodes.serialize(0, (Token)mt.fullRange.left, (Token)mt.fullRange.right, out, (RepairVerbs.RepairVersion)this.version);
+         } else {
+            MerkleTree.Hashable.serializer.serialize(mt.root, out, this.version);
+         }
+
       }
 
       public MerkleTree deserialize(DataInputPlus in) throws IOException {
@@ -851,7 +1391,17 @@ public class MerkleTree implements Serializable {
          Range<Token> fullRange = new Range(left, right);
          MerkleTree mt = new MerkleTree(partitioner, fullRange, hashdepth, maxsize);
          mt.size = size;
-         mt.root = (MerkleTree.Hashable)MerkleTree.Hashable.serializer.deserialize(in, partitioner, this.version);
+         int depth = 63 - Long.numberOfLeadingZeros(size);
+         mt.nodes = MerkleTree.OFF_HEAP && size > 0L && Long.bitCount(size) == 1 && MerkleTree.OffHeapNodes.fits(depth)?MerkleTree.OffHeapNodes.tryAllocate(partitioner, (byte)depth):null;
+         if(mt.nodes != null) {
+            mt.root = mt.nodes.deserialize(0, left, right, in, (RepairVerbs.RepairVersion)this.version);
+            if(mt.root != null) {
+               mt.nodes = null;
+            }
+         } else {
+            mt.root = (MerkleTree.Hashable)MerkleTree.Hashable.serializer.deserialize(in, partitioner, this.version);
+         }
+
          return mt;
       }
 
@@ -859,7 +1409,7 @@ public class MerkleTree implements Serializable {
          long size = (long)(1 + TypeSizes.sizeof(mt.maxsize) + TypeSizes.sizeof(mt.size) + TypeSizes.sizeof(mt.partitioner.getClass().getCanonicalName()));
          size += (long)Token.serializer.serializedSize((Token)mt.fullRange.left, ((RepairVerbs.RepairVersion)this.version).boundsVersion);
          size += (long)Token.serializer.serializedSize((Token)mt.fullRange.right, ((RepairVerbs.RepairVersion)this.version).boundsVersion);
-         size += (long)MerkleTree.Hashable.serializer.serializedSize(mt.root, this.version);
+         size += mt.nodes != null?mt.nodes.serializedSize(0, (Token)mt.fullRange.left, (Token)mt.fullRange.right, (RepairVerbs.RepairVersion)this.version):(long)MerkleTree.Hashable.serializer.serializedSize(mt.root, this.version);
          return size;
       }
    }
@@ -2,6 +2,7 @@ package org.apache.cassandra.utils.memory;
 
 import com.google.common.annotations.VisibleForTesting;
 import io.netty.util.concurrent.FastThreadLocal;
+import java.io.File;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.nio.ByteBuffer;
@@ -14,6 +15,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.concurrent.TPCThread;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.io.compress.BufferType;
 import org.apache.cassandra.io.util.FileUtils;
@@ -36,6 +38,8 @@ public class BufferPool {
    @VisibleForTesting
    public static boolean DEBUG = false;
    private static final Logger logger = LoggerFactory.getLogger(BufferPool.class);
+   public static final boolean NUMA_AWARE = Boolean.parseBoolean(System.getProperty("dse.buffer_pool.numa_aware", "false"));
+   private static final int NUMA_NODES;
    private static final NoSpamLogger noSpamLogger;
    private static final ByteBuffer EMPTY_BUFFER;
    private static final BufferPool.GlobalPool globalPool;
@@ -92,6 +96,7 @@ public class BufferPool {
       } else {
          ByteBuffer buf;
          if(size > 65536) {
+            metrics.overflowAllocations.mark();
             if(logger.isTraceEnabled()) {
                logger.trace("Requested buffer size {} is bigger than {}, allocating directly", FBUtilities.prettyPrintMemory((long)size), FBUtilities.prettyPrintMemory(65536L));
             }
@@ -160,6 +165,45 @@ public class BufferPool {
       return globalPool.sizeInBytesOverLimit();
    }
 
+   public static long freeSizeInBytes() {
+      return globalPool.freeSizeInBytes();
+   }
+
+   public static double fragmentation() {
+      long size = globalPool.sizeInBytes();
+      return size == 0L?0.0D:(double)Math.max(0L, size - globalPool.usedSizeInBytes() - globalPool.freeSizeInBytes()) / (double)size;
+   }
+
+   public static int numaNodes() {
+      return NUMA_NODES;
+   }
+
+   private static int detectNumaNodes() {
+      String configured = System.getProperty("dse.buffer_pool.numa_nodes");
+      if(configured != null) {
+         return Math.max(1, Integer.parseInt(configured));
+      } else {
+         File[] nodes = (new File("/sys/devices/system/node")).listFiles((dir, name) -> {
+            return name.matches("node[0-9]+");
+         });
+         return nodes != null && nodes.length != 0?nodes.length:1;
+      }
+   }
+
+   static int nodeForCurrentThread() {
+      if(NUMA_NODES == 1) {
+         return 0;
+      } else {
+         Thread thread = Thread.currentThread();
+         if(thread instanceof TPCThread) {
+            int cores = Math.max(1, DatabaseDescriptor.getTPCCores());
+            return Math.min(NUMA_NODES - 1, ((TPCThread)thread).coreId() * NUMA_NODES / cores);
+         } else {
+            return (int)(thread.getId() % (long)NUMA_NODES);
+         }
+      }
+   }
+
    @VisibleForTesting
    public static int roundUpNormal(int size) {
       return roundUp(size, 1024);
@@ -172,6 +216,7 @@ public class BufferPool {
 
    static {
       noSpamLogger = NoSpamLogger.getLogger(logger, 15L, TimeUnit.MINUTES);
+      NUMA_NODES = NUMA_AWARE?detectNumaNodes():1;
       EMPTY_BUFFER = ByteBuffer.allocateDirect(0);
       globalPool = new BufferPool.GlobalPool();
       metrics = new BufferPoolMetrics();
@@ -207,6 +252,7 @@ public class BufferPool {
       private volatile BufferPool.LocalPool owner;
       private long lastRecycled;
       private final BufferPool.Chunk original;
+      private final int node;
 
       Chunk(BufferPool.Chunk recycle) {
          assert recycle.freeSlots == 0L;
@@ -216,6 +262,7 @@ public class BufferPool {
          this.shift = recycle.shift;
          this.freeSlots = -1L;
          this.original = recycle.original;
+         this.node = recycle.node;
          if(BufferPool.DEBUG) {
             BufferPool.globalPool.debug.recycle(this.original);
          }
@@ -223,6 +270,10 @@ public class BufferPool {
       }
 
       Chunk(ByteBuffer slab) {
+         this(slab, 0);
+      }
+
+      Chunk(ByteBuffer slab, int node) {
          assert !slab.hasArray();
 
          this.slab = slab;
@@ -230,6 +281,11 @@ public class BufferPool {
          this.shift = 31 & Integer.numberOfTrailingZeros(slab.capacity() / 64);
          this.freeSlots = slab.capacity() == 0?0L:-1L;
          this.original = BufferPool.DEBUG?this:null;
+         this.node = node;
+      }
+
+      int node() {
+         return this.node;
       }
 
       void acquire(BufferPool.LocalPool owner) {
@@ -420,16 +476,18 @@ public class BufferPool {
 
    static final class LocalPool {
       private final BufferPool.Chunk[] chunks;
+      private final int node;
       private byte chunkCount;
 
       private LocalPool() {
          this.chunks = new BufferPool.Chunk[3];
+         this.node = BufferPool.nodeForCurrentThread();
          this.chunkCount = 0;
          BufferPool.localPoolReferences.add(new BufferPool.LocalPoolRef(this, BufferPool.localPoolRefQueue));
       }
 
       private BufferPool.Chunk addChunkFromGlobalPool() {
-         BufferPool.Chunk chunk = BufferPool.globalPool.get();
+         BufferPool.Chunk chunk = BufferPool.globalPool.get(this.node);
          if(chunk == null) {
             return null;
          } else {
@@ -540,30 +598,64 @@ public class BufferPool {
       static final int MACRO_CHUNK_SIZE = 1048576;
       private final BufferPool.Debug debug;
       private final Queue<BufferPool.Chunk> macroChunks;
-      private final Queue<BufferPool.Chunk> chunks;
+      private final Queue<BufferPool.Chunk>[] chunks;
       private final AtomicLong memoryUsage;
       private final AtomicLong activeMemoryUsage;
+      private final AtomicLong freeChunks;
 
       private GlobalPool() {
          this.debug = new BufferPool.Debug();
          this.macroChunks = new ConcurrentLinkedQueue();
-         this.chunks = new ConcurrentLinkedQueue();
+         this.chunks = new Queue[BufferPool.NUMA_NODES];
+
+         for(int i = 0; i < this.chunks.length; ++i) {
+            this.chunks[i] = new ConcurrentLinkedQueue();
+         }
+
          this.memoryUsage = new AtomicLong();
          this.activeMemoryUsage = new AtomicLong();
+         this.freeChunks = new AtomicLong();
       }
 
       public BufferPool.Chunk get() {
+         return this.get(BufferPool.nodeForCurrentThread());
+      }
+
+      public BufferPool.Chunk get(int node) {
+         BufferPool.Chunk chunk;
          do {
-            BufferPool.Chunk chunk = (BufferPool.Chunk)this.chunks.poll();
+            chunk = this.poll(node);
             if(chunk != null) {
                return chunk;
             }
-         } while(this.allocateMoreChunks());
+         } while(this.allocateMoreChunks(node));
+
+         chunk = this.poll(node);
+         if(chunk != null) {
+            return chunk;
+         } else {
+            for(int i = 1; i < this.chunks.length; ++i) {
+               chunk = this.poll((node + i) % this.chunks.length);
+               if(chunk != null) {
+                  BufferPool.metrics.crossNodeAllocations.mark();
+                  return chunk;
+               }
+            }
+
+            return null;
+         }
+      }
+
+      private BufferPool.Chunk poll(int node) {
+         BufferPool.Chunk chunk = (BufferPool.Chunk)this.chunks[node].poll();
+         if(chunk != null) {
+            this.freeChunks.decrementAndGet();
+         }
 
-         return (BufferPool.Chunk)this.chunks.poll();
+         return chunk;
       }
 
-      private boolean allocateMoreChunks() {
+      private boolean allocateMoreChunks(int node) {
          long cur;
          do {
             cur = this.memoryUsage.get();
@@ -575,7 +667,7 @@ public class BufferPool {
 
          BufferPool.Chunk chunk;
          try {
-            chunk = new BufferPool.Chunk(BufferType.OFF_HEAP_ALIGNED.allocate(1048576));
+            chunk = new BufferPool.Chunk(BufferType.OFF_HEAP_ALIGNED.allocate(1048576), node);
          } catch (OutOfMemoryError var4) {
             BufferPool.noSpamLogger.error("Buffer pool failed to allocate chunk of {}, current size {} ({}). Attempting to continue; buffers will be allocated in on-heap memory which can degrade performance. Make sure direct memory size (-XX:MaxDirectMemorySize) is large enough to accommodate off-heap memtables and caches.", new Object[]{Integer.valueOf(1048576), Long.valueOf(this.sizeInBytes()), var4.toString()});
             return false;
@@ -585,8 +677,9 @@ public class BufferPool {
          this.macroChunks.add(chunk);
 
          for(int i = 0; i < 1048576; i += 65536) {
-            BufferPool.Chunk add = new BufferPool.Chunk(chunk.get(65536));
-            this.chunks.add(add);
+            BufferPool.Chunk add = new BufferPool.Chunk(chunk.get(65536), node);
+            this.chunks[node].add(add);
+            this.freeChunks.incrementAndGet();
             if(BufferPool.DEBUG) {
                this.debug.register(add);
             }
@@ -596,7 +689,12 @@ public class BufferPool {
       }
 
       public void recycle(BufferPool.Chunk chunk) {
-         this.chunks.add(chunk);
+         this.chunks[chunk.node()].add(chunk);
+         this.freeChunks.incrementAndGet();
+      }
+
+      public long freeSizeInBytes() {
+         return this.freeChunks.get() * 65536L;
       }
 
       public long sizeInBytes() {
@@ -613,10 +711,14 @@ public class BufferPool {
 
       @VisibleForTesting
       void reset() {
-         while(!this.chunks.isEmpty()) {
-            ((BufferPool.Chunk)this.chunks.poll()).reset();
+         for(int i = 0; i < this.chunks.length; ++i) {
+            while(!this.chunks[i].isEmpty()) {
+               ((BufferPool.Chunk)this.chunks[i].poll()).reset();
+            }
          }
 
+         this.freeChunks.set(0L);
+
          while(!this.macroChunks.isEmpty()) {
             ((BufferPool.Chunk)this.macroChunks.poll()).reset();
          }
@@ -633,7 +735,7 @@ public class BufferPool {
          if(BufferPool.DISABLED) {
             BufferPool.logger.info("Global buffer pool is disabled, allocating {}", "off heap");
          } else {
-            BufferPool.logger.info("Global buffer pool is enabled, when pool is exhausted (max is {}) it will allocate {}", FBUtilities.prettyPrintMemory(BufferPool.MEMORY_USAGE_THRESHOLD), "off heap");
+            BufferPool.logger.info("Global buffer pool is enabled, when pool is exhausted (max is {}) it will allocate {}, NUMA nodes: {}", new Object[]{FBUtilities.prettyPrintMemory(BufferPool.MEMORY_USAGE_THRESHOLD), "off heap", Integer.valueOf(BufferPool.NUMA_NODES)});
          }
 
       }
@@ -7,6 +7,7 @@ import io.reactivex.disposables.Disposable;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -44,23 +45,30 @@ public abstract class MemtableAllocator {
         return this.offHeap;
     }
 
-    public <T> Single<T> whenBelowLimits(final Callable<Single<T>> singleCallable, final OpOrder.Group opGroup, final StagedScheduler observeOnScheduler, final TPCTaskType nextTaskType) {
+    public <T> Single<T> whenBelowLimits(Callable<Single<T>> singleCallable, OpOrder.Group opGroup, StagedScheduler observeOnScheduler, TPCTaskType nextTaskType) {
+        return this.whenBelowLimits(singleCallable, opGroup, observeOnScheduler, nextTaskType, (Timer) null);
+    }
+
+    public <T> Single<T> whenBelowLimits(final Callable<Single<T>> singleCallable, final OpOrder.Group opGroup, final StagedScheduler observeOnScheduler, final TPCTaskType nextTaskType, final Timer stallTimer) {
         return new Single<T>() {
             protected void subscribeActual(final SingleObserver<? super T> subscriber) {
                 class WhenBelowLimits implements Disposable {
                     final AtomicReference<TPCRunnable> task = new AtomicReference((Object) null);
                     final Timer.Context timerContext;
+                    final long blockedSince;
 
                     WhenBelowLimits() {
                         CompletableFuture<Void> releaseFuture = MemtableAllocator.this.onHeap.parent.releaseFuture();
                         if (!opGroup.isBlocking() && (!MemtableAllocator.this.onHeap.parent.belowLimit() || !MemtableAllocator.this.offHeap.parent.belowLimit())) {
                             this.timerContext = MemtableAllocator.this.onHeap.parent.blockedTimerContext();
+                            this.blockedSince = System.nanoTime();
                             this.task.set(TPCRunnable.wrap(this::subscribeChild, ExecutorLocals.create(), TPCTaskType.WRITE_POST_MEMTABLE_FULL, observeOnScheduler));
                             opGroup.whenBlocking().thenRun(this::complete);
                             releaseFuture.thenRun(this::onRelease);
                         } else {
                             observeOnScheduler.execute(this::subscribeChild, nextTaskType);
                             this.timerContext = null;
+                            this.blockedSince = 0L;
                         }
                     }
 
@@ -76,10 +84,18 @@ public abstract class MemtableAllocator {
                         child.subscribe(subscriber);
                     }
 
+                    void unblocked() {
+                        this.timerContext.close();
+                        if (stallTimer != null) {
+                            stallTimer.update(System.nanoTime() - this.blockedSince, TimeUnit.NANOSECONDS);
+                        }
+
+                    }
+
                     public void dispose() {
                         TPCRunnable prev = (TPCRunnable) this.task.getAndSet(null);
                         if (prev != null) {
-                            this.timerContext.close();
+                            this.unblocked();
                             prev.cancelled();
                         }
 
@@ -92,7 +108,7 @@ public abstract class MemtableAllocator {
                     public void complete() {
                         TPCRunnable prev = (TPCRunnable) this.task.getAndSet(null);
                         if (prev != null) {
-                            this.timerContext.close();
+                            this.unblocked();
 
                             try {
                                 observeOnScheduler.execute(prev);